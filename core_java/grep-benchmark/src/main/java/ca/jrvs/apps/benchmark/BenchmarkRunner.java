@@ -0,0 +1,43 @@
+package ca.jrvs.apps.benchmark;
+
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner is the entry point of benchmarks.jar. It accepts the regular JMH command line
+ * and always adds the GC profiler, so every result comes with its allocation rate
+ * ({@code gc.alloc.rate} and {@code gc.alloc.rate.norm}, bytes per operation).
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  /**
+   * Runs the benchmarks selected by the command line.
+   *
+   * @param args JMH command line arguments, e.g. {@code ProcessBenchmark -p engine=JavaGrepImp}.
+   * @throws CommandLineOptionException if the arguments are invalid.
+   * @throws RunnerException if a benchmark fails.
+   * @throws IOException if the benchmark list cannot be read.
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException,
+      IOException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp() || commandLine.shouldList()
+        || commandLine.shouldListWithParams() || commandLine.shouldListProfilers()
+        || commandLine.shouldListResultFormats()) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    new Runner(new OptionsBuilder()
+        .parent(commandLine)
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
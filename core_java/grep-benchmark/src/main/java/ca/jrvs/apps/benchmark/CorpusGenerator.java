@@ -0,0 +1,208 @@
+package ca.jrvs.apps.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * CorpusGenerator writes a synthetic, deterministic tree of log-like text files for the grep
+ * benchmarks. The same parameters and seed always produce byte-identical files, so results from
+ * different runs and machines are comparable.
+ *
+ * <p>Files are spread over subdirectories of at most {@link #FILES_PER_DIRECTORY} files. Each line
+ * is a sequence of pseudo-random words of about the requested length (plus or minus a quarter),
+ * and a {@code matchDensity} fraction of the lines contains {@link #NEEDLE} followed by digits.
+ */
+public final class CorpusGenerator {
+
+  /**
+   * The word planted in matching lines.
+   */
+  public static final String NEEDLE = "needle";
+
+  /**
+   * Maximum number of files per generated subdirectory.
+   */
+  public static final int FILES_PER_DIRECTORY = 32;
+
+  private static final String[] WORDS = {
+      "info", "debug", "request", "served", "user", "session", "cache", "miss", "hit", "db",
+      "query", "took", "ms", "GET", "POST", "/api/v1/orders", "status", "200", "404", "retry",
+      "worker", "thread", "pool", "queue", "latency", "bytes", "sent", "received", "timeout",
+      "connection", "closed", "opened", "commit", "rollback", "shard", "replica", "lag"};
+
+  private final int fileCount;
+  private final long fileSize;
+  private final int lineLength;
+  private final double matchDensity;
+  private final long seed;
+
+  /**
+   * Creates a generator.
+   *
+   * @param fileCount the number of files.
+   * @param fileSize the approximate size of each file in bytes.
+   * @param lineLength the average line length in chars.
+   * @param matchDensity the fraction of lines that contain the needle, 0 to 1.
+   * @param seed the random seed.
+   */
+  public CorpusGenerator(int fileCount, long fileSize, int lineLength, double matchDensity,
+      long seed) {
+    if (fileCount < 1 || fileSize < 1 || lineLength < 8 || matchDensity < 0
+        || matchDensity > 1) {
+      throw new IllegalArgumentException("Invalid corpus parameters");
+    }
+    this.fileCount = fileCount;
+    this.fileSize = fileSize;
+    this.lineLength = lineLength;
+    this.matchDensity = matchDensity;
+    this.seed = seed;
+  }
+
+  /**
+   * Writes the corpus under the specified root directory.
+   *
+   * @param root the root directory; created if missing.
+   * @return a description of the written corpus.
+   * @throws IOException if a file cannot be written.
+   */
+  public Corpus generate(Path root) throws IOException {
+    List<File> files = new ArrayList<>(this.fileCount);
+    long totalBytes = 0;
+    long lines = 0;
+    long matchingLines = 0;
+    StringBuilder line = new StringBuilder(this.lineLength * 2);
+
+    for (int i = 0; i < this.fileCount; i++) {
+      Path directory = root.resolve(String.format("d%03d", i / FILES_PER_DIRECTORY));
+      Files.createDirectories(directory);
+      Path file = directory.resolve(String.format("f%05d.log", i));
+      Random random = new Random(this.seed * 31 + i);
+
+      long written = 0;
+      try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        while (written < this.fileSize) {
+          line.setLength(0);
+          int target = this.lineLength * 3 / 4 + random.nextInt(this.lineLength / 2 + 1);
+          boolean match = random.nextDouble() < this.matchDensity;
+          int needleAt = match ? random.nextInt(target) : -1;
+          while (line.length() < target) {
+            if (needleAt >= 0 && line.length() >= needleAt) {
+              line.append(NEEDLE).append(random.nextInt(1000)).append(' ');
+              needleAt = -1;
+            }
+            line.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+          }
+          line.setLength(line.length() - 1);
+          line.append('\n');
+          writer.append(line);
+          written += line.length();
+          lines++;
+          if (match) {
+            matchingLines++;
+          }
+        }
+      }
+      totalBytes += written;
+      files.add(file.toFile());
+    }
+    return new Corpus(root, files, totalBytes, lines, matchingLines);
+  }
+
+  /**
+   * Deletes a generated corpus, or any other directory tree.
+   *
+   * @param root the root directory.
+   * @throws IOException if a file cannot be deleted.
+   */
+  public static void delete(Path root) throws IOException {
+    if (!Files.exists(root)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(root)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  /**
+   * A generated corpus.
+   */
+  public static final class Corpus {
+
+    private final Path root;
+    private final List<File> files;
+    private final long totalBytes;
+    private final long lines;
+    private final long matchingLines;
+
+    Corpus(Path root, List<File> files, long totalBytes, long lines, long matchingLines) {
+      this.root = root;
+      this.files = Collections.unmodifiableList(files);
+      this.totalBytes = totalBytes;
+      this.lines = lines;
+      this.matchingLines = matchingLines;
+    }
+
+    /**
+     * Get the root directory.
+     *
+     * @return the root.
+     */
+    public Path getRoot() {
+      return this.root;
+    }
+
+    /**
+     * Get the generated files in listFiles order.
+     *
+     * @return the files.
+     */
+    public List<File> getFiles() {
+      return this.files;
+    }
+
+    /**
+     * Get the total size of all files.
+     *
+     * @return the size in bytes.
+     */
+    public long getTotalBytes() {
+      return this.totalBytes;
+    }
+
+    /**
+     * Get the total number of lines.
+     *
+     * @return the line count.
+     */
+    public long getLines() {
+      return this.lines;
+    }
+
+    /**
+     * Get the number of lines that contain the needle.
+     *
+     * @return the matching line count.
+     */
+    public long getMatchingLines() {
+      return this.matchingLines;
+    }
+
+    @Override
+    public String toString() {
+      return "Corpus[" + this.files.size() + " files, " + this.totalBytes + " bytes, "
+          + this.lines + " lines, " + this.matchingLines + " matching]";
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package ca.jrvs.apps.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Shared JMH state holding one generated corpus per parameter combination. The corpus is written
+ * once per trial into a temp directory and deleted afterwards. Override the parameters with
+ * {@code -p}, e.g. {@code -p fileCount=1000 -p fileSizeKb=16}.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+
+  /**
+   * Regex whose matches are exactly the lines the generator plants the needle in.
+   */
+  public static final String REGEX = ".*" + CorpusGenerator.NEEDLE + "[0-9]+.*";
+
+  @Param({"64"})
+  public int fileCount;
+
+  @Param({"256"})
+  public int fileSizeKb;
+
+  @Param({"80", "400"})
+  public int lineLength;
+
+  @Param({"0.001", "0.05"})
+  public double matchDensity;
+
+  @Param({"42"})
+  public long seed;
+
+  public CorpusGenerator.Corpus corpus;
+
+  /**
+   * Generates the corpus for the current parameters.
+   *
+   * @throws IOException if the corpus cannot be written.
+   */
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    CorpusGenerator generator = new CorpusGenerator(this.fileCount, this.fileSizeKb * 1024L,
+        this.lineLength, this.matchDensity, this.seed);
+    this.corpus = generator.generate(Files.createTempDirectory("grep-corpus"));
+  }
+
+  /**
+   * Deletes the corpus.
+   *
+   * @throws IOException if a file cannot be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    CorpusGenerator.delete(this.corpus.getRoot());
+  }
+}
@@ -0,0 +1,151 @@
+package ca.jrvs.apps.benchmark;
+
+import ca.jrvs.apps.JavaGrepImp;
+import ca.jrvs.apps.StreamJavaGrepImp;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * GrepBenchmark measures the individual steps of a search, listFiles, readLines and
+ * containsPattern, for both {@link JavaGrepImp} and {@link StreamJavaGrepImp} over a generated
+ * corpus. The readLines and containsPattern benchmarks also report MB/s and lines/s through
+ * {@link ThroughputCounters}; bufferedReaderReadLines is the InputStreamReader baseline for the
+ * byte-level line reader that readLines uses.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GrepBenchmark {
+
+  private JavaGrepImp javaGrep;
+  private StreamJavaGrepImp streamGrep;
+  private String rootPath;
+  private List<String> lines;
+  private long lineBytes;
+
+  /**
+   * Creates the engines and preloads every line of the corpus for containsPattern.
+   *
+   * @param state the corpus.
+   * @throws IOException if the corpus cannot be read.
+   */
+  @Setup(Level.Trial)
+  public void setup(CorpusState state) throws IOException {
+    this.rootPath = state.corpus.getRoot().toString();
+    this.javaGrep = new JavaGrepImp();
+    this.javaGrep.setRegex(CorpusState.REGEX);
+    this.javaGrep.setRootPath(this.rootPath);
+    this.javaGrep.setCharset(StandardCharsets.UTF_8);
+    this.streamGrep = new StreamJavaGrepImp();
+    this.streamGrep.setRegex(CorpusState.REGEX);
+    this.streamGrep.setRootPath(this.rootPath);
+    this.streamGrep.setCharset(StandardCharsets.UTF_8);
+
+    this.lines = new ArrayList<>();
+    this.lineBytes = 0;
+    for (File file : state.corpus.getFiles()) {
+      for (String line : this.javaGrep.readLines(file)) {
+        this.lines.add(line);
+        this.lineBytes += line.length() + 1;
+      }
+    }
+  }
+
+  @Benchmark
+  public List<File> listFiles() {
+    return this.javaGrep.listFiles(this.rootPath);
+  }
+
+  @Benchmark
+  public long streamListFiles() {
+    try (Stream<File> files = this.streamGrep.listFiles(this.rootPath)) {
+      return files.count();
+    }
+  }
+
+  @Benchmark
+  public void readLines(CorpusState state, ThroughputCounters counters, Blackhole blackhole)
+      throws IOException {
+    for (File file : state.corpus.getFiles()) {
+      this.javaGrep.readLines(file, line -> {
+        blackhole.consume(line);
+        return true;
+      });
+    }
+    counters.add(state.corpus.getTotalBytes(), state.corpus.getLines());
+  }
+
+  @Benchmark
+  public void bufferedReaderReadLines(CorpusState state, ThroughputCounters counters,
+      Blackhole blackhole) throws IOException {
+    for (File file : state.corpus.getFiles()) {
+      try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8),
+          this.javaGrep.getBufferSize())) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          blackhole.consume(line);
+        }
+      }
+    }
+    counters.add(state.corpus.getTotalBytes(), state.corpus.getLines());
+  }
+
+  @Benchmark
+  public void streamReadLines(CorpusState state, ThroughputCounters counters,
+      Blackhole blackhole) {
+    for (File file : state.corpus.getFiles()) {
+      try (Stream<String> lines = this.streamGrep.readLines(file)) {
+        lines.forEach(blackhole::consume);
+      }
+    }
+    counters.add(state.corpus.getTotalBytes(), state.corpus.getLines());
+  }
+
+  @Benchmark
+  public long containsPattern(ThroughputCounters counters) {
+    long matches = 0;
+    for (String line : this.lines) {
+      if (this.javaGrep.containsPattern(line)) {
+        matches++;
+      }
+    }
+    counters.add(this.lineBytes, this.lines.size());
+    return matches;
+  }
+
+  @Benchmark
+  public long streamContainsPattern(ThroughputCounters counters) {
+    long matches = 0;
+    for (String line : this.lines) {
+      if (this.streamGrep.containsPattern(line)) {
+        matches++;
+      }
+    }
+    counters.add(this.lineBytes, this.lines.size());
+    return matches;
+  }
+}
@@ -0,0 +1,100 @@
+package ca.jrvs.apps.benchmark;
+
+import ca.jrvs.apps.DfaMatcherProvider;
+import ca.jrvs.apps.JavaGrepImp;
+import ca.jrvs.apps.LineMatcher;
+import ca.jrvs.apps.LineMatcherProvider;
+import ca.jrvs.apps.RegexMatcherProvider;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MatcherBenchmark compares the regex engines behind {@link LineMatcher}, without the literal
+ * prefilter: {@code java.util.regex} and the linear-time DFA. {@code corpus} matches every line of
+ * the generated corpus; {@code backtracking} matches one line of {@code backtrackingLength} chars
+ * against {@code (\w+\s?)+$}, which takes exponential time to fail in a backtracking engine.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatcherBenchmark {
+
+  private static final String BACKTRACKING_REGEX = "(\\w+\\s?)+$";
+
+  @Param({RegexMatcherProvider.NAME, DfaMatcherProvider.NAME})
+  public String matcher;
+
+  @Param({"20"})
+  public int backtrackingLength;
+
+  private LineMatcher corpusMatcher;
+  private LineMatcher backtrackingMatcher;
+  private String backtrackingLine;
+  private List<String> lines;
+  private long lineBytes;
+
+  /**
+   * Compiles the regexes with the selected engine and preloads every line of the corpus.
+   *
+   * @param state the corpus.
+   * @throws IOException if the corpus cannot be read.
+   */
+  @Setup(Level.Trial)
+  public void setup(CorpusState state) throws IOException {
+    LineMatcherProvider provider = DfaMatcherProvider.NAME.equals(this.matcher)
+        ? new DfaMatcherProvider()
+        : new RegexMatcherProvider();
+    this.corpusMatcher = provider.compile(CorpusState.REGEX);
+    this.backtrackingMatcher = provider.compile(BACKTRACKING_REGEX);
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < this.backtrackingLength; i++) {
+      line.append('a');
+    }
+    this.backtrackingLine = line.append('!').toString();
+
+    JavaGrepImp javaGrep = new JavaGrepImp();
+    this.lines = new ArrayList<>();
+    this.lineBytes = 0;
+    for (File file : state.corpus.getFiles()) {
+      for (String corpusLine : javaGrep.readLines(file)) {
+        this.lines.add(corpusLine);
+        this.lineBytes += corpusLine.length() + 1;
+      }
+    }
+  }
+
+  @Benchmark
+  public long corpus(ThroughputCounters counters) {
+    long matches = 0;
+    for (String line : this.lines) {
+      if (this.corpusMatcher.matches(line)) {
+        matches++;
+      }
+    }
+    counters.add(this.lineBytes, this.lines.size());
+    return matches;
+  }
+
+  @Benchmark
+  public boolean backtracking() {
+    return this.backtrackingMatcher.matches(this.backtrackingLine);
+  }
+}
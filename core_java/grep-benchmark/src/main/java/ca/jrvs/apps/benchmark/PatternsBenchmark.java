@@ -0,0 +1,106 @@
+package ca.jrvs.apps.benchmark;
+
+import ca.jrvs.apps.JavaGrepImp;
+import ca.jrvs.apps.LineMatcher;
+import ca.jrvs.apps.LineMatchers;
+import ca.jrvs.apps.MultiPatternMatcher;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PatternsBenchmark matches the corpus lines against a list of {@code patternCount} keywords, the
+ * generator's needle among random words: {@code loop} tests each keyword's own matcher in turn,
+ * {@code alternation} compiles one {@code a|b|c} regex, and {@code ahoCorasick} uses the
+ * {@link MultiPatternMatcher} that searches for all of them in one pass.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatternsBenchmark {
+
+  @Param({"10", "1000"})
+  public int patternCount;
+
+  @Param({"loop", "alternation", "ahoCorasick"})
+  public String matcher;
+
+  private LineMatcher lineMatcher;
+  private List<String> lines;
+  private long lineBytes;
+
+  /**
+   * Builds the keyword list and its matcher, and preloads every line of the corpus.
+   *
+   * @param state the corpus.
+   * @throws IOException if the corpus cannot be read.
+   */
+  @Setup(Level.Trial)
+  public void setup(CorpusState state) throws IOException {
+    Random random = new Random(state.seed);
+    List<String> patterns = new ArrayList<>();
+    patterns.add(CorpusGenerator.NEEDLE);
+    while (patterns.size() < this.patternCount) {
+      StringBuilder word = new StringBuilder();
+      for (int i = 5 + random.nextInt(6); i > 0; i--) {
+        word.append((char) ('a' + random.nextInt(26)));
+      }
+      patterns.add(word.toString());
+    }
+
+    switch (this.matcher) {
+      case "loop":
+        List<LineMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+          matchers.add(LineMatchers.compile(pattern));
+        }
+        this.lineMatcher = line -> matchers.stream().anyMatch(m -> m.matches(line));
+        break;
+      case "alternation":
+        this.lineMatcher = LineMatchers.compile(String.join("|", patterns));
+        break;
+      default:
+        this.lineMatcher = new MultiPatternMatcher(patterns);
+    }
+
+    JavaGrepImp javaGrep = new JavaGrepImp();
+    this.lines = new ArrayList<>();
+    this.lineBytes = 0;
+    for (File file : state.corpus.getFiles()) {
+      for (String line : javaGrep.readLines(file)) {
+        this.lines.add(line);
+        this.lineBytes += line.length() + 1;
+      }
+    }
+  }
+
+  @Benchmark
+  public long corpus(ThroughputCounters counters) {
+    long matches = 0;
+    for (String line : this.lines) {
+      if (this.lineMatcher.matches(line)) {
+        matches++;
+      }
+    }
+    counters.add(this.lineBytes, this.lines.size());
+    return matches;
+  }
+}
@@ -0,0 +1,124 @@
+package ca.jrvs.apps.benchmark;
+
+import ca.jrvs.apps.IndexedJavaGrepImp;
+import ca.jrvs.apps.JavaGrepImp;
+import ca.jrvs.apps.ParallelJavaGrepImp;
+import ca.jrvs.apps.ScanMode;
+import ca.jrvs.apps.StreamJavaGrepImp;
+import ca.jrvs.apps.ThreadPerFileJavaGrepImp;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ProcessBenchmark runs a complete {@code process()}, listing, reading, matching and writing the
+ * output file, with each grep engine over the same generated corpus. Besides operations per second
+ * it reports the corpus MB/s and lines/s through {@link ThroughputCounters}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessBenchmark {
+
+  @Param({"JavaGrepImp", "StreamJavaGrepImp", "ParallelStreamJavaGrepImp", "ParallelJavaGrepImp",
+      "ThreadPerFileJavaGrepImp", "IndexedJavaGrepImp"})
+  public String engine;
+
+  @Param({"LINES", "MAPPED"})
+  public ScanMode scanMode;
+
+  private Path outDir;
+  private Grep grep;
+
+  /**
+   * A process() call of one of the engines.
+   */
+  @FunctionalInterface
+  private interface Grep {
+
+    void process() throws IOException;
+  }
+
+  /**
+   * Configures the selected engine to search the corpus.
+   *
+   * @param state the corpus.
+   * @throws IOException if the output directory cannot be created.
+   */
+  @Setup(Level.Trial)
+  public void setup(CorpusState state) throws IOException {
+    this.outDir = Files.createTempDirectory("grep-out");
+    String rootPath = state.corpus.getRoot().toString();
+    String outFile = this.outDir.resolve("out.txt").toString();
+
+    if (this.engine.endsWith("StreamJavaGrepImp")) {
+      StreamJavaGrepImp streamGrep = new StreamJavaGrepImp();
+      streamGrep.setRegex(CorpusState.REGEX);
+      streamGrep.setRootPath(rootPath);
+      streamGrep.setOutFile(outFile);
+      streamGrep.setScanMode(this.scanMode);
+      streamGrep.setParallel(this.engine.startsWith("Parallel"));
+      this.grep = streamGrep::process;
+      return;
+    }
+
+    JavaGrepImp javaGrep = newJavaGrep(this.engine);
+    javaGrep.setRegex(CorpusState.REGEX);
+    javaGrep.setRootPath(rootPath);
+    javaGrep.setOutFile(outFile);
+    javaGrep.setScanMode(this.scanMode);
+    if (javaGrep instanceof IndexedJavaGrepImp) {
+      ((IndexedJavaGrepImp) javaGrep).setIndexFile(
+          this.outDir.resolve("index" + IndexedJavaGrepImp.INDEX_SUFFIX).toString());
+    }
+    this.grep = javaGrep::process;
+  }
+
+  /**
+   * Deletes the output file and any index.
+   *
+   * @throws IOException if a file cannot be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    CorpusGenerator.delete(this.outDir);
+  }
+
+  @Benchmark
+  public void process(CorpusState state, ThroughputCounters counters) throws IOException {
+    this.grep.process();
+    counters.add(state.corpus.getTotalBytes(), state.corpus.getLines());
+  }
+
+  private static JavaGrepImp newJavaGrep(String engine) {
+    switch (engine) {
+      case "JavaGrepImp":
+        return new JavaGrepImp();
+      case "ParallelJavaGrepImp":
+        return new ParallelJavaGrepImp();
+      case "ThreadPerFileJavaGrepImp":
+        return new ThreadPerFileJavaGrepImp();
+      case "IndexedJavaGrepImp":
+        return new IndexedJavaGrepImp();
+      default:
+        throw new IllegalArgumentException("Unknown engine: " + engine);
+    }
+  }
+}
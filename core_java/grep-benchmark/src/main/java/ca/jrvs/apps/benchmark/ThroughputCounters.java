@@ -0,0 +1,47 @@
+package ca.jrvs.apps.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH results of the grep benchmarks. The counters are reported as rates per output
+ * time unit, so with {@code @OutputTimeUnit(SECONDS)} the {@code megabytes} column reads as MB/s
+ * and {@code lines} as lines per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounters {
+
+  /**
+   * Megabytes (10^6 bytes) of input processed.
+   */
+  public double megabytes;
+
+  /**
+   * Lines of input processed.
+   */
+  public long lines;
+
+  /**
+   * Resets the counters before each iteration.
+   */
+  @Setup(Level.Iteration)
+  public void reset() {
+    this.megabytes = 0;
+    this.lines = 0;
+  }
+
+  /**
+   * Records one pass over some input.
+   *
+   * @param bytes the bytes processed.
+   * @param lineCount the lines processed.
+   */
+  public void add(long bytes, long lineCount) {
+    this.megabytes += bytes / 1e6;
+    this.lines += lineCount;
+  }
+}
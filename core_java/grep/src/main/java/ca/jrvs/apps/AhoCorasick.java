@@ -0,0 +1,216 @@
+package ca.jrvs.apps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AhoCorasick finds any of many fixed strings in text in a single pass with the Aho-Corasick
+ * automaton, so the time per line does not grow with the number of literals. Matching folds
+ * US-ASCII letters only, like {@link LiteralSearcher}, which is what
+ * {@code Pattern.CASE_INSENSITIVE} does without {@code UNICODE_CASE}.
+ *
+ * <p>The trie is turned into a complete transition table over the chars that occur in the
+ * literals; every other char leads back to the root, so each char of the text costs one class
+ * lookup and one table read. Instances are immutable and safe to share between threads.
+ */
+public class AhoCorasick {
+
+  private static final int ROOT = 0;
+  private static final int LATIN1 = 256;
+
+  private final List<String> literals;
+
+  // Char classes: 0 for chars that occur in no literal, 1.. for the folded chars that do
+  private final int[] latin1Classes = new int[LATIN1];
+  private final char[] otherChars;
+  private final int[] otherClasses;
+  private final int classCount;
+
+  // next[state * classCount + class] is the state after reading a char of that class
+  private final int[] next;
+  // The lowest index of the literals that end at each state, or -1
+  private final int[] output;
+  private final int lowestIndex;
+
+  /**
+   * Builds the automaton for the specified literals.
+   *
+   * @param literals the non-empty literals to search for; the same literal may occur twice.
+   * @throws IllegalArgumentException if a literal is empty.
+   */
+  public AhoCorasick(List<String> literals) {
+    this.literals = new ArrayList<>(literals);
+
+    Map<Character, Integer> classes = new HashMap<>();
+    for (String literal : this.literals) {
+      if (literal.isEmpty()) {
+        throw new IllegalArgumentException("literal must not be empty");
+      }
+      for (int i = 0; i < literal.length(); i++) {
+        classes.putIfAbsent(LiteralSearcher.fold(literal.charAt(i)), classes.size() + 1);
+      }
+    }
+    this.classCount = classes.size() + 1;
+    List<Character> others = new ArrayList<>();
+    for (Map.Entry<Character, Integer> entry : classes.entrySet()) {
+      char c = entry.getKey();
+      if (c < LATIN1) {
+        this.latin1Classes[c] = entry.getValue();
+        // Upper-case ASCII letters share the class of their lower-case form
+        if (c >= 'a' && c <= 'z') {
+          this.latin1Classes[c - ('a' - 'A')] = entry.getValue();
+        }
+      } else {
+        others.add(c);
+      }
+    }
+    others.sort(null);
+    this.otherChars = new char[others.size()];
+    this.otherClasses = new int[others.size()];
+    for (int i = 0; i < others.size(); i++) {
+      this.otherChars[i] = others.get(i);
+      this.otherClasses[i] = classes.get(others.get(i));
+    }
+
+    // The trie, with 0 standing for a missing child since the root is never a child
+    int capacity = 1;
+    for (String literal : this.literals) {
+      capacity += literal.length();
+    }
+    int[] trie = new int[capacity * this.classCount];
+    int[] output = new int[capacity];
+    Arrays.fill(output, -1);
+    int states = 1;
+    for (int index = 0; index < this.literals.size(); index++) {
+      String literal = this.literals.get(index);
+      int state = ROOT;
+      for (int i = 0; i < literal.length(); i++) {
+        int slot = state * this.classCount + this.classOf(literal.charAt(i));
+        if (trie[slot] == 0) {
+          trie[slot] = states++;
+        }
+        state = trie[slot];
+      }
+      if (output[state] < 0) {
+        output[state] = index;
+      }
+    }
+
+    // Breadth first, fill in the missing transitions from the failure state and inherit the
+    // outputs of the literals that end in a suffix of each state
+    this.next = Arrays.copyOf(trie, states * this.classCount);
+    this.output = Arrays.copyOf(output, states);
+    int[] fail = new int[states];
+    int[] queue = new int[states];
+    int head = 0;
+    int tail = 0;
+    for (int c = 0; c < this.classCount; c++) {
+      int child = this.next[c];
+      if (child != 0) {
+        queue[tail++] = child;
+      }
+    }
+    while (head < tail) {
+      int state = queue[head++];
+      int failure = fail[state];
+      if (this.output[failure] >= 0
+          && (this.output[state] < 0 || this.output[failure] < this.output[state])) {
+        this.output[state] = this.output[failure];
+      }
+      for (int c = 0; c < this.classCount; c++) {
+        int slot = state * this.classCount + c;
+        int child = this.next[slot];
+        int fallback = this.next[failure * this.classCount + c];
+        if (child != 0) {
+          fail[child] = fallback;
+          queue[tail++] = child;
+        } else {
+          this.next[slot] = fallback;
+        }
+      }
+    }
+
+    int lowest = -1;
+    for (int index : this.output) {
+      if (index >= 0 && (lowest < 0 || index < lowest)) {
+        lowest = index;
+      }
+    }
+    this.lowestIndex = lowest;
+  }
+
+  /**
+   * Get the literals this automaton looks for.
+   *
+   * @return the literals, in index order.
+   */
+  public List<String> getLiterals() {
+    return this.literals;
+  }
+
+  /**
+   * Get the number of states of the automaton.
+   *
+   * @return the state count, including the root.
+   */
+  public int getStateCount() {
+    return this.output.length;
+  }
+
+  /**
+   * Checks if any of the literals occurs anywhere in the specified text.
+   *
+   * @param text the text to search.
+   * @return true if a literal occurs in the text.
+   */
+  public boolean containedIn(CharSequence text) {
+    if (this.lowestIndex < 0) {
+      return false;
+    }
+    int state = ROOT;
+    for (int i = 0, n = text.length(); i < n; i++) {
+      state = this.next[state * this.classCount + this.classOf(text.charAt(i))];
+      if (this.output[state] >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the literal with the lowest index among those that occur in the specified text. The
+   * whole text is read unless the lowest index of all literals is found earlier.
+   *
+   * @param text the text to search.
+   * @return the index of that literal, or -1 if no literal occurs in the text.
+   */
+  public int lowestMatch(CharSequence text) {
+    int best = -1;
+    int state = ROOT;
+    for (int i = 0, n = text.length(); i < n && best != this.lowestIndex; i++) {
+      state = this.next[state * this.classCount + this.classOf(text.charAt(i))];
+      int index = this.output[state];
+      if (index >= 0 && (best < 0 || index < best)) {
+        best = index;
+      }
+    }
+    return best;
+  }
+
+  private int classOf(char c) {
+    if (c < LATIN1) {
+      return this.latin1Classes[c];
+    }
+    int i = Arrays.binarySearch(this.otherChars, c);
+    return i >= 0 ? this.otherClasses[i] : 0;
+  }
+
+  @Override
+  public String toString() {
+    return "AhoCorasick[" + this.literals.size() + " literals, " + this.getStateCount()
+        + " states]";
+  }
+}
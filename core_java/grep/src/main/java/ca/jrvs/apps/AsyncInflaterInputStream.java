@@ -0,0 +1,191 @@
+package ca.jrvs.apps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AsyncInflaterInputStream reads another stream, typically a decompressing one such as a
+ * {@link java.util.zip.GZIPInputStream}, on a dedicated thread. The thread hands the decoded bytes
+ * over in chunks through a small bounded queue, so inflating the next chunk overlaps with decoding
+ * and matching the current one, while at most a few chunks are ever held in memory.
+ *
+ * <p>Errors of the source stream, including runtime exceptions, are rethrown wrapped in an
+ * {@link IOException} by {@link #read()} once the bytes read before the error have been consumed. Closing this stream stops the thread and closes the source.
+ */
+public class AsyncInflaterInputStream extends InputStream {
+
+  final static Logger logger = LoggerFactory.getLogger(AsyncInflaterInputStream.class);
+
+  /**
+   * Default size, in bytes, of the chunks handed over by the inflater thread.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+  /**
+   * Default number of chunks that may wait in the queue.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+  // Identity sentinel that marks the end of the source
+  private static final byte[] END = new byte[0];
+
+  private final InputStream source;
+  private final BlockingQueue<byte[]> queue;
+  private final int chunkSize;
+  private final Thread thread;
+  private volatile Throwable failure;
+  private volatile boolean closed;
+  private byte[] chunk = new byte[0];
+  private int position;
+  private boolean eof;
+
+  /**
+   * Creates a stream that reads the source asynchronously with the default chunk size and
+   * queue capacity.
+   *
+   * @param source the stream to read; closed when this stream is closed.
+   */
+  public AsyncInflaterInputStream(InputStream source) {
+    this(source, DEFAULT_CHUNK_SIZE, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Creates a stream that reads the source asynchronously.
+   *
+   * @param source the stream to read; closed when this stream is closed.
+   * @param chunkSize the maximum number of bytes per chunk.
+   * @param queueCapacity the number of chunks that may wait before the reader thread blocks.
+   */
+  public AsyncInflaterInputStream(InputStream source, int chunkSize, int queueCapacity) {
+    if (chunkSize < 1 || queueCapacity < 1) {
+      throw new IllegalArgumentException("chunkSize and queueCapacity must be positive");
+    }
+    this.source = source;
+    this.chunkSize = chunkSize;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.thread = new Thread(this::fill, "grep-inflater");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!this.nextChunk()) {
+      return -1;
+    }
+    return this.chunk[this.position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!this.nextChunk()) {
+      return -1;
+    }
+    int n = Math.min(len, this.chunk.length - this.position);
+    System.arraycopy(this.chunk, this.position, b, off, n);
+    this.position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return this.chunk.length - this.position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    this.thread.interrupt();
+    // Make room so a thread blocked on a full queue notices it should stop
+    this.queue.clear();
+    try {
+      this.thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.source.close();
+    }
+  }
+
+  // Makes sure the current chunk has bytes left; returns false at the end of the source
+  private boolean nextChunk() throws IOException {
+    if (this.closed) {
+      throw new IOException("Stream closed");
+    }
+    while (this.position == this.chunk.length) {
+      if (this.eof) {
+        return false;
+      }
+      byte[] next;
+      try {
+        next = this.queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for decompressed data");
+      }
+      if (next == END) {
+        this.eof = true;
+        Throwable e = this.failure;
+        if (e != null) {
+          throw new IOException("Error reading compressed input", e);
+        }
+        return false;
+      }
+      this.chunk = next;
+      this.position = 0;
+    }
+    return true;
+  }
+
+  // Reader thread: fill chunks from the source until it ends, fails or this stream is closed
+  private void fill() {
+    boolean stopped = false;
+    try {
+      while (!this.closed) {
+        byte[] buffer = new byte[this.chunkSize];
+        int length = 0;
+        int n;
+        while (length < buffer.length
+            && (n = this.source.read(buffer, length, buffer.length - length)) > 0) {
+          length += n;
+        }
+        if (length > 0) {
+          this.queue.put(length == buffer.length ? buffer : Arrays.copyOf(buffer, length));
+        }
+        if (length < buffer.length) {
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      // close() stopped the reader
+      stopped = true;
+    } catch (IOException | RuntimeException | Error e) {
+      // Any failure, such as a malformed zip entry name, is handed to the consumer
+      if (!this.closed) {
+        logger.debug("Error reading compressed input", e);
+        this.failure = e;
+      }
+    } finally {
+      // The consumer waits for END however the reader ends, unless close() stopped it
+      if (!stopped) {
+        try {
+          this.queue.put(END);
+        } catch (InterruptedException e) {
+          // close() stopped the reader
+        }
+      }
+    }
+  }
+}
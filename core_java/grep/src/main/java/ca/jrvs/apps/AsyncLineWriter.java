@@ -0,0 +1,194 @@
+package ca.jrvs.apps;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AsyncLineWriter moves output I/O off the matching thread. Lines are handed to a dedicated writer
+ * thread through a bounded ring buffer (an {@link ArrayBlockingQueue}); the writer thread drains
+ * them in batches into a large buffered writer and flushes only when enough chars are pending or
+ * the flush interval has passed, instead of once per line.
+ *
+ * <p>Lines are written in the order {@link #write(String)} was called. When the buffer is full,
+ * {@code write} blocks until the writer thread catches up, which applies back-pressure to the
+ * producer. {@link #close()} waits until every line has been written and flushed.
+ */
+public class AsyncLineWriter implements Closeable {
+
+  final static Logger logger = LoggerFactory.getLogger(AsyncLineWriter.class);
+
+  /**
+   * Default number of lines the ring buffer can hold.
+   */
+  public static final int DEFAULT_CAPACITY = 8192;
+
+  /**
+   * Default number of pending chars that triggers a flush.
+   */
+  public static final int DEFAULT_FLUSH_CHARS = 1 << 20;
+
+  /**
+   * Default maximum time, in milliseconds, that written lines may stay unflushed.
+   */
+  public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+  // Identity sentinel that tells the writer thread to finish
+  private static final String END = new String("END");
+
+  private final BlockingQueue<String> queue;
+  private final Writer out;
+  private final int flushChars;
+  private final long flushIntervalNanos;
+  private final Thread thread;
+  private volatile Exception failure;
+  private boolean closed;
+
+  /**
+   * Creates an asynchronous writer with the default capacity and flush thresholds.
+   *
+   * @param out the writer that receives the lines; closed when this writer is closed.
+   */
+  public AsyncLineWriter(Writer out) {
+    this(out, DEFAULT_CAPACITY, DEFAULT_FLUSH_CHARS, DEFAULT_FLUSH_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Creates an asynchronous writer.
+   *
+   * @param out the writer that receives the lines; closed when this writer is closed.
+   * @param capacity the number of lines the ring buffer can hold before writes block.
+   * @param flushChars the number of pending chars that triggers a flush.
+   * @param flushIntervalMillis the maximum time written lines may stay unflushed.
+   */
+  public AsyncLineWriter(Writer out, int capacity, int flushChars, long flushIntervalMillis) {
+    if (capacity < 1 || flushChars < 1 || flushIntervalMillis < 1) {
+      throw new IllegalArgumentException(
+          "capacity, flushChars and flushIntervalMillis must be positive");
+    }
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.out = new BufferedWriter(out, Math.min(flushChars, 1 << 16));
+    this.flushChars = flushChars;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    this.thread = new Thread(this::drain, "grep-writer");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Queues a line for writing, blocking while the ring buffer is full.
+   *
+   * @param line the line to write, without a line terminator.
+   * @throws IOException if the writer thread has failed or this writer is closed.
+   */
+  public void write(String line) throws IOException {
+    if (this.closed) {
+      throw new IOException("AsyncLineWriter is closed");
+    }
+    this.checkFailure();
+    try {
+      this.queue.put(line);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the output buffer");
+    }
+  }
+
+  /**
+   * Writes all queued lines, flushes and closes the underlying writer.
+   *
+   * @throws IOException if writing, flushing or closing failed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      this.queue.put(END);
+      this.thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while closing the output writer");
+    } finally {
+      try {
+        this.out.close();
+      } catch (IOException e) {
+        if (this.failure == null) {
+          this.failure = e;
+        }
+      }
+    }
+    this.checkFailure();
+  }
+
+  private void checkFailure() throws IOException {
+    Exception e = this.failure;
+    if (e != null) {
+      throw new IOException("Output writer failed", e);
+    }
+  }
+
+  // Writer thread: drain batches, flush on size or time, stop at the END sentinel
+  private void drain() {
+    List<String> batch = new ArrayList<>();
+    long pendingChars = 0;
+    long lastFlush = System.nanoTime();
+    boolean done = false;
+
+    while (!done) {
+      try {
+        long wait = pendingChars > 0
+            ? Math.max(0, lastFlush + this.flushIntervalNanos - System.nanoTime())
+            : this.flushIntervalNanos;
+        String first = this.queue.poll(wait, TimeUnit.NANOSECONDS);
+        if (first != null) {
+          batch.add(first);
+          this.queue.drainTo(batch);
+        }
+
+        for (String line : batch) {
+          if (line == END) {
+            done = true;
+            break;
+          }
+          if (this.failure == null) {
+            this.out.write(line);
+            this.out.write(System.lineSeparator());
+            pendingChars += line.length() + System.lineSeparator().length();
+          }
+        }
+        batch.clear();
+
+        if (pendingChars > 0 && this.failure == null && (done || pendingChars >= this.flushChars
+            || System.nanoTime() - lastFlush >= this.flushIntervalNanos)) {
+          this.out.flush();
+          pendingChars = 0;
+          lastFlush = System.nanoTime();
+        }
+      } catch (IOException | RuntimeException e) {
+        // Keep draining so producers never block forever; the failure is reported to them
+        logger.error("Error writing output", e);
+        this.failure = e;
+        for (String line : batch) {
+          done |= line == END;
+        }
+        batch.clear();
+        pendingChars = 0;
+      } catch (InterruptedException e) {
+        // Stop writing but keep draining until END so close() never blocks
+        this.failure = new InterruptedIOException("Output writer interrupted");
+      }
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package ca.jrvs.apps;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BinaryDetector decides whether a file is binary by sampling its first bytes, so that jars,
+ * images and core dumps are not decoded into huge garbage lines. A sample is binary if it contains
+ * a NUL byte or, for UTF-8 files, if more than {@link #MAX_INVALID_RATIO} of its bytes are not
+ * part of a valid UTF-8 sequence. Compressed files are sampled after decompression.
+ *
+ * <p>Decisions are cached per {@link FileFingerprint}, so a file is only sampled again once its
+ * size or modification time changes. Instances are thread-safe.
+ */
+public class BinaryDetector {
+
+  /**
+   * Default number of bytes sampled from the start of each file.
+   */
+  public static final int DEFAULT_SAMPLE_SIZE = 8192;
+
+  /**
+   * Fraction of bytes in invalid UTF-8 sequences above which a UTF-8 sample is binary.
+   */
+  public static final double MAX_INVALID_RATIO = 0.1;
+
+  private final boolean utf8;
+  private final int sampleSize;
+  private final Map<String, Decision> decisions = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a detector for files in the specified charset with the default sample size.
+   *
+   * @param charset the charset text files are expected in.
+   */
+  public BinaryDetector(Charset charset) {
+    this(charset, DEFAULT_SAMPLE_SIZE);
+  }
+
+  /**
+   * Creates a detector for files in the specified charset.
+   *
+   * @param charset the charset text files are expected in.
+   * @param sampleSize the number of bytes sampled from the start of each file.
+   */
+  public BinaryDetector(Charset charset, int sampleSize) {
+    if (sampleSize < 1) {
+      throw new IllegalArgumentException("sampleSize must be positive: " + sampleSize);
+    }
+    this.utf8 = StandardCharsets.UTF_8.equals(charset);
+    this.sampleSize = sampleSize;
+  }
+
+  /**
+   * Checks if a file is binary, sampling it unless a decision for the same fingerprint is cached.
+   *
+   * @param file the file.
+   * @return true if the file is binary.
+   * @throws IOException if the file cannot be read.
+   */
+  public boolean isBinary(File file) throws IOException {
+    Decision cached = this.decisions.get(file.getPath());
+    if (cached != null && cached.fingerprint.matches(file)) {
+      return cached.binary;
+    }
+    FileFingerprint fingerprint = FileFingerprint.of(file, false);
+    byte[] sample = new byte[this.sampleSize];
+    int length = 0;
+    try (InputStream in = GrepIO.openInput(file)) {
+      int n;
+      while (length < sample.length && (n = in.read(sample, length, sample.length - length)) > 0) {
+        length += n;
+      }
+    }
+    boolean binary = this.isBinary(sample, length);
+    this.decisions.put(file.getPath(), new Decision(fingerprint, binary));
+    return binary;
+  }
+
+  /**
+   * Checks if a sample of a file's first bytes looks binary.
+   *
+   * @param sample the sample.
+   * @param length the number of sampled bytes.
+   * @return true if the sample contains a NUL byte or too much invalid UTF-8.
+   */
+  public boolean isBinary(byte[] sample, int length) {
+    int invalid = 0;
+    int i = 0;
+    while (i < length) {
+      int b = sample[i] & 0xFF;
+      if (b == 0) {
+        return true;
+      }
+      if (b < 0x80 || !this.utf8) {
+        i++;
+        continue;
+      }
+      int sequence = b >= 0xC2 && b <= 0xDF ? 2
+          : b >= 0xE0 && b <= 0xEF ? 3
+          : b >= 0xF0 && b <= 0xF4 ? 4
+          : 0;
+      if (sequence > 0 && i + sequence > length) {
+        // A sequence cut off by the end of the sample
+        break;
+      }
+      if (sequence == 0 || !continuationBytes(sample, i + 1, i + sequence)) {
+        invalid++;
+        i++;
+        continue;
+      }
+      i += sequence;
+    }
+    return invalid > length * MAX_INVALID_RATIO;
+  }
+
+  private static boolean continuationBytes(byte[] sample, int from, int to) {
+    for (int k = from; k < to; k++) {
+      if ((sample[k] & 0xC0) != 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static final class Decision {
+
+    private final FileFingerprint fingerprint;
+    private final boolean binary;
+
+    Decision(FileFingerprint fingerprint, boolean binary) {
+      this.fingerprint = fingerprint;
+      this.binary = binary;
+    }
+  }
+}
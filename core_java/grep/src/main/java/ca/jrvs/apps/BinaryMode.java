@@ -0,0 +1,24 @@
+package ca.jrvs.apps;
+
+/**
+ * BinaryMode selects what happens to files that a {@link BinaryDetector} classifies as binary.
+ */
+public enum BinaryMode {
+
+  /**
+   * Do not search binary files at all, the default.
+   */
+  SKIP,
+
+  /**
+   * Search binary files, but instead of their matched lines output a single
+   * {@code Binary file <path> matches} line, like GNU grep.
+   */
+  REPORT,
+
+  /**
+   * Search binary files like text files.
+   */
+  TEXT
+
+}
@@ -0,0 +1,146 @@
+package ca.jrvs.apps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ByteLineReader is the fast {@link LineReader} for ASCII-compatible charsets (UTF-8, US-ASCII
+ * and ISO-8859-1). It reads the input into one reusable byte buffer, finds line terminators in the
+ * raw bytes and creates each line with a single {@code new String(bytes, offset, length, charset)}
+ * call, which the JDK decodes without a {@link java.nio.charset.CharsetDecoder} for these charsets
+ * (pure ASCII is copied byte for byte). That skips the stream decoder and the char buffer copies
+ * of an {@link java.io.InputStreamReader} behind a {@link java.io.BufferedReader}.
+ *
+ * <p>Malformed input is replaced with U+FFFD, as with an {@code InputStreamReader}. The buffer
+ * grows to hold lines longer than it.
+ */
+public class ByteLineReader implements LineReader {
+
+  /**
+   * Default buffer size in bytes.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  private final InputStream in;
+  private final Charset charset;
+  private byte[] buffer;
+  private int position;
+  private int limit;
+  private boolean skipLf;
+
+  /**
+   * Creates a reader with the default buffer size.
+   *
+   * @param in the input; closed when this reader is closed.
+   * @param charset the charset of the input; see {@link #supports(Charset)}.
+   */
+  public ByteLineReader(InputStream in, Charset charset) {
+    this(in, charset, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a reader.
+   *
+   * @param in the input; closed when this reader is closed.
+   * @param charset the charset of the input; see {@link #supports(Charset)}.
+   * @param bufferSize the initial buffer size in bytes, must be positive.
+   * @throws IllegalArgumentException if the charset is not supported or the size not positive.
+   */
+  public ByteLineReader(InputStream in, Charset charset, int bufferSize) {
+    if (!supports(charset)) {
+      throw new IllegalArgumentException("Charset " + charset + " is not ASCII-compatible");
+    }
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+    }
+    this.in = in;
+    this.charset = charset;
+    this.buffer = new byte[bufferSize];
+  }
+
+  /**
+   * Checks if lines in the specified charset can be split on raw bytes.
+   *
+   * @param charset the charset.
+   * @return true for UTF-8, US-ASCII and ISO-8859-1, whose encoded text contains the bytes
+   *     {@code \n} and {@code \r} only as those characters.
+   */
+  public static boolean supports(Charset charset) {
+    return StandardCharsets.UTF_8.equals(charset)
+        || StandardCharsets.US_ASCII.equals(charset)
+        || StandardCharsets.ISO_8859_1.equals(charset);
+  }
+
+  @Override
+  public String readLine() throws IOException {
+    int scan = this.position;
+    while (true) {
+      if (this.skipLf && this.position < this.limit) {
+        // The previous line ended with '\r' at the end of the buffer
+        if (this.buffer[this.position] == '\n') {
+          this.position++;
+        }
+        this.skipLf = false;
+        scan = this.position;
+      }
+
+      byte[] bytes = this.buffer;
+      for (int i = scan; i < this.limit; i++) {
+        byte b = bytes[i];
+        if (b == '\n' || b == '\r') {
+          String line = new String(bytes, this.position, i - this.position, this.charset);
+          this.position = i + 1;
+          if (b == '\r') {
+            if (this.position < this.limit) {
+              if (bytes[this.position] == '\n') {
+                this.position++;
+              }
+            } else {
+              this.skipLf = true;
+            }
+          }
+          return line;
+        }
+      }
+
+      int scanned = this.limit - this.position;
+      if (!this.fill()) {
+        if (this.position == this.limit) {
+          return null;
+        }
+        String line = new String(this.buffer, this.position, this.limit - this.position,
+            this.charset);
+        this.position = this.limit;
+        return line;
+      }
+      scan = this.position + scanned;
+    }
+  }
+
+  // Moves the unread bytes to the front, grows a full buffer and reads more; false at the end
+  private boolean fill() throws IOException {
+    int unread = this.limit - this.position;
+    if (this.position > 0) {
+      System.arraycopy(this.buffer, this.position, this.buffer, 0, unread);
+      this.position = 0;
+      this.limit = unread;
+    } else if (this.limit == this.buffer.length) {
+      byte[] grown = new byte[Math.max(this.buffer.length * 2, 16)];
+      System.arraycopy(this.buffer, 0, grown, 0, this.limit);
+      this.buffer = grown;
+    }
+    int n = this.in.read(this.buffer, this.limit, this.buffer.length - this.limit);
+    if (n < 0) {
+      return false;
+    }
+    this.limit += n;
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+  }
+}
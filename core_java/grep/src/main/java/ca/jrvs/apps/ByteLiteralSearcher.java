@@ -0,0 +1,70 @@
+package ca.jrvs.apps;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * ByteLiteralSearcher is the byte-level counterpart of {@link LiteralSearcher}: it finds an
+ * encoded literal in a ByteBuffer with the Boyer-Moore-Horspool algorithm, folding US-ASCII
+ * letters only. Because ASCII bytes never occur inside multi-byte UTF-8 sequences, the search is
+ * exact for UTF-8, US-ASCII and ISO-8859-1 encoded text.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public class ByteLiteralSearcher {
+
+  private final byte[] folded;
+  private final int[] shift;
+
+  /**
+   * Prepares a searcher for the specified encoded literal.
+   *
+   * @param literal the non-empty literal bytes to search for.
+   */
+  public ByteLiteralSearcher(byte[] literal) {
+    if (literal.length == 0) {
+      throw new IllegalArgumentException("literal must not be empty");
+    }
+    int m = literal.length;
+    this.folded = new byte[m];
+    for (int i = 0; i < m; i++) {
+      this.folded[i] = fold(literal[i]);
+    }
+    this.shift = new int[256];
+    Arrays.fill(this.shift, m);
+    for (int i = 0; i < m - 1; i++) {
+      this.shift[this.folded[i] & 0xFF] = m - 1 - i;
+    }
+  }
+
+  /**
+   * Finds the first occurrence of the literal between the specified absolute positions.
+   *
+   * @param buffer the buffer to search.
+   * @param from the first index to search, inclusive.
+   * @param to the last index to search, exclusive.
+   * @return the index of the first occurrence, or -1 if there is none.
+   */
+  public int indexOf(ByteBuffer buffer, int from, int to) {
+    int m = this.folded.length;
+    int last = m - 1;
+    int i = from + last;
+    while (i < to) {
+      int j = last;
+      int k = i;
+      while (fold(buffer.get(k)) == this.folded[j]) {
+        if (j == 0) {
+          return k;
+        }
+        j--;
+        k--;
+      }
+      i += this.shift[fold(buffer.get(i)) & 0xFF];
+    }
+    return -1;
+  }
+
+  private static byte fold(byte b) {
+    return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+  }
+}
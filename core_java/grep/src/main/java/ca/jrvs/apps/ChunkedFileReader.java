@@ -0,0 +1,202 @@
+package ca.jrvs.apps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ChunkedFileReader splits a large file into byte ranges that start and end on line boundaries,
+ * so the ranges can be read and matched independently, and in parallel, without a line ever
+ * being cut in two. Reading the ranges in order yields exactly the lines
+ * {@link java.io.BufferedReader#readLine()} would return for the whole file.
+ *
+ * <p>Range boundaries are found by scanning forward from each nominal offset to just past the
+ * next {@code \n}, {@code \r} or {@code \r\n}, which is only reliable in charsets where those bytes
+ * always mean a line break; see {@link MappedFileScanner#supports(Charset)}.
+ */
+public class ChunkedFileReader {
+
+  private static final int READ_SIZE = 1 << 16;
+
+  private final Charset charset;
+
+  /**
+   * Creates a reader that decodes lines with the specified charset.
+   *
+   * @param charset the charset of the files.
+   * @throws IllegalArgumentException if line breaks cannot be found byte-wise in the charset.
+   */
+  public ChunkedFileReader(Charset charset) {
+    if (!MappedFileScanner.supports(charset)) {
+      throw new IllegalArgumentException("Charset cannot be split byte-wise: " + charset);
+    }
+    this.charset = charset;
+  }
+
+  /**
+   * Splits a file into line-aligned ranges of roughly chunkSize bytes. A range is longer than
+   * chunkSize when a line crosses its nominal end, and ranges are never empty.
+   *
+   * @param file the file to split.
+   * @param chunkSize the nominal range size in bytes.
+   * @return the ranges in file order, covering the whole file.
+   * @throws IOException if the file cannot be read.
+   */
+  public static List<Chunk> split(File file, long chunkSize) throws IOException {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    List<Chunk> chunks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+      long start = 0;
+      while (start < size) {
+        long end = start + chunkSize >= size ? size : lineBoundary(channel, start + chunkSize,
+            size, buffer);
+        chunks.add(new Chunk(start, end));
+        start = end;
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * Reads the lines of one range of a file.
+   *
+   * @param file the file to read.
+   * @param chunk the range, as returned by {@link #split(File, long)}.
+   * @param consumer receives each line; returning false stops reading.
+   * @throws IOException if the file cannot be read or the consumer fails.
+   */
+  public void readLines(File file, Chunk chunk, LineConsumer consumer) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_SIZE, chunk.length() + 1));
+      byte[] line = new byte[256];
+      int lineLength = 0;
+      boolean afterCR = false;
+      long position = chunk.getStart();
+
+      while (position < chunk.getEnd()) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), chunk.getEnd() - position));
+        int n = channel.read(buffer, position);
+        if (n <= 0) {
+          break;
+        }
+        for (int i = 0; i < n; i++) {
+          byte b = buffer.get(i);
+          if (b == '\n' && afterCR) {
+            afterCR = false;
+            continue;
+          }
+          afterCR = b == '\r';
+          if (b == '\n' || b == '\r') {
+            String text = new String(line, 0, lineLength, this.charset);
+            lineLength = 0;
+            if (!consumer.accept(text)) {
+              return;
+            }
+            continue;
+          }
+          if (lineLength == line.length) {
+            line = Arrays.copyOf(line, lineLength * 2);
+          }
+          line[lineLength++] = b;
+        }
+        position += n;
+      }
+      if (lineLength > 0) {
+        // Last line of the file without a terminator
+        consumer.accept(new String(line, 0, lineLength, this.charset));
+      }
+    }
+  }
+
+  // Returns the offset just past the first line terminator at or after from - 1
+  private static long lineBoundary(FileChannel channel, long from, long size, ByteBuffer buffer)
+      throws IOException {
+    long position = from - 1;
+    while (position < size) {
+      buffer.clear();
+      int n = channel.read(buffer, position);
+      if (n <= 0) {
+        break;
+      }
+      for (int i = 0; i < n; i++) {
+        byte b = buffer.get(i);
+        if (b == '\n') {
+          return position + i + 1;
+        }
+        if (b == '\r') {
+          long next = position + i + 1;
+          if (i + 1 < n) {
+            return buffer.get(i + 1) == '\n' ? next + 1 : next;
+          }
+          ByteBuffer one = ByteBuffer.allocate(1);
+          return channel.read(one, next) == 1 && one.get(0) == '\n' ? next + 1 : next;
+        }
+      }
+      position += n;
+    }
+    return size;
+  }
+
+  /**
+   * A line-aligned byte range [start, end) of a file.
+   */
+  public static final class Chunk {
+
+    private final long start;
+    private final long end;
+
+    /**
+     * Creates a range.
+     *
+     * @param start the offset of the first byte.
+     * @param end the offset just past the last byte.
+     */
+    public Chunk(long start, long end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+     * Get the offset of the first byte.
+     *
+     * @return the start offset.
+     */
+    public long getStart() {
+      return this.start;
+    }
+
+    /**
+     * Get the offset just past the last byte.
+     *
+     * @return the end offset.
+     */
+    public long getEnd() {
+      return this.end;
+    }
+
+    /**
+     * Get the number of bytes in the range.
+     *
+     * @return the length.
+     */
+    public long length() {
+      return this.end - this.start;
+    }
+
+    @Override
+    public String toString() {
+      return "Chunk[" + this.start + ", " + this.end + ")";
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package ca.jrvs.apps;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ContextWindow selects the matched lines of a file together with their surrounding context, like
+ * {@code grep -B}, {@code -A} and {@code -C}. Lines before a match are kept in a ring buffer of
+ * {@code before} lines, and lines after a match are passed through while a countdown of
+ * {@code after} lines runs, so memory stays proportional to the context size whatever the file
+ * size.
+ *
+ * <p>Overlapping or adjacent context windows are merged into one group, and groups that are not
+ * adjacent are separated by a {@link #SEPARATOR} line; this also holds across files, as in GNU
+ * grep. One window is used for all files of a run, and instances are not thread-safe.
+ */
+public class ContextWindow {
+
+  /**
+   * The line written between two groups of lines that are not adjacent.
+   */
+  public static final String SEPARATOR = "--";
+
+  private final Predicate<String> matcher;
+  private final int after;
+  private final long maxCount;
+  private final String[] ring;
+  private int head;
+  private int size;
+
+  // Per file: the number of the next line, the matches so far and the after-context countdown
+  private long lineNumber;
+  private long matches;
+  private int afterRemaining;
+
+  // The number of the last selected line; -1 before any line, and -2 once a file has ended
+  private long lastSelected = -1;
+
+  /**
+   * Creates a context window.
+   *
+   * @param matcher decides which lines match.
+   * @param before the number of lines selected before each match.
+   * @param after the number of lines selected after each match.
+   * @param maxCount the number of matches per file after which only after-context is selected.
+   * @throws IllegalArgumentException if a context size is negative or maxCount is not positive.
+   */
+  public ContextWindow(Predicate<String> matcher, int before, int after, long maxCount) {
+    if (before < 0 || after < 0) {
+      throw new IllegalArgumentException("Context sizes must not be negative: " + before + ", "
+          + after);
+    }
+    if (maxCount < 1) {
+      throw new IllegalArgumentException("maxCount must be positive: " + maxCount);
+    }
+    this.matcher = Objects.requireNonNull(matcher, "matcher");
+    this.after = after;
+    this.maxCount = maxCount;
+    this.ring = new String[before];
+  }
+
+  /**
+   * Starts a new file: forgets the buffered lines and the match count of the previous file.
+   */
+  public void startFile() {
+    this.head = 0;
+    this.size = 0;
+    this.lineNumber = 0;
+    this.matches = 0;
+    this.afterRemaining = 0;
+    if (this.lastSelected != -1) {
+      // Lines of the next file are never adjacent to those already selected
+      this.lastSelected = -2;
+    }
+  }
+
+  /**
+   * Feeds the next line of the current file.
+   *
+   * @param line the line.
+   * @param out receives the selected lines and separators, in order.
+   * @return false once no further line of the file can be selected.
+   */
+  public boolean accept(String line, Consumer<String> out) {
+    long number = this.lineNumber++;
+    if (this.matches < this.maxCount && this.matcher.test(line)) {
+      this.matches++;
+      this.flushBefore(number, out);
+      this.select(number, line, out);
+      this.afterRemaining = this.after;
+    } else if (this.afterRemaining > 0) {
+      this.select(number, line, out);
+      this.afterRemaining--;
+    } else if (this.ring.length > 0) {
+      this.ring[(this.head + this.size) % this.ring.length] = line;
+      if (this.size < this.ring.length) {
+        this.size++;
+      } else {
+        this.head = (this.head + 1) % this.ring.length;
+      }
+    }
+    return this.matches < this.maxCount || this.afterRemaining > 0;
+  }
+
+  /**
+   * Selects the context lines of a file from its lines, lazily. The file is started with
+   * {@link #startFile()} when the returned stream is first read, and reading its lines stops once
+   * no further line can be selected. Closing the returned stream closes the lines.
+   *
+   * @param lines the lines of the file.
+   * @return a stream of the selected lines and separators.
+   */
+  public Stream<String> select(Stream<String> lines) {
+    Iterator<String> iterator = lines.iterator();
+    Deque<String> pending = new ArrayDeque<>();
+    Spliterator<String> selected = new Spliterators.AbstractSpliterator<String>(Long.MAX_VALUE,
+        Spliterator.ORDERED | Spliterator.NONNULL) {
+      private boolean started;
+      private boolean open = true;
+
+      @Override
+      public boolean tryAdvance(Consumer<? super String> action) {
+        if (!this.started) {
+          startFile();
+          this.started = true;
+        }
+        while (pending.isEmpty() && this.open && iterator.hasNext()) {
+          this.open = accept(iterator.next(), pending::add);
+        }
+        String line = pending.poll();
+        if (line == null) {
+          return false;
+        }
+        action.accept(line);
+        return true;
+      }
+    };
+    return StreamSupport.stream(selected, false).onClose(lines::close);
+  }
+
+  private void flushBefore(long number, Consumer<String> out) {
+    long first = number - this.size;
+    for (int i = 0; i < this.size; i++) {
+      this.select(first + i, this.ring[(this.head + i) % this.ring.length], out);
+      this.ring[(this.head + i) % this.ring.length] = null;
+    }
+    this.head = 0;
+    this.size = 0;
+  }
+
+  private void select(long number, String line, Consumer<String> out) {
+    if (this.lastSelected != -1 && number != this.lastSelected + 1) {
+      out.accept(SEPARATOR);
+    }
+    out.accept(line);
+    this.lastSelected = number;
+  }
+}
@@ -0,0 +1,252 @@
+package ca.jrvs.apps;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DfaLineMatcher matches lines with a lazily built deterministic automaton instead of
+ * backtracking, so the time per line is linear in its length whatever the pattern. The regex is
+ * compiled into a {@link ThompsonNfa}, and each DFA state is the set of NFA states the search can
+ * be in; a state and its transitions are only built when a line first needs them, and are cached
+ * for the following lines.
+ *
+ * <p>Each thread keeps its own cache of at most {@code maxStates} states, like
+ * {@link RegexLineMatcher} keeps a Matcher per thread. When the cache is full it is cleared and
+ * rebuilt from the current state, so a pattern whose DFA would be exponentially large still runs
+ * in linear time per line, only with more NFA work per character. The last few characters of a
+ * line, where {@code $} may hold, are matched on the NFA directly.
+ */
+public class DfaLineMatcher implements LineMatcher {
+
+  /**
+   * The default maximum number of cached DFA states per thread.
+   */
+  public static final int DEFAULT_MAX_STATES = 1 << 12;
+
+  private final String regex;
+  private final ThompsonNfa nfa;
+  private final int maxStates;
+  private final ThreadLocal<Cache> caches;
+  private final LongAdder cacheResets = new LongAdder();
+
+  /**
+   * Compiles the specified regex case-insensitively with the default state cache size.
+   *
+   * @param regex the regex pattern.
+   * @throws IllegalArgumentException if the regex is not in the supported subset.
+   */
+  public DfaLineMatcher(String regex) {
+    this(regex, DEFAULT_MAX_STATES);
+  }
+
+  /**
+   * Compiles the specified regex case-insensitively.
+   *
+   * @param regex the regex pattern.
+   * @param maxStates the maximum number of cached DFA states per thread, at least 2.
+   * @throws IllegalArgumentException if the regex is not in the supported subset, see
+   *     {@link ThompsonNfa}, or maxStates is too small.
+   */
+  public DfaLineMatcher(String regex, int maxStates) {
+    if (maxStates < 2) {
+      throw new IllegalArgumentException("maxStates must be at least 2: " + maxStates);
+    }
+    ThompsonNfa nfa = ThompsonNfa.compile(regex);
+    if (nfa == null) {
+      throw new IllegalArgumentException("Regex is not supported by the DFA engine: " + regex);
+    }
+    this.regex = regex;
+    this.nfa = nfa;
+    this.maxStates = maxStates;
+    this.caches = ThreadLocal.withInitial(Cache::new);
+  }
+
+  /**
+   * Get the regex this matcher was compiled from.
+   *
+   * @return the regex pattern.
+   */
+  public String getRegex() {
+    return this.regex;
+  }
+
+  /**
+   * Get the number of times a thread's state cache was full and cleared.
+   *
+   * @return the reset count over all threads.
+   */
+  public long getCacheResets() {
+    return this.cacheResets.sum();
+  }
+
+  @Override
+  public boolean matches(CharSequence line) {
+    return this.caches.get().matches(line);
+  }
+
+  @Override
+  public String toString() {
+    return "DfaLineMatcher[" + this.regex + "]";
+  }
+
+  private static final class State {
+    final int[] nfaStates;
+    final State[] next;
+    final boolean matching;
+    // No NFA state is left, so no later input can lead to a match
+    final boolean dead;
+
+    State(int[] nfaStates, int classCount, boolean matching) {
+      this.nfaStates = nfaStates;
+      this.next = new State[classCount];
+      this.matching = matching;
+      this.dead = nfaStates.length == 0;
+    }
+  }
+
+  private static final class Key {
+    final int[] nfaStates;
+    final int hash;
+
+    Key(int[] nfaStates) {
+      this.nfaStates = nfaStates;
+      this.hash = Arrays.hashCode(nfaStates);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && Arrays.equals(this.nfaStates, ((Key) other).nfaStates);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  // The states and work space of one thread
+  private final class Cache {
+    final Map<Key, State> states = new HashMap<>();
+    final ThompsonNfa.StateSet set = new ThompsonNfa.StateSet(nfa.getStateCount());
+    final ThompsonNfa.StateSet other = new ThompsonNfa.StateSet(nfa.getStateCount());
+    final int[] stack = new int[nfa.getStateCount()];
+    State initial;
+
+    boolean matches(CharSequence line) {
+      int n = line.length();
+      int end = n;
+      if (nfa.hasEnd()) {
+        // $ can only hold at the last two positions; the NFA takes over from the first of them
+        end = Math.max(n - 2, 0);
+        while (!ThompsonNfa.endHolds(line, end)) {
+          end++;
+        }
+      }
+
+      State state = this.initial();
+      int pos = 0;
+      while (!state.matching) {
+        if (state.dead) {
+          return false;
+        }
+        if (pos >= end) {
+          return nfa.hasEnd() && this.matchesEnd(state, line, pos);
+        }
+        int codePoint = line.charAt(pos++);
+        if (Character.isHighSurrogate((char) codePoint) && pos < end
+            && Character.isLowSurrogate(line.charAt(pos))) {
+          codePoint = Character.toCodePoint((char) codePoint, line.charAt(pos++));
+        }
+        int codePointClass = nfa.classOf(codePoint);
+        State next = state.next[codePointClass];
+        if (next == null) {
+          next = this.step(state, codePointClass);
+        }
+        state = next;
+      }
+      return true;
+    }
+
+    State initial() {
+      if (this.initial == null) {
+        this.set.clear();
+        nfa.addClosure(nfa.getStart(), true, false, this.set, this.stack);
+        this.initial = this.intern(this.set);
+      }
+      return this.initial;
+    }
+
+    State step(State state, int codePointClass) {
+      this.set.clear();
+      for (int s : state.nfaStates) {
+        if (nfa.getType(s) == ThompsonNfa.CHAR && nfa.accepts(s, codePointClass)) {
+          nfa.addClosure(nfa.getOut(s), false, false, this.set, this.stack);
+        }
+      }
+      // The search may start at every position
+      nfa.addClosure(nfa.getStart(), false, false, this.set, this.stack);
+      State next = this.intern(this.set);
+      state.next[codePointClass] = next;
+      return next;
+    }
+
+    State intern(ThompsonNfa.StateSet set) {
+      int[] nfaStates = new int[set.size()];
+      int count = 0;
+      for (int i = 0; i < set.size(); i++) {
+        int s = set.get(i);
+        if (nfa.getType(s) != ThompsonNfa.SPLIT && nfa.getType(s) != ThompsonNfa.BEGIN) {
+          nfaStates[count++] = s;
+        }
+      }
+      nfaStates = Arrays.copyOf(nfaStates, count);
+      Arrays.sort(nfaStates);
+      Key key = new Key(nfaStates);
+      State state = this.states.get(key);
+      if (state == null) {
+        if (this.states.size() >= maxStates) {
+          this.states.clear();
+          this.initial = null;
+          cacheResets.increment();
+        }
+        state = new State(nfaStates, nfa.getClassCount(), set.contains(nfa.getMatch()));
+        this.states.put(key, state);
+      }
+      return state;
+    }
+
+    // Finishes the line on the NFA, where $ holds at some of the remaining positions
+    boolean matchesEnd(State state, CharSequence line, int pos) {
+      ThompsonNfa.StateSet current = this.set;
+      ThompsonNfa.StateSet next = this.other;
+      current.clear();
+      boolean atEnd = ThompsonNfa.endHolds(line, pos);
+      for (int s : state.nfaStates) {
+        nfa.addClosure(s, pos == 0, atEnd, current, this.stack);
+      }
+      while (!current.contains(nfa.getMatch())) {
+        if (pos == line.length()) {
+          return false;
+        }
+        int codePoint = Character.codePointAt(line, pos);
+        pos += Character.charCount(codePoint);
+        int codePointClass = nfa.classOf(codePoint);
+        atEnd = ThompsonNfa.endHolds(line, pos);
+        next.clear();
+        for (int i = 0; i < current.size(); i++) {
+          int s = current.get(i);
+          if (nfa.getType(s) == ThompsonNfa.CHAR && nfa.accepts(s, codePointClass)) {
+            nfa.addClosure(nfa.getOut(s), false, atEnd, next, this.stack);
+          }
+        }
+        nfa.addClosure(nfa.getStart(), false, atEnd, next, this.stack);
+        ThompsonNfa.StateSet swap = current;
+        current = next;
+        next = swap;
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package ca.jrvs.apps;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * DfaMatcherProvider compiles patterns into a {@link DfaLineMatcher}, which matches in linear
+ * time per line and so cannot stall on catastrophic backtracking. It supports the valid regexes in
+ * the subset described by {@link ThompsonNfa}, and is consulted before the
+ * {@link RegexMatcherProvider}, which handles every other regex.
+ */
+public class DfaMatcherProvider implements LineMatcherProvider {
+
+  /**
+   * The name of this provider.
+   */
+  public static final String NAME = "dfa";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public boolean supports(String regex) {
+    try {
+      // Invalid regexes are left to java.util.regex, which reports the syntax error
+      Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+    } catch (PatternSyntaxException e) {
+      return false;
+    }
+    return ThompsonNfa.compile(regex) != null;
+  }
+
+  @Override
+  public LineMatcher compile(String regex) {
+    return new DfaLineMatcher(regex);
+  }
+}
@@ -0,0 +1,171 @@
+package ca.jrvs.apps;
+
+import ca.jrvs.apps.FileWalker.Entry;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * DirectorySpliterator lists the files under the root of a {@link FileWalker} lazily, in the same
+ * order and with the same filters as {@link FileWalker#walk()}, and splits the walk itself so that
+ * a parallel stream lists and searches different parts of the tree at once.
+ *
+ * <p>Each spliterator holds the entries it has yet to cover, files and not yet listed
+ * directories, in listing order; a directory is listed when it is reached, and its entries take
+ * its place. {@link #trySplit()} hands the first half of the entries to a new spliterator, so a
+ * tree splits by subdirectory and a large directory by batches of files, and encounter order is
+ * kept. Size estimates count each unlisted directory as the average number of files found per
+ * directory listed so far.
+ *
+ * <p>Directories are listed by {@link FileWalker}, so symbolic links, link cycles and the maximum
+ * depth are handled as in its walk. A spliterator lists a physical file reached through several
+ * links once, at its first path, within the entries it covers; splits that run in parallel only
+ * drop a file already reached at an earlier position, so two splits may each list a copy.
+ * Consumers of a parallel stream that need each file once keep the first of each
+ * {@link FileWalker#fileEntry(Path) file key} in encounter order, which makes the result
+ * independent of thread timing. A spliterator is used by one thread at a time, like any other;
+ * the walker's counters are shared by all of its splits.
+ */
+public class DirectorySpliterator implements Spliterator<Path> {
+
+  // The estimated number of files per directory before any directory has been listed
+  private static final long DEFAULT_FILES_PER_DIRECTORY = 16;
+
+  private final FileWalker walker;
+  private final Deque<Entry> entries;
+  private final Stats stats;
+  // The keys of the files this spliterator has listed, all earlier than its remaining entries
+  private final Set<Object> listed = new HashSet<>();
+  private int directories;
+
+  /**
+   * Creates a spliterator over the files under the walker's root.
+   *
+   * @param walker the walker whose root and filters are used, and whose counters are updated.
+   */
+  public DirectorySpliterator(FileWalker walker) {
+    this(walker, new ArrayDeque<>(), new Stats());
+    Path root = walker.getRoot();
+    // Checked through File so that an empty root path is no directory, as in listFiles
+    if (root.toFile().isDirectory() && walker.acceptDirectory(root)) {
+      this.add(walker.startEntry(root), false);
+    }
+  }
+
+  private DirectorySpliterator(FileWalker walker, Deque<Entry> entries, Stats stats) {
+    this.walker = walker;
+    this.entries = entries;
+    this.stats = stats;
+    for (Entry entry : entries) {
+      if (entry.directory) {
+        this.directories++;
+      }
+    }
+  }
+
+  /**
+   * Streams the files under the walker's root.
+   *
+   * @param walker the walker whose root and filters are used.
+   * @param parallel true for a parallel stream.
+   * @return the files in listFiles order; a parallel stream may hold later copies of a file
+   *     reached through several links.
+   */
+  public static Stream<Path> stream(FileWalker walker, boolean parallel) {
+    return StreamSupport.stream(new DirectorySpliterator(walker), parallel);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super Path> action) {
+    Entry entry;
+    while ((entry = this.poll()) != null) {
+      if (entry.directory) {
+        this.list(entry);
+      } else if (this.walker.isFirst(entry, this.listed)) {
+        action.accept(entry.path);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Spliterator<Path> trySplit() {
+    // A lone directory is listed so that its entries can be divided
+    while (this.entries.size() == 1 && this.entries.peekFirst().directory) {
+      this.list(this.poll());
+    }
+    int half = this.entries.size() / 2;
+    if (half == 0) {
+      return null;
+    }
+    Deque<Entry> prefix = new ArrayDeque<>(half);
+    for (int i = 0; i < half; i++) {
+      prefix.addLast(this.poll());
+    }
+    return new DirectorySpliterator(this.walker, prefix, this.stats);
+  }
+
+  @Override
+  public long estimateSize() {
+    long listed = this.stats.directoriesListed.sum();
+    long filesPerDirectory = listed == 0
+        ? DEFAULT_FILES_PER_DIRECTORY
+        : Math.max(1, this.stats.filesFound.sum() / listed);
+    return this.entries.size() - this.directories + this.directories * filesPerDirectory;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+  private Entry poll() {
+    Entry entry = this.entries.pollFirst();
+    if (entry != null && entry.directory) {
+      this.directories--;
+    }
+    return entry;
+  }
+
+  private void add(Entry entry, boolean first) {
+    if (first) {
+      this.entries.addFirst(entry);
+    } else {
+      this.entries.addLast(entry);
+    }
+    if (entry.directory) {
+      this.directories++;
+    }
+  }
+
+  // Lists a directory and puts its accepted entries, sorted by name, in its place
+  private void list(Entry directory) {
+    List<Entry> listed = this.walker.list(directory, this.stats.visited);
+    long files = 0;
+    for (int i = listed.size() - 1; i >= 0; i--) {
+      Entry entry = listed.get(i);
+      this.add(entry, true);
+      if (!entry.directory) {
+        files++;
+      }
+    }
+    this.stats.directoriesListed.increment();
+    this.stats.filesFound.add(files);
+  }
+
+  // Counters and reached files shared by a spliterator and all of its splits
+  private static final class Stats {
+    final LongAdder directoriesListed = new LongAdder();
+    final LongAdder filesFound = new LongAdder();
+    final FileWalker.Visited visited = new FileWalker.Visited();
+  }
+}
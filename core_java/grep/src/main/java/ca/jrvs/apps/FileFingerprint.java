@@ -0,0 +1,150 @@
+package ca.jrvs.apps;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * FileFingerprint identifies one version of a file by its path, size and modification time, and
+ * optionally by a CRC-32C checksum of its content. Two fingerprints of the same path describe the
+ * same content when size and modification time are equal; when only the modification time
+ * differs (e.g. the file was touched or copied), matching content hashes still prove it unchanged.
+ */
+public final class FileFingerprint {
+
+  /**
+   * Marker for a fingerprint taken without a content hash.
+   */
+  public static final long NO_HASH = -1L;
+
+  private final String path;
+  private final long size;
+  private final long lastModified;
+  private final long contentHash;
+
+  /**
+   * Creates a fingerprint from known values.
+   *
+   * @param path the file path.
+   * @param size the file size in bytes.
+   * @param lastModified the modification time in milliseconds.
+   * @param contentHash the CRC-32C of the content, or {@link #NO_HASH}.
+   */
+  public FileFingerprint(String path, long size, long lastModified, long contentHash) {
+    this.path = Objects.requireNonNull(path, "path");
+    this.size = size;
+    this.lastModified = lastModified;
+    this.contentHash = contentHash;
+  }
+
+  /**
+   * Takes the fingerprint of a file on disk.
+   *
+   * @param file the file.
+   * @param hashContent true to also hash the file content.
+   * @return the fingerprint.
+   * @throws IOException if the content cannot be read.
+   */
+  public static FileFingerprint of(File file, boolean hashContent) throws IOException {
+    return new FileFingerprint(file.getPath(), file.length(), file.lastModified(),
+        hashContent ? hash(file) : NO_HASH);
+  }
+
+  /**
+   * Computes the CRC-32C of a file's content.
+   *
+   * @param file the file.
+   * @return the checksum as a non-negative value.
+   * @throws IOException if the file cannot be read.
+   */
+  public static long hash(File file) throws IOException {
+    CRC32C crc = new CRC32C();
+    byte[] buffer = new byte[1 << 16];
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      int n;
+      while ((n = in.read(buffer)) > 0) {
+        crc.update(buffer, 0, n);
+      }
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * Checks whether the file on disk still has the content this fingerprint describes. The
+   * content is only hashed when the size matches, the modification time does not, and this
+   * fingerprint carries a hash.
+   *
+   * @param file the file on disk.
+   * @return true if the file is unchanged.
+   * @throws IOException if the content cannot be read.
+   */
+  public boolean matches(File file) throws IOException {
+    if (!this.path.equals(file.getPath()) || this.size != file.length()) {
+      return false;
+    }
+    if (this.lastModified == file.lastModified()) {
+      return true;
+    }
+    return this.contentHash != NO_HASH && this.contentHash == hash(file);
+  }
+
+  /**
+   * Get the file path.
+   *
+   * @return the path.
+   */
+  public String getPath() {
+    return this.path;
+  }
+
+  /**
+   * Get the file size.
+   *
+   * @return the size in bytes.
+   */
+  public long getSize() {
+    return this.size;
+  }
+
+  /**
+   * Get the modification time.
+   *
+   * @return the modification time in milliseconds.
+   */
+  public long getLastModified() {
+    return this.lastModified;
+  }
+
+  /**
+   * Get the content hash.
+   *
+   * @return the CRC-32C of the content, or {@link #NO_HASH}.
+   */
+  public long getContentHash() {
+    return this.contentHash;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof FileFingerprint)) {
+      return false;
+    }
+    FileFingerprint other = (FileFingerprint) o;
+    return this.path.equals(other.path) && this.size == other.size
+        && this.lastModified == other.lastModified && this.contentHash == other.contentHash;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.path, this.size, this.lastModified, this.contentHash);
+  }
+
+  @Override
+  public String toString() {
+    return "FileFingerprint[" + this.path + ", size=" + this.size + ", lastModified="
+        + this.lastModified + "]";
+  }
+}
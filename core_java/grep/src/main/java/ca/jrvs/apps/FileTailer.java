@@ -0,0 +1,143 @@
+package ca.jrvs.apps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * FileTailer reads growing files incrementally. It remembers, per file, the byte offset just past
+ * the last complete line it delivered, and each {@link #readAppended(Path, LineConsumer)} call
+ * decodes only the lines appended since then. A trailing line without a terminator is left for the
+ * next call, so a line that is still being written is never delivered in pieces.
+ *
+ * <p>Lines end at {@code \n}, {@code \r} or {@code \r\n}, like {@link java.io.BufferedReader}. A
+ * file that shrank below its offset (truncated) or was replaced by a different file (rotated) is
+ * read again from the start. Instances are not thread-safe.
+ */
+public class FileTailer {
+
+  final static Logger logger = LoggerFactory.getLogger(FileTailer.class);
+
+  private static final int READ_SIZE = 1 << 16;
+
+  private final Charset charset;
+  private final Map<Path, Position> positions = new HashMap<>();
+  private final ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+  private byte[] line = new byte[256];
+
+  /**
+   * Creates a tailer that decodes lines with the specified charset.
+   *
+   * @param charset the charset of the tailed files.
+   */
+  public FileTailer(Charset charset) {
+    this.charset = Objects.requireNonNull(charset, "charset");
+  }
+
+  /**
+   * Delivers the complete lines appended to a file since the previous call; the first call for a
+   * file delivers all of its complete lines.
+   *
+   * @param file the file to read.
+   * @param consumer receives each new line; returning false stops reading after that line.
+   * @return the number of lines delivered.
+   * @throws IOException if the file cannot be read or the consumer fails.
+   */
+  public int readAppended(Path file, LineConsumer consumer) throws IOException {
+    Position position = this.positions.computeIfAbsent(file, f -> new Position());
+    Object fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < position.offset || (fileKey != null && position.fileKey != null
+          && !fileKey.equals(position.fileKey))) {
+        // Logging truncated or rotated files before reading them again
+        logger.info("File " + file + " was truncated or replaced, reading from the start");
+        position.offset = 0;
+        position.afterCR = false;
+      }
+      position.fileKey = fileKey;
+      if (size == position.offset) {
+        return 0;
+      }
+
+      int delivered = 0;
+      int lineLength = 0;
+      long read = position.offset;
+      boolean afterCR = position.afterCR;
+      while (read < size) {
+        this.buffer.clear();
+        int n = channel.read(this.buffer, read);
+        if (n <= 0) {
+          break;
+        }
+        for (int i = 0; i < n; i++) {
+          byte b = this.buffer.get(i);
+          if (b == '\n' && afterCR) {
+            // Second half of a \r\n terminator
+            afterCR = false;
+            position.offset = read + i + 1;
+            position.afterCR = false;
+            continue;
+          }
+          afterCR = b == '\r';
+          if (b == '\n' || b == '\r') {
+            position.offset = read + i + 1;
+            position.afterCR = afterCR;
+            delivered++;
+            String text = new String(this.line, 0, lineLength, this.charset);
+            lineLength = 0;
+            if (!consumer.accept(text)) {
+              return delivered;
+            }
+            continue;
+          }
+          if (lineLength == this.line.length) {
+            this.line = Arrays.copyOf(this.line, lineLength * 2);
+          }
+          this.line[lineLength++] = b;
+        }
+        read += n;
+      }
+      return delivered;
+    }
+  }
+
+  /**
+   * Get the offset just past the last line delivered for a file.
+   *
+   * @param file the file.
+   * @return the byte offset, 0 if the file has not been read.
+   */
+  public long getOffset(Path file) {
+    Position position = this.positions.get(file);
+    return position == null ? 0 : position.offset;
+  }
+
+  /**
+   * Forgets a file, e.g. after it was deleted; it is read from the start if it reappears.
+   *
+   * @param file the file.
+   */
+  public void forget(Path file) {
+    this.positions.remove(file);
+  }
+
+  private static final class Position {
+
+    private long offset;
+    private boolean afterCR;
+    private Object fileKey;
+  }
+}
@@ -0,0 +1,529 @@
+package ca.jrvs.apps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * FileWalker lists the files under a root directory, applying include and exclude
+ * {@link PathFilter}s during the traversal. A directory that matches an exclude filter is skipped
+ * before it is listed, so its subtree is never read; a file is returned if it matches no exclude
+ * filter and, when there are include filters, at least one include filter. Include filters only
+ * apply to files.
+ *
+ * <p>The files are returned in the same order as {@link JavaGrepImp#listFiles(String)}: sorted by
+ * name within each directory, with each subdirectory's files in place of the subdirectory. The
+ * walk is iterative, with an explicit stack of one listing per directory level that is bounded
+ * by the maximum depth. A directory reached again below itself through a link is a cycle and is
+ * skipped; a physical file reached through several symbolic or hard links is listed once, at the
+ * first of its paths in that order, as identified by its file key (inode). Symbolic links are
+ * followed unless link following is off, in which case they are skipped; the root itself is
+ * always followed. The filters count their matches, and the walker counts what it visited, so
+ * the work avoided by the filters can be logged with {@link #logStats()}.
+ */
+public class FileWalker {
+
+  final static Logger logger = LoggerFactory.getLogger(FileWalker.class);
+
+  /**
+   * Default number of directory levels below the root that are walked.
+   */
+  public static final int DEFAULT_MAX_DEPTH = 4096;
+
+  private final Path root;
+  private final List<PathFilter> includes = new ArrayList<>();
+  private final List<PathFilter> excludes = new ArrayList<>();
+  private final LongAdder directoriesVisited = new LongAdder();
+  private final LongAdder filesVisited = new LongAdder();
+  private final LongAdder filesNotIncluded = new LongAdder();
+  private final LongAdder linksSkipped = new LongAdder();
+  private final LongAdder cyclesSkipped = new LongAdder();
+  private final LongAdder duplicatesSkipped = new LongAdder();
+  private boolean followLinks = true;
+  private int maxDepth = DEFAULT_MAX_DEPTH;
+
+  /**
+   * Creates a walker for the specified root directory and filters.
+   *
+   * @param rootDir the root directory.
+   * @param includes the include patterns; empty to include every file.
+   * @param excludes the exclude patterns.
+   * @throws IllegalArgumentException if a pattern is invalid.
+   */
+  public FileWalker(String rootDir, List<String> includes, List<String> excludes) {
+    this.root = Paths.get(rootDir);
+    for (String pattern : includes) {
+      this.includes.add(new PathFilter(pattern));
+    }
+    for (String pattern : excludes) {
+      this.excludes.add(new PathFilter(pattern));
+    }
+  }
+
+  /**
+   * Walks the tree and lists the accepted files.
+   *
+   * @return the files in listFiles order; empty if the root is not a directory.
+   * @throws IOException if the walk fails.
+   */
+  public List<File> walk() throws IOException {
+    return this.walk(this.root);
+  }
+
+  /**
+   * Walks the subtree of one directory under the root and lists the accepted files. Filters are
+   * still matched against paths relative to the root, and the maximum depth is counted from the
+   * root.
+   *
+   * @param start the directory to walk, the root or a directory under it.
+   * @return the files in listFiles order; empty if start is not a directory.
+   * @throws IOException if the walk fails.
+   */
+  public List<File> walk(Path start) throws IOException {
+    List<File> files = new ArrayList<>();
+    this.walk(start, files, null);
+    return files;
+  }
+
+  /**
+   * Walks the subtree of one directory under the root and lists the directories the walk enters,
+   * so that they can be watched: the ones links lead to when links are followed, each directory
+   * of a link cycle once, and none that is excluded or below the maximum depth.
+   *
+   * @param start the directory to walk, the root or a directory under it.
+   * @return start and the directories under it in listFiles order; empty if start is not a
+   *     directory.
+   * @throws IOException if the walk fails.
+   */
+  public List<Path> walkDirectories(Path start) throws IOException {
+    List<Path> directories = new ArrayList<>();
+    this.walk(start, null, directories);
+    return directories;
+  }
+
+  // Walks a subtree, adding the files and the directories entered to the lists that are not null
+  private void walk(Path start, List<File> files, List<Path> directories) {
+    // Checked through File so that an empty root path is no directory, as in listFiles
+    if (!start.toFile().isDirectory() || !this.acceptDirectory(start)) {
+      return;
+    }
+
+    Visited visited = new Visited();
+    Set<Object> listed = new HashSet<>();
+    Deque<Iterator<Entry>> stack = new ArrayDeque<>();
+    if (directories != null) {
+      directories.add(start);
+    }
+    stack.push(this.list(this.startEntry(start), visited).iterator());
+    while (!stack.isEmpty()) {
+      Iterator<Entry> entries = stack.peek();
+      if (!entries.hasNext()) {
+        stack.pop();
+        continue;
+      }
+      Entry entry = entries.next();
+      if (entry.directory) {
+        if (directories != null) {
+          directories.add(entry.path);
+        }
+        stack.push(this.list(entry, visited).iterator());
+      } else if (files != null && this.isFirst(entry, listed)) {
+        files.add(entry.path.toFile());
+      }
+    }
+  }
+
+  /**
+   * Creates the entry a walk starts from.
+   *
+   * @param start the root or a directory under it.
+   * @return the directory entry, at its depth below the root and at the first listing position.
+   */
+  Entry startEntry(Path start) {
+    return new Entry(start, true, this.depth(start), directoryKey(start, null), null, new int[0]);
+  }
+
+  /**
+   * Lists one directory of a walk: its entries sorted by name, without the ones the filters
+   * reject, the symbolic links when links are not followed, the directories below the maximum
+   * depth or already among their own ancestors, and the files the walk has already reached at an
+   * earlier listing position. Listings of different directories of one walk may run in parallel
+   * and in any order, so a file may still be listed again at a later position; consumers that
+   * need each file once keep the first of each key in listing order, see
+   * {@link #isFirst(Entry, Set)}.
+   *
+   * @param dir the directory entry.
+   * @param visited the physical files reached by the walk so far.
+   * @return the accepted entries in listing order; empty if the directory cannot be read.
+   */
+  List<Entry> list(Entry dir, Visited visited) {
+    File[] children = dir.path.toFile().listFiles();
+    if (children == null) {
+      logger.warn("Cannot read " + dir.path);
+      return Collections.emptyList();
+    }
+    Arrays.sort(children);
+    List<Entry> entries = new ArrayList<>(children.length);
+    for (int i = 0; i < children.length; i++) {
+      Path path = dir.path.resolve(children[i].getName());
+      BasicFileAttributes attrs;
+      try {
+        attrs = this.followLinks
+            ? Files.readAttributes(path, BasicFileAttributes.class)
+            : Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      } catch (IOException e) {
+        logger.warn("Cannot read " + path + ": " + e.getMessage());
+        continue;
+      }
+      if (attrs.isSymbolicLink()) {
+        this.linksSkipped.increment();
+        logger.debug("Skipping symbolic link " + path);
+      } else if (attrs.isDirectory()) {
+        Object key = directoryKey(path, attrs);
+        if (dir.hasAncestor(key)) {
+          // Counted and summarised by logStats, since a tree of links may hold many
+          this.cyclesSkipped.increment();
+          logger.debug("Skipping directory already walked, a link cycle, at " + path);
+        } else if (this.acceptDirectory(path)) {
+          if (dir.depth >= this.maxDepth) {
+            logger.warn("Skipping directory deeper than " + this.maxDepth + " levels at " + path);
+          } else {
+            entries.add(new Entry(path, true, dir.depth + 1, key, dir, dir.child(i)));
+          }
+        }
+      } else if (attrs.isRegularFile() && this.acceptFile(path)) {
+        Entry entry = new Entry(path, false, dir.depth, attrs.fileKey(), null, dir.child(i));
+        if (visited.claim(entry)) {
+          entries.add(entry);
+        } else {
+          this.duplicatesSkipped.increment();
+          logger.debug("Skipping file already listed through another link at " + path);
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Decides whether a file entry is the first of its physical file, for a consumer that sees the
+   * listed files in listing order, counting the duplicates.
+   *
+   * @param file the file entry.
+   * @param listed the keys of the files the consumer has seen, updated.
+   * @return false if a file with the same key was seen before.
+   */
+  boolean isFirst(Entry file, Set<Object> listed) {
+    if (file.key == null || listed.add(file.key)) {
+      return true;
+    }
+    this.duplicatesSkipped.increment();
+    logger.debug("Skipping file already listed through another link at " + file.path);
+    return false;
+  }
+
+  /**
+   * Identifies a physical file, so that a consumer of a parallel walk that only has the path can
+   * keep the first of its paths with {@link #isFirst(Entry, Set)}.
+   *
+   * @param file the file.
+   * @return the entry of the file, with its file key.
+   */
+  static Entry fileEntry(Path file) {
+    Object key;
+    try {
+      key = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    } catch (IOException e) {
+      key = null;
+    }
+    return new Entry(file, false, 0, key, null, new int[0]);
+  }
+
+  // Counts the directory levels between the root and a directory under it
+  private int depth(Path dir) {
+    Path relativePath = this.root.relativize(dir);
+    return relativePath.toString().isEmpty() ? 0 : relativePath.getNameCount();
+  }
+
+  // Identifies a directory, preferring the file key, so that it is found through any link
+  private static Object directoryKey(Path path, BasicFileAttributes attrs) {
+    try {
+      if (attrs == null) {
+        attrs = Files.readAttributes(path, BasicFileAttributes.class);
+      }
+      return attrs.fileKey() != null ? attrs.fileKey() : path.toRealPath();
+    } catch (IOException e) {
+      return path.toAbsolutePath().normalize();
+    }
+  }
+
+  /**
+   * Decides whether a directory's subtree is walked, counting the decision.
+   *
+   * @param dir the directory, under the root.
+   * @return false if an exclude filter matches; the root itself is always accepted.
+   */
+  public boolean acceptDirectory(Path dir) {
+    this.directoriesVisited.increment();
+    Path relativePath = this.root.relativize(dir);
+    if (relativePath.toString().isEmpty()) {
+      return true;
+    }
+    for (PathFilter exclude : this.excludes) {
+      if (exclude.matchDirectory(relativePath)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decides whether a file is listed, counting the decision.
+   *
+   * @param file the file, under the root.
+   * @return true if no exclude filter and, if there are any, some include filter matches.
+   */
+  public boolean acceptFile(Path file) {
+    this.filesVisited.increment();
+    Path relativePath = this.root.relativize(file);
+    for (PathFilter exclude : this.excludes) {
+      if (exclude.matchFile(relativePath)) {
+        return false;
+      }
+    }
+    if (this.includes.isEmpty()) {
+      return true;
+    }
+    for (PathFilter include : this.includes) {
+      if (include.matchFile(relativePath)) {
+        return true;
+      }
+    }
+    this.filesNotIncluded.increment();
+    return false;
+  }
+
+  /**
+   * Get the root directory.
+   *
+   * @return the root path as given.
+   */
+  public Path getRoot() {
+    return this.root;
+  }
+
+  /**
+   * Check whether symbolic links are followed.
+   *
+   * @return true if symbolic links are followed, false if they are skipped.
+   */
+  public boolean isFollowLinks() {
+    return this.followLinks;
+  }
+
+  /**
+   * Set whether symbolic links under the root are followed or skipped. Links that are followed
+   * still never lead into a cycle or to a file listed twice.
+   *
+   * @param followLinks true to follow symbolic links, false to skip them.
+   */
+  public void setFollowLinks(boolean followLinks) {
+    this.followLinks = followLinks;
+  }
+
+  /**
+   * Get the number of directory levels below the root that are walked.
+   *
+   * @return the maximum depth.
+   */
+  public int getMaxDepth() {
+    return this.maxDepth;
+  }
+
+  /**
+   * Set the number of directory levels below the root that are walked; deeper directories are
+   * reported and skipped. This bounds the walk's stack of directory listings.
+   *
+   * @param maxDepth the maximum depth; 0 lists only the files directly in the root.
+   */
+  public void setMaxDepth(int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+    }
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Get the include filters with their counters.
+   *
+   * @return the include filters.
+   */
+  public List<PathFilter> getIncludes() {
+    return Collections.unmodifiableList(this.includes);
+  }
+
+  /**
+   * Get the exclude filters with their counters.
+   *
+   * @return the exclude filters.
+   */
+  public List<PathFilter> getExcludes() {
+    return Collections.unmodifiableList(this.excludes);
+  }
+
+  /**
+   * Get the number of directories the walk entered or skipped, including the root.
+   *
+   * @return the directory count.
+   */
+  public long getDirectoriesVisited() {
+    return this.directoriesVisited.sum();
+  }
+
+  /**
+   * Get the number of files the walk looked at, listed or not.
+   *
+   * @return the file count.
+   */
+  public long getFilesVisited() {
+    return this.filesVisited.sum();
+  }
+
+  /**
+   * Get the number of files that matched no include filter.
+   *
+   * @return the file count.
+   */
+  public long getFilesNotIncluded() {
+    return this.filesNotIncluded.sum();
+  }
+
+  /**
+   * Get the number of symbolic links skipped because links are not followed.
+   *
+   * @return the link count.
+   */
+  public long getLinksSkipped() {
+    return this.linksSkipped.sum();
+  }
+
+  /**
+   * Get the number of directories skipped because they were reached again below themselves
+   * through a link.
+   *
+   * @return the cycle count.
+   */
+  public long getCyclesSkipped() {
+    return this.cyclesSkipped.sum();
+  }
+
+  /**
+   * Get the number of files skipped because they were reached through another path first.
+   *
+   * @return the duplicate count.
+   */
+  public long getDuplicatesSkipped() {
+    return this.duplicatesSkipped.sum();
+  }
+
+  /**
+   * Logs the walk counters and how often each filter matched.
+   */
+  public void logStats() {
+    if (this.getLinksSkipped() > 0 || this.getCyclesSkipped() > 0
+        || this.getDuplicatesSkipped() > 0) {
+      logger.info("Skipped " + this.getLinksSkipped() + " symbolic links, "
+          + this.getCyclesSkipped() + " link cycles and " + this.getDuplicatesSkipped()
+          + " files reached twice");
+    }
+    if (this.includes.isEmpty() && this.excludes.isEmpty()) {
+      return;
+    }
+    logger.info("Walked " + this.getDirectoriesVisited() + " directories and "
+        + this.getFilesVisited() + " files; " + this.getFilesNotIncluded()
+        + " files matched no include");
+    for (PathFilter exclude : this.excludes) {
+      logger.info("Exclude " + exclude);
+    }
+    for (PathFilter include : this.includes) {
+      logger.info("Include " + include);
+    }
+  }
+
+  /**
+   * An accepted entry of a directory listing.
+   */
+  static final class Entry {
+    final Path path;
+    final boolean directory;
+    // For a directory, its own depth; for a file, the depth of the directory it is in
+    final int depth;
+    // The file key, or for a directory a path if there is none; null if unknown
+    final Object key;
+    // For a directory, the directory it was listed in; null for the start and for files
+    final Entry parent;
+    // The index of the entry in each sorted listing from the start down, which orders the
+    // entries of a walk in listing order
+    final int[] position;
+
+    Entry(Path path, boolean directory, int depth, Object key, Entry parent, int[] position) {
+      this.path = path;
+      this.directory = directory;
+      this.depth = depth;
+      this.key = key;
+      this.parent = parent;
+      this.position = position;
+    }
+
+    boolean hasAncestor(Object key) {
+      for (Entry dir = this; dir != null; dir = dir.parent) {
+        if (dir.key.equals(key)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    int[] child(int index) {
+      int[] child = Arrays.copyOf(this.position, this.position.length + 1);
+      child[this.position.length] = index;
+      return child;
+    }
+  }
+
+  /**
+   * The earliest listing position at which one walk has reached each physical file, keyed by file
+   * key; shared by the listings of the walk, which may run in parallel. Every claim keeps the
+   * earliest position, so whatever order the listings run in, a file is only dropped when a copy
+   * of it is known to come first.
+   */
+  static final class Visited {
+    private final ConcurrentHashMap<Object, int[]> files = new ConcurrentHashMap<>();
+
+    // Returns false if the file was reached at an earlier position
+    boolean claim(Entry file) {
+      if (file.key == null) {
+        return true;
+      }
+      int[] first = this.files.merge(file.key, file.position,
+          (a, b) -> Arrays.compare(a, b) <= 0 ? a : b);
+      return first == file.position;
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package ca.jrvs.apps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * FingerprintStore remembers, between runs, the {@link FileFingerprint} of every searched file
+ * together with the lines that matched in it. A store belongs to one key (typically the root path
+ * and regex), since cached matches are only valid for the search that produced them; loading a
+ * store saved under a different key yields an empty store.
+ */
+public class FingerprintStore {
+
+  final static Logger logger = LoggerFactory.getLogger(FingerprintStore.class);
+
+  private static final int MAGIC = 0x47465031;
+  private static final int VERSION = 1;
+
+  private final String key;
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+  /**
+   * Creates an empty store for the specified key.
+   *
+   * @param key the search the cached results belong to.
+   */
+  public FingerprintStore(String key) {
+    this.key = key;
+  }
+
+  /**
+   * Loads a store from disk. A missing, unreadable or differently keyed store file yields an
+   * empty store, so the next run simply rescans everything.
+   *
+   * @param storeFile the store file.
+   * @param key the search the cached results must belong to.
+   * @return the loaded store.
+   */
+  public static FingerprintStore load(Path storeFile, String key) {
+    FingerprintStore store = new FingerprintStore(key);
+    if (!Files.exists(storeFile)) {
+      return store;
+    }
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(storeFile), 1 << 16))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || !key.equals(readString(in))) {
+        logger.info("Fingerprint store " + storeFile + " belongs to another search, ignoring it");
+        return store;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        FileFingerprint fingerprint = new FileFingerprint(readString(in), in.readLong(),
+            in.readLong(), in.readLong());
+        int matchCount = in.readInt();
+        List<String> matches = new ArrayList<>(matchCount);
+        for (int k = 0; k < matchCount; k++) {
+          matches.add(readString(in));
+        }
+        store.put(fingerprint, matches);
+      }
+    } catch (IOException e) {
+      logger.warn("Cannot read fingerprint store " + storeFile + ", starting empty", e);
+      return new FingerprintStore(key);
+    }
+    return store;
+  }
+
+  /**
+   * Writes the store to disk, replacing the previous store file atomically where supported.
+   *
+   * @param storeFile the store file.
+   * @throws IOException if the store cannot be written.
+   */
+  public void save(Path storeFile) throws IOException {
+    Path parent = storeFile.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temp = Files.createTempFile(parent, storeFile.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, this.key);
+        out.writeInt(this.entries.size());
+        for (Entry entry : this.entries.values()) {
+          writeString(out, entry.fingerprint.getPath());
+          out.writeLong(entry.fingerprint.getSize());
+          out.writeLong(entry.fingerprint.getLastModified());
+          out.writeLong(entry.fingerprint.getContentHash());
+          out.writeInt(entry.matches.size());
+          for (String line : entry.matches) {
+            writeString(out, line);
+          }
+        }
+      }
+      try {
+        Files.move(temp, storeFile, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, storeFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Returns the cached matches for a file if the file is unchanged since they were stored.
+   *
+   * @param file the file on disk.
+   * @return the cached matched lines, or null if the file is new or changed.
+   * @throws IOException if the file content has to be hashed and cannot be read.
+   */
+  public List<String> cachedMatches(File file) throws IOException {
+    Entry entry = this.entries.get(file.getPath());
+    if (entry == null || !entry.fingerprint.matches(file)) {
+      return null;
+    }
+    if (entry.fingerprint.getLastModified() != file.lastModified()) {
+      // Unchanged content with a new timestamp; remember it so it is not hashed again
+      this.put(new FileFingerprint(file.getPath(), file.length(), file.lastModified(),
+          entry.fingerprint.getContentHash()), entry.matches);
+    }
+    return entry.matches;
+  }
+
+  /**
+   * Stores the fingerprint of a file and the lines that matched in it.
+   *
+   * @param fingerprint the file's fingerprint.
+   * @param matches the matched lines.
+   */
+  public void put(FileFingerprint fingerprint, List<String> matches) {
+    this.entries.put(fingerprint.getPath(),
+        new Entry(fingerprint, Collections.unmodifiableList(new ArrayList<>(matches))));
+  }
+
+  /**
+   * Removes the entries of files that no longer exist in the searched tree.
+   *
+   * @param files the files currently in the tree.
+   * @return the number of entries removed.
+   */
+  public int retainOnly(Collection<File> files) {
+    Set<String> paths = new HashSet<>();
+    for (File file : files) {
+      paths.add(file.getPath());
+    }
+    int removed = 0;
+    for (Iterator<String> it = this.entries.keySet().iterator(); it.hasNext(); ) {
+      if (!paths.contains(it.next())) {
+        it.remove();
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Get the number of files in the store.
+   *
+   * @return the entry count.
+   */
+  public int size() {
+    return this.entries.size();
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static final class Entry {
+
+    private final FileFingerprint fingerprint;
+    private final List<String> matches;
+
+    Entry(FileFingerprint fingerprint, List<String> matches) {
+      this.fingerprint = fingerprint;
+      this.matches = matches;
+    }
+  }
+}
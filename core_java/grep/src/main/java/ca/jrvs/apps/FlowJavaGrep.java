@@ -0,0 +1,74 @@
+package ca.jrvs.apps;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * FlowJavaGrep is the {@link Flow} variant of {@link StreamJavaGrep}. Each step of a search is a
+ * separate stage, walking, reading, matching and sinking, and the stages are connected by
+ * {@link Flow.Publisher}s, so a slow subscriber holds back the whole search through the demand it
+ * signals with {@link Flow.Subscription#request(long)}, and cancelling stops it.
+ */
+public interface FlowJavaGrep {
+
+  /**
+   * Searches the files under the root path and writes the matched lines to the output file,
+   * waiting until the search is complete.
+   *
+   * @throws IOException if an I/O error occurs while reading or writing files.
+   */
+  void process() throws IOException;
+
+  /**
+   * Publishes the matched lines of the files under the root path: the stages of
+   * {@link #listFiles(String)}, {@link #readLines(Flow.Publisher)} and
+   * {@link #matchLines(Flow.Publisher)} connected in order.
+   *
+   * @return a publisher of the matched lines, in listFiles order.
+   */
+  Flow.Publisher<String> search();
+
+  /**
+   * The walking stage: publishes the files under the specified root directory.
+   *
+   * @param rootDir the root directory to search for files.
+   * @return a publisher of the files found in the root directory and its subdirectories.
+   */
+  Flow.Publisher<File> listFiles(String rootDir);
+
+  /**
+   * The reading stage: publishes the lines of each published file in turn.
+   *
+   * @param files the files to read.
+   * @return a publisher of the lines of the files.
+   */
+  Flow.Publisher<String> readLines(Flow.Publisher<File> files);
+
+  /**
+   * The matching stage: publishes the lines that contain a pattern match.
+   *
+   * @param lines the lines to match.
+   * @return a publisher of the matched lines.
+   */
+  Flow.Publisher<String> matchLines(Flow.Publisher<String> lines);
+
+  /**
+   * Checks if the specified line contains a pattern match.
+   *
+   * @param line the line to check for a pattern match.
+   * @return true if the line contains a pattern match, false otherwise.
+   */
+  boolean containsPattern(String line);
+
+  /**
+   * The sinking stage: subscribes to the lines and writes them to the output file.
+   *
+   * @param lines the lines to write to the output file.
+   * @return a future of the number of lines written, completed once the lines are written and
+   *     the file is closed, or exceptionally if reading or writing fails.
+   */
+  CompletableFuture<Long> writeToFile(Flow.Publisher<String> lines);
+
+}
@@ -0,0 +1,876 @@
+package ca.jrvs.apps;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.log4j.BasicConfigurator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * FlowJavaGrepImp is an implementation of the FlowJavaGrep interface. Its stages do no work
+ * ahead of demand: a stage asks its upstream for one item at a time, and only when its own
+ * subscriber has requested more, so a file is only opened, and a line only read and matched, once
+ * a line is wanted downstream. The work is done on the thread that signals the demand, and no
+ * stage buffers more than one item.
+ *
+ * <p>Cancelling a subscription cancels the stages upstream of it, and the reading stage closes
+ * its open file right away, even while another thread is reading from it. Binary files are
+ * skipped, as in the other engines by default.
+ */
+public class FlowJavaGrepImp implements FlowJavaGrep {
+
+  final static Logger logger = LoggerFactory.getLogger(FlowJavaGrepImp.class);
+
+  /**
+   * Default number of lines the sink of {@link #writeToFile(Flow.Publisher)} requests at a time.
+   */
+  public static final int DEFAULT_REQUEST_SIZE = 256;
+
+  private String regex;
+  private String rootPath;
+  private String outFile;
+  private String matcherProvider;
+  private volatile LineMatcher lineMatcher;
+  private List<String> includes = new ArrayList<>();
+  private List<String> excludes = new ArrayList<>();
+  private boolean followLinks = true;
+  private long maxTotal = Long.MAX_VALUE;
+  private int requestSize = DEFAULT_REQUEST_SIZE;
+  private Charset charset = Charset.defaultCharset();
+  private volatile BinaryDetector binaryDetector = new BinaryDetector(this.charset);
+  private volatile GrepMetrics metrics = new GrepMetrics(this.getClass().getSimpleName(), null,
+      null);
+
+  /**
+   * Main method to execute the FlowJavaGrepImp program.
+   *
+   * @param args command line arguments: regex, rootPath, outFile.
+   */
+  public static void main(String[] args) {
+    if (args.length != 3) {
+      throw new IllegalArgumentException("USAGE: FlowJavaGrepImp regex rootPath outFile");
+    }
+
+    BasicConfigurator.configure();
+
+    FlowJavaGrepImp flowJavaGrepImp = new FlowJavaGrepImp();
+    flowJavaGrepImp.setRegex(args[0]);
+    flowJavaGrepImp.setRootPath(args[1]);
+    flowJavaGrepImp.setOutFile(args[2]);
+
+    try {
+      flowJavaGrepImp.process();
+    } catch (Exception e) {
+      logger.error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Get the regular expression pattern.
+   *
+   * @return the regex pattern.
+   */
+  public String getRegex() {
+    return this.regex;
+  }
+
+  /**
+   * Set the regular expression pattern.
+   *
+   * @param regex the regex pattern to set.
+   */
+  public void setRegex(String regex) {
+    this.regex = regex;
+    this.lineMatcher = null;
+  }
+
+  /**
+   * Get the name of the LineMatcherProvider used to compile the regex.
+   *
+   * @return the provider name, or null to pick the first provider that supports the regex.
+   */
+  public String getMatcherProvider() {
+    return this.matcherProvider;
+  }
+
+  /**
+   * Set the name of the LineMatcherProvider used to compile the regex.
+   *
+   * @param matcherProvider the provider name, or null to pick one automatically.
+   */
+  public void setMatcherProvider(String matcherProvider) {
+    this.matcherProvider = matcherProvider;
+    this.lineMatcher = null;
+  }
+
+  /**
+   * Get the compiled matcher for the current regex, compiling it on first use.
+   *
+   * @return the line matcher.
+   * @throws NullPointerException if the regex is null.
+   */
+  public LineMatcher getLineMatcher() {
+    LineMatcher matcher = this.lineMatcher;
+    if (matcher == null) {
+      matcher = this.getMatcherProvider() == null
+          ? LineMatchers.compile(this.getRegex())
+          : LineMatchers.compile(this.getRegex(), this.getMatcherProvider());
+      this.lineMatcher = matcher;
+    }
+    return matcher;
+  }
+
+  /**
+   * Set a pre-built matcher to use instead of compiling the regex.
+   *
+   * @param lineMatcher the line matcher.
+   */
+  public void setLineMatcher(LineMatcher lineMatcher) {
+    this.lineMatcher = lineMatcher;
+  }
+
+  /**
+   * Get the root directory path.
+   *
+   * @return the root directory path.
+   */
+  public String getRootPath() {
+    return this.rootPath;
+  }
+
+  /**
+   * Set the root directory path.
+   *
+   * @param rootPath the root directory path to set.
+   */
+  public void setRootPath(String rootPath) {
+    this.rootPath = rootPath;
+  }
+
+  /**
+   * Get the output file path.
+   *
+   * @return the output file path.
+   */
+  public String getOutFile() {
+    return this.outFile;
+  }
+
+  /**
+   * Set the output file path.
+   *
+   * @param outFile the output file path to set.
+   */
+  public void setOutFile(String outFile) {
+    this.outFile = outFile;
+  }
+
+  /**
+   * Get the include patterns applied while walking the root path.
+   *
+   * @return the include patterns; empty to include every file.
+   */
+  public List<String> getIncludes() {
+    return this.includes;
+  }
+
+  /**
+   * Set the include patterns applied while walking the root path. Only files matching at least
+   * one of them are searched; see {@link PathFilter} for the pattern syntax.
+   *
+   * @param includes the include patterns; empty to include every file.
+   */
+  public void setIncludes(List<String> includes) {
+    this.includes = new ArrayList<>(includes);
+  }
+
+  /**
+   * Get the exclude patterns applied while walking the root path.
+   *
+   * @return the exclude patterns.
+   */
+  public List<String> getExcludes() {
+    return this.excludes;
+  }
+
+  /**
+   * Set the exclude patterns applied while walking the root path. Matching files are not
+   * searched and matching directories are not entered; see {@link PathFilter} for the syntax.
+   *
+   * @param excludes the exclude patterns.
+   */
+  public void setExcludes(List<String> excludes) {
+    this.excludes = new ArrayList<>(excludes);
+  }
+
+  /**
+   * Check whether symbolic links under the root path are followed.
+   *
+   * @return true if symbolic links are followed, false if they are skipped.
+   */
+  public boolean isFollowLinks() {
+    return this.followLinks;
+  }
+
+  /**
+   * Set whether symbolic links under the root path are followed or skipped. Either way each
+   * directory and file is searched once, however many links lead to it; see {@link FileWalker}.
+   *
+   * @param followLinks true to follow symbolic links, false to skip them.
+   */
+  public void setFollowLinks(boolean followLinks) {
+    this.followLinks = followLinks;
+  }
+
+  /**
+   * Creates the walker that lists the files under a directory with the include and exclude
+   * patterns and the link setting.
+   *
+   * @param rootDir the root directory.
+   * @return the walker.
+   */
+  protected FileWalker newFileWalker(String rootDir) {
+    FileWalker walker = new FileWalker(rootDir, this.getIncludes(), this.getExcludes());
+    walker.setFollowLinks(this.isFollowLinks());
+    return walker;
+  }
+
+  /**
+   * Get the charset the searched files are decoded with.
+   *
+   * @return the charset; the platform default unless set.
+   */
+  public Charset getCharset() {
+    return this.charset;
+  }
+
+  /**
+   * Set the charset the searched files are decoded with.
+   *
+   * @param charset the charset.
+   */
+  public void setCharset(Charset charset) {
+    this.charset = Objects.requireNonNull(charset, "charset");
+    this.binaryDetector = new BinaryDetector(charset);
+  }
+
+  /**
+   * Get the maximum number of lines written by the sink.
+   *
+   * @return the run maximum; {@link Long#MAX_VALUE} when unlimited.
+   */
+  public long getMaxTotal() {
+    return this.maxTotal;
+  }
+
+  /**
+   * Set the maximum number of lines written by the sink. Once it is reached the sink cancels its
+   * subscription, which stops the search and closes the file being read.
+   *
+   * @param maxTotal the run maximum, must be positive.
+   */
+  public void setMaxTotal(long maxTotal) {
+    if (maxTotal < 1) {
+      throw new IllegalArgumentException("maxTotal must be positive: " + maxTotal);
+    }
+    this.maxTotal = maxTotal;
+  }
+
+  /**
+   * Get the number of lines the sink requests at a time.
+   *
+   * @return the request size.
+   */
+  public int getRequestSize() {
+    return this.requestSize;
+  }
+
+  /**
+   * Set the number of lines the sink requests at a time. It requests the next batch once the
+   * previous one is written, so this is also the most lines the search runs ahead of the writes.
+   *
+   * @param requestSize the request size, must be positive.
+   */
+  public void setRequestSize(int requestSize) {
+    if (requestSize < 1) {
+      throw new IllegalArgumentException("requestSize must be positive: " + requestSize);
+    }
+    this.requestSize = requestSize;
+  }
+
+  /**
+   * Get the metrics of the current or last run. Outside of runs the counters still collect the
+   * work of subscriptions to the stages.
+   *
+   * @return the run metrics.
+   */
+  public GrepMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  @Override
+  public void process() throws IOException {
+    // Logging the rootPath before subscribing to the stages
+    logger.info("Root Path: " + this.getRootPath());
+
+    GrepMetrics metrics = new GrepMetrics(this.getClass().getSimpleName(), this.getRegex(),
+        this.getRootPath());
+    this.metrics = metrics;
+    long written;
+    try {
+      written = this.writeToFile(this.search()).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while searching " + this.getRootPath());
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      throw new IOException(cause);
+    }
+
+    // Logging the number of matched lines
+    logger.info("Number of matched lines: " + written);
+    this.logPrefilterStats();
+    metrics.finish();
+    // Logging the run report
+    logger.info("Run report: " + metrics.toJson());
+    // Logging the completion of the process
+    logger.info("FlowJavaGrepImp process completed");
+  }
+
+  /**
+   * Logs how many lines the literal prefilter rejected before the regex engine ran.
+   */
+  protected void logPrefilterStats() {
+    if (this.lineMatcher instanceof PrefilteredLineMatcher) {
+      PrefilteredLineMatcher prefilter = (PrefilteredLineMatcher) this.lineMatcher;
+      logger.info("Prefilter rejected " + prefilter.getLinesRejected() + " of "
+          + prefilter.getLinesTested() + " lines using literals " + prefilter.getLiterals());
+    }
+  }
+
+  @Override
+  public Flow.Publisher<String> search() {
+    return this.matchLines(this.readLines(this.listFiles(this.getRootPath())));
+  }
+
+  /**
+   * The walking stage: lists the files under the root directory with a
+   * {@link DirectorySpliterator}, in listFiles order, one directory at a time as files are
+   * requested.
+   *
+   * @param rootDir the root directory to search for files.
+   * @return a publisher of the files found; empty if the root is not a readable directory.
+   */
+  @Override
+  public Flow.Publisher<File> listFiles(String rootDir) {
+    return subscriber -> {
+      Objects.requireNonNull(subscriber, "subscriber");
+      // Logging the directory being processed
+      logger.debug("Processing directory: " + new File(rootDir).getAbsolutePath());
+      subscriber.onSubscribe(new WalkStage(subscriber, this.newFileWalker(rootDir)));
+    };
+  }
+
+  /**
+   * The reading stage: reads the lines of each file, opening the next file only when the last
+   * line of the previous one has been requested. Binary files are skipped, and files that
+   * cannot be opened are logged and skipped like in {@link StreamJavaGrepImp#readLines(File)};
+   * an error while reading a file fails the stage.
+   *
+   * @param files the files to read.
+   * @return a publisher of the lines of the files.
+   */
+  @Override
+  public Flow.Publisher<String> readLines(Flow.Publisher<File> files) {
+    return subscriber -> {
+      ReadStage stage = new ReadStage(Objects.requireNonNull(subscriber, "subscriber"));
+      subscriber.onSubscribe(stage);
+      files.subscribe(stage);
+    };
+  }
+
+  @Override
+  public Flow.Publisher<String> matchLines(Flow.Publisher<String> lines) {
+    return subscriber -> {
+      MatchStage stage = new MatchStage(Objects.requireNonNull(subscriber, "subscriber"));
+      subscriber.onSubscribe(stage);
+      lines.subscribe(stage);
+    };
+  }
+
+  @Override
+  public boolean containsPattern(String line) {
+    if (line == null) {
+      return false;
+    }
+    return this.getMetrics().matches(this.getLineMatcher(), line);
+  }
+
+  /**
+   * The sinking stage: writes the lines to the output file, requesting
+   * {@link #getRequestSize()} lines at a time, and cancels its subscription once
+   * {@link #getMaxTotal()} lines are written.
+   *
+   * @param lines the lines to write to the output file.
+   * @return a future of the number of lines written.
+   */
+  @Override
+  public CompletableFuture<Long> writeToFile(Flow.Publisher<String> lines) {
+    BufferedWriter writer;
+    try {
+      writer = new BufferedWriter(new FileWriter(this.getOutFile()));
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    LineSink sink = new LineSink(writer, this.getRequestSize(), this.getMaxTotal());
+    lines.subscribe(sink);
+    return sink.result;
+  }
+
+  /**
+   * A stage of the search: the subscription of its downstream subscriber and, except for the
+   * first stage, the subscriber to its upstream stage. Demand is served by a drain loop that only
+   * one thread runs at a time; signals arriving while it runs, including requests made from
+   * inside {@code onNext}, make it loop again instead of recursing.
+   *
+   * @param <I> the type of the items received from upstream.
+   * @param <O> the type of the items published downstream.
+   */
+  private abstract static class Stage<I, O> implements Flow.Subscription, Flow.Subscriber<I> {
+
+    private final Flow.Subscriber<? super O> downstream;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean released = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private volatile Throwable failure;
+    // Only touched by the thread running the drain loop
+    private boolean terminated;
+
+    private volatile Flow.Subscription upstream;
+    private final AtomicReference<I> next = new AtomicReference<>();
+    private volatile boolean upstreamRequested;
+    private volatile boolean upstreamDone;
+    private volatile Throwable upstreamError;
+
+    Stage(Flow.Subscriber<? super O> downstream) {
+      this.downstream = downstream;
+    }
+
+    /**
+     * Produces the next item to publish.
+     *
+     * @return the item, or null if none is available yet or the stage is finished.
+     * @throws IOException if the item cannot be produced.
+     */
+    abstract O poll() throws IOException;
+
+    /**
+     * Checks, after {@link #poll()} returned null, whether the stage will publish no more items.
+     *
+     * @return true if the stage is finished.
+     */
+    abstract boolean finished();
+
+    /**
+     * Releases the resources of the stage; called once, when the stage completes, fails or is
+     * cancelled, possibly from a thread other than the one running the drain loop.
+     */
+    void release() {
+    }
+
+    boolean isCancelled() {
+      return this.cancelled;
+    }
+
+    /**
+     * Takes the next item from upstream, requesting one if none is pending.
+     *
+     * @return the item, or null if none has arrived yet.
+     */
+    I take() {
+      I item = this.next.getAndSet(null);
+      Flow.Subscription subscription = this.upstream;
+      if (item == null && subscription != null && !this.upstreamRequested && !this.upstreamDone) {
+        this.upstreamRequested = true;
+        subscription.request(1);
+        item = this.next.getAndSet(null);
+      }
+      return item;
+    }
+
+    /**
+     * Checks if upstream has completed or failed and its last item has been taken.
+     *
+     * @return true if no further item will arrive from upstream.
+     */
+    boolean upstreamFinished() {
+      return this.upstreamDone && this.next.get() == null;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        this.failure = new IllegalArgumentException("Non-positive request: " + n);
+      } else {
+        this.requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+      }
+      this.drain();
+    }
+
+    @Override
+    public void cancel() {
+      if (this.cancelled) {
+        return;
+      }
+      this.cancelled = true;
+      this.cancelUpstream();
+      this.releaseOnce();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      if (this.upstream != null) {
+        subscription.cancel();
+        return;
+      }
+      this.upstream = subscription;
+      if (this.cancelled) {
+        subscription.cancel();
+      }
+      this.drain();
+    }
+
+    @Override
+    public void onNext(I item) {
+      this.next.set(item);
+      this.upstreamRequested = false;
+      this.drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.upstreamError = throwable;
+      this.upstreamDone = true;
+      this.drain();
+    }
+
+    @Override
+    public void onComplete() {
+      this.upstreamDone = true;
+      this.drain();
+    }
+
+    final void drain() {
+      if (this.wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        if (!this.terminated && !this.cancelled) {
+          this.emit();
+        }
+        missed = this.wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      if (this.failure != null) {
+        this.terminate(this.failure);
+        return;
+      }
+      long r = this.requested.get();
+      long e = 0;
+      while (!this.cancelled) {
+        O item = null;
+        if (e != r) {
+          try {
+            item = this.poll();
+          } catch (Throwable t) {
+            // A read failing because the stage was cancelled meanwhile is not an error
+            if (!this.cancelled) {
+              this.terminate(t);
+            }
+            return;
+          }
+        }
+        if (item == null) {
+          if (this.finished()) {
+            this.terminate(this.upstreamError);
+          }
+          break;
+        }
+        this.downstream.onNext(item);
+        e++;
+      }
+      if (e > 0 && r != Long.MAX_VALUE) {
+        this.requested.addAndGet(-e);
+      }
+    }
+
+    private void terminate(Throwable error) {
+      this.terminated = true;
+      if (error != null) {
+        this.cancelUpstream();
+      }
+      this.releaseOnce();
+      if (error != null) {
+        this.downstream.onError(error);
+      } else {
+        this.downstream.onComplete();
+      }
+    }
+
+    private void cancelUpstream() {
+      Flow.Subscription subscription = this.upstream;
+      if (subscription != null) {
+        subscription.cancel();
+      }
+    }
+
+    private void releaseOnce() {
+      if (this.released.compareAndSet(false, true)) {
+        this.release();
+      }
+    }
+  }
+
+  // Publishes the files of a tree, listing a directory when its first entry is requested
+  private final class WalkStage extends Stage<Void, File> {
+    private final FileWalker walker;
+    private Iterator<Path> files;
+
+    WalkStage(Flow.Subscriber<? super File> downstream, FileWalker walker) {
+      super(downstream);
+      this.walker = walker;
+    }
+
+    private Iterator<Path> files() {
+      if (this.files == null) {
+        this.files = Spliterators.iterator(new DirectorySpliterator(this.walker));
+      }
+      return this.files;
+    }
+
+    @Override
+    File poll() {
+      return this.files().hasNext() ? this.files().next().toFile() : null;
+    }
+
+    @Override
+    boolean finished() {
+      return !this.files().hasNext();
+    }
+
+    @Override
+    void release() {
+      getMetrics().recordWalk(this.walker);
+      this.walker.logStats();
+    }
+  }
+
+  // Publishes the lines of each file, keeping at most one file open
+  private final class ReadStage extends Stage<File, String> {
+    private final AtomicReference<OpenFile> open = new AtomicReference<>();
+
+    ReadStage(Flow.Subscriber<? super String> downstream) {
+      super(downstream);
+    }
+
+    @Override
+    String poll() throws IOException {
+      while (true) {
+        OpenFile current = this.open.get();
+        if (current != null) {
+          String line = current.reader.readLine();
+          if (line != null) {
+            return line;
+          }
+          this.close();
+          continue;
+        }
+        File file = this.take();
+        if (file == null) {
+          return null;
+        }
+        if (binaryDetector.isBinary(file)) {
+          // Logging the skipped binary file
+          logger.debug("Skipping binary file: " + file);
+          continue;
+        }
+        LineReader reader;
+        try {
+          reader = GrepIO.newLineReader(file, getCharset(), ByteLineReader.DEFAULT_BUFFER_SIZE);
+        } catch (IOException e) {
+          logger.error("Error reading lines from file: " + file.getAbsolutePath(), e);
+          continue;
+        }
+        this.open.set(new OpenFile(reader, getMetrics().startFile(file)));
+        if (this.isCancelled()) {
+          // Cancelled while opening; release may already have run
+          this.close();
+        }
+      }
+    }
+
+    @Override
+    boolean finished() {
+      return this.upstreamFinished() && this.open.get() == null;
+    }
+
+    @Override
+    void release() {
+      this.close();
+    }
+
+    private void close() {
+      OpenFile current = this.open.getAndSet(null);
+      if (current == null) {
+        return;
+      }
+      try {
+        current.reader.close();
+      } catch (IOException e) {
+        logger.error("Error closing file reader", e);
+      }
+      getMetrics().finish(current.event);
+    }
+  }
+
+  private static final class OpenFile {
+    final LineReader reader;
+    final GrepFileEvent event;
+
+    OpenFile(LineReader reader, GrepFileEvent event) {
+      this.reader = reader;
+      this.event = event;
+    }
+  }
+
+  // Publishes the lines that contain a match, taking the next line for each one dropped
+  private final class MatchStage extends Stage<String, String> {
+
+    MatchStage(Flow.Subscriber<? super String> downstream) {
+      super(downstream);
+    }
+
+    @Override
+    String poll() {
+      String line;
+      while ((line = this.take()) != null) {
+        if (containsPattern(line)) {
+          return line;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    boolean finished() {
+      return this.upstreamFinished();
+    }
+  }
+
+  // Writes lines to the output file, requesting the next batch once a batch is written
+  private final class LineSink implements Flow.Subscriber<String> {
+    final CompletableFuture<Long> result = new CompletableFuture<>();
+    private final BufferedWriter writer;
+    private final int requestSize;
+    private final long maxTotal;
+    private Flow.Subscription subscription;
+    private long written;
+    private int outstanding;
+
+    LineSink(BufferedWriter writer, int requestSize, long maxTotal) {
+      this.writer = writer;
+      this.requestSize = (int) Math.min(requestSize, maxTotal);
+      this.maxTotal = maxTotal;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      if (this.subscription != null) {
+        subscription.cancel();
+        return;
+      }
+      this.subscription = subscription;
+      this.outstanding = this.requestSize;
+      subscription.request(this.requestSize);
+    }
+
+    @Override
+    public void onNext(String line) {
+      if (this.result.isDone()) {
+        return;
+      }
+      long start = System.nanoTime();
+      try {
+        this.writer.write(line);
+        this.writer.newLine();
+      } catch (IOException e) {
+        this.subscription.cancel();
+        this.onError(e);
+        return;
+      }
+      getMetrics().recordWrite(1, start);
+      if (++this.written >= this.maxTotal) {
+        this.subscription.cancel();
+        this.onComplete();
+      } else if (--this.outstanding == 0) {
+        this.outstanding = this.requestSize;
+        this.subscription.request(this.requestSize);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      if (this.result.isDone()) {
+        return;
+      }
+      try {
+        this.writer.close();
+      } catch (IOException e) {
+        throwable.addSuppressed(e);
+      }
+      this.result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      if (this.result.isDone()) {
+        return;
+      }
+      try {
+        this.writer.close();
+      } catch (IOException e) {
+        this.result.completeExceptionally(e);
+        return;
+      }
+      this.result.complete(this.written);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package ca.jrvs.apps;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * GrepFileEvent is the JFR event for reading and matching one file, or one byte range of a file
+ * that is searched in chunks. Events are begun and committed through {@link GrepMetrics}.
+ */
+@Name("ca.jrvs.apps.GrepFile")
+@Label("Grep File")
+@Category("Grep")
+@Description("Reading and matching one file or byte range")
+public class GrepFileEvent extends jdk.jfr.Event {
+
+  @Label("Path")
+  String path;
+
+  @Label("Offset")
+  @DataAmount
+  long offset;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  // Not recorded: bookkeeping for GrepMetrics
+  transient long startNanos;
+  transient boolean range;
+}
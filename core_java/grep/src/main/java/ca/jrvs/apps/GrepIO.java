@@ -0,0 +1,180 @@
+package ca.jrvs.apps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * GrepIO opens searched files for reading, transparently decompressing gzip files ({@code .gz})
+ * and zip archives ({@code .zip}) with the JDK's own codecs. Decompression streams the data and
+ * runs on its own thread through an {@link AsyncInflaterInputStream}, so it overlaps with
+ * matching and never holds a whole archive in memory.
+ *
+ * <p>The entries of a zip archive are read one after another as if they were a single file; a
+ * line break is inserted between entries that do not end with one, so lines never run across
+ * entries. Directory entries are skipped.
+ */
+public final class GrepIO {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private GrepIO() {
+  }
+
+  /**
+   * Checks if a file is read through a decompressor, judging by its name.
+   *
+   * @param file the file.
+   * @return true for {@code .gz} and {@code .zip} files.
+   */
+  public static boolean isCompressed(File file) {
+    return isGzip(file) || isZip(file);
+  }
+
+  /**
+   * Opens a file for reading its (decompressed) content.
+   *
+   * @param file the file to open.
+   * @return a stream of the file's content, decompressed on another thread for compressed files.
+   * @throws IOException if the file cannot be opened or is not in the expected format.
+   * @throws NullPointerException if the file is null.
+   */
+  public static InputStream openInput(File file) throws IOException {
+    boolean gzip = isGzip(file);
+    boolean zip = !gzip && isZip(file);
+    InputStream in = new FileInputStream(file);
+    if (!gzip && !zip) {
+      return in;
+    }
+    try {
+      InputStream inflater = gzip
+          ? new GZIPInputStream(in, BUFFER_SIZE)
+          : new ZipEntriesInputStream(new ZipInputStream(new BufferedInputStream(in, BUFFER_SIZE)));
+      return new AsyncInflaterInputStream(inflater);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens a file for reading its (decompressed) content as lines.
+   *
+   * @param file the file to open.
+   * @param charset the charset of the file's content.
+   * @param bufferSize the size of the reader's buffer in chars.
+   * @return the reader.
+   * @throws IOException if the file cannot be opened.
+   * @throws NullPointerException if the file is null.
+   */
+  public static BufferedReader newReader(File file, Charset charset, int bufferSize)
+      throws IOException {
+    return new BufferedReader(new InputStreamReader(openInput(file), charset), bufferSize);
+  }
+
+  /**
+   * Opens a file for reading its (decompressed) content line by line with the fastest reader for
+   * the charset: a {@link ByteLineReader} for ASCII-compatible charsets, and a
+   * {@link BufferedReader} otherwise.
+   *
+   * @param file the file to open.
+   * @param charset the charset of the file's content.
+   * @param bufferSize the size of the reader's buffer, in bytes for a {@link ByteLineReader} and
+   *     in chars otherwise.
+   * @return the line reader.
+   * @throws IOException if the file cannot be opened.
+   * @throws NullPointerException if the file is null.
+   */
+  public static LineReader newLineReader(File file, Charset charset, int bufferSize)
+      throws IOException {
+    if (ByteLineReader.supports(charset)) {
+      return new ByteLineReader(openInput(file), charset, bufferSize);
+    }
+    BufferedReader reader = newReader(file, charset, bufferSize);
+    return new LineReader() {
+      @Override
+      public String readLine() throws IOException {
+        return reader.readLine();
+      }
+
+      @Override
+      public void close() throws IOException {
+        reader.close();
+      }
+    };
+  }
+
+  private static boolean isGzip(File file) {
+    return file.getName().toLowerCase(Locale.ROOT).endsWith(".gz");
+  }
+
+  private static boolean isZip(File file) {
+    return file.getName().toLowerCase(Locale.ROOT).endsWith(".zip");
+  }
+
+  /**
+   * Reads all file entries of a zip archive as one stream, separating entries by a line break.
+   */
+  private static final class ZipEntriesInputStream extends InputStream {
+
+    private final ZipInputStream zip;
+    private boolean inEntry;
+    private boolean atLineStart = true;
+    private boolean pendingBreak;
+
+    ZipEntriesInputStream(ZipInputStream zip) {
+      this.zip = zip;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return this.read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (true) {
+        if (this.pendingBreak) {
+          this.pendingBreak = false;
+          this.atLineStart = true;
+          b[off] = '\n';
+          return 1;
+        }
+        if (this.inEntry) {
+          int n = this.zip.read(b, off, len);
+          if (n > 0) {
+            byte last = b[off + n - 1];
+            this.atLineStart = last == '\n' || last == '\r';
+            return n;
+          }
+          this.inEntry = false;
+          this.pendingBreak = !this.atLineStart;
+          continue;
+        }
+        ZipEntry entry = this.zip.getNextEntry();
+        if (entry == null) {
+          return -1;
+        }
+        this.inEntry = !entry.isDirectory();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.zip.close();
+    }
+  }
+}
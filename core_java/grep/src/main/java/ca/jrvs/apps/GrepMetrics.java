@@ -0,0 +1,472 @@
+package ca.jrvs.apps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GrepMetrics collects the counters and phase timers of one grep run: files visited and searched,
+ * the size of the files searched, lines scanned, matched and written, and the time spent walking,
+ * searching, in the regex engine and writing. All counters are {@link LongAdder}s, so the parallel engines update
+ * them from many threads.
+ *
+ * <p>Times are summed over threads, so with a parallel engine they can exceed the wall-clock
+ * {@link #getTotalNanos() total}. Search time covers reading and matching a file, including the
+ * regex time and, when matches are written as they are found, the writes. The regex time is
+ * estimated from a random sample of the lines, so that timing does not cost more than the many
+ * short matches it measures. File bytes are the stored size of each file or range searched,
+ * whether or not reading stopped early at a match. The lines scanned are
+ * the lines handed to the matcher; in {@link ScanMode#MAPPED} mode lines without the required
+ * literal are skipped by the byte search and not counted.
+ *
+ * <p>The same data is available as a JSON report ({@link #toJson()}) and as JFR events:
+ * {@link GrepFileEvent} per file, {@link GrepPhaseEvent} per walk and batch write, and
+ * {@link GrepRunEvent} when the run {@link #finish() finishes}.
+ */
+public class GrepMetrics {
+
+  // One line in REGEX_SAMPLE is timed, on average, and its time counted for all of them
+  private static final int REGEX_SAMPLE = 64;
+
+  private final String engine;
+  private final String regex;
+  private final String rootPath;
+  private final long startNanos = System.nanoTime();
+  private volatile long endNanos;
+
+  private final LongAdder directoriesVisited = new LongAdder();
+  private final LongAdder filesVisited = new LongAdder();
+  private final LongAdder filesSearched = new LongAdder();
+  private final LongAdder fileBytes = new LongAdder();
+  private final LongAdder linesScanned = new LongAdder();
+  private final LongAdder linesMatched = new LongAdder();
+  private final LongAdder linesWritten = new LongAdder();
+  private final LongAdder walkNanos = new LongAdder();
+  private final LongAdder searchNanos = new LongAdder();
+  private final LongAdder regexNanos = new LongAdder();
+  private final LongAdder writeNanos = new LongAdder();
+
+  /**
+   * Starts the metrics of a run.
+   *
+   * @param engine the name of the grep implementation.
+   * @param regex the regex searched for.
+   * @param rootPath the root path searched.
+   */
+  public GrepMetrics(String engine, String regex, String rootPath) {
+    this.engine = engine;
+    this.regex = regex;
+    this.rootPath = rootPath;
+  }
+
+  /**
+   * Wraps a line matcher so its calls are counted and timed by these metrics.
+   *
+   * @param matcher the matcher.
+   * @return the metered matcher.
+   */
+  public LineMatcher meter(LineMatcher matcher) {
+    return new MeteredLineMatcher(matcher, this);
+  }
+
+  /**
+   * Runs a matcher on a line, counting the line and the match, and timing a sample of the lines.
+   *
+   * @param matcher the matcher.
+   * @param line the line.
+   * @return the matcher's result.
+   */
+  public boolean matches(LineMatcher matcher, CharSequence line) {
+    boolean matched;
+    if (ThreadLocalRandom.current().nextInt(REGEX_SAMPLE) == 0) {
+      long start = System.nanoTime();
+      matched = matcher.matches(line);
+      this.regexNanos.add((System.nanoTime() - start) * REGEX_SAMPLE);
+    } else {
+      matched = matcher.matches(line);
+    }
+    this.count(matched);
+    return matched;
+  }
+
+  /**
+   * Finds the pattern that matches a line, counting it like {@link #matches}.
+   *
+   * @param matcher the matcher.
+   * @param line the line.
+   * @return the index of the first matching pattern, or -1 if none matches.
+   */
+  public int matchingPattern(MultiPatternMatcher matcher, CharSequence line) {
+    int pattern;
+    if (ThreadLocalRandom.current().nextInt(REGEX_SAMPLE) == 0) {
+      long start = System.nanoTime();
+      pattern = matcher.matchingPattern(line);
+      this.regexNanos.add((System.nanoTime() - start) * REGEX_SAMPLE);
+    } else {
+      pattern = matcher.matchingPattern(line);
+    }
+    this.count(pattern >= 0);
+    return pattern;
+  }
+
+  private void count(boolean matched) {
+    this.linesScanned.increment();
+    if (matched) {
+      this.linesMatched.increment();
+    }
+  }
+
+  /**
+   * Starts timing a phase.
+   *
+   * @param phase {@link GrepPhaseEvent#WALK} or {@link GrepPhaseEvent#WRITE}.
+   * @return the begun event to pass to {@link #finishWalk} or {@link #finishWrite}.
+   */
+  public GrepPhaseEvent startPhase(String phase) {
+    GrepPhaseEvent event = new GrepPhaseEvent();
+    event.begin();
+    event.phase = phase;
+    event.startNanos = System.nanoTime();
+    return event;
+  }
+
+  /**
+   * Records a completed directory walk and commits its event.
+   *
+   * @param event the event returned by {@link #startPhase(String)}.
+   * @param walker the walker, whose counters are added.
+   * @param files the number of files listed.
+   */
+  public void finishWalk(GrepPhaseEvent event, FileWalker walker, long files) {
+    this.walkNanos.add(System.nanoTime() - event.startNanos);
+    this.recordWalk(walker);
+    event.items = files;
+    event.commit();
+  }
+
+  /**
+   * Records the counters of a directory walk that was interleaved with searching and so has no
+   * time of its own.
+   *
+   * @param walker the walker, whose counters are added.
+   */
+  public void recordWalk(FileWalker walker) {
+    this.directoriesVisited.add(walker.getDirectoriesVisited());
+    this.filesVisited.add(walker.getFilesVisited());
+  }
+
+  /**
+   * Starts timing the search of a whole file.
+   *
+   * @param file the file.
+   * @return the begun event to pass to {@link #finish(GrepFileEvent)}.
+   */
+  public GrepFileEvent startFile(File file) {
+    return this.start(file, 0, file.length(), false);
+  }
+
+  /**
+   * Starts timing the search of a byte range of a file that is searched in chunks. Ranges count
+   * towards the file bytes but not the files searched; see {@link #recordFileSplit()}.
+   *
+   * @param file the file.
+   * @param from the offset of the first byte.
+   * @param to the offset just past the last byte.
+   * @return the begun event to pass to {@link #finish(GrepFileEvent)}.
+   */
+  public GrepFileEvent startRange(File file, long from, long to) {
+    return this.start(file, from, to - from, true);
+  }
+
+  /**
+   * Counts a file that is searched as byte ranges.
+   */
+  public void recordFileSplit() {
+    this.filesSearched.increment();
+  }
+
+  private GrepFileEvent start(File file, long offset, long bytes, boolean range) {
+    GrepFileEvent event = new GrepFileEvent();
+    event.begin();
+    event.path = file.getPath();
+    event.offset = offset;
+    event.bytes = bytes;
+    event.range = range;
+    event.startNanos = System.nanoTime();
+    return event;
+  }
+
+  /**
+   * Finishes timing the search of a file or range and commits its event.
+   *
+   * @param event the event returned by {@link #startFile(File)} or
+   *     {@link #startRange(File, long, long)}.
+   */
+  public void finish(GrepFileEvent event) {
+    this.searchNanos.add(System.nanoTime() - event.startNanos);
+    this.fileBytes.add(event.bytes);
+    if (!event.range) {
+      this.filesSearched.increment();
+    }
+    event.commit();
+  }
+
+  /**
+   * Records a batch write of matched lines and commits its event.
+   *
+   * @param event the event returned by {@link #startPhase(String)}.
+   * @param lines the number of lines written.
+   */
+  public void finishWrite(GrepPhaseEvent event, long lines) {
+    this.recordWrite(lines, event.startNanos);
+    event.items = lines;
+    event.commit();
+  }
+
+  /**
+   * Records the write of matched lines as they are found, without an event.
+   *
+   * @param lines the number of lines written.
+   * @param startNanos the {@link System#nanoTime()} the write started at.
+   */
+  public void recordWrite(long lines, long startNanos) {
+    this.writeNanos.add(System.nanoTime() - startNanos);
+    this.linesWritten.add(lines);
+  }
+
+  /**
+   * Ends the run and commits its {@link GrepRunEvent}.
+   */
+  public void finish() {
+    this.endNanos = System.nanoTime();
+    GrepRunEvent event = new GrepRunEvent();
+    if (event.shouldCommit()) {
+      event.engine = this.engine;
+      event.regex = this.regex;
+      event.rootPath = this.rootPath;
+      event.directoriesVisited = this.getDirectoriesVisited();
+      event.filesVisited = this.getFilesVisited();
+      event.filesSearched = this.getFilesSearched();
+      event.fileBytes = this.getFileBytes();
+      event.linesScanned = this.getLinesScanned();
+      event.linesMatched = this.getLinesMatched();
+      event.linesWritten = this.getLinesWritten();
+      event.walkTime = this.getWalkNanos();
+      event.searchTime = this.getSearchNanos();
+      event.regexTime = this.getRegexNanos();
+      event.writeTime = this.getWriteNanos();
+      event.commit();
+    }
+  }
+
+  /**
+   * Get the engine name.
+   *
+   * @return the name of the grep implementation.
+   */
+  public String getEngine() {
+    return this.engine;
+  }
+
+  /**
+   * Get the number of directories the walks entered or skipped.
+   *
+   * @return the directory count.
+   */
+  public long getDirectoriesVisited() {
+    return this.directoriesVisited.sum();
+  }
+
+  /**
+   * Get the number of files the walks looked at, listed or not.
+   *
+   * @return the file count.
+   */
+  public long getFilesVisited() {
+    return this.filesVisited.sum();
+  }
+
+  /**
+   * Get the number of files read and matched.
+   *
+   * @return the file count.
+   */
+  public long getFilesSearched() {
+    return this.filesSearched.sum();
+  }
+
+  /**
+   * Get the total size of the files and ranges searched. Files whose search stopped at an early
+   * match count in full, so this is an upper bound of the bytes actually read.
+   *
+   * @return the size in bytes, compressed files counted as stored.
+   */
+  public long getFileBytes() {
+    return this.fileBytes.sum();
+  }
+
+  /**
+   * Get the number of lines handed to the matcher.
+   *
+   * @return the line count.
+   */
+  public long getLinesScanned() {
+    return this.linesScanned.sum();
+  }
+
+  /**
+   * Get the number of lines the matcher accepted.
+   *
+   * @return the line count.
+   */
+  public long getLinesMatched() {
+    return this.linesMatched.sum();
+  }
+
+  /**
+   * Get the number of lines written to the output file.
+   *
+   * @return the line count.
+   */
+  public long getLinesWritten() {
+    return this.linesWritten.sum();
+  }
+
+  /**
+   * Get the time spent listing files.
+   *
+   * @return the time in nanoseconds.
+   */
+  public long getWalkNanos() {
+    return this.walkNanos.sum();
+  }
+
+  /**
+   * Get the time spent reading and matching files.
+   *
+   * @return the time in nanoseconds.
+   */
+  public long getSearchNanos() {
+    return this.searchNanos.sum();
+  }
+
+  /**
+   * Get the time spent in the matcher, estimated from a sample of the lines.
+   *
+   * @return the time in nanoseconds.
+   */
+  public long getRegexNanos() {
+    return this.regexNanos.sum();
+  }
+
+  /**
+   * Get the time spent writing matched lines.
+   *
+   * @return the time in nanoseconds.
+   */
+  public long getWriteNanos() {
+    return this.writeNanos.sum();
+  }
+
+  /**
+   * Get the search time spent outside the regex engine: reading, decoding and, when matches are
+   * written as they are found, writing.
+   *
+   * @return the time in nanoseconds.
+   */
+  public long getReadNanos() {
+    return Math.max(0, this.getSearchNanos() - this.getRegexNanos());
+  }
+
+  /**
+   * Get the wall-clock time of the run.
+   *
+   * @return the time in nanoseconds, up to now if the run has not finished.
+   */
+  public long getTotalNanos() {
+    long end = this.endNanos;
+    return (end != 0 ? end : System.nanoTime()) - this.startNanos;
+  }
+
+  /**
+   * Formats the metrics as a single-line JSON object.
+   *
+   * @return the JSON report.
+   */
+  public String toJson() {
+    long totalNanos = this.getTotalNanos();
+    double seconds = totalNanos / 1e9;
+    return "{\"engine\":" + quote(this.engine)
+        + ",\"regex\":" + quote(this.regex)
+        + ",\"rootPath\":" + quote(this.rootPath)
+        + ",\"directoriesVisited\":" + this.getDirectoriesVisited()
+        + ",\"filesVisited\":" + this.getFilesVisited()
+        + ",\"filesSearched\":" + this.getFilesSearched()
+        + ",\"fileBytes\":" + this.getFileBytes()
+        + ",\"linesScanned\":" + this.getLinesScanned()
+        + ",\"linesMatched\":" + this.getLinesMatched()
+        + ",\"linesWritten\":" + this.getLinesWritten()
+        + ",\"nanos\":{\"walk\":" + this.getWalkNanos()
+        + ",\"search\":" + this.getSearchNanos()
+        + ",\"read\":" + this.getReadNanos()
+        + ",\"regex\":" + this.getRegexNanos()
+        + ",\"write\":" + this.getWriteNanos()
+        + ",\"total\":" + totalNanos
+        + "},\"megabytesPerSecond\":"
+        + (seconds > 0 ? Math.round(this.getFileBytes() / 1e6 / seconds * 100) / 100.0 : 0)
+        + "}";
+  }
+
+  /**
+   * Writes the JSON report to a file, replacing it.
+   *
+   * @param file the report file.
+   * @throws IOException if the file cannot be written.
+   */
+  public void writeJson(Path file) throws IOException {
+    Files.write(file, (this.toJson() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String quote(String value) {
+    if (value == null) {
+      return "null";
+    }
+    StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            builder.append(String.format("\\u%04x", (int) c));
+          } else {
+            builder.append(c);
+          }
+      }
+    }
+    return builder.append('"').toString();
+  }
+
+  @Override
+  public String toString() {
+    return "GrepMetrics" + this.toJson();
+  }
+}
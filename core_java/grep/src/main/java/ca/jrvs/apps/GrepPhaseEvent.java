@@ -0,0 +1,37 @@
+package ca.jrvs.apps;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * GrepPhaseEvent is the JFR event for one walk of the root directory or one batch write of the
+ * matched lines. Events are begun and committed through {@link GrepMetrics}.
+ */
+@Name("ca.jrvs.apps.GrepPhase")
+@Label("Grep Phase")
+@Category("Grep")
+@Description("Walking the root directory or writing the matched lines")
+public class GrepPhaseEvent extends jdk.jfr.Event {
+
+  /**
+   * Phase name of a directory walk.
+   */
+  public static final String WALK = "walk";
+
+  /**
+   * Phase name of a batch write.
+   */
+  public static final String WRITE = "write";
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Items")
+  @Description("Files listed by a walk, or lines written by a write")
+  long items;
+
+  // Not recorded: bookkeeping for GrepMetrics
+  transient long startNanos;
+}
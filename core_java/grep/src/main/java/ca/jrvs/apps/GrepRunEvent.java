@@ -0,0 +1,67 @@
+package ca.jrvs.apps;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * GrepRunEvent is the JFR event committed at the end of each {@code process()}, carrying the
+ * totals of its {@link GrepMetrics}. Its duration spans the whole run.
+ */
+@Name("ca.jrvs.apps.GrepRun")
+@Label("Grep Run")
+@Category("Grep")
+@Description("A complete grep process() with its counters and phase times")
+public class GrepRunEvent extends jdk.jfr.Event {
+
+  @Label("Engine")
+  String engine;
+
+  @Label("Regex")
+  String regex;
+
+  @Label("Root Path")
+  String rootPath;
+
+  @Label("Directories Visited")
+  long directoriesVisited;
+
+  @Label("Files Visited")
+  long filesVisited;
+
+  @Label("Files Searched")
+  long filesSearched;
+
+  @Label("File Bytes")
+  @Description("Stored size of the files searched, including parts not read after an early match")
+  @DataAmount
+  long fileBytes;
+
+  @Label("Lines Scanned")
+  long linesScanned;
+
+  @Label("Lines Matched")
+  long linesMatched;
+
+  @Label("Lines Written")
+  long linesWritten;
+
+  @Label("Walk Time")
+  @Timespan
+  long walkTime;
+
+  @Label("Search Time")
+  @Timespan
+  long searchTime;
+
+  @Label("Regex Time")
+  @Timespan
+  long regexTime;
+
+  @Label("Write Time")
+  @Timespan
+  long writeTime;
+}
@@ -0,0 +1,199 @@
+package ca.jrvs.apps;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import org.apache.log4j.BasicConfigurator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * IncrementalJavaGrepImp is a JavaGrep implementation for re-running the same search over a tree
+ * that changes a little between runs. The matched lines of every file are kept in a
+ * {@link FingerprintStore} next to the file's {@link FileFingerprint}; on the next run, files whose
+ * fingerprint still matches reuse their cached lines and only new or changed files are read.
+ * Entries of deleted files are dropped. The output is the same as a full JavaGrepImp run.
+ *
+ * <p>With {@link #setHashContent(boolean) content hashing} enabled, fingerprints also carry a
+ * CRC-32C of the content, so files that were only touched (new modification time, same bytes) are
+ * recognised as unchanged at the cost of hashing them.
+ */
+public class IncrementalJavaGrepImp extends JavaGrepImp {
+
+  final static Logger logger = LoggerFactory.getLogger(IncrementalJavaGrepImp.class);
+
+  /**
+   * Suffix of the fingerprint store files in the cache directory.
+   */
+  public static final String STORE_SUFFIX = ".fingerprints";
+
+  private String cacheDir;
+  private boolean hashContent;
+
+  /**
+   * Main method to execute the IncrementalJavaGrepImp program.
+   * @param args command line arguments: regex, rootPath, outFile.
+   */
+  public static void main(String[] args) {
+    if (args.length != 3) {
+      throw new IllegalArgumentException("USAGE: IncrementalJavaGrepImp regex rootPath outFile");
+    }
+
+    BasicConfigurator.configure();
+
+    IncrementalJavaGrepImp incrementalJavaGrepImp = new IncrementalJavaGrepImp();
+    incrementalJavaGrepImp.setRegex(args[0]);
+    incrementalJavaGrepImp.setRootPath(args[1]);
+    incrementalJavaGrepImp.setOutFile(args[2]);
+
+    try {
+      incrementalJavaGrepImp.process();
+    } catch (Exception e) {
+      logger.error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Get the directory the fingerprint stores are kept in.
+   * @return the cache directory; defaults to "jrvs-grep" under java.io.tmpdir.
+   */
+  public String getCacheDir() {
+    if (this.cacheDir != null) {
+      return this.cacheDir;
+    }
+    return Paths.get(System.getProperty("java.io.tmpdir"), "jrvs-grep").toString();
+  }
+
+  /**
+   * Set the directory the fingerprint stores are kept in.
+   * @param cacheDir the cache directory to set.
+   */
+  public void setCacheDir(String cacheDir) {
+    this.cacheDir = cacheDir;
+  }
+
+  /**
+   * Check whether fingerprints include a hash of the file content.
+   * @return true if content is hashed.
+   */
+  public boolean isHashContent() {
+    return this.hashContent;
+  }
+
+  /**
+   * Enable or disable hashing file content into fingerprints.
+   * @param hashContent true to hash content.
+   */
+  public void setHashContent(boolean hashContent) {
+    this.hashContent = hashContent;
+  }
+
+  /**
+   * Get the key the cached results of the current search are stored under: the absolute root
+   * path and every option that shapes a file's results, which are the matcher provider, the regex
+   * or patterns, the result mode, the per-file maximum, the pattern labels, the binary mode, the
+   * charset the lines are decoded with and the scan mode. Which files are searched does not
+   * belong in the key, since entries of files no longer searched are dropped; a matcher set with
+   * {@link #setLineMatcher(LineMatcher)} is not part of it either. An option added later that
+   * changes the lines found in a file must be added here too, or its runs reuse stale results.
+   * @return the store key.
+   */
+  public String getStoreKey() {
+    String pattern = this.getPatterns() == null
+        ? this.getRegex() : String.join("\n", this.getPatterns());
+    return String.join("\0", new File(this.getRootPath()).getAbsolutePath(),
+        String.valueOf(this.getMatcherProvider()), String.valueOf(pattern),
+        this.getResultMode().name(), String.valueOf(this.getMaxCount()),
+        String.valueOf(this.isReportPatterns()), this.getBinaryMode().name(),
+        this.getCharset().name(), this.getScanMode().name());
+  }
+
+  /**
+   * Get the fingerprint store file of the current search.
+   * @return the store file in the cache directory.
+   */
+  public Path getStoreFile() {
+    CRC32C crc = new CRC32C();
+    crc.update(this.getStoreKey().getBytes(StandardCharsets.UTF_8));
+    return Paths.get(this.getCacheDir(), "grep-" + Long.toHexString(crc.getValue()) + STORE_SUFFIX);
+  }
+
+  @Override
+  public void process() throws IOException {
+    // Logging the rootPath before calling listFiles()
+    logger.info("Root Path: " + this.getRootPath());
+
+    // Compile first so a null regex fails before the cache is touched
+    this.getLineMatcher();
+    this.startMetrics();
+    Path storeFile = this.getStoreFile();
+    FingerprintStore store = FingerprintStore.load(storeFile, this.getStoreKey());
+    List<File> files = this.searchFiles();
+    int deleted = store.retainOnly(files);
+
+    MappedFileScanner scanner = this.newMappedScanner();
+    List<String> matchedLines = new ArrayList<>();
+    long matchCount = 0;
+    long maxTotal = this.getMaxTotal();
+    int reused = 0;
+    int rescanned = 0;
+    BufferedWriter writer = this.isStreaming()
+        ? new BufferedWriter(new FileWriter(this.getOutFile()), this.getBufferSize())
+        : null;
+    try {
+      for (File file : files) {
+        if (matchCount >= maxTotal) {
+          // Files after the run maximum keep their cached results for the next run
+          break;
+        }
+        List<String> lines = store.cachedMatches(file);
+        if (lines != null) {
+          reused++;
+        } else {
+          // Fingerprint before reading, so a concurrent change is picked up next run
+          FileFingerprint fingerprint = FileFingerprint.of(file, this.isHashContent());
+          lines = this.matchFile(file, scanner);
+          store.put(fingerprint, lines);
+          rescanned++;
+        }
+        if (lines.size() > maxTotal - matchCount) {
+          lines = lines.subList(0, (int) (maxTotal - matchCount));
+        }
+        matchCount += lines.size();
+        if (writer != null) {
+          for (String line : lines) {
+            this.writeLine(writer, line);
+          }
+        } else {
+          matchedLines.addAll(lines);
+        }
+      }
+    } finally {
+      if (writer != null) {
+        writer.close();
+      }
+    }
+    store.save(storeFile);
+
+    // Logging how much of the previous run was reused
+    logger.info("Reused " + reused + " files, rescanned " + rescanned
+        + ", dropped " + deleted + " deleted files");
+    // Logging the number of matched lines
+    logger.info("Number of matched lines: " + matchCount);
+
+    if (writer == null) {
+      this.writeToFile(matchedLines);
+    }
+    this.logPrefilterStats();
+    this.reportMetrics();
+    // Logging the completion of the process
+    logger.info("IncrementalJavaGrepImp process completed");
+  }
+}
@@ -0,0 +1,155 @@
+package ca.jrvs.apps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.log4j.BasicConfigurator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * IndexedJavaGrepImp is a JavaGrep implementation for searching the same root many times with
+ * different regexes. It keeps a {@link TrigramIndex} of the tree on disk and uses the regex's
+ * {@link TrigramQuery} to narrow the search to candidate files; the regular line matcher then
+ * confirms the hits in those files only. The index is built on first use and updated whenever the
+ * listed files, their sizes or modification times no longer match it; only new and changed files
+ * are re-read.
+ */
+public class IndexedJavaGrepImp extends JavaGrepImp {
+
+  final static Logger logger = LoggerFactory.getLogger(IndexedJavaGrepImp.class);
+
+  /**
+   * Suffix appended to the root path to form the default index file.
+   */
+  public static final String INDEX_SUFFIX = ".trigrams";
+
+  private String indexFile;
+
+  /**
+   * Main method to execute the IndexedJavaGrepImp program.
+   * @param args command line arguments: regex, rootPath, outFile.
+   */
+  public static void main(String[] args) {
+    if (args.length != 3) {
+      throw new IllegalArgumentException("USAGE: IndexedJavaGrepImp regex rootPath outFile");
+    }
+
+    BasicConfigurator.configure();
+
+    IndexedJavaGrepImp indexedJavaGrepImp = new IndexedJavaGrepImp();
+    indexedJavaGrepImp.setRegex(args[0]);
+    indexedJavaGrepImp.setRootPath(args[1]);
+    indexedJavaGrepImp.setOutFile(args[2]);
+
+    try {
+      indexedJavaGrepImp.process();
+    } catch (Exception e) {
+      logger.error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Get the index file path.
+   * @return the index file path; defaults to the root path followed by {@link #INDEX_SUFFIX}.
+   */
+  public String getIndexFile() {
+    if (this.indexFile != null) {
+      return this.indexFile;
+    }
+    return new File(this.getRootPath()).getAbsolutePath() + INDEX_SUFFIX;
+  }
+
+  /**
+   * Set the index file path.
+   * @param indexFile the index file path to set.
+   */
+  public void setIndexFile(String indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  /**
+   * Opens the index for the current file list, building it when it is missing or unreadable and
+   * updating it incrementally when it is out of date.
+   * @param files the files currently under the root path.
+   * @return the up-to-date index.
+   * @throws IOException if the index cannot be read or written.
+   */
+  public TrigramIndex loadIndex(List<File> files) throws IOException {
+    Path path = Paths.get(this.getIndexFile());
+    if (Files.exists(path)) {
+      try {
+        TrigramIndex index = TrigramIndex.open(path);
+        if (index.isCurrent(files)) {
+          return index;
+        }
+        logger.info("Trigram index " + path + " is out of date, updating");
+        return index.update(files, path);
+      } catch (IOException | RuntimeException e) {
+        // open() rejects a truncated index; damaged postings only show up when decoded
+        logger.warn("Cannot read trigram index " + path + ", rebuilding", e);
+      }
+    }
+    return TrigramIndex.build(files, path);
+  }
+
+  /**
+   * Narrows the listed files to those the trigram index says can contain a match.
+   * @return the candidate files in listFiles order.
+   * @throws IOException if the index cannot be read or written.
+   */
+  @Override
+  protected List<File> searchFiles() throws IOException {
+    List<File> files = super.searchFiles();
+    Charset charset = this.getCharset();
+    if (files.isEmpty()) {
+      return files;
+    }
+    if (!MappedFileScanner.supports(charset)) {
+      logger.warn("Charset " + charset + " cannot be indexed by bytes, scanning all files");
+      return files;
+    }
+
+    TrigramIndex index = this.loadIndex(files);
+    if (this.getPatterns() != null) {
+      return this.patternCandidates(index, files, charset);
+    }
+    TrigramQuery query = TrigramQuery.forRegex(this.getRegex(), charset);
+    List<File> candidates = index.candidates(query);
+
+    // Logging how far the index narrowed the search
+    logger.info(query + " narrowed " + files.size() + " files to " + candidates.size());
+    return candidates;
+  }
+
+  // A line matches if any pattern does, so the candidates of every pattern are merged
+  private List<File> patternCandidates(TrigramIndex index, List<File> files, Charset charset) {
+    Set<File> union = new HashSet<>();
+    for (String pattern : this.getPatterns()) {
+      TrigramQuery query = TrigramQuery.forRegex(pattern, charset);
+      if (query.matchesAll()) {
+        logger.info("Pattern " + pattern + " has no trigrams, scanning all files");
+        return files;
+      }
+      union.addAll(index.candidates(query));
+    }
+    List<File> candidates = new ArrayList<>();
+    for (File file : files) {
+      if (union.contains(file)) {
+        candidates.add(file);
+      }
+    }
+
+    // Logging how far the index narrowed the search
+    logger.info(this.getPatterns().size() + " patterns narrowed " + files.size() + " files to "
+        + candidates.size());
+    return candidates;
+  }
+}
@@ -35,6 +35,16 @@ public interface JavaGrep {
    */
   List<String> readLines(File inputFile) throws IOException;
 
+  /**
+   * Reads the specified input file one line at a time, handing each line to the consumer as soon
+   * as it is read instead of collecting the whole file in memory.
+   *
+   * @param inputFile the input file to read.
+   * @param consumer the consumer that receives each line; returning false stops reading.
+   * @throws IOException if an I/O error occurs while reading the file.
+   */
+  void readLines(File inputFile, LineConsumer consumer) throws IOException;
+
   /**
    * Checks if the specified line contains a pattern match.
    *
@@ -51,4 +61,50 @@ public interface JavaGrep {
    */
   void writeToFile(List<String> lines) throws IOException;
 
+  /**
+   * Get what {@link #process()} writes for each searched file.
+   *
+   * @return the result mode.
+   */
+  ResultMode getResultMode();
+
+  /**
+   * Set what {@link #process()} writes for each searched file: the matched lines, a count, or
+   * the file paths with or without a match.
+   *
+   * @param resultMode the result mode.
+   */
+  void setResultMode(ResultMode resultMode);
+
+  /**
+   * Get the maximum number of matched lines read from one file.
+   *
+   * @return the per-file maximum; {@link Long#MAX_VALUE} when unlimited.
+   */
+  long getMaxCount();
+
+  /**
+   * Set the maximum number of matched lines read from one file, like {@code grep -m}. Reading a
+   * file stops at its last counted match; in {@link ResultMode#COUNT} mode the count stops there.
+   *
+   * @param maxCount the per-file maximum, must be positive.
+   */
+  void setMaxCount(long maxCount);
+
+  /**
+   * Get the maximum number of result lines written by one {@link #process()} run.
+   *
+   * @return the run maximum; {@link Long#MAX_VALUE} when unlimited.
+   */
+  long getMaxTotal();
+
+  /**
+   * Set the maximum number of result lines written by one {@link #process()} run: matched lines,
+   * counts or file paths, depending on the result mode. The run stops reading files once the
+   * maximum is reached.
+   *
+   * @param maxTotal the run maximum, must be positive.
+   */
+  void setMaxTotal(long maxTotal);
+
 }
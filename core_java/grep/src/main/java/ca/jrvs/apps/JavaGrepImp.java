@@ -1,15 +1,16 @@
 package ca.jrvs.apps;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
 import org.apache.log4j.BasicConfigurator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,26 +24,63 @@ public class JavaGrepImp implements JavaGrep {
   final static Logger logger = LoggerFactory.getLogger(JavaGrepImp.class);
 
   private String regex;
+  private List<String> patterns;
+  private boolean reportPatterns;
   private String rootPath;
   private String outFile;
+  private String matcherProvider;
+  private volatile LineMatcher lineMatcher;
+  private boolean streaming;
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+  private ScanMode scanMode = ScanMode.LINES;
+  private List<String> includes = new ArrayList<>();
+  private List<String> excludes = new ArrayList<>();
+  private boolean followLinks = true;
+  private BinaryMode binaryMode = BinaryMode.SKIP;
+  private ResultMode resultMode = ResultMode.LINES;
+  private long maxCount = Long.MAX_VALUE;
+  private long maxTotal = Long.MAX_VALUE;
+  private Charset charset = Charset.defaultCharset();
+  private volatile BinaryDetector binaryDetector = new BinaryDetector(this.charset);
+  private volatile GrepMetrics metrics = new GrepMetrics(this.getClass().getSimpleName(), null,
+      null);
+  private String reportFile;
+  private long resultMemoryLimit = ResultBuffer.DEFAULT_MEMORY_LIMIT;
+  private String spillDirectory;
+
+  /**
+   * Default size, in characters, of the read and write buffers used in streaming mode.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
 
   /**
    * Main method to execute the JavaGrepImp program.
-   * @param args command line arguments: regex, rootPath, outFile.
+   * @param args command line arguments: regex, rootPath, outFile; or -f, patternFile, rootPath,
+   *     outFile to search for every line of the pattern file and label each matched line with
+   *     the pattern that matched it.
    */
   public static void main(String[] args) {
-    if (args.length != 3) {
-      throw new IllegalArgumentException("USAGE: JavaGrep regex rootPath outFile");
+    boolean patternFile = args.length == 4 && args[0].equals("-f");
+    if (args.length != 3 && !patternFile) {
+      throw new IllegalArgumentException(
+          "USAGE: JavaGrep regex rootPath outFile | JavaGrep -f patternFile rootPath outFile");
     }
 
     BasicConfigurator.configure();
 
     JavaGrepImp javaGrepImp = new JavaGrepImp();
-    javaGrepImp.setRegex(args[0]);
-    javaGrepImp.setRootPath(args[1]);
-    javaGrepImp.setOutFile(args[2]);
+    int arg = patternFile ? 2 : 1;
+    javaGrepImp.setRootPath(args[arg]);
+    javaGrepImp.setOutFile(args[arg + 1]);
 
     try {
+      if (patternFile) {
+        javaGrepImp.setPatterns(Files.readAllLines(Paths.get(args[1]),
+            javaGrepImp.getCharset()));
+        javaGrepImp.setReportPatterns(true);
+      } else {
+        javaGrepImp.setRegex(args[0]);
+      }
       javaGrepImp.process();
     } catch (Exception e) {
       logger.error(e.getMessage(), e);
@@ -63,6 +101,90 @@ public class JavaGrepImp implements JavaGrep {
    */
   public void setRegex(String regex) {
     this.regex = regex;
+    this.lineMatcher = null;
+  }
+
+  /**
+   * Get the patterns searched for instead of the regex.
+   * @return the patterns, or null to search for the regex.
+   */
+  public List<String> getPatterns() {
+    return this.patterns;
+  }
+
+  /**
+   * Set patterns to search for instead of the regex, like the lines of a {@code grep -f} pattern
+   * file: a line matches if any of them matches it. Plain literals are all searched in one pass,
+   * see {@link MultiPatternMatcher}.
+   * @param patterns the patterns, or null to search for the regex.
+   */
+  public void setPatterns(List<String> patterns) {
+    this.patterns = patterns == null ? null : new ArrayList<>(patterns);
+    this.lineMatcher = null;
+  }
+
+  /**
+   * Check whether each matched line is labelled with the pattern that matched it.
+   * @return true if matched lines are written as {@code pattern:line}.
+   */
+  public boolean isReportPatterns() {
+    return this.reportPatterns;
+  }
+
+  /**
+   * Label each matched line with the pattern that matched it, written as {@code pattern:line}.
+   * When several patterns match a line, the first one in the pattern list is reported; when no
+   * patterns are set, the label is the regex. Only the lines of {@link ResultMode#LINES} are
+   * labelled.
+   * @param reportPatterns true to label matched lines.
+   */
+  public void setReportPatterns(boolean reportPatterns) {
+    this.reportPatterns = reportPatterns;
+  }
+
+  /**
+   * Get the name of the LineMatcherProvider used to compile the regex.
+   * @return the provider name, or null to pick the first provider that supports the regex.
+   */
+  public String getMatcherProvider() {
+    return this.matcherProvider;
+  }
+
+  /**
+   * Set the name of the LineMatcherProvider used to compile the regex.
+   * @param matcherProvider the provider name, or null to pick one automatically.
+   */
+  public void setMatcherProvider(String matcherProvider) {
+    this.matcherProvider = matcherProvider;
+    this.lineMatcher = null;
+  }
+
+  /**
+   * Get the compiled matcher for the current regex or patterns, compiling it on first use.
+   * @return the line matcher.
+   * @throws NullPointerException if neither the regex nor the patterns are set.
+   */
+  public LineMatcher getLineMatcher() {
+    LineMatcher matcher = this.lineMatcher;
+    if (matcher == null) {
+      if (this.getPatterns() != null) {
+        matcher = new MultiPatternMatcher(this.getPatterns(), this.getMatcherProvider());
+      } else {
+        matcher = this.getMatcherProvider() == null
+            ? LineMatchers.compile(this.getRegex())
+            : LineMatchers.compile(this.getRegex(), this.getMatcherProvider());
+      }
+      this.lineMatcher = matcher;
+    }
+    return matcher;
+  }
+
+  /**
+   * Set a pre-built matcher to use instead of compiling the regex.
+   * @param lineMatcher the line matcher.
+   */
+  public void setLineMatcher(LineMatcher lineMatcher) {
+    this.lineMatcher = lineMatcher;
   }
 
   /**
@@ -97,54 +219,609 @@ public class JavaGrepImp implements JavaGrep {
     this.rootPath = rootPath;
   }
 
+  /**
+   * Check whether streaming mode is enabled.
+   * @return true if matches are written incrementally while files are read.
+   */
+  public boolean isStreaming() {
+    return this.streaming;
+  }
+
+  /**
+   * Enable or disable streaming mode. In streaming mode files are read one line at a time and
+   * matched lines are written to the output file as they are found, so peak memory is bounded by
+   * the buffer size (plus the longest line) rather than by the size of the corpus or the result.
+   * @param streaming true to enable streaming mode.
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+
+  /**
+   * Get the size of the read and write buffers used in streaming mode.
+   * @return the buffer size in characters.
+   */
+  public int getBufferSize() {
+    return this.bufferSize;
+  }
+
+  /**
+   * Set the size of the read and write buffers used in streaming mode.
+   * @param bufferSize the buffer size in characters, must be positive.
+   */
+  public void setBufferSize(int bufferSize) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+    }
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * Get how files are read and matched.
+   * @return the scan mode.
+   */
+  public ScanMode getScanMode() {
+    return this.scanMode;
+  }
+
+  /**
+   * Set how files are read and matched.
+   * @param scanMode the scan mode.
+   */
+  public void setScanMode(ScanMode scanMode) {
+    this.scanMode = scanMode;
+  }
+
+  /**
+   * Get the include patterns applied while walking the root path.
+   * @return the include patterns; empty to include every file.
+   */
+  public List<String> getIncludes() {
+    return this.includes;
+  }
+
+  /**
+   * Set the include patterns applied while walking the root path. Only files matching at least
+   * one of them are searched; see {@link PathFilter} for the pattern syntax.
+   * @param includes the include patterns; empty to include every file.
+   */
+  public void setIncludes(List<String> includes) {
+    this.includes = new ArrayList<>(includes);
+  }
+
+  /**
+   * Get the exclude patterns applied while walking the root path.
+   * @return the exclude patterns.
+   */
+  public List<String> getExcludes() {
+    return this.excludes;
+  }
+
+  /**
+   * Set the exclude patterns applied while walking the root path. Matching files are not
+   * searched and matching directories are not entered; see {@link PathFilter} for the syntax.
+   * @param excludes the exclude patterns.
+   */
+  public void setExcludes(List<String> excludes) {
+    this.excludes = new ArrayList<>(excludes);
+  }
+
+  /**
+   * Check whether symbolic links under the root path are followed.
+   * @return true if symbolic links are followed, false if they are skipped.
+   */
+  public boolean isFollowLinks() {
+    return this.followLinks;
+  }
+
+  /**
+   * Set whether symbolic links under the root path are followed or skipped. Either way each
+   * directory and file is searched once, however many links lead to it; see {@link FileWalker}.
+   * @param followLinks true to follow symbolic links, false to skip them.
+   */
+  public void setFollowLinks(boolean followLinks) {
+    this.followLinks = followLinks;
+  }
+
+  /**
+   * Creates the walker that lists the files under a directory with the include and exclude
+   * patterns and the link setting.
+   * @param rootDir the root directory.
+   * @return the walker.
+   */
+  protected FileWalker newFileWalker(String rootDir) {
+    FileWalker walker = new FileWalker(rootDir, this.getIncludes(), this.getExcludes());
+    walker.setFollowLinks(this.isFollowLinks());
+    return walker;
+  }
+
+  /**
+   * Get what happens to binary files.
+   * @return the binary mode.
+   */
+  public BinaryMode getBinaryMode() {
+    return this.binaryMode;
+  }
+
+  /**
+   * Set what happens to binary files; they are skipped by default.
+   * @param binaryMode the binary mode.
+   */
+  public void setBinaryMode(BinaryMode binaryMode) {
+    this.binaryMode = binaryMode;
+  }
+
+  /**
+   * Get the charset the searched files are decoded with.
+   * @return the charset; the platform default unless set.
+   */
+  public Charset getCharset() {
+    return this.charset;
+  }
+
+  /**
+   * Set the charset the searched files are decoded with. UTF-8, US-ASCII and ISO-8859-1 files are
+   * split into lines on their raw bytes by a {@link ByteLineReader}; other charsets are decoded by
+   * a {@link BufferedReader} and cannot use {@link ScanMode#MAPPED}.
+   * @param charset the charset.
+   */
+  public void setCharset(Charset charset) {
+    this.charset = Objects.requireNonNull(charset, "charset");
+    this.binaryDetector = new BinaryDetector(charset);
+  }
+
+  @Override
+  public ResultMode getResultMode() {
+    return this.resultMode;
+  }
+
+  @Override
+  public void setResultMode(ResultMode resultMode) {
+    this.resultMode = resultMode;
+  }
+
+  @Override
+  public long getMaxCount() {
+    return this.maxCount;
+  }
+
+  @Override
+  public void setMaxCount(long maxCount) {
+    if (maxCount < 1) {
+      throw new IllegalArgumentException("maxCount must be positive: " + maxCount);
+    }
+    this.maxCount = maxCount;
+  }
+
+  @Override
+  public long getMaxTotal() {
+    return this.maxTotal;
+  }
+
+  @Override
+  public void setMaxTotal(long maxTotal) {
+    if (maxTotal < 1) {
+      throw new IllegalArgumentException("maxTotal must be positive: " + maxTotal);
+    }
+    this.maxTotal = maxTotal;
+  }
+
+  /**
+   * Get the file the JSON run report is written to at the end of {@link #process()}.
+   * @return the report file path, or null to only log the report.
+   */
+  public String getReportFile() {
+    return this.reportFile;
+  }
+
+  /**
+   * Set the file the JSON run report is written to at the end of {@link #process()}. The report
+   * is always logged; see {@link GrepMetrics#toJson()} for its fields.
+   * @param reportFile the report file path, or null to only log the report.
+   */
+  public void setReportFile(String reportFile) {
+    this.reportFile = reportFile;
+  }
+
+  /**
+   * Get the bytes of matched lines {@link #process()} holds in memory before spilling them to
+   * temporary run files.
+   * @return the memory limit in bytes.
+   */
+  public long getResultMemoryLimit() {
+    return this.resultMemoryLimit;
+  }
+
+  /**
+   * Set the bytes of matched lines {@link #process()} holds in memory before spilling them to
+   * temporary run files; see {@link ResultBuffer}. Streaming mode holds no matched lines.
+   * @param resultMemoryLimit the memory limit in bytes, must be positive.
+   */
+  public void setResultMemoryLimit(long resultMemoryLimit) {
+    if (resultMemoryLimit < 1) {
+      throw new IllegalArgumentException(
+          "resultMemoryLimit must be positive: " + resultMemoryLimit);
+    }
+    this.resultMemoryLimit = resultMemoryLimit;
+  }
+
+  /**
+   * Get the directory of the run files spilled by {@link #process()}.
+   * @return the spill directory, or null for the default temporary-file directory.
+   */
+  public String getSpillDirectory() {
+    return this.spillDirectory;
+  }
+
+  /**
+   * Set the directory of the run files spilled by {@link #process()}.
+   * @param spillDirectory the spill directory, or null for the default temporary-file directory.
+   */
+  public void setSpillDirectory(String spillDirectory) {
+    this.spillDirectory = spillDirectory;
+  }
+
+  /**
+   * Creates the buffer that holds the matched lines of a run until they are written.
+   * @return a buffer honouring the result memory limit and the spill directory.
+   */
+  protected ResultBuffer newResultBuffer() {
+    return new ResultBuffer(this.getResultMemoryLimit(),
+        this.getSpillDirectory() == null ? null : Paths.get(this.getSpillDirectory()), null);
+  }
+
+  /**
+   * Get the metrics of the current or last run. Before the first run, and outside of runs, the
+   * counters still collect the work of direct calls such as {@link #listFiles(String)}.
+   * @return the run metrics.
+   */
+  public GrepMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  /**
+   * Starts collecting the metrics of a new run; called at the start of {@link #process()}.
+   * @return the new run metrics.
+   */
+  protected GrepMetrics startMetrics() {
+    GrepMetrics metrics = new GrepMetrics(this.getClass().getSimpleName(), this.getRegex(),
+        this.getRootPath());
+    this.metrics = metrics;
+    return metrics;
+  }
+
+  /**
+   * Finishes the metrics of the current run, logs them as a JSON report and writes the report to
+   * the report file, if one is set; called at the end of {@link #process()}.
+   * @throws IOException if the report file cannot be written.
+   */
+  protected void reportMetrics() throws IOException {
+    GrepMetrics metrics = this.getMetrics();
+    metrics.finish();
+    // Logging the run report
+    logger.info("Run report: " + metrics.toJson());
+    if (this.getReportFile() != null) {
+      metrics.writeJson(Paths.get(this.getReportFile()));
+    }
+  }
+
+  /**
+   * Writes one matched line as soon as it is found, recording the write in the run metrics.
+   * @param writer the output writer.
+   * @param line the matched line.
+   * @throws IOException if the line cannot be written.
+   */
+  protected void writeLine(BufferedWriter writer, String line) throws IOException {
+    long start = System.nanoTime();
+    writer.write(line);
+    writer.newLine();
+    this.getMetrics().recordWrite(1, start);
+  }
+
+  /**
+   * Get the detector that classifies files as binary; it caches its decisions across runs with
+   * the same charset.
+   * @return the binary detector.
+   */
+  protected BinaryDetector getBinaryDetector() {
+    return this.binaryDetector;
+  }
+
+  /**
+   * Creates the byte-level scanner used in {@link ScanMode#MAPPED} mode.
+   * @return the scanner, or null if files should be read line by line.
+   */
+  protected MappedFileScanner newMappedScanner() {
+    if (this.getScanMode() != ScanMode.MAPPED) {
+      return null;
+    }
+    Charset charset = this.getCharset();
+    if (!MappedFileScanner.supports(charset)) {
+      logger.warn("Charset " + charset + " cannot be byte-scanned, reading lines instead");
+      return null;
+    }
+    return new MappedFileScanner(this.getMetrics().meter(this.getLineMatcher()), charset);
+  }
+
+  /**
+   * Get the files that {@link #process()} reads. By default these are all files under the root
+   * path; subclasses may narrow the list, as long as they keep listFiles order.
+   * @return the files to search.
+   * @throws IOException if an I/O error occurs while finding the files.
+   */
+  protected List<File> searchFiles() throws IOException {
+    return this.listFiles(this.getRootPath());
+  }
+
+  /**
+   * Searches one file and hands its matched lines to the consumer, honouring the binary mode.
+   * Text files go through the byte-level scanner when there is one (and the file is not
+   * compressed), and through {@link #readLines(File, LineConsumer)} otherwise.
+   * @param file the file to search.
+   * @param scanner the byte-level scanner, or null to read lines.
+   * @param consumer receives each matched line; returning false stops the search.
+   * @return false if the consumer stopped the search, true otherwise.
+   * @throws IOException if an I/O error occurs while reading the file.
+   */
+  protected boolean searchFile(File file, MappedFileScanner scanner, LineConsumer consumer)
+      throws IOException {
+    return this.searchFile(file, scanner, this.getBinaryMode(), true, consumer);
+  }
+
+  // Lines are only labelled when they are written, so the other result modes pass label false
+  private boolean searchFile(File file, MappedFileScanner scanner, BinaryMode binaryMode,
+      boolean label, LineConsumer consumer) throws IOException {
+    boolean binary = binaryMode != BinaryMode.TEXT && this.getBinaryDetector().isBinary(file);
+    if (binary && binaryMode == BinaryMode.SKIP) {
+      // Logging the skipped binary file
+      logger.debug("Skipping binary file: " + file);
+      return true;
+    }
+
+    GrepMetrics metrics = this.getMetrics();
+    GrepFileEvent event = metrics.startFile(file);
+    try {
+      if (!binary) {
+        return this.searchText(file, scanner, label, consumer);
+      }
+      boolean[] matched = new boolean[1];
+      this.searchText(file, scanner, false, line -> {
+        matched[0] = true;
+        return false;
+      });
+      return !matched[0] || consumer.accept("Binary file " + file.getPath() + " matches");
+    } finally {
+      metrics.finish(event);
+    }
+  }
+
+  /**
+   * Searches one file and hands its results to the consumer, honouring the result mode and the
+   * per-file maximum. Reading stops as soon as the file's results are known: after the maximum
+   * number of matched lines, or after the first match when only the file's paths are written.
+   * In the modes that write no lines of a file, binary files that are not skipped are searched
+   * as text.
+   * @param file the file to search.
+   * @param scanner the byte-level scanner, or null to read lines.
+   * @param consumer receives each result line; returning false stops the search.
+   * @return false if the consumer stopped the search, true otherwise.
+   * @throws IOException if an I/O error occurs while reading the file.
+   */
+  protected boolean searchResults(File file, MappedFileScanner scanner, LineConsumer consumer)
+      throws IOException {
+    ResultMode resultMode = this.getResultMode();
+    long[] count = new long[1];
+    if (resultMode == ResultMode.LINES) {
+      long maxCount = this.getMaxCount();
+      boolean[] stopped = new boolean[1];
+      this.searchFile(file, scanner, line -> {
+        if (!consumer.accept(line)) {
+          stopped[0] = true;
+          return false;
+        }
+        return ++count[0] < maxCount;
+      });
+      return !stopped[0];
+    }
+
+    if (this.getBinaryMode() == BinaryMode.SKIP && this.getBinaryDetector().isBinary(file)) {
+      // Logging the skipped binary file
+      logger.debug("Skipping binary file: " + file);
+      return true;
+    }
+    long limit = resultMode == ResultMode.COUNT ? this.getMaxCount() : 1;
+    this.searchFile(file, scanner, BinaryMode.TEXT, false, line -> ++count[0] < limit);
+    switch (resultMode) {
+      case COUNT:
+        return consumer.accept(file.getPath() + ":" + count[0]);
+      case FILES_WITH_MATCHES:
+        return count[0] == 0 || consumer.accept(file.getPath());
+      default:
+        return count[0] > 0 || consumer.accept(file.getPath());
+    }
+  }
+
+  /**
+   * Searches one file and returns its results, honouring the binary mode, the result mode and
+   * the per-file maximum.
+   * @param file the file to search.
+   * @param scanner the byte-level scanner, or null to read lines.
+   * @return the result lines in file order.
+   * @throws IOException if an I/O error occurs while reading the file.
+   */
+  protected List<String> matchFile(File file, MappedFileScanner scanner) throws IOException {
+    List<String> results = new ArrayList<>();
+    this.searchResults(file, scanner, results::add);
+    return results;
+  }
+
+  /**
+   * Get the matcher whose pattern index labels matched lines, when pattern reporting is on and
+   * the patterns are matched by a {@link MultiPatternMatcher}. Lines labelled this way are
+   * matched with {@link #matchLine(String, boolean)}, which finds the pattern in the same call,
+   * rather than by a byte-level scanner that would leave the pattern to be found again.
+   * @return the matcher, or null if matched lines need no per-line label.
+   */
+  protected MultiPatternMatcher getLabellingMatcher() {
+    LineMatcher matcher = this.getLineMatcher();
+    return this.isReportPatterns() && matcher instanceof MultiPatternMatcher
+        ? (MultiPatternMatcher) matcher
+        : null;
+  }
+
+  /**
+   * Labels a line that is already known to match, when pattern reporting is on and all lines get
+   * the same label; see {@link #getLabellingMatcher()} for the other case.
+   * @param line the matched line.
+   * @return {@code regex:line}, or the line itself if pattern reporting is off.
+   */
+  protected String labelLine(String line) {
+    return this.isReportPatterns() ? this.getRegex() + ":" + line : line;
+  }
+
+  /**
+   * Matches a line, running the matcher once, and labels it with the pattern that matched it if
+   * pattern reporting is on.
+   * @param line the line to check.
+   * @param label false to skip the label, for results that do not write the line.
+   * @return the result line, or null if the line does not match.
+   */
+  protected String matchLine(String line, boolean label) {
+    MultiPatternMatcher multiPattern = label ? this.getLabellingMatcher() : null;
+    if (multiPattern == null) {
+      return !this.containsPattern(line) ? null : label ? this.labelLine(line) : line;
+    }
+    int pattern = this.getMetrics().matchingPattern(multiPattern, line);
+    return pattern < 0 ? null : multiPattern.getPatterns().get(pattern) + ":" + line;
+  }
+
+  private boolean searchText(File file, MappedFileScanner scanner, boolean label,
+      LineConsumer consumer) throws IOException {
+    if (scanner != null && !GrepIO.isCompressed(file)
+        && !(label && this.getLabellingMatcher() != null)) {
+      return scanner.scanMatches(file,
+          line -> consumer.accept(label ? this.labelLine(line) : line));
+    }
+    boolean[] stopped = new boolean[1];
+    this.readLines(file, line -> {
+      String result = this.matchLine(line, label);
+      if (result != null && !consumer.accept(result)) {
+        stopped[0] = true;
+        return false;
+      }
+      return true;
+    });
+    return !stopped[0];
+  }
+
   @Override
   public void process() throws IOException {
-    List<String> matchedLines = new ArrayList<>();
+    if (this.isStreaming()) {
+      this.processStreaming();
+      return;
+    }
 
     // Logging the rootPath before calling listFiles()
     logger.info("Root Path: " + this.getRootPath());
 
-    for (File file : this.listFiles(this.getRootPath())) {
-      for (String string : this.readLines(file)) {
-        if (this.containsPattern(string)) {
-          matchedLines.add(string);
+    this.startMetrics();
+    MappedFileScanner scanner = this.newMappedScanner();
+    long maxTotal = this.getMaxTotal();
+    try (ResultBuffer matchedLines = this.newResultBuffer()) {
+      for (File file : this.searchFiles()) {
+        boolean keepGoing = this.searchResults(file, scanner, line -> {
+          matchedLines.add(line);
+          return matchedLines.size() < maxTotal;
+        });
+        if (!keepGoing) {
+          break;
         }
       }
+
+      // Logging the number of matched lines
+      logger.info("Number of matched lines: " + matchedLines.size());
+      if (matchedLines.getRunCount() > 0) {
+        // Logging the spilled runs
+        logger.info("Matched lines spilled to " + matchedLines.getRunCount() + " run files");
+      }
+
+      this.writeToFile(matchedLines);
     }
+    this.logPrefilterStats();
+    this.reportMetrics();
+    // Logging the completion of the process
+    logger.info("JavaGrepImp process completed");
+  }
 
-    // Logging the number of matched lines
-    logger.info("Number of matched lines: " + matchedLines.size());
+  /**
+   * Streaming variant of {@link #process()}: each file is read line by line and every matched
+   * line goes straight into a buffered writer, so neither the file contents nor the matched lines
+   * are ever held in memory as a whole.
+   * @throws IOException if an I/O error occurs while reading or writing files.
+   */
+  protected void processStreaming() throws IOException {
+    // Logging the rootPath before calling listFiles()
+    logger.info("Root Path: " + this.getRootPath());
 
-    this.writeToFile(matchedLines);
+    this.startMetrics();
+    long[] matchCount = new long[1];
+    MappedFileScanner scanner = this.newMappedScanner();
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.getOutFile()),
+        this.getBufferSize())) {
+      long maxTotal = this.getMaxTotal();
+      for (File file : this.searchFiles()) {
+        boolean keepGoing = this.searchResults(file, scanner, line -> {
+          this.writeLine(writer, line);
+          return ++matchCount[0] < maxTotal;
+        });
+        if (!keepGoing) {
+          break;
+        }
+      }
+    }
+
+    // Logging the number of matched lines
+    logger.info("Number of matched lines: " + matchCount[0]);
+    this.logPrefilterStats();
+    this.reportMetrics();
     // Logging the completion of the process
     logger.info("JavaGrepImp process completed");
   }
 
+  /**
+   * Logs how many lines the literal prefilter rejected before the regex engine ran.
+   */
+  protected void logPrefilterStats() {
+    if (this.lineMatcher instanceof PrefilteredLineMatcher) {
+      PrefilteredLineMatcher prefilter = (PrefilteredLineMatcher) this.lineMatcher;
+      logger.info("Prefilter rejected " + prefilter.getLinesRejected() + " of "
+          + prefilter.getLinesTested() + " lines using literals " + prefilter.getLiterals());
+    }
+  }
+
+  /**
+   * Lists the files under the root directory with a {@link FileWalker}, in name order within each
+   * directory, skipping excluded subtrees and files that the include and exclude patterns reject.
+   * @param rootDir the root directory to search for files.
+   * @return the files found; empty if the root is not a readable directory.
+   */
   @Override
   public List<File> listFiles(String rootDir) {
-    List<File> files = new ArrayList<>();
-    File directory = new File(rootDir);
-
     // Logging the directory being processed
-    logger.debug("Processing directory: " + directory.getAbsolutePath());
-
-    if (directory.isDirectory()) {
-      File[] fileList = directory.listFiles();
-
-      if (fileList != null) {
-        // Sort files based on their names
-        Arrays.sort(fileList);
-
-        for (File file : fileList) {
-          if (file.isFile()) {
-            files.add(file);
-          } else {
-            // Recursive call to process subdirectories
-            files.addAll(listFiles(file.getAbsolutePath()));
-          }
-        }
-      }
+    logger.debug("Processing directory: " + new File(rootDir).getAbsolutePath());
+
+    FileWalker walker = this.newFileWalker(rootDir);
+    GrepMetrics metrics = this.getMetrics();
+    GrepPhaseEvent event = metrics.startPhase(GrepPhaseEvent.WALK);
+    List<File> files;
+    try {
+      files = walker.walk();
+    } catch (IOException e) {
+      logger.error("Error walking directory: " + rootDir, e);
+      return new ArrayList<>();
     }
+    metrics.finishWalk(event, walker, files.size());
+    walker.logStats();
 
     // Logging the number of files found in the directory
     logger.debug("Number of files in directory: " + files.size());
@@ -155,7 +832,7 @@ public class JavaGrepImp implements JavaGrep {
   @Override
   public List<String> readLines(File inputFile) throws IOException {
     List<String> lines = new ArrayList<>();
-    BufferedReader reader = new BufferedReader(new FileReader(inputFile));
+    LineReader reader = GrepIO.newLineReader(inputFile, this.getCharset(), DEFAULT_BUFFER_SIZE);
     String line;
 
     while ((line = reader.readLine()) != null) {
@@ -166,14 +843,25 @@ public class JavaGrepImp implements JavaGrep {
     return lines;
   }
 
+  @Override
+  public void readLines(File inputFile, LineConsumer consumer) throws IOException {
+    try (LineReader reader = GrepIO.newLineReader(inputFile, this.getCharset(),
+        this.getBufferSize())) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!consumer.accept(line)) {
+          break;
+        }
+      }
+    }
+  }
+
   @Override
   public boolean containsPattern(String line) {
     if (line == null) {
       return false;
     }
-    Pattern pattern = Pattern.compile(this.getRegex(), Pattern.CASE_INSENSITIVE);
-    Matcher matcher = pattern.matcher(line);
-    return matcher.find();
+    return this.getMetrics().matches(this.getLineMatcher(), line);
   }
 
   @Override
@@ -183,10 +871,38 @@ public class JavaGrepImp implements JavaGrep {
       return;
     }
 
+    GrepMetrics metrics = this.getMetrics();
+    GrepPhaseEvent event = metrics.startPhase(GrepPhaseEvent.WRITE);
     try (FileWriter writer = new FileWriter(this.getOutFile())) {
       for (String line : lines) {
         writer.write(line + System.lineSeparator());
       }
     }
+    metrics.finishWrite(event, lines.size());
+  }
+
+  /**
+   * Writes the buffered matched lines to the output file in order, merging the spilled runs as
+   * they are read back. Like {@link #writeToFile(List)}, writes nothing if there are no lines.
+   * @param lines the buffered lines.
+   * @throws IOException if a run file cannot be read or the output file cannot be written.
+   */
+  public void writeToFile(ResultBuffer lines) throws IOException {
+    if (lines.size() == 0) {
+      // Exit early if the buffer is empty
+      return;
+    }
+
+    GrepMetrics metrics = this.getMetrics();
+    GrepPhaseEvent event = metrics.startPhase(GrepPhaseEvent.WRITE);
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.getOutFile()),
+        this.getBufferSize())) {
+      lines.writeTo(line -> {
+        writer.write(line);
+        writer.newLine();
+        return true;
+      });
+    }
+    metrics.finishWrite(event, lines.size());
   }
 }
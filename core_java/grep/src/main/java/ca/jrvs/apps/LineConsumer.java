@@ -0,0 +1,21 @@
+package ca.jrvs.apps;
+
+import java.io.IOException;
+
+/**
+ * LineConsumer receives lines one at a time as they are read from a file, so that callers can
+ * process a file without holding all of its lines in memory.
+ */
+@FunctionalInterface
+public interface LineConsumer {
+
+  /**
+   * Accepts the next line read from a file.
+   *
+   * @param line the line that was read, without its line terminator.
+   * @return true to keep reading, false to stop reading the current file.
+   * @throws IOException if an I/O error occurs while handling the line.
+   */
+  boolean accept(String line) throws IOException;
+
+}
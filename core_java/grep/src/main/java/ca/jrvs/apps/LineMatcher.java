@@ -0,0 +1,21 @@
+package ca.jrvs.apps;
+
+/**
+ * LineMatcher is a compiled, reusable search pattern. A LineMatcher is built once per grep run
+ * and then tested against every line, so all of the expensive setup (parsing and compiling the
+ * pattern) happens up front and the per-line cost is only the match itself.
+ *
+ * <p>Implementations must be safe to share between threads.
+ */
+@FunctionalInterface
+public interface LineMatcher {
+
+  /**
+   * Checks if the specified line contains a match for this pattern.
+   *
+   * @param line the line to check, never null.
+   * @return true if the line contains a match, false otherwise.
+   */
+  boolean matches(CharSequence line);
+
+}
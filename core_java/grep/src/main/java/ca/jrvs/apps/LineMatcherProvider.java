@@ -0,0 +1,34 @@
+package ca.jrvs.apps;
+
+/**
+ * LineMatcherProvider is the service provider interface for pattern engines. Providers are looked
+ * up by {@link LineMatchers} with {@link java.util.ServiceLoader}, so additional engines can be
+ * plugged in by listing them in {@code META-INF/services/ca.jrvs.apps.LineMatcherProvider}.
+ */
+public interface LineMatcherProvider {
+
+  /**
+   * Get the name used to select this provider explicitly.
+   *
+   * @return the provider name.
+   */
+  String getName();
+
+  /**
+   * Checks if this provider can compile the specified regex with the same semantics as
+   * {@code Pattern.compile(regex, Pattern.CASE_INSENSITIVE)}.
+   *
+   * @param regex the regex pattern.
+   * @return true if {@link #compile(String)} accepts the regex.
+   */
+  boolean supports(String regex);
+
+  /**
+   * Compiles the specified regex into a reusable, thread-safe matcher.
+   *
+   * @param regex the regex pattern.
+   * @return the compiled matcher.
+   */
+  LineMatcher compile(String regex);
+
+}
@@ -0,0 +1,85 @@
+package ca.jrvs.apps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LineMatchers selects and compiles a {@link LineMatcher} for a regex at setup time. Providers
+ * registered through {@link ServiceLoader} are tried first, in discovery order, followed by the
+ * built-in providers, the linear-time {@link DfaMatcherProvider} and then the
+ * {@link RegexMatcherProvider}; the first provider that supports the regex compiles it. Every
+ * compiled matcher is wrapped in a {@link PrefilteredLineMatcher} when the regex has required literals.
+ */
+public final class LineMatchers {
+
+  final static Logger logger = LoggerFactory.getLogger(LineMatchers.class);
+
+  private static final List<LineMatcherProvider> PROVIDERS = loadProviders();
+
+  private LineMatchers() {
+  }
+
+  /**
+   * Get the registered providers in the order they are tried.
+   *
+   * @return an unmodifiable list of providers.
+   */
+  public static List<LineMatcherProvider> providers() {
+    return PROVIDERS;
+  }
+
+  /**
+   * Compiles the specified regex with the first provider that supports it.
+   *
+   * @param regex the regex pattern.
+   * @return the compiled matcher.
+   * @throws NullPointerException if the regex is null.
+   */
+  public static LineMatcher compile(String regex) {
+    Objects.requireNonNull(regex, "regex");
+    for (LineMatcherProvider provider : PROVIDERS) {
+      if (provider.supports(regex)) {
+        logger.debug("Compiling regex " + regex + " with provider " + provider.getName());
+        return PrefilteredLineMatcher.wrap(regex, provider.compile(regex));
+      }
+    }
+    throw new IllegalStateException("No LineMatcherProvider supports regex: " + regex);
+  }
+
+  /**
+   * Compiles the specified regex with the named provider.
+   *
+   * @param regex the regex pattern.
+   * @param providerName the name of the provider to use.
+   * @return the compiled matcher.
+   * @throws IllegalArgumentException if no provider has that name or it does not support the regex.
+   */
+  public static LineMatcher compile(String regex, String providerName) {
+    Objects.requireNonNull(regex, "regex");
+    for (LineMatcherProvider provider : PROVIDERS) {
+      if (provider.getName().equals(providerName)) {
+        if (!provider.supports(regex)) {
+          throw new IllegalArgumentException(
+              "Provider " + providerName + " does not support regex: " + regex);
+        }
+        return PrefilteredLineMatcher.wrap(regex, provider.compile(regex));
+      }
+    }
+    throw new IllegalArgumentException("Unknown LineMatcherProvider: " + providerName);
+  }
+
+  private static List<LineMatcherProvider> loadProviders() {
+    List<LineMatcherProvider> providers = new ArrayList<>();
+    for (LineMatcherProvider provider : ServiceLoader.load(LineMatcherProvider.class)) {
+      providers.add(provider);
+    }
+    providers.add(new DfaMatcherProvider());
+    providers.add(new RegexMatcherProvider());
+    return Collections.unmodifiableList(providers);
+  }
+}
@@ -0,0 +1,65 @@
+package ca.jrvs.apps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * LineReader reads a text input one line at a time. Lines are terminated by {@code \n},
+ * {@code \r} or {@code \r\n}, like {@link java.io.BufferedReader#readLine()}, and are returned
+ * without the terminator. Use {@link GrepIO#newLineReader(java.io.File, java.nio.charset.Charset,
+ * int)} to open a file with the fastest reader for its charset.
+ */
+public interface LineReader extends Closeable {
+
+  /**
+   * Reads the next line.
+   *
+   * @return the line without its terminator, or null at the end of the input.
+   * @throws IOException if an I/O error occurs.
+   */
+  String readLine() throws IOException;
+
+  /**
+   * Returns the remaining lines as a lazily populated stream, like
+   * {@link java.io.BufferedReader#lines()}. Closing the stream does not close the reader.
+   *
+   * @return a stream of the remaining lines.
+   * @throws UncheckedIOException from the stream's operations if a line cannot be read.
+   */
+  default Stream<String> lines() {
+    Iterator<String> iterator = new Iterator<String>() {
+      private String next;
+
+      @Override
+      public boolean hasNext() {
+        if (this.next == null) {
+          try {
+            this.next = LineReader.this.readLine();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+        return this.next != null;
+      }
+
+      @Override
+      public String next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        }
+        String line = this.next;
+        this.next = null;
+        return line;
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+}
@@ -0,0 +1,99 @@
+package ca.jrvs.apps;
+
+import java.util.Arrays;
+
+/**
+ * LiteralSearcher finds a fixed string in text with the Boyer-Moore-Horspool algorithm. Matching
+ * folds US-ASCII letters only, which is exactly what {@code Pattern.CASE_INSENSITIVE} does without
+ * {@code UNICODE_CASE}; all other chars must match exactly.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public class LiteralSearcher {
+
+  private static final int TABLE_SIZE = 256;
+
+  private final String literal;
+  private final char[] folded;
+  private final int[] shift;
+
+  /**
+   * Prepares a searcher for the specified literal.
+   *
+   * @param literal the non-empty literal to search for.
+   */
+  public LiteralSearcher(String literal) {
+    if (literal.isEmpty()) {
+      throw new IllegalArgumentException("literal must not be empty");
+    }
+    this.literal = literal;
+    int m = literal.length();
+    this.folded = new char[m];
+    for (int i = 0; i < m; i++) {
+      this.folded[i] = fold(literal.charAt(i));
+    }
+
+    // Chars are bucketed by their low byte; the last occurrence wins so a shared bucket always
+    // holds the smallest (safe) shift of the chars that collide in it
+    this.shift = new int[TABLE_SIZE];
+    Arrays.fill(this.shift, m);
+    for (int i = 0; i < m - 1; i++) {
+      this.shift[this.folded[i] & (TABLE_SIZE - 1)] = m - 1 - i;
+    }
+  }
+
+  /**
+   * Get the literal this searcher looks for.
+   *
+   * @return the literal.
+   */
+  public String getLiteral() {
+    return this.literal;
+  }
+
+  /**
+   * Finds the first occurrence of the literal in the specified text.
+   *
+   * @param text the text to search.
+   * @return the index of the first occurrence, or -1 if there is none.
+   */
+  public int indexOf(CharSequence text) {
+    int m = this.folded.length;
+    int n = text.length();
+    int last = m - 1;
+    int i = last;
+    while (i < n) {
+      int j = last;
+      int k = i;
+      while (fold(text.charAt(k)) == this.folded[j]) {
+        if (j == 0) {
+          return k;
+        }
+        j--;
+        k--;
+      }
+      i += this.shift[fold(text.charAt(i)) & (TABLE_SIZE - 1)];
+    }
+    return -1;
+  }
+
+  /**
+   * Checks if the literal occurs anywhere in the specified text.
+   *
+   * @param text the text to search.
+   * @return true if the literal occurs in the text.
+   */
+  public boolean containedIn(CharSequence text) {
+    return this.indexOf(text) >= 0;
+  }
+
+  /**
+   * Folds an ASCII upper-case letter to lower case and leaves every other char untouched.
+   *
+   * @param c the char to fold.
+   * @return the folded char.
+   */
+  static char fold(char c) {
+    return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+  }
+}
@@ -0,0 +1,299 @@
+package ca.jrvs.apps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedFileScanner searches files through {@link FileChannel#map memory-mapped} byte buffers
+ * instead of decoding every line into a String first.
+ *
+ * <p>When the matcher has a required literal (see {@link PrefilteredLineMatcher}), the mapped bytes
+ * are searched for that literal directly, and only the lines containing a hit have their
+ * boundaries located and are decoded and confirmed by the matcher. Without a literal, each line
+ * is tested through a zero-copy CharSequence view of its bytes whenever that view is exact (any
+ * ISO-8859-1 line, or a pure-ASCII line in UTF-8 and US-ASCII), and decoded otherwise.
+ *
+ * <p>Lines are split on {@code \n}, {@code \r} and {@code \r\n} exactly like
+ * {@link java.io.BufferedReader#readLine()}. Only ASCII-compatible charsets in which those bytes
+ * always mean a line break are supported; see {@link #supports(Charset)}.
+ */
+public class MappedFileScanner {
+
+  /**
+   * Default number of bytes mapped at a time.
+   */
+  public static final int DEFAULT_REGION_SIZE = 64 << 20;
+
+  private final LineMatcher matcher;
+  private final Charset charset;
+  private final ByteLiteralSearcher searcher;
+  private final boolean latin1;
+  private final int regionSize;
+
+  /**
+   * Creates a scanner for the specified matcher and charset.
+   *
+   * @param matcher the matcher that decides which lines match.
+   * @param charset the charset of the scanned files.
+   * @throws IllegalArgumentException if the charset is not supported.
+   */
+  public MappedFileScanner(LineMatcher matcher, Charset charset) {
+    this(matcher, charset, DEFAULT_REGION_SIZE);
+  }
+
+  /**
+   * Creates a scanner that maps at most regionSize bytes of a file at a time.
+   *
+   * @param matcher the matcher that decides which lines match.
+   * @param charset the charset of the scanned files.
+   * @param regionSize the initial mapping size in bytes; grown when a line does not fit.
+   * @throws IllegalArgumentException if the charset is not supported.
+   */
+  public MappedFileScanner(LineMatcher matcher, Charset charset, int regionSize) {
+    if (!supports(charset)) {
+      throw new IllegalArgumentException("Charset cannot be byte-scanned: " + charset);
+    }
+    if (regionSize < 1) {
+      throw new IllegalArgumentException("regionSize must be positive: " + regionSize);
+    }
+    this.matcher = matcher;
+    this.charset = charset;
+    this.latin1 = StandardCharsets.ISO_8859_1.equals(charset);
+    this.searcher = literalSearcher(matcher, charset);
+    this.regionSize = regionSize;
+  }
+
+  /**
+   * Checks if files in the specified charset can be scanned byte-wise.
+   *
+   * @param charset the charset of the files.
+   * @return true for UTF-8, US-ASCII and ISO-8859-1.
+   */
+  public static boolean supports(Charset charset) {
+    return StandardCharsets.UTF_8.equals(charset)
+        || StandardCharsets.US_ASCII.equals(charset)
+        || StandardCharsets.ISO_8859_1.equals(charset);
+  }
+
+  /**
+   * Scans the specified file and hands every matching line to the consumer, in file order.
+   *
+   * @param inputFile the file to scan.
+   * @param consumer receives each matching line; returning false stops the scan.
+   * @return false if the consumer stopped the scan, true otherwise.
+   * @throws IOException if an I/O error occurs while mapping the file.
+   */
+  public boolean scanMatches(File inputFile, LineConsumer consumer) throws IOException {
+    return this.scanMatches(inputFile, 0, Long.MAX_VALUE, consumer);
+  }
+
+  /**
+   * Scans the byte range [from, to) of the specified file and hands every matching line to the
+   * consumer, in file order. Both ends must be line boundaries (see {@link ChunkedFileReader}).
+   *
+   * @param inputFile the file to scan.
+   * @param from the offset of the first byte to scan.
+   * @param to the offset just past the last byte to scan; clamped to the file size.
+   * @param consumer receives each matching line; returning false stops the scan.
+   * @return false if the consumer stopped the scan, true otherwise.
+   * @throws IOException if an I/O error occurs while mapping the file.
+   */
+  public boolean scanMatches(File inputFile, long from, long to, LineConsumer consumer)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+      long size = Math.min(to, channel.size());
+      long position = from;
+      int mapSize = this.regionSize;
+
+      while (position < size) {
+        int length = (int) Math.min(mapSize, size - position);
+        boolean lastRegion = position + length == size;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+        int end = lastRegion ? length : lastLineEnd(buffer, length);
+        if (end == 0) {
+          // A single line is longer than the mapping; map a bigger region and retry
+          if (mapSize == Integer.MAX_VALUE) {
+            throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes in " + inputFile);
+          }
+          mapSize = (int) Math.min(Integer.MAX_VALUE, mapSize * 2L);
+          continue;
+        }
+
+        boolean keepGoing = this.searcher != null
+            ? this.scanLiteral(buffer, end, consumer)
+            : this.scanLines(buffer, end, consumer);
+        if (!keepGoing) {
+          return false;
+        }
+        position += end;
+      }
+    }
+    return true;
+  }
+
+  // Finds literal hits in the bytes and decodes only the lines that contain one
+  private boolean scanLiteral(ByteBuffer buffer, int end, LineConsumer consumer)
+      throws IOException {
+    int from = 0;
+    while (from < end) {
+      int hit = this.searcher.indexOf(buffer, from, end);
+      if (hit < 0) {
+        return true;
+      }
+      int start = hit;
+      while (start > from && !isTerminator(buffer.get(start - 1))) {
+        start--;
+      }
+      int stop = lineEnd(buffer, hit, end);
+      String line = this.decode(buffer, start, stop);
+      if (this.matcher.matches(line) && !consumer.accept(line)) {
+        return false;
+      }
+      from = skipTerminator(buffer, stop, end);
+    }
+    return true;
+  }
+
+  // Tests every line, through a byte view when that is exact and by decoding otherwise
+  private boolean scanLines(ByteBuffer buffer, int end, LineConsumer consumer) throws IOException {
+    int start = 0;
+    while (start < end) {
+      int stop = start;
+      boolean ascii = true;
+      while (stop < end) {
+        byte b = buffer.get(stop);
+        if (isTerminator(b)) {
+          break;
+        }
+        ascii &= b >= 0;
+        stop++;
+      }
+
+      if (this.latin1 || ascii) {
+        ByteCharSequence view = new ByteCharSequence(buffer, start, stop);
+        if (this.matcher.matches(view) && !consumer.accept(view.toString())) {
+          return false;
+        }
+      } else {
+        String line = this.decode(buffer, start, stop);
+        if (this.matcher.matches(line) && !consumer.accept(line)) {
+          return false;
+        }
+      }
+      start = skipTerminator(buffer, stop, end);
+    }
+    return true;
+  }
+
+  private String decode(ByteBuffer buffer, int start, int stop) {
+    byte[] bytes = new byte[stop - start];
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(start);
+    slice.get(bytes);
+    return new String(bytes, this.charset);
+  }
+
+  private static boolean isTerminator(byte b) {
+    return b == '\n' || b == '\r';
+  }
+
+  private static int lineEnd(ByteBuffer buffer, int from, int end) {
+    int stop = from;
+    while (stop < end && !isTerminator(buffer.get(stop))) {
+      stop++;
+    }
+    return stop;
+  }
+
+  private static int skipTerminator(ByteBuffer buffer, int stop, int end) {
+    if (stop < end && buffer.get(stop) == '\r') {
+      stop++;
+    }
+    if (stop < end && buffer.get(stop) == '\n') {
+      stop++;
+    }
+    return stop;
+  }
+
+  // Returns the index just past the last complete line in a region that is not the end of file.
+  // A trailing '\r' is not trusted because its '\n' may be in the next region.
+  private static int lastLineEnd(ByteBuffer buffer, int length) {
+    for (int k = length - 1; k >= 0; k--) {
+      byte b = buffer.get(k);
+      if (b == '\n' || (b == '\r' && k < length - 1)) {
+        return k + 1;
+      }
+    }
+    return 0;
+  }
+
+  private static ByteLiteralSearcher literalSearcher(LineMatcher matcher, Charset charset) {
+    if (matcher instanceof MeteredLineMatcher) {
+      matcher = ((MeteredLineMatcher) matcher).getDelegate();
+    }
+    if (!(matcher instanceof PrefilteredLineMatcher)) {
+      return null;
+    }
+    String literal = ((PrefilteredLineMatcher) matcher).getLiterals().get(0);
+    CharsetEncoder encoder = charset.newEncoder();
+    try {
+      ByteBuffer encoded = encoder.encode(CharBuffer.wrap(literal));
+      byte[] bytes = new byte[encoded.remaining()];
+      encoded.get(bytes);
+      return new ByteLiteralSearcher(bytes);
+    } catch (CharacterCodingException e) {
+      // The literal cannot occur in this charset; let the line path decide
+      return null;
+    }
+  }
+
+  /**
+   * A read-only view of single-byte chars in a buffer, used to run the matcher without decoding.
+   */
+  private static final class ByteCharSequence implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int stop;
+
+    ByteCharSequence(ByteBuffer buffer, int start, int stop) {
+      this.buffer = buffer;
+      this.start = start;
+      this.stop = stop;
+    }
+
+    @Override
+    public int length() {
+      return this.stop - this.start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char) (this.buffer.get(this.start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+      return new ByteCharSequence(this.buffer, this.start + from, this.start + to);
+    }
+
+    @Override
+    public String toString() {
+      byte[] bytes = new byte[this.length()];
+      ByteBuffer slice = this.buffer.duplicate();
+      slice.position(this.start);
+      slice.get(bytes);
+      return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+  }
+}
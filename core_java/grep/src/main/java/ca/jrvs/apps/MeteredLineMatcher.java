@@ -0,0 +1,37 @@
+package ca.jrvs.apps;
+
+/**
+ * MeteredLineMatcher counts and times every call of the line matcher it wraps into a
+ * {@link GrepMetrics}. Byte-level scanners unwrap it with {@link #getDelegate()} to find the
+ * matcher's literals.
+ */
+public class MeteredLineMatcher implements LineMatcher {
+
+  private final LineMatcher delegate;
+  private final GrepMetrics metrics;
+
+  /**
+   * Wraps a line matcher.
+   *
+   * @param delegate the matcher to meter.
+   * @param metrics the metrics that receive the counts and times.
+   */
+  public MeteredLineMatcher(LineMatcher delegate, GrepMetrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Get the wrapped matcher.
+   *
+   * @return the matcher.
+   */
+  public LineMatcher getDelegate() {
+    return this.delegate;
+  }
+
+  @Override
+  public boolean matches(CharSequence line) {
+    return this.metrics.matches(this.delegate, line);
+  }
+}
@@ -0,0 +1,139 @@
+package ca.jrvs.apps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MultiPatternMatcher matches lines against many patterns at once, like {@code grep -f}: a line
+ * matches if any of the patterns matches it. Patterns that are plain literals (see
+ * {@link RegexLiterals#asLiteral(String)}) are all searched in a single pass by one
+ * {@link AhoCorasick} automaton, and only the remaining patterns are compiled as regexes by
+ * {@link LineMatchers}, so a long list of keywords costs about as much per line as one of them.
+ *
+ * <p>{@link #matchingPattern(CharSequence)} tells which pattern matched a line; when several do,
+ * the one that comes first in the list wins.
+ */
+public class MultiPatternMatcher implements LineMatcher {
+
+  private final List<String> patterns;
+  private final AhoCorasick literals;
+  // The pattern index of each literal of the automaton
+  private final int[] literalPatterns;
+  private final List<LineMatcher> regexes;
+  private final int[] regexPatterns;
+
+  /**
+   * Compiles the specified patterns, picking a provider for each regex automatically.
+   *
+   * @param patterns the patterns; an empty list matches no line.
+   */
+  public MultiPatternMatcher(List<String> patterns) {
+    this(patterns, null);
+  }
+
+  /**
+   * Compiles the specified patterns.
+   *
+   * @param patterns the patterns; an empty list matches no line.
+   * @param matcherProvider the name of the provider that compiles the patterns that are not plain
+   *     literals, or null to pick the first provider that supports each of them.
+   * @throws java.util.regex.PatternSyntaxException if a pattern is not a valid regex.
+   */
+  public MultiPatternMatcher(List<String> patterns, String matcherProvider) {
+    this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+    List<String> literals = new ArrayList<>();
+    List<Integer> literalPatterns = new ArrayList<>();
+    List<LineMatcher> regexes = new ArrayList<>();
+    List<Integer> regexPatterns = new ArrayList<>();
+    for (int i = 0; i < this.patterns.size(); i++) {
+      String pattern = this.patterns.get(i);
+      String literal = RegexLiterals.asLiteral(pattern);
+      if (literal != null && !literal.isEmpty()) {
+        literals.add(literal);
+        literalPatterns.add(i);
+      } else {
+        regexes.add(matcherProvider == null
+            ? LineMatchers.compile(pattern)
+            : LineMatchers.compile(pattern, matcherProvider));
+        regexPatterns.add(i);
+      }
+    }
+    this.literals = literals.isEmpty() ? null : new AhoCorasick(literals);
+    this.literalPatterns = literalPatterns.stream().mapToInt(Integer::intValue).toArray();
+    this.regexes = regexes;
+    this.regexPatterns = regexPatterns.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Get the patterns this matcher was compiled from.
+   *
+   * @return the patterns, in order.
+   */
+  public List<String> getPatterns() {
+    return this.patterns;
+  }
+
+  /**
+   * Get the automaton that searches for the patterns that are plain literals.
+   *
+   * @return the automaton, or null if no pattern is a plain literal.
+   */
+  public AhoCorasick getLiterals() {
+    return this.literals;
+  }
+
+  /**
+   * Get the number of patterns that are compiled as regexes rather than searched as literals.
+   *
+   * @return the regex count.
+   */
+  public int getRegexCount() {
+    return this.regexes.size();
+  }
+
+  @Override
+  public boolean matches(CharSequence line) {
+    if (this.literals != null && this.literals.containedIn(line)) {
+      return true;
+    }
+    for (LineMatcher regex : this.regexes) {
+      if (regex.matches(line)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the first pattern, in list order, that matches the specified line. Regexes that come
+   * after the first matching literal are not tried.
+   *
+   * @param line the line to check.
+   * @return the index of that pattern, or -1 if no pattern matches.
+   */
+  public int matchingPattern(CharSequence line) {
+    int best = -1;
+    if (this.literals != null) {
+      int literal = this.literals.lowestMatch(line);
+      if (literal >= 0) {
+        best = this.literalPatterns[literal];
+      }
+    }
+    for (int i = 0; i < this.regexPatterns.length; i++) {
+      if (best >= 0 && this.regexPatterns[i] > best) {
+        break;
+      }
+      if (this.regexes.get(i).matches(line)) {
+        return this.regexPatterns[i];
+      }
+    }
+    return best;
+  }
+
+  @Override
+  public String toString() {
+    return "MultiPatternMatcher[" + this.patterns.size() + " patterns, "
+        + this.literalPatterns.length + " literals]";
+  }
+}
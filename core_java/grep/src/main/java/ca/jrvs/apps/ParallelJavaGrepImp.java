@@ -0,0 +1,433 @@
+package ca.jrvs.apps;
+
+import ca.jrvs.apps.FileWalker.Entry;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import org.apache.log4j.BasicConfigurator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ParallelJavaGrepImp is a JavaGrep implementation that runs the directory walk, file reads and
+ * pattern matching concurrently on a work-stealing ForkJoinPool. Every directory and every file
+ * becomes its own task, so all cores are kept busy, while a semaphore caps the number of files
+ * that are open at the same time. Results are joined in the same sorted order that
+ * {@link #listFiles(String)} returns, so the output file is identical to the sequential one.
+ *
+ * <p>Files of at least {@link #setChunkThreshold(long) chunkThreshold} bytes are additionally
+ * split by a {@link ChunkedFileReader} into line-aligned ranges of about
+ * {@link #setChunkSize(long) chunkSize} bytes, each scanned by its own task, so a single huge
+ * file is searched on all cores too. The ranges' matches are joined in file order. Files are not
+ * split when the result mode or a per-file maximum lets reading stop at an early match.
+ *
+ * <p>Result modes and the per-file maximum stop reading each file early as usual. The run maximum
+ * is applied to the ordered results: once a directory's entries in name order reach it, the
+ * entries that have not started are cancelled, but entries already running elsewhere finish.
+ */
+public class ParallelJavaGrepImp extends JavaGrepImp {
+
+  final static Logger logger = LoggerFactory.getLogger(ParallelJavaGrepImp.class);
+
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private int maxOpenFiles = 64;
+  private long chunkSize = DEFAULT_CHUNK_SIZE;
+  private long chunkThreshold = DEFAULT_CHUNK_THRESHOLD;
+
+  /**
+   * Default nominal size, in bytes, of the ranges a large file is split into.
+   */
+  public static final long DEFAULT_CHUNK_SIZE = 32L << 20;
+
+  /**
+   * Default size, in bytes, from which a file is split into ranges.
+   */
+  public static final long DEFAULT_CHUNK_THRESHOLD = 128L << 20;
+
+  /**
+   * Main method to execute the ParallelJavaGrepImp program.
+   * @param args command line arguments: regex, rootPath, outFile.
+   */
+  public static void main(String[] args) {
+    if (args.length != 3) {
+      throw new IllegalArgumentException("USAGE: ParallelJavaGrepImp regex rootPath outFile");
+    }
+
+    BasicConfigurator.configure();
+
+    ParallelJavaGrepImp parallelJavaGrepImp = new ParallelJavaGrepImp();
+    parallelJavaGrepImp.setRegex(args[0]);
+    parallelJavaGrepImp.setRootPath(args[1]);
+    parallelJavaGrepImp.setOutFile(args[2]);
+
+    try {
+      parallelJavaGrepImp.process();
+    } catch (Exception e) {
+      logger.error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Get the number of worker threads used by the pool.
+   * @return the parallelism level.
+   */
+  public int getParallelism() {
+    return this.parallelism;
+  }
+
+  /**
+   * Set the number of worker threads used by the pool.
+   * @param parallelism the parallelism level, must be positive.
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Get the maximum number of files that may be open at the same time.
+   * @return the open file handle limit.
+   */
+  public int getMaxOpenFiles() {
+    return this.maxOpenFiles;
+  }
+
+  /**
+   * Set the maximum number of files that may be open at the same time.
+   * @param maxOpenFiles the open file handle limit, must be positive.
+   */
+  public void setMaxOpenFiles(int maxOpenFiles) {
+    if (maxOpenFiles < 1) {
+      throw new IllegalArgumentException("maxOpenFiles must be positive: " + maxOpenFiles);
+    }
+    this.maxOpenFiles = maxOpenFiles;
+  }
+
+  /**
+   * Get the nominal size of the ranges a large file is split into.
+   * @return the chunk size in bytes.
+   */
+  public long getChunkSize() {
+    return this.chunkSize;
+  }
+
+  /**
+   * Set the nominal size of the ranges a large file is split into.
+   * @param chunkSize the chunk size in bytes, must be positive.
+   */
+  public void setChunkSize(long chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Get the file size from which files are split into ranges.
+   * @return the threshold in bytes.
+   */
+  public long getChunkThreshold() {
+    return this.chunkThreshold;
+  }
+
+  /**
+   * Set the file size from which files are split into ranges.
+   * @param chunkThreshold the threshold in bytes, must be positive.
+   */
+  public void setChunkThreshold(long chunkThreshold) {
+    if (chunkThreshold < 1) {
+      throw new IllegalArgumentException("chunkThreshold must be positive: " + chunkThreshold);
+    }
+    this.chunkThreshold = chunkThreshold;
+  }
+
+  @Override
+  public void process() throws IOException {
+    // Logging the rootPath before walking the tree
+    logger.info("Root Path: " + this.getRootPath());
+
+    GrepMetrics metrics = this.startMetrics();
+    ForkJoinPool pool = new ForkJoinPool(this.getParallelism());
+    Semaphore openFiles = new Semaphore(this.getMaxOpenFiles());
+    MappedFileScanner scanner = this.newMappedScanner();
+    Charset charset = this.getCharset();
+    ChunkedFileReader chunkedReader = MappedFileScanner.supports(charset)
+        ? new ChunkedFileReader(charset)
+        : null;
+    FileWalker walker = this.newFileWalker(this.getRootPath());
+    List<String> matchedLines = new ArrayList<>();
+
+    try {
+      Path root = walker.getRoot();
+      // Checked through File so that an empty root path is no directory, as in listFiles
+      if (root.toFile().isDirectory() && walker.acceptDirectory(root)) {
+        for (FileMatches file : pool.invoke(new DirectoryTask(walker.startEntry(root), walker,
+            new FileWalker.Visited(), openFiles, scanner, chunkedReader))) {
+          matchedLines.addAll(file.lines);
+        }
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      pool.shutdown();
+    }
+    // Walking is interleaved with searching, so only the walk counters are recorded
+    metrics.recordWalk(walker);
+    walker.logStats();
+
+    if (matchedLines.size() > this.getMaxTotal()) {
+      matchedLines = matchedLines.subList(0, (int) this.getMaxTotal());
+    }
+
+    // Logging the number of matched lines
+    logger.info("Number of matched lines: " + matchedLines.size());
+
+    this.writeToFile(matchedLines);
+    this.logPrefilterStats();
+    this.reportMetrics();
+    // Logging the completion of the process
+    logger.info("ParallelJavaGrepImp process completed");
+  }
+
+  /**
+   * Lists one directory with the walker and forks a task for each entry it accepts. Subtasks
+   * are joined in sorted name order, which keeps the combined result in the same order as
+   * {@link #listFiles(String)}. Tasks may reach copies of a file through several links in any
+   * order, so each join keeps only the first copy of a file in that order; the tasks of one
+   * search share the earliest position each file was reached at, so a copy known to come later
+   * is not searched at all. Since a dropped copy's lines come earlier in the output anyway, the
+   * run maximum can still cancel entries on the lines joined so far.
+   */
+  private class DirectoryTask extends RecursiveTask<List<FileMatches>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Entry directory;
+    private final FileWalker walker;
+    private final FileWalker.Visited visited;
+    private final Semaphore openFiles;
+    private final MappedFileScanner scanner;
+    private final ChunkedFileReader chunkedReader;
+
+    DirectoryTask(Entry directory, FileWalker walker, FileWalker.Visited visited,
+        Semaphore openFiles, MappedFileScanner scanner, ChunkedFileReader chunkedReader) {
+      this.directory = directory;
+      this.walker = walker;
+      this.visited = visited;
+      this.openFiles = openFiles;
+      this.scanner = scanner;
+      this.chunkedReader = chunkedReader;
+    }
+
+    @Override
+    protected List<FileMatches> compute() {
+      List<Entry> entries = walker.list(directory, visited);
+      if (entries.isEmpty()) {
+        return Collections.emptyList();
+      }
+
+      List<ForkJoinTask<List<FileMatches>>> tasks = new ArrayList<>(entries.size());
+      for (Entry entry : entries) {
+        if (entry.directory) {
+          tasks.add(new DirectoryTask(entry, walker, visited, openFiles, scanner, chunkedReader));
+        } else {
+          tasks.add(new FileTask(entry, openFiles, scanner, chunkedReader));
+        }
+      }
+      // Fork in reverse so this worker pops the entries in name order while joining them
+      for (int i = tasks.size() - 1; i >= 0; i--) {
+        tasks.get(i).fork();
+      }
+
+      List<FileMatches> files = new ArrayList<>();
+      Set<Object> listed = new HashSet<>();
+      long lines = 0;
+      for (int i = 0; i < tasks.size(); i++) {
+        if (lines >= getMaxTotal()) {
+          // Later entries cannot reach the output; skip the ones that have not started
+          for (int j = i; j < tasks.size(); j++) {
+            tasks.get(j).cancel(false);
+          }
+          break;
+        }
+        for (FileMatches file : tasks.get(i).join()) {
+          if (walker.isFirst(file.file, listed)) {
+            files.add(file);
+            lines += file.lines.size();
+          }
+        }
+      }
+      return files;
+    }
+  }
+
+  /**
+   * Reads and matches a single file while holding one of the open file permits. Files of at
+   * least the chunk threshold are split into ranges that are matched by {@link ChunkTask}s.
+   */
+  private class FileTask extends RecursiveTask<List<FileMatches>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Entry entry;
+    private final File file;
+    private final Semaphore openFiles;
+    private final MappedFileScanner scanner;
+    private final ChunkedFileReader chunkedReader;
+
+    FileTask(Entry entry, Semaphore openFiles, MappedFileScanner scanner,
+        ChunkedFileReader chunkedReader) {
+      this.entry = entry;
+      this.file = entry.path.toFile();
+      this.openFiles = openFiles;
+      this.scanner = scanner;
+      this.chunkedReader = chunkedReader;
+    }
+
+    @Override
+    protected List<FileMatches> compute() {
+      if (chunkedReader != null && !GrepIO.isCompressed(file)
+          && file.length() >= getChunkThreshold() && getResultMode() == ResultMode.LINES
+          && getMaxCount() == Long.MAX_VALUE && !skipsOrReportsBinary()) {
+        return Collections.singletonList(new FileMatches(entry, computeChunks()));
+      }
+
+      acquire(openFiles, file);
+      try {
+        return Collections.singletonList(new FileMatches(entry, matchFile(file, scanner)));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        openFiles.release();
+      }
+    }
+
+    // Binary files that are not searched as text take the whole-file path
+    private boolean skipsOrReportsBinary() {
+      if (getBinaryMode() == BinaryMode.TEXT) {
+        return false;
+      }
+      acquire(openFiles, file);
+      try {
+        return getBinaryDetector().isBinary(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        openFiles.release();
+      }
+    }
+
+    // Splits the file and joins the ranges' matches in file order
+    private List<String> computeChunks() {
+      List<ChunkedFileReader.Chunk> chunks;
+      acquire(openFiles, file);
+      try {
+        chunks = ChunkedFileReader.split(file, getChunkSize());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        openFiles.release();
+      }
+
+      // Logging how the file was split
+      logger.debug("Split " + file + " into " + chunks.size() + " chunks");
+      getMetrics().recordFileSplit();
+
+      List<ChunkTask> tasks = new ArrayList<>(chunks.size());
+      for (ChunkedFileReader.Chunk chunk : chunks) {
+        tasks.add(new ChunkTask(file, chunk, openFiles, scanner, chunkedReader));
+      }
+      invokeAll(tasks);
+
+      List<String> matchedLines = new ArrayList<>();
+      for (ChunkTask task : tasks) {
+        matchedLines.addAll(task.join());
+      }
+      return matchedLines;
+    }
+  }
+
+  /**
+   * Matches one line-aligned range of a large file while holding one of the open file permits.
+   */
+  private class ChunkTask extends RecursiveTask<List<String>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final File file;
+    private final ChunkedFileReader.Chunk chunk;
+    private final Semaphore openFiles;
+    private final MappedFileScanner scanner;
+    private final ChunkedFileReader chunkedReader;
+
+    ChunkTask(File file, ChunkedFileReader.Chunk chunk, Semaphore openFiles,
+        MappedFileScanner scanner, ChunkedFileReader chunkedReader) {
+      this.file = file;
+      this.chunk = chunk;
+      this.openFiles = openFiles;
+      this.scanner = scanner;
+      this.chunkedReader = chunkedReader;
+    }
+
+    @Override
+    protected List<String> compute() {
+      List<String> matchedLines = new ArrayList<>();
+      acquire(openFiles, file);
+      GrepMetrics metrics = getMetrics();
+      GrepFileEvent event = metrics.startRange(file, chunk.getStart(), chunk.getEnd());
+      try {
+        if (scanner != null && getLabellingMatcher() == null) {
+          scanner.scanMatches(file, chunk.getStart(), chunk.getEnd(),
+              line -> matchedLines.add(labelLine(line)));
+        } else {
+          chunkedReader.readLines(file, chunk, line -> {
+            String result = matchLine(line, true);
+            if (result != null) {
+              matchedLines.add(result);
+            }
+            return true;
+          });
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        metrics.finish(event);
+        openFiles.release();
+      }
+      return matchedLines;
+    }
+  }
+
+  private static void acquire(Semaphore openFiles, File file) {
+    try {
+      openFiles.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to open " + file, e);
+    }
+  }
+
+  // The matched lines of one file, with the entry the file was listed as
+  private static final class FileMatches {
+    final Entry file;
+    final List<String> lines;
+
+    FileMatches(Entry file, List<String> lines) {
+      this.file = file;
+      this.lines = lines;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package ca.jrvs.apps;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PathFilter is one include or exclude pattern of a {@link FileWalker}, together with counters of
+ * how often it matched during walks.
+ *
+ * <p>Patterns use {@link java.nio.file.FileSystem#getPathMatcher(String) PathMatcher} syntax:
+ * {@code glob:*.log} or {@code regex:.*\.log}; a pattern without a syntax prefix is a glob. A
+ * pattern containing a {@code /} is matched against the path relative to the walk's root (with
+ * {@code /} separators), any other pattern against the file or directory name alone, so
+ * {@code node_modules} or {@code *.jar} apply at every depth.
+ */
+public class PathFilter {
+
+  private final String pattern;
+  private final PathMatcher matcher;
+  private final boolean matchName;
+  private final LongAdder directories = new LongAdder();
+  private final LongAdder files = new LongAdder();
+
+  /**
+   * Creates a filter for the specified pattern.
+   *
+   * @param pattern the pattern, optionally prefixed with {@code glob:} or {@code regex:}.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public PathFilter(String pattern) {
+    this.pattern = pattern;
+    String syntaxAndPattern = pattern.startsWith("glob:") || pattern.startsWith("regex:")
+        ? pattern
+        : "glob:" + pattern;
+    String body = syntaxAndPattern.substring(syntaxAndPattern.indexOf(':') + 1);
+    this.matcher = FileSystems.getDefault().getPathMatcher(syntaxAndPattern);
+    this.matchName = body.indexOf('/') < 0;
+  }
+
+  /**
+   * Checks the filter against a path without counting the match.
+   *
+   * @param relativePath the path relative to the walk's root.
+   * @return true if the pattern matches.
+   */
+  public boolean matches(Path relativePath) {
+    if (this.matchName) {
+      Path name = relativePath.getFileName();
+      return name != null && this.matcher.matches(name);
+    }
+    return this.matcher.matches(relativePath);
+  }
+
+  /**
+   * Checks the filter against a directory and counts the match.
+   *
+   * @param relativePath the directory relative to the walk's root.
+   * @return true if the pattern matches.
+   */
+  boolean matchDirectory(Path relativePath) {
+    boolean matched = this.matches(relativePath);
+    if (matched) {
+      this.directories.increment();
+    }
+    return matched;
+  }
+
+  /**
+   * Checks the filter against a file and counts the match.
+   *
+   * @param relativePath the file relative to the walk's root.
+   * @return true if the pattern matches.
+   */
+  boolean matchFile(Path relativePath) {
+    boolean matched = this.matches(relativePath);
+    if (matched) {
+      this.files.increment();
+    }
+    return matched;
+  }
+
+  /**
+   * Get the pattern as given.
+   *
+   * @return the pattern.
+   */
+  public String getPattern() {
+    return this.pattern;
+  }
+
+  /**
+   * Get the number of directories this filter matched; for an exclude filter, the number of
+   * subtrees that were skipped without being listed.
+   *
+   * @return the directory count.
+   */
+  public long getDirectories() {
+    return this.directories.sum();
+  }
+
+  /**
+   * Get the number of files this filter matched.
+   *
+   * @return the file count.
+   */
+  public long getFiles() {
+    return this.files.sum();
+  }
+
+  @Override
+  public String toString() {
+    return this.pattern + " (directories=" + this.getDirectories() + ", files=" + this.getFiles()
+        + ")";
+  }
+}
@@ -0,0 +1,128 @@
+package ca.jrvs.apps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PrefilteredLineMatcher rejects lines that cannot match before the regex engine runs. It checks
+ * the literals that every match must contain (see {@link RegexLiterals}) with fast
+ * {@link LiteralSearcher substring searches}, and only lines containing all of them are handed to
+ * the delegate matcher. When the regex is itself a plain literal, the delegate is skipped entirely.
+ *
+ * <p>Counters record how many lines were tested and how many were rejected early.
+ */
+public class PrefilteredLineMatcher implements LineMatcher {
+
+  private final LineMatcher delegate;
+  private final List<LiteralSearcher> searchers;
+  private final boolean exact;
+  private final LongAdder linesTested = new LongAdder();
+  private final LongAdder linesRejected = new LongAdder();
+
+  /**
+   * Wraps a delegate matcher with a literal prefilter.
+   *
+   * @param delegate the matcher that confirms lines passing the prefilter.
+   * @param literals the literals every match must contain, longest first.
+   * @param exact true if containing the literals is sufficient for a match, so the delegate is
+   *     never called.
+   */
+  public PrefilteredLineMatcher(LineMatcher delegate, List<String> literals, boolean exact) {
+    List<LiteralSearcher> list = new ArrayList<>(literals.size());
+    for (String literal : literals) {
+      list.add(new LiteralSearcher(literal));
+    }
+    this.delegate = delegate;
+    this.searchers = Collections.unmodifiableList(list);
+    this.exact = exact;
+  }
+
+  /**
+   * Wraps the matcher compiled from the specified regex with a prefilter if the regex has any
+   * required literals.
+   *
+   * @param regex the regex the matcher was compiled from.
+   * @param delegate the compiled matcher.
+   * @return a prefiltered matcher, or the delegate itself if there is nothing to prefilter on.
+   */
+  public static LineMatcher wrap(String regex, LineMatcher delegate) {
+    String literal = RegexLiterals.asLiteral(regex);
+    if (literal != null) {
+      return new PrefilteredLineMatcher(delegate, Collections.singletonList(literal), true);
+    }
+    List<String> literals = RegexLiterals.requiredLiterals(regex);
+    if (literals.isEmpty()) {
+      return delegate;
+    }
+    return new PrefilteredLineMatcher(delegate, literals, false);
+  }
+
+  @Override
+  public boolean matches(CharSequence line) {
+    this.linesTested.increment();
+    for (LiteralSearcher searcher : this.searchers) {
+      if (!searcher.containedIn(line)) {
+        this.linesRejected.increment();
+        return false;
+      }
+    }
+    return this.exact || this.delegate.matches(line);
+  }
+
+  /**
+   * Get the matcher that confirms lines passing the prefilter.
+   *
+   * @return the delegate matcher.
+   */
+  public LineMatcher getDelegate() {
+    return this.delegate;
+  }
+
+  /**
+   * Get the literals every match must contain, longest first.
+   *
+   * @return the required literals.
+   */
+  public List<String> getLiterals() {
+    List<String> literals = new ArrayList<>(this.searchers.size());
+    for (LiteralSearcher searcher : this.searchers) {
+      literals.add(searcher.getLiteral());
+    }
+    return literals;
+  }
+
+  /**
+   * Check whether the literals alone decide a match.
+   *
+   * @return true if the delegate is never consulted.
+   */
+  public boolean isExact() {
+    return this.exact;
+  }
+
+  /**
+   * Get the number of lines tested by this matcher.
+   *
+   * @return the number of lines tested.
+   */
+  public long getLinesTested() {
+    return this.linesTested.sum();
+  }
+
+  /**
+   * Get the number of lines rejected by the prefilter without running the delegate.
+   *
+   * @return the number of lines rejected early.
+   */
+  public long getLinesRejected() {
+    return this.linesRejected.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "PrefilteredLineMatcher[literals=" + this.getLiterals() + ", tested="
+        + this.getLinesTested() + ", rejected=" + this.getLinesRejected() + "]";
+  }
+}
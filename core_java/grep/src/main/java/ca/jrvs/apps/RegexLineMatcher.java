@@ -0,0 +1,54 @@
+package ca.jrvs.apps;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * RegexLineMatcher is the default LineMatcher backed by {@code java.util.regex}. The pattern is
+ * compiled once, and each thread keeps its own Matcher that is {@link Matcher#reset(CharSequence)
+ * reset} for every line instead of being allocated again.
+ */
+public class RegexLineMatcher implements LineMatcher {
+
+  private final Pattern pattern;
+  private final ThreadLocal<Matcher> matchers;
+
+  /**
+   * Compiles the specified regex case-insensitively.
+   *
+   * @param regex the regex pattern.
+   * @throws java.util.regex.PatternSyntaxException if the regex is invalid.
+   */
+  public RegexLineMatcher(String regex) {
+    this(Pattern.compile(regex, Pattern.CASE_INSENSITIVE));
+  }
+
+  /**
+   * Wraps an already compiled pattern.
+   *
+   * @param pattern the compiled pattern.
+   */
+  public RegexLineMatcher(Pattern pattern) {
+    this.pattern = pattern;
+    this.matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+  }
+
+  /**
+   * Get the compiled pattern.
+   *
+   * @return the pattern.
+   */
+  public Pattern getPattern() {
+    return this.pattern;
+  }
+
+  @Override
+  public boolean matches(CharSequence line) {
+    return this.matchers.get().reset(line).find();
+  }
+
+  @Override
+  public String toString() {
+    return "RegexLineMatcher[" + this.pattern.pattern() + "]";
+  }
+}
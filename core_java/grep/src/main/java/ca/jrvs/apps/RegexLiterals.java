@@ -0,0 +1,322 @@
+package ca.jrvs.apps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * RegexLiterals extracts the literal substrings that every match of a regex must contain, e.g.
+ * {@code ERROR} and {@code timeout} for {@code ERROR.*timeout}. A line that lacks any of them can
+ * be rejected without running the regex engine.
+ *
+ * <p>The extraction is deliberately conservative: it only looks at the top-level concatenation of
+ * the regex, treats groups and character classes as opaque, and gives up (returns no literals)
+ * on top-level alternation or any construct it does not fully understand. Returning too few
+ * literals only costs speed; returning a literal that is not actually required would lose matches.
+ */
+public final class RegexLiterals {
+
+  private RegexLiterals() {
+  }
+
+  /**
+   * Extracts the literals required by every match of the specified regex, longest first.
+   *
+   * @param regex the regex pattern.
+   * @return the required literals, or an empty list if none could be proven.
+   */
+  public static List<String> requiredLiterals(String regex) {
+    Parse parse = parse(regex);
+    if (parse == null) {
+      return Collections.emptyList();
+    }
+    List<String> literals = new ArrayList<>(new LinkedHashSet<>(parse.literals));
+    literals.sort((a, b) -> b.length() - a.length());
+    return Collections.unmodifiableList(literals);
+  }
+
+  /**
+   * Checks if the specified regex is a plain literal, i.e. it matches exactly one fixed string
+   * anywhere in a line, and returns that string.
+   *
+   * @param regex the regex pattern.
+   * @return the literal text, or null if the regex uses any regex construct.
+   */
+  public static String asLiteral(String regex) {
+    Parse parse = parse(regex);
+    if (parse == null || !parse.pure || parse.literals.size() != 1) {
+      return null;
+    }
+    return parse.literals.get(0);
+  }
+
+  private static final class Parse {
+    final List<String> literals = new ArrayList<>();
+    boolean pure = true;
+  }
+
+  private static Parse parse(String regex) {
+    Parse parse = new Parse();
+    StringBuilder current = new StringBuilder();
+    // true when the previous atom was a literal char appended to current
+    boolean lastWasLiteral = false;
+    int i = 0;
+    int n = regex.length();
+
+    while (i < n) {
+      char c = regex.charAt(i);
+      switch (c) {
+        case '\\': {
+          if (i + 1 >= n) {
+            return null;
+          }
+          char e = regex.charAt(i + 1);
+          if (e == 'Q') {
+            int end = regex.indexOf("\\E", i + 2);
+            int stop = end < 0 ? n : end;
+            for (int k = i + 2; k < stop; k++) {
+              current.append(regex.charAt(k));
+            }
+            // An empty quote adds nothing, so a quantifier after it still repeats the char before
+            if (stop > i + 2) {
+              lastWasLiteral = true;
+            }
+            i = end < 0 ? n : end + 2;
+            continue;
+          }
+          char literal = escapedLiteral(e);
+          if (literal != 0) {
+            current.append(literal);
+            lastWasLiteral = true;
+          } else if ("dDsSwWhHvVbBAGZz".indexOf(e) >= 0) {
+            flush(parse, current);
+            parse.pure = false;
+            lastWasLiteral = false;
+          } else {
+            return null;
+          }
+          i += 2;
+          continue;
+        }
+        case '[': {
+          int end = skipCharClass(regex, i);
+          if (end < 0) {
+            return null;
+          }
+          flush(parse, current);
+          parse.pure = false;
+          lastWasLiteral = false;
+          i = end;
+          continue;
+        }
+        case '(': {
+          if (regex.startsWith("(?", i) && !flagsAreSafe(regex, i + 2)) {
+            return null;
+          }
+          int end = skipGroup(regex, i);
+          if (end < 0) {
+            return null;
+          }
+          flush(parse, current);
+          parse.pure = false;
+          lastWasLiteral = false;
+          i = end;
+          continue;
+        }
+        case '|':
+        case ')':
+          return null;
+        case '.':
+        case '^':
+        case '$':
+          flush(parse, current);
+          parse.pure = false;
+          lastWasLiteral = false;
+          i++;
+          continue;
+        case '*':
+        case '+':
+        case '?':
+        case '{': {
+          int min;
+          int end;
+          if (c == '{') {
+            int close = regex.indexOf('}', i);
+            if (close < 0) {
+              return null;
+            }
+            String body = regex.substring(i + 1, close);
+            if (!body.matches("\\d+(,\\d*)?")) {
+              return null;
+            }
+            int comma = body.indexOf(',');
+            min = Integer.parseInt(comma < 0 ? body : body.substring(0, comma));
+            end = close + 1;
+          } else {
+            min = c == '+' ? 1 : 0;
+            end = i + 1;
+          }
+          // Lazy and possessive suffixes do not change which literals are required
+          if (end < n && (regex.charAt(end) == '?' || regex.charAt(end) == '+')) {
+            end++;
+          }
+          parse.pure = false;
+          if (lastWasLiteral) {
+            // A quantifier repeats a whole code point, which may be a surrogate pair
+            int length = current.length();
+            int start = length >= 2 && Character.isLowSurrogate(current.charAt(length - 1))
+                && Character.isHighSurrogate(current.charAt(length - 2)) ? length - 2 : length - 1;
+            String repeated = current.substring(start);
+            if (min == 0) {
+              current.setLength(start);
+              flush(parse, current);
+            } else {
+              // The char is still required once, and it may also start the next literal run
+              flush(parse, current);
+              current.append(repeated);
+            }
+          }
+          lastWasLiteral = false;
+          i = end;
+          continue;
+        }
+        default:
+          current.append(c);
+          lastWasLiteral = true;
+          i++;
+      }
+    }
+    flush(parse, current);
+    return parse;
+  }
+
+  private static void flush(Parse parse, StringBuilder current) {
+    if (current.length() > 0) {
+      parse.literals.add(current.toString());
+      current.setLength(0);
+    }
+  }
+
+  // Returns the char denoted by a single-char escape, or 0 if it is not a plain literal escape
+  private static char escapedLiteral(char e) {
+    switch (e) {
+      case 't':
+        return '\t';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 'f':
+        return '\f';
+      case 'a':
+        return '\u0007';
+      case 'e':
+        return '\u001B';
+      default:
+        return Character.isLetterOrDigit(e) ? 0 : e;
+    }
+  }
+
+  // Inline flags that change how the rest of the regex is parsed or folded make literals unsafe
+  private static boolean flagsAreSafe(String regex, int start) {
+    boolean enabling = true;
+    for (int k = start; k < regex.length(); k++) {
+      char f = regex.charAt(k);
+      if (f == ':' || f == ')') {
+        return true;
+      }
+      if (f == '-') {
+        enabling = false;
+      } else if (Character.isLetter(f)) {
+        if (enabling && "xuUL".indexOf(f) >= 0) {
+          return false;
+        }
+      } else {
+        // Lookaround, named or atomic group
+        return true;
+      }
+    }
+    return true;
+  }
+
+  // Returns the index just past the character class starting at start, or -1 if malformed
+  private static int skipCharClass(String regex, int start) {
+    int depth = 0;
+    int k = start;
+    while (k < regex.length()) {
+      char c = regex.charAt(k);
+      if (c == '\\') {
+        if (k + 1 < regex.length() && regex.charAt(k + 1) == 'Q') {
+          int end = regex.indexOf("\\E", k + 2);
+          if (end < 0) {
+            return -1;
+          }
+          k = end + 2;
+          continue;
+        }
+        k += 2;
+        continue;
+      }
+      if (c == '[') {
+        depth++;
+        k++;
+        // A ']' right after the opening bracket (or '^') is a literal member
+        if (k < regex.length() && regex.charAt(k) == '^') {
+          k++;
+        }
+        if (k < regex.length() && regex.charAt(k) == ']') {
+          k++;
+        }
+        continue;
+      }
+      if (c == ']') {
+        depth--;
+        if (depth == 0) {
+          return k + 1;
+        }
+      }
+      k++;
+    }
+    return -1;
+  }
+
+  // Returns the index just past the group starting at start, or -1 if malformed
+  private static int skipGroup(String regex, int start) {
+    int depth = 0;
+    int k = start;
+    while (k < regex.length()) {
+      char c = regex.charAt(k);
+      if (c == '\\') {
+        if (k + 1 < regex.length() && regex.charAt(k + 1) == 'Q') {
+          int end = regex.indexOf("\\E", k + 2);
+          if (end < 0) {
+            return -1;
+          }
+          k = end + 2;
+          continue;
+        }
+        k += 2;
+        continue;
+      }
+      if (c == '[') {
+        int end = skipCharClass(regex, k);
+        if (end < 0) {
+          return -1;
+        }
+        k = end;
+        continue;
+      }
+      if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+        if (depth == 0) {
+          return k + 1;
+        }
+      }
+      k++;
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,28 @@
+package ca.jrvs.apps;
+
+/**
+ * RegexMatcherProvider compiles patterns with {@code java.util.regex}. It supports every regex and
+ * is always consulted last, so it is the fallback when no other provider accepts a pattern.
+ */
+public class RegexMatcherProvider implements LineMatcherProvider {
+
+  /**
+   * The name of this provider.
+   */
+  public static final String NAME = "regex";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public boolean supports(String regex) {
+    return true;
+  }
+
+  @Override
+  public LineMatcher compile(String regex) {
+    return new RegexLineMatcher(regex);
+  }
+}
@@ -0,0 +1,356 @@
+package ca.jrvs.apps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ResultBuffer holds the matched lines of a run until they are written, in a compact form: the
+ * lines are UTF-8 encoded into one growing byte array with an offset per line, instead of one
+ * {@link String} object each. Once the buffered bytes pass the memory limit the buffered lines
+ * are written to a temporary file as a sorted run and the buffer starts over, so the heap holds
+ * at most about the limit however many lines match.
+ *
+ * <p>{@link #writeTo(LineConsumer)} streams the lines back with a k-way merge of the runs and
+ * the lines still in memory. Without an order the lines come back in the order they were added;
+ * with one, each run is sorted before it is written and equal lines keep the order they were
+ * added in. Lines are stored as UTF-8, so an unpaired surrogate comes back as '?'.
+ *
+ * <p>The run files are deleted by {@link #close()}. A buffer is not thread-safe.
+ */
+public class ResultBuffer implements Closeable {
+
+  final static Logger logger = LoggerFactory.getLogger(ResultBuffer.class);
+
+  /**
+   * Default number of bytes of lines held in memory before they are spilled to a run file.
+   */
+  public static final long DEFAULT_MEMORY_LIMIT = 64L << 20;
+
+  // Bytes accounted per buffered line on top of its encoded bytes
+  private static final int LINE_OVERHEAD = Integer.BYTES;
+
+  private final long memoryLimit;
+  private final Path spillDirectory;
+  private final Comparator<String> order;
+  private final List<Run> runs = new ArrayList<>();
+  private byte[] data = new byte[1024];
+  private int dataLength;
+  private int[] ends = new int[64];
+  private int count;
+  private long size;
+
+  /**
+   * Creates a buffer that keeps the lines in the order they are added and spills to the default
+   * temporary-file directory.
+   *
+   * @param memoryLimit the bytes of lines held in memory before spilling, must be positive.
+   */
+  public ResultBuffer(long memoryLimit) {
+    this(memoryLimit, null, null);
+  }
+
+  /**
+   * Creates a buffer.
+   *
+   * @param memoryLimit the bytes of lines held in memory before spilling, must be positive.
+   * @param spillDirectory the directory of the run files, or null for the default
+   *     temporary-file directory.
+   * @param order the order the lines are written back in, or null for the order they are added.
+   */
+  public ResultBuffer(long memoryLimit, Path spillDirectory, Comparator<String> order) {
+    if (memoryLimit < 1) {
+      throw new IllegalArgumentException("memoryLimit must be positive: " + memoryLimit);
+    }
+    // A single buffer array cannot grow past the largest array size
+    this.memoryLimit = Math.min(memoryLimit, Integer.MAX_VALUE - 16);
+    this.spillDirectory = spillDirectory;
+    this.order = order;
+  }
+
+  /**
+   * Adds a line, spilling the buffered lines to a run file if they pass the memory limit.
+   *
+   * @param line the line to add.
+   * @throws IOException if the run file cannot be written.
+   */
+  public void add(String line) throws IOException {
+    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+    long needed = this.bufferedBytes() + bytes.length + LINE_OVERHEAD;
+    if (this.count > 0 && needed > this.memoryLimit) {
+      this.spill();
+    }
+    if (this.dataLength + bytes.length > this.data.length) {
+      long capacity = Math.max(2L * this.data.length, (long) this.dataLength + bytes.length);
+      this.data = Arrays.copyOf(this.data, (int) Math.min(capacity, Integer.MAX_VALUE - 16));
+    }
+    System.arraycopy(bytes, 0, this.data, this.dataLength, bytes.length);
+    this.dataLength += bytes.length;
+    if (this.count == this.ends.length) {
+      this.ends = Arrays.copyOf(this.ends, 2 * this.count);
+    }
+    this.ends[this.count++] = this.dataLength;
+    this.size++;
+  }
+
+  /**
+   * Get the number of lines added.
+   *
+   * @return the line count.
+   */
+  public long size() {
+    return this.size;
+  }
+
+  /**
+   * Get the number of run files spilled so far.
+   *
+   * @return the run count.
+   */
+  public int getRunCount() {
+    return this.runs.size();
+  }
+
+  /**
+   * Get the bytes the lines held in memory account for.
+   *
+   * @return the buffered bytes.
+   */
+  public long bufferedBytes() {
+    return this.dataLength + (long) this.count * LINE_OVERHEAD;
+  }
+
+  /**
+   * Streams every line added so far to the consumer, merging the run files with the lines held
+   * in memory. The buffer may be written more than once, and lines may be added afterwards.
+   *
+   * @param consumer receives each line in order; returning false stops the stream.
+   * @throws IOException if a run file cannot be read or the consumer fails.
+   */
+  public void writeTo(LineConsumer consumer) throws IOException {
+    List<Cursor> cursors = new ArrayList<>(this.runs.size() + 1);
+    try {
+      for (Run run : this.runs) {
+        cursors.add(new RunCursor(cursors.size(), run));
+      }
+      cursors.add(this.order == null
+          ? new MemoryCursor(cursors.size())
+          : new SortedCursor(cursors.size(), this.memoryLines()));
+      if (this.order == null) {
+        // Runs hold consecutive lines, so the merge is a concatenation
+        for (Cursor cursor : cursors) {
+          for (String line = cursor.advance(); line != null; line = cursor.advance()) {
+            if (!consumer.accept(line)) {
+              return;
+            }
+          }
+        }
+        return;
+      }
+      Comparator<String> order = this.order;
+      PriorityQueue<Cursor> heads = new PriorityQueue<>(cursors.size(), (a, b) -> {
+        int c = order.compare(a.head, b.head);
+        return c != 0 ? c : Integer.compare(a.index, b.index);
+      });
+      for (Cursor cursor : cursors) {
+        if (cursor.advance() != null) {
+          heads.add(cursor);
+        }
+      }
+      while (!heads.isEmpty()) {
+        Cursor cursor = heads.poll();
+        if (!consumer.accept(cursor.head)) {
+          return;
+        }
+        if (cursor.advance() != null) {
+          heads.add(cursor);
+        }
+      }
+    } finally {
+      for (Cursor cursor : cursors) {
+        cursor.close();
+      }
+    }
+  }
+
+  /**
+   * Deletes the run files and empties the buffer.
+   *
+   * @throws IOException if a run file cannot be deleted.
+   */
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (Run run : this.runs) {
+      try {
+        Files.deleteIfExists(run.file);
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    this.runs.clear();
+    this.clearMemory();
+    this.size = 0;
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  // Writes the lines held in memory to a new run file, in order, and empties the buffer
+  private void spill() throws IOException {
+    Path file = this.spillDirectory == null
+        ? Files.createTempFile("grep-results", ".run")
+        : Files.createTempFile(this.spillDirectory, "grep-results", ".run");
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+      if (this.order == null) {
+        int start = 0;
+        for (int i = 0; i < this.count; i++) {
+          out.writeInt(this.ends[i] - start);
+          out.write(this.data, start, this.ends[i] - start);
+          start = this.ends[i];
+        }
+      } else {
+        for (String line : this.memoryLines()) {
+          byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    this.runs.add(new Run(file, this.count));
+    // Logging the spilled run
+    logger.debug("Spilled " + this.count + " lines (" + this.dataLength + " bytes) to " + file);
+    this.clearMemory();
+  }
+
+  // Decodes the lines held in memory, sorted by the order
+  private String[] memoryLines() {
+    String[] lines = new String[this.count];
+    for (int i = 0; i < this.count; i++) {
+      lines[i] = this.memoryLine(i);
+    }
+    // Object sorts are stable, which keeps equal lines in the order they were added
+    Arrays.sort(lines, this.order);
+    return lines;
+  }
+
+  private String memoryLine(int i) {
+    int start = i == 0 ? 0 : this.ends[i - 1];
+    return new String(this.data, start, this.ends[i] - start, StandardCharsets.UTF_8);
+  }
+
+  private void clearMemory() {
+    this.count = 0;
+    this.dataLength = 0;
+    if (this.data.length > this.memoryLimit) {
+      this.data = new byte[1024];
+      this.ends = new int[64];
+    }
+  }
+
+  private static final class Run {
+    final Path file;
+    final int lines;
+
+    Run(Path file, int lines) {
+      this.file = file;
+      this.lines = lines;
+    }
+  }
+
+  // A source of lines in order, positioned on its current head line
+  private abstract static class Cursor implements Closeable {
+    final int index;
+    String head;
+
+    Cursor(int index) {
+      this.index = index;
+    }
+
+    // Moves to the next line; returns it, or null once the source is exhausted
+    abstract String advance() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+    }
+  }
+
+  private static final class RunCursor extends Cursor {
+    private final DataInputStream in;
+    private int remaining;
+
+    RunCursor(int index, Run run) throws IOException {
+      super(index);
+      this.in = new DataInputStream(
+          new BufferedInputStream(Files.newInputStream(run.file), 1 << 16));
+      this.remaining = run.lines;
+    }
+
+    @Override
+    String advance() throws IOException {
+      if (this.remaining == 0) {
+        return this.head = null;
+      }
+      this.remaining--;
+      byte[] bytes = new byte[this.in.readInt()];
+      this.in.readFully(bytes);
+      return this.head = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.in.close();
+    }
+  }
+
+  // Decodes the lines held in memory one at a time, in the order they were added
+  private final class MemoryCursor extends Cursor {
+    private final int lines = count;
+    private int next;
+
+    MemoryCursor(int index) {
+      super(index);
+    }
+
+    @Override
+    String advance() {
+      return this.head = this.next < this.lines ? memoryLine(this.next++) : null;
+    }
+  }
+
+  private static final class SortedCursor extends Cursor {
+    private final String[] lines;
+    private int next;
+
+    SortedCursor(int index, String[] lines) {
+      super(index);
+      this.lines = lines;
+    }
+
+    @Override
+    String advance() {
+      return this.head = this.next < this.lines.length ? this.lines[this.next++] : null;
+    }
+  }
+}
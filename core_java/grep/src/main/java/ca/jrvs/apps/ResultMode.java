@@ -0,0 +1,33 @@
+package ca.jrvs.apps;
+
+/**
+ * ResultMode selects what {@code process()} writes for each searched file. Apart from
+ * {@link #LINES}, the modes only need to know whether or how often a file matches, so reading a
+ * file stops as soon as the answer is known.
+ */
+public enum ResultMode {
+
+  /**
+   * Write every matched line, the default.
+   */
+  LINES,
+
+  /**
+   * Write one {@code <path>:<count>} line per searched file with its number of matched lines,
+   * like {@code grep -c}.
+   */
+  COUNT,
+
+  /**
+   * Write the path of each file that has a match, like {@code grep -l}. Reading a file stops at
+   * its first match.
+   */
+  FILES_WITH_MATCHES,
+
+  /**
+   * Write the path of each searched file that has no match, like {@code grep -L}. Reading a file
+   * stops at its first match.
+   */
+  FILES_WITHOUT_MATCH
+
+}
@@ -0,0 +1,19 @@
+package ca.jrvs.apps;
+
+/**
+ * ScanMode selects how files are read and matched.
+ */
+public enum ScanMode {
+
+  /**
+   * Decode every line of every file into a String and test it, the original behaviour.
+   */
+  LINES,
+
+  /**
+   * Memory-map each file and search its raw bytes, decoding only candidate lines. Falls back to
+   * {@link #LINES} for charsets that cannot be scanned byte-wise.
+   */
+  MAPPED
+
+}
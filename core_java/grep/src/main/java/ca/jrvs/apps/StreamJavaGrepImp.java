@@ -5,9 +5,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -21,15 +39,36 @@ public class StreamJavaGrepImp implements StreamJavaGrep {
   private String regex;
   private String rootPath;
   private String outFile;
+  private ScanMode scanMode = ScanMode.LINES;
+  private String matcherProvider;
+  private volatile LineMatcher lineMatcher;
+  private volatile WatchService watchService;
+  private List<String> includes = new ArrayList<>();
+  private List<String> excludes = new ArrayList<>();
+  private boolean followLinks = true;
+  private BinaryMode binaryMode = BinaryMode.SKIP;
+  private ResultMode resultMode = ResultMode.LINES;
+  private long maxCount = Long.MAX_VALUE;
+  private long maxTotal = Long.MAX_VALUE;
+  private int beforeContext;
+  private int afterContext;
+  private boolean parallel;
+  private Charset charset = Charset.defaultCharset();
+  private volatile BinaryDetector binaryDetector = new BinaryDetector(this.charset);
+  private volatile GrepMetrics metrics = new GrepMetrics(this.getClass().getSimpleName(), null,
+      null);
+  private String reportFile;
 
   /**
    * Main method to execute the StreamJavaGrepImp program.
    *
-   * @param args command line arguments: regex, rootPath, outFile.
+   * @param args command line arguments: regex, rootPath, outFile, and optionally --watch.
    */
   public static void main(String[] args) {
-    if (args.length != 3) {
-      throw new IllegalArgumentException("USAGE: StreamJavaGrepImp regex rootPath outFile");
+    boolean watch = args.length == 4 && "--watch".equals(args[3]);
+    if (args.length != 3 && !watch) {
+      throw new IllegalArgumentException(
+          "USAGE: StreamJavaGrepImp regex rootPath outFile [--watch]");
     }
 
     BasicConfigurator.configure();
@@ -40,7 +79,11 @@ public class StreamJavaGrepImp implements StreamJavaGrep {
     streamJavaGrepImp.setOutFile(args[2]);
 
     try {
-      streamJavaGrepImp.process();
+      if (watch) {
+        streamJavaGrepImp.watch();
+      } else {
+        streamJavaGrepImp.process();
+      }
     } catch (Exception e) {
       logger.error(e.getMessage(), e);
     }
@@ -62,6 +105,52 @@ public class StreamJavaGrepImp implements StreamJavaGrep {
    */
   public void setRegex(String regex) {
     this.regex = regex;
+    this.lineMatcher = null;
+  }
+
+  /**
+   * Get the name of the LineMatcherProvider used to compile the regex.
+   *
+   * @return the provider name, or null to pick the first provider that supports the regex.
+   */
+  public String getMatcherProvider() {
+    return this.matcherProvider;
+  }
+
+  /**
+   * Set the name of the LineMatcherProvider used to compile the regex.
+   *
+   * @param matcherProvider the provider name, or null to pick one automatically.
+   */
+  public void setMatcherProvider(String matcherProvider) {
+    this.matcherProvider = matcherProvider;
+    this.lineMatcher = null;
+  }
+
+  /**
+   * Get the compiled matcher for the current regex, compiling it on first use.
+   *
+   * @return the line matcher.
+   * @throws NullPointerException if the regex is null.
+   */
+  public LineMatcher getLineMatcher() {
+    LineMatcher matcher = this.lineMatcher;
+    if (matcher == null) {
+      matcher = this.getMatcherProvider() == null
+          ? LineMatchers.compile(this.getRegex())
+          : LineMatchers.compile(this.getRegex(), this.getMatcherProvider());
+      this.lineMatcher = matcher;
+    }
+    return matcher;
+  }
+
+  /**
+   * Set a pre-built matcher to use instead of compiling the regex.
+   *
+   * @param lineMatcher the line matcher.
+   */
+  public void setLineMatcher(LineMatcher lineMatcher) {
+    this.lineMatcher = lineMatcher;
   }
 
   /**
@@ -100,9 +189,302 @@ public class StreamJavaGrepImp implements StreamJavaGrep {
     this.rootPath = rootPath;
   }
 
+  /**
+   * Get how files are read and matched.
+   *
+   * @return the scan mode.
+   */
+  public ScanMode getScanMode() {
+    return this.scanMode;
+  }
+
+  /**
+   * Set how files are read and matched.
+   *
+   * @param scanMode the scan mode.
+   */
+  public void setScanMode(ScanMode scanMode) {
+    this.scanMode = scanMode;
+  }
+
+  /**
+   * Get the include patterns applied while walking the root path.
+   *
+   * @return the include patterns; empty to include every file.
+   */
+  public List<String> getIncludes() {
+    return this.includes;
+  }
+
+  /**
+   * Set the include patterns applied while walking the root path. Only files matching at least
+   * one of them are searched; see {@link PathFilter} for the pattern syntax.
+   *
+   * @param includes the include patterns; empty to include every file.
+   */
+  public void setIncludes(List<String> includes) {
+    this.includes = new ArrayList<>(includes);
+  }
+
+  /**
+   * Get the exclude patterns applied while walking the root path.
+   *
+   * @return the exclude patterns.
+   */
+  public List<String> getExcludes() {
+    return this.excludes;
+  }
+
+  /**
+   * Set the exclude patterns applied while walking the root path. Matching files are not
+   * searched and matching directories are not entered; see {@link PathFilter} for the syntax.
+   *
+   * @param excludes the exclude patterns.
+   */
+  public void setExcludes(List<String> excludes) {
+    this.excludes = new ArrayList<>(excludes);
+  }
+
+  /**
+   * Check whether symbolic links under the root path are followed.
+   *
+   * @return true if symbolic links are followed, false if they are skipped.
+   */
+  public boolean isFollowLinks() {
+    return this.followLinks;
+  }
+
+  /**
+   * Set whether symbolic links under the root path are followed or skipped. Either way each
+   * directory and file is searched once, however many links lead to it; see {@link FileWalker}.
+   *
+   * @param followLinks true to follow symbolic links, false to skip them.
+   */
+  public void setFollowLinks(boolean followLinks) {
+    this.followLinks = followLinks;
+  }
+
+  /**
+   * Creates the walker that lists the files under a directory with the include and exclude
+   * patterns and the link setting.
+   *
+   * @param rootDir the root directory.
+   * @return the walker.
+   */
+  protected FileWalker newFileWalker(String rootDir) {
+    FileWalker walker = new FileWalker(rootDir, this.getIncludes(), this.getExcludes());
+    walker.setFollowLinks(this.isFollowLinks());
+    return walker;
+  }
+
+  /**
+   * Get the charset the searched files are decoded with.
+   *
+   * @return the charset; the platform default unless set.
+   */
+  public Charset getCharset() {
+    return this.charset;
+  }
+
+  /**
+   * Set the charset the searched files are decoded with. UTF-8, US-ASCII and ISO-8859-1 files are
+   * split into lines on their raw bytes by a {@link ByteLineReader}; other charsets are decoded by
+   * a {@link BufferedReader} and cannot use {@link ScanMode#MAPPED}.
+   *
+   * @param charset the charset.
+   */
+  public void setCharset(Charset charset) {
+    this.charset = Objects.requireNonNull(charset, "charset");
+    this.binaryDetector = new BinaryDetector(charset);
+  }
+
+  /**
+   * Get what happens to binary files.
+   *
+   * @return the binary mode.
+   */
+  public BinaryMode getBinaryMode() {
+    return this.binaryMode;
+  }
+
+  /**
+   * Set what happens to binary files; they are skipped by default.
+   *
+   * @param binaryMode the binary mode.
+   */
+  public void setBinaryMode(BinaryMode binaryMode) {
+    this.binaryMode = binaryMode;
+  }
+
+  /**
+   * Get the file the JSON run report is written to at the end of {@link #process()}.
+   *
+   * @return the report file path, or null to only log the report.
+   */
+  public String getReportFile() {
+    return this.reportFile;
+  }
+
+  /**
+   * Set the file the JSON run report is written to at the end of {@link #process()}. The report
+   * is always logged; see {@link GrepMetrics#toJson()} for its fields.
+   *
+   * @param reportFile the report file path, or null to only log the report.
+   */
+  public void setReportFile(String reportFile) {
+    this.reportFile = reportFile;
+  }
+
+  @Override
+  public ResultMode getResultMode() {
+    return this.resultMode;
+  }
+
+  @Override
+  public void setResultMode(ResultMode resultMode) {
+    this.resultMode = resultMode;
+  }
+
+  @Override
+  public long getMaxCount() {
+    return this.maxCount;
+  }
+
+  @Override
+  public void setMaxCount(long maxCount) {
+    if (maxCount < 1) {
+      throw new IllegalArgumentException("maxCount must be positive: " + maxCount);
+    }
+    this.maxCount = maxCount;
+  }
+
+  @Override
+  public long getMaxTotal() {
+    return this.maxTotal;
+  }
+
+  @Override
+  public void setMaxTotal(long maxTotal) {
+    if (maxTotal < 1) {
+      throw new IllegalArgumentException("maxTotal must be positive: " + maxTotal);
+    }
+    this.maxTotal = maxTotal;
+  }
+
+  /**
+   * Get the number of lines written before each matched line.
+   *
+   * @return the before-context size; 0 by default.
+   */
+  public int getBeforeContext() {
+    return this.beforeContext;
+  }
+
+  /**
+   * Set the number of lines written before each matched line, like {@code grep -B}. See
+   * {@link #setContext(int)} for how context is written.
+   *
+   * @param beforeContext the before-context size, must not be negative.
+   */
+  public void setBeforeContext(int beforeContext) {
+    if (beforeContext < 0) {
+      throw new IllegalArgumentException("beforeContext must not be negative: " + beforeContext);
+    }
+    this.beforeContext = beforeContext;
+  }
+
+  /**
+   * Get the number of lines written after each matched line.
+   *
+   * @return the after-context size; 0 by default.
+   */
+  public int getAfterContext() {
+    return this.afterContext;
+  }
+
+  /**
+   * Set the number of lines written after each matched line, like {@code grep -A}. See
+   * {@link #setContext(int)} for how context is written.
+   *
+   * @param afterContext the after-context size, must not be negative.
+   */
+  public void setAfterContext(int afterContext) {
+    if (afterContext < 0) {
+      throw new IllegalArgumentException("afterContext must not be negative: " + afterContext);
+    }
+    this.afterContext = afterContext;
+  }
+
+  /**
+   * Set the number of lines written before and after each matched line, like {@code grep -C}.
+   * Context only applies to {@link ResultMode#LINES}. Overlapping context is written once, and
+   * groups of lines that are not adjacent are separated by a {@link ContextWindow#SEPARATOR} line.
+   * The lines are selected by a {@link ContextWindow}, which keeps no more than the before-context
+   * in memory; in {@link ScanMode#MAPPED} mode, files are then read line by line. Context lines and
+   * separators count towards the run maximum, and the after-context of a file's last counted
+   * match is still written.
+   *
+   * @param context the context size, must not be negative.
+   */
+  public void setContext(int context) {
+    this.setBeforeContext(context);
+    this.setAfterContext(context);
+  }
+
+  /**
+   * Check whether {@link #process()} searches files in parallel.
+   *
+   * @return true if files are searched by a parallel stream.
+   */
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
+  /**
+   * Search files in parallel in {@link #process()}. The tree is walked by a parallel stream over
+   * a {@link DirectorySpliterator}, which splits by subdirectory and by batches of files, so
+   * listing and searching both use every core of the common pool. Each file's results are
+   * collected and written in listFiles order, so the output is the same as a sequential run.
+   * Once the run maximum is written, files not yet started are skipped. Context lines are
+   * selected across files, so with context the search stays sequential.
+   *
+   * @param parallel true to search files in parallel.
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Get the metrics of the current or last run. Outside of runs, including in watch mode, the
+   * counters still collect the work of direct calls such as {@link #listFiles(String)}.
+   *
+   * @return the run metrics.
+   */
+  public GrepMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  /**
+   * Creates the byte-level scanner used in {@link ScanMode#MAPPED} mode.
+   *
+   * @return the scanner, or null if files should be read line by line.
+   */
+  protected MappedFileScanner newMappedScanner() {
+    if (this.getScanMode() != ScanMode.MAPPED) {
+      return null;
+    }
+    Charset charset = this.getCharset();
+    if (!MappedFileScanner.supports(charset)) {
+      logger.warn("Charset " + charset + " cannot be byte-scanned, reading lines instead");
+      return null;
+    }
+    return new MappedFileScanner(this.getMetrics().meter(this.getLineMatcher()), charset);
+  }
+
   /**
    * Processes the files in the specified root directory and its subdirectories, searching for lines that match the pattern.
-   * Matching lines are written to the output file.
+   * Matching lines are handed to an {@link AsyncLineWriter}, which writes them in batches on its own thread.
+   * The result mode and the maximums are applied lazily, so files after the run maximum are never opened.
    *
    * @throws IOException if an I/O error occurs while reading or writing files.
    */
@@ -111,40 +493,537 @@ public class StreamJavaGrepImp implements StreamJavaGrep {
     // Logging the rootPath before calling listFiles()
     logger.info("Root Path: " + this.getRootPath());
 
-    try (PrintWriter writer = new PrintWriter(new FileWriter(this.getOutFile()))) {
-      listFiles(this.getRootPath())
-          .flatMap(this::readLines)
-          .filter(this::containsPattern)
-          .forEach(line -> {
-            writer.println(line);
-            writer.flush();
-          });
+    GrepMetrics metrics = new GrepMetrics(this.getClass().getSimpleName(), this.getRegex(),
+        this.getRootPath());
+    this.metrics = metrics;
+    MappedFileScanner scanner = this.newMappedScanner();
+    long maxTotal = this.getMaxTotal();
+    ContextWindow context = this.getBeforeContext() > 0 || this.getAfterContext() > 0
+        ? new ContextWindow(this::containsPattern, this.getBeforeContext(),
+            this.getAfterContext(), this.getMaxCount())
+        : null;
+    if (this.isParallel() && context != null) {
+      logger.warn("Context lines are selected in file order, searching sequentially");
+    }
+    try (AsyncLineWriter writer = new AsyncLineWriter(new FileWriter(this.getOutFile()))) {
+      if (this.isParallel() && context == null) {
+        this.writeParallel(scanner, writer);
+      } else if (scanner != null) {
+        long[] written = new long[1];
+        listFiles(this.getRootPath())
+            .takeWhile(file -> written[0] < maxTotal)
+            .forEach(file -> {
+              if (this.getResultMode() == ResultMode.LINES && context == null
+                  && !this.isBinary(file)) {
+                this.scanMatches(scanner, file, writer, written);
+              } else {
+                try (Stream<String> results = this.results(scanner, context, file)) {
+                  results.limit(maxTotal - written[0])
+                      .forEach(line -> {
+                        this.writeLine(writer, line);
+                        written[0]++;
+                      });
+                }
+              }
+            });
+      } else {
+        listFiles(this.getRootPath())
+            .flatMap(file -> this.results(null, context, file))
+            .limit(maxTotal)
+            .forEach(line -> this.writeLine(writer, line));
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
     }
 
+    this.logPrefilterStats();
+    metrics.finish();
+    // Logging the run report
+    logger.info("Run report: " + metrics.toJson());
+    if (this.getReportFile() != null) {
+      metrics.writeJson(Paths.get(this.getReportFile()));
+    }
     // Logging the completion of the process
     logger.info("StreamJavaGrepImp process completed");
   }
 
   /**
-   * Recursively lists all files in the specified root directory and its subdirectories.
+   * Searches the files under the root path with a parallel stream and writes their results in
+   * listFiles order. Splits may each search a copy of a file reached through several links, so
+   * the results of a file are only written for the first of its paths in that order. The walk
+   * is interleaved with the search, so it only adds its counters to the run metrics.
+   *
+   * @param scanner the byte-level scanner, or null to read lines.
+   * @param writer the output writer.
+   */
+  private void writeParallel(MappedFileScanner scanner, AsyncLineWriter writer) {
+    FileWalker walker = this.newFileWalker(this.getRootPath());
+    long maxTotal = this.getMaxTotal();
+    long[] written = new long[1];
+    // Set once the run maximum is written; every file not yet started comes later in order
+    AtomicBoolean full = new AtomicBoolean();
+    // Keys of the files written so far; a later copy of a linked file is never written
+    Set<Object> listed = new HashSet<>();
+    DirectorySpliterator.stream(walker, true)
+        .map(path -> new FileResults(FileWalker.fileEntry(path), full.get()
+            ? Collections.<String>emptyList()
+            : this.fileResults(scanner, path.toFile(), maxTotal)))
+        .forEachOrdered(results -> {
+          if (!walker.isFirst(results.file, listed)) {
+            return;
+          }
+          for (String line : results.lines) {
+            if (written[0] >= maxTotal) {
+              break;
+            }
+            this.writeLine(writer, line);
+            written[0]++;
+          }
+          if (written[0] >= maxTotal) {
+            full.set(true);
+          }
+        });
+    this.getMetrics().recordWalk(walker);
+    walker.logStats();
+  }
+
+  /**
+   * Searches one file and collects its results, honouring the binary mode, the result mode and
+   * the per-file maximum.
+   *
+   * @param scanner the byte-level scanner, or null to read lines.
+   * @param inputFile the file to search.
+   * @param maxTotal the run maximum, which no file's results need to exceed.
+   * @return the result lines in file order.
+   */
+  private List<String> fileResults(MappedFileScanner scanner, File inputFile, long maxTotal) {
+    if (scanner == null || this.getResultMode() != ResultMode.LINES
+        || GrepIO.isCompressed(inputFile) || this.isBinary(inputFile)) {
+      try (Stream<String> results = this.results(scanner, null, inputFile)) {
+        return results.limit(maxTotal).collect(Collectors.toList());
+      }
+    }
+    List<String> lines = new ArrayList<>();
+    long limit = Math.min(this.getMaxCount(), maxTotal);
+    GrepMetrics metrics = this.getMetrics();
+    GrepFileEvent event = metrics.startFile(inputFile);
+    try {
+      scanner.scanMatches(inputFile, line -> {
+        lines.add(line);
+        return lines.size() < limit;
+      });
+    } catch (IOException e) {
+      logger.error("Error scanning file: " + inputFile.getAbsolutePath(), e);
+    } finally {
+      metrics.finish(event);
+    }
+    return lines;
+  }
+
+  /**
+   * Watches the root directory tree and streams matches to the output file until
+   * {@link #stopWatching()} is called, the thread is interrupted or the root is deleted.
+   * Existing files are searched first; after that only bytes appended to files and newly created
+   * files (including files in new subdirectories) are read, using per-file offsets kept by a
+   * {@link FileTailer}. Truncated or replaced files are read again from the start. Compressed
+   * files are archives rather than growing logs and are skipped, as is the output file if it lies
+   * inside the root. Binary files are not tailed unless the binary mode is {@link BinaryMode#TEXT}.
+   * Include and exclude patterns apply to watched directories and files alike.
+   *
+   * @throws IOException if the tree cannot be watched or the output cannot be written.
+   */
+  public void watch() throws IOException {
+    // Logging the rootPath before registering it
+    logger.info("Watching root path: " + this.getRootPath());
+
+    this.getLineMatcher();
+    Path root = Paths.get(this.getRootPath()).toAbsolutePath();
+    Path output = Paths.get(this.getOutFile()).toAbsolutePath();
+    FileWalker walker = this.newFileWalker(root.toString());
+    FileTailer tailer = new FileTailer(this.getCharset());
+    Map<WatchKey, Path> keys = new HashMap<>();
+
+    try (WatchService service = FileSystems.getDefault().newWatchService();
+        AsyncLineWriter writer = new AsyncLineWriter(new FileWriter(this.getOutFile()))) {
+      this.watchService = service;
+      // Register before the first scan so nothing written meanwhile is missed
+      this.registerTree(root, walker, service, keys);
+      this.tailTree(root, walker, output, tailer, writer);
+
+      while (!keys.isEmpty()) {
+        WatchKey key;
+        try {
+          key = service.take();
+        } catch (ClosedWatchServiceException e) {
+          break;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+
+        Path directory = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+            // Events were lost, catch up on the whole tree, which covers this key's other events
+            logger.warn("Watch events overflowed, rescanning " + root);
+            this.registerTree(root, walker, service, keys);
+            this.tailTree(root, walker, output, tailer, writer);
+            break;
+          }
+          Path child = directory.resolve((Path) event.context());
+          if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            tailer.forget(child);
+          } else if (Files.isDirectory(child)) {
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+              this.registerTree(child, walker, service, keys);
+              this.tailTree(child, walker, output, tailer, writer);
+            }
+          } else if (walker.acceptFile(child)) {
+            this.tailFile(child, output, tailer, writer);
+          }
+        }
+        if (!key.reset()) {
+          keys.remove(key);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // stopWatching() closed the service while events were being handled
+    } finally {
+      this.watchService = null;
+    }
+
+    this.logPrefilterStats();
+    // Logging the completion of the watch
+    logger.info("StreamJavaGrepImp watch stopped");
+  }
+
+  /**
+   * Stops a running {@link #watch()}; the watch writes its pending matches and returns.
+   *
+   * @throws IOException if the watch service cannot be closed.
+   */
+  public void stopWatching() throws IOException {
+    WatchService service = this.watchService;
+    if (service != null) {
+      service.close();
+    }
+  }
+
+  /**
+   * Registers the directories the walker enters under a directory with the watch service, so the
+   * watched tree is the tailed one: excluded directories are left out, and directories behind
+   * symbolic links are watched when links are followed. A directory reached through several
+   * links keeps the path it was registered under first.
+   *
+   * @param directory the directory tree to register.
+   * @param walker the walker whose filters and link handling decide which directories are watched.
+   * @param service the watch service.
+   * @param keys the registered keys and their directories.
+   * @throws IOException if the tree cannot be walked.
+   */
+  private void registerTree(Path directory, FileWalker walker, WatchService service,
+      Map<WatchKey, Path> keys) throws IOException {
+    for (Path dir : walker.walkDirectories(directory)) {
+      try {
+        keys.putIfAbsent(dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), dir);
+      } catch (NoSuchFileException e) {
+        // Deleted since it was listed; its parent's delete event follows
+      }
+    }
+  }
+
+  /**
+   * Writes the new matches of every accepted file in a directory tree, in listFiles order.
+   *
+   * @param directory the directory tree to read.
+   * @param walker the walker whose filters decide which files are read.
+   * @param output the output file, which is skipped.
+   * @param tailer the per-file offsets.
+   * @param writer the output writer.
+   * @throws IOException if the tree cannot be walked or the output cannot be written.
+   */
+  private void tailTree(Path directory, FileWalker walker, Path output, FileTailer tailer,
+      AsyncLineWriter writer) throws IOException {
+    for (File file : walker.walk(directory)) {
+      this.tailFile(file.toPath(), output, tailer, writer);
+    }
+  }
+
+  /**
+   * Writes the matches among the lines appended to a file since it was last read. Files that
+   * disappear meanwhile are forgotten; other read errors are logged and the file is skipped.
+   *
+   * @param file the file to read.
+   * @param output the output file, which is skipped.
+   * @param tailer the per-file offsets.
+   * @param writer the output writer.
+   * @throws IOException if the output cannot be written.
+   */
+  private void tailFile(Path file, Path output, FileTailer tailer, AsyncLineWriter writer)
+      throws IOException {
+    if (file.toAbsolutePath().equals(output) || GrepIO.isCompressed(file.toFile())
+        || this.isBinary(file.toFile())) {
+      return;
+    }
+    try {
+      tailer.readAppended(file, line -> {
+        if (this.containsPattern(line)) {
+          this.writeLine(writer, line);
+        }
+        return true;
+      });
+    } catch (UncheckedIOException e) {
+      // Output failures end the watch, unlike read errors
+      throw e.getCause();
+    } catch (NoSuchFileException e) {
+      tailer.forget(file);
+    } catch (IOException e) {
+      logger.error("Error reading file: " + file, e);
+    }
+  }
+
+  /**
+   * Produces the results of the specified file, honouring the binary mode, the result mode and the
+   * per-file maximum. Matched lines are read lazily; counts and paths are computed when the stream
+   * is created, reading only up to the match that decides them.
+   *
+   * @param scanner the byte-level scanner used to count matches, or null to read lines.
+   * @param context the window that selects matched lines with their context, or null.
+   * @param inputFile the file to search.
+   * @return a stream of the result lines.
+   */
+  private Stream<String> results(MappedFileScanner scanner, ContextWindow context,
+      File inputFile) {
+    ResultMode resultMode = this.getResultMode();
+    if (resultMode == ResultMode.LINES) {
+      return context == null
+          ? this.matchedLines(inputFile).limit(this.getMaxCount())
+          : this.contextLines(context, inputFile);
+    }
+    if (this.getBinaryMode() == BinaryMode.SKIP && this.isBinary(inputFile)) {
+      // Logging the skipped binary file
+      logger.debug("Skipping binary file: " + inputFile);
+      return Stream.empty();
+    }
+
+    long count = this.countMatches(scanner, inputFile,
+        resultMode == ResultMode.COUNT ? this.getMaxCount() : 1);
+    switch (resultMode) {
+      case COUNT:
+        return Stream.of(inputFile.getPath() + ":" + count);
+      case FILES_WITH_MATCHES:
+        return count > 0 ? Stream.of(inputFile.getPath()) : Stream.empty();
+      default:
+        return count == 0 ? Stream.of(inputFile.getPath()) : Stream.empty();
+    }
+  }
+
+  /**
+   * Counts the matched lines of the specified file as text, stopping at the limit. Errors are
+   * logged and count as no match.
+   *
+   * @param scanner the byte-level scanner, or null to read lines.
+   * @param inputFile the file to search.
+   * @param limit the count at which reading stops.
+   * @return the number of matched lines, at most the limit.
+   */
+  private long countMatches(MappedFileScanner scanner, File inputFile, long limit) {
+    GrepMetrics metrics = this.getMetrics();
+    GrepFileEvent event = metrics.startFile(inputFile);
+    try {
+      if (scanner == null || GrepIO.isCompressed(inputFile)) {
+        try (Stream<String> lines = this.readLines(inputFile)) {
+          return lines.filter(this::containsPattern).limit(limit).count();
+        }
+      }
+      long[] count = new long[1];
+      scanner.scanMatches(inputFile, line -> ++count[0] < limit);
+      return count[0];
+    } catch (IOException e) {
+      logger.error("Error scanning file: " + inputFile.getAbsolutePath(), e);
+      return 0;
+    } finally {
+      metrics.finish(event);
+    }
+  }
+
+  /**
+   * Reads the lines of the specified file that match the pattern, honouring the binary mode.
+   *
+   * @param inputFile the file to read.
+   * @return a stream of the matched lines, or of the binary report.
+   */
+  private Stream<String> matchedLines(File inputFile) {
+    if (this.isBinary(inputFile)) {
+      return this.binaryReport(inputFile);
+    }
+    GrepMetrics metrics = this.getMetrics();
+    GrepFileEvent event = metrics.startFile(inputFile);
+    return this.readLines(inputFile)
+        .filter(this::containsPattern)
+        .onClose(() -> metrics.finish(event));
+  }
+
+  /**
+   * Reads the lines of the specified file that match the pattern together with their context,
+   * honouring the binary mode and the per-file maximum.
+   *
+   * @param context the window that selects the lines.
+   * @param inputFile the file to read.
+   * @return a stream of the selected lines and separators, or of the binary report.
+   */
+  private Stream<String> contextLines(ContextWindow context, File inputFile) {
+    if (this.isBinary(inputFile)) {
+      return this.binaryReport(inputFile);
+    }
+    GrepMetrics metrics = this.getMetrics();
+    GrepFileEvent event = metrics.startFile(inputFile);
+    return context.select(this.readLines(inputFile))
+        .onClose(() -> metrics.finish(event));
+  }
+
+  /**
+   * Checks if a file is binary and not to be searched as text. Files that cannot be sampled are
+   * treated as text, so the read error is reported by {@link #readLines(File)}.
+   *
+   * @param inputFile the file to check.
+   * @return true if the file is binary and the binary mode is not {@link BinaryMode#TEXT}.
+   */
+  private boolean isBinary(File inputFile) {
+    if (this.getBinaryMode() == BinaryMode.TEXT) {
+      return false;
+    }
+    try {
+      return this.binaryDetector.isBinary(inputFile);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Produces the output for a binary file: nothing when skipping binaries, and a single
+   * {@code Binary file <path> matches} line when reporting them and the file has a match.
+   *
+   * @param inputFile the binary file.
+   * @return a stream of at most one line.
+   */
+  private Stream<String> binaryReport(File inputFile) {
+    if (this.getBinaryMode() == BinaryMode.SKIP) {
+      // Logging the skipped binary file
+      logger.debug("Skipping binary file: " + inputFile);
+      return Stream.empty();
+    }
+    GrepMetrics metrics = this.getMetrics();
+    GrepFileEvent event = metrics.startFile(inputFile);
+    try (Stream<String> lines = this.readLines(inputFile)) {
+      return lines.anyMatch(this::containsPattern)
+          ? Stream.of("Binary file " + inputFile.getPath() + " matches")
+          : Stream.empty();
+    } finally {
+      metrics.finish(event);
+    }
+  }
+
+  /**
+   * Hands a matched line to the asynchronous writer from inside a stream pipeline, recording the
+   * write in the run metrics.
+   *
+   * @param writer the output writer.
+   * @param line the matched line.
+   * @throws UncheckedIOException if the writer has failed.
+   */
+  private void writeLine(AsyncLineWriter writer, String line) {
+    long start = System.nanoTime();
+    try {
+      writer.write(line);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.getMetrics().recordWrite(1, start);
+  }
+
+  /**
+   * Writes the lines of the specified file that match the pattern, using the byte-level scanner,
+   * and stops at the per-file or the run maximum. Errors are logged and the file is skipped, like
+   * {@link #readLines(File)} does. Compressed files are read through {@link #readLines(File)}.
+   *
+   * @param scanner the byte-level scanner.
+   * @param inputFile the file to scan.
+   * @param writer the output writer.
+   * @param written the number of lines written by the run so far, updated in place.
+   */
+  private void scanMatches(MappedFileScanner scanner, File inputFile, AsyncLineWriter writer,
+      long[] written) {
+    GrepMetrics metrics = this.getMetrics();
+    GrepFileEvent event = metrics.startFile(inputFile);
+    long maxCount = this.getMaxCount();
+    long maxTotal = this.getMaxTotal();
+    if (GrepIO.isCompressed(inputFile)) {
+      // Compressed files have no mappable text; read their decompressed lines instead
+      try (Stream<String> lines = this.readLines(inputFile)) {
+        lines.filter(this::containsPattern)
+            .limit(Math.min(maxCount, maxTotal - written[0]))
+            .forEach(line -> {
+              this.writeLine(writer, line);
+              written[0]++;
+            });
+      } finally {
+        metrics.finish(event);
+      }
+      return;
+    }
+    long[] count = new long[1];
+    try {
+      scanner.scanMatches(inputFile, line -> {
+        long start = System.nanoTime();
+        writer.write(line);
+        metrics.recordWrite(1, start);
+        written[0]++;
+        return ++count[0] < maxCount && written[0] < maxTotal;
+      });
+    } catch (IOException e) {
+      logger.error("Error scanning file: " + inputFile.getAbsolutePath(), e);
+    } finally {
+      metrics.finish(event);
+    }
+  }
+
+  /**
+   * Logs how many lines the literal prefilter rejected before the regex engine ran.
+   */
+  protected void logPrefilterStats() {
+    if (this.lineMatcher instanceof PrefilteredLineMatcher) {
+      PrefilteredLineMatcher prefilter = (PrefilteredLineMatcher) this.lineMatcher;
+      logger.info("Prefilter rejected " + prefilter.getLinesRejected() + " of "
+          + prefilter.getLinesTested() + " lines using literals " + prefilter.getLiterals());
+    }
+  }
+
+  /**
+   * Lists the files under the root directory with a {@link FileWalker}, in name order within each
+   * directory, skipping excluded subtrees and files that the include and exclude patterns reject.
    *
    * @param rootDir the root directory to search for files.
-   * @return a stream of files found in the root directory and its subdirectories.
+   * @return a stream of the files found; empty if the root is not a readable directory.
    */
   @Override
   public Stream<File> listFiles(String rootDir) {
-    File directory = new File(rootDir);
-
     // Logging the directory being processed
-    logger.debug("Processing directory: " + directory.getAbsolutePath());
+    logger.debug("Processing directory: " + new File(rootDir).getAbsolutePath());
 
-    if (directory.isDirectory()) {
-      return Stream.of(Objects.requireNonNull(directory.listFiles()))
-          .sorted()
-          .flatMap(file -> file.isFile() ? Stream.of(file) : listFiles(file.getAbsolutePath()));
+    FileWalker walker = this.newFileWalker(rootDir);
+    GrepMetrics metrics = this.getMetrics();
+    GrepPhaseEvent event = metrics.startPhase(GrepPhaseEvent.WALK);
+    try {
+      List<File> files = walker.walk();
+      metrics.finishWalk(event, walker, files.size());
+      walker.logStats();
+      return files.stream();
+    } catch (IOException e) {
+      logger.error("Error walking directory: " + rootDir, e);
+      return Stream.empty();
     }
-
-    return Stream.empty();
   }
 
   /**
@@ -162,7 +1041,8 @@ public class StreamJavaGrepImp implements StreamJavaGrep {
     }
 
     try {
-      BufferedReader reader = new BufferedReader(new FileReader(inputFile));
+      LineReader reader = GrepIO.newLineReader(inputFile, this.getCharset(),
+          ByteLineReader.DEFAULT_BUFFER_SIZE);
       return reader.lines().onClose(() -> {
         try {
           reader.close();
@@ -187,9 +1067,7 @@ public class StreamJavaGrepImp implements StreamJavaGrep {
     if (line == null) {
       return false;
     }
-    Pattern pattern = Pattern.compile(this.getRegex(), Pattern.CASE_INSENSITIVE);
-    Matcher matcher = pattern.matcher(line);
-    return matcher.find();
+    return this.getMetrics().matches(this.getLineMatcher(), line);
   }
 
   /**
@@ -200,8 +1078,26 @@ public class StreamJavaGrepImp implements StreamJavaGrep {
    */
   @Override
   public void writeToFile(Stream<String> lines) throws IOException {
+    GrepMetrics metrics = this.getMetrics();
+    GrepPhaseEvent event = metrics.startPhase(GrepPhaseEvent.WRITE);
+    long[] count = new long[1];
     try (PrintWriter writer = new PrintWriter(new FileWriter(this.getOutFile()))) {
-      lines.forEach(writer::println);
+      lines.forEach(line -> {
+        writer.println(line);
+        count[0]++;
+      });
+    }
+    metrics.finishWrite(event, count[0]);
+  }
+
+  // The results of one file of a parallel search, with the file's key
+  private static final class FileResults {
+    final FileWalker.Entry file;
+    final List<String> lines;
+
+    FileResults(FileWalker.Entry file, List<String> lines) {
+      this.file = file;
+      this.lines = lines;
     }
   }
 }
@@ -0,0 +1,760 @@
+package ca.jrvs.apps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * ThompsonNfa is a nondeterministic automaton compiled from the subset of {@code java.util.regex}
+ * syntax that can be matched without backtracking, for the {@link DfaLineMatcher}. Matching follows
+ * {@code Pattern.compile(regex, Pattern.CASE_INSENSITIVE)}: letters are case folded in ASCII only,
+ * {@code .} matches any code point but a line terminator, and {@code $} also matches before a
+ * final line terminator.
+ *
+ * <p>The subset is literals (including {@code \Q...\E} quoting and {@code \t}, {@code \xhh} and
+ * other single-character escapes), {@code .}, character classes with ranges, negation and {@code \d},
+ * {@code \w}, {@code \s} and their complements, groups and non-capturing groups, alternation,
+ * greedy and lazy quantifiers, and the {@code ^} and {@code $} anchors. Backreferences,
+ * lookaround, possessive quantifiers, inline flags, word boundaries, nested or intersected classes,
+ * Unicode properties, anchors inside a repetition other than {@code ?}, and surrogate or
+ * supplementary characters in the pattern are not supported; {@link #compile(String)} returns null
+ * for them.
+ *
+ * <p>Code points are partitioned into classes that no part of the pattern tells apart, so the
+ * automaton's alphabet stays small. The automaton is immutable.
+ */
+public final class ThompsonNfa {
+
+  /**
+   * The maximum number of states, after counted repetitions are expanded.
+   */
+  public static final int MAX_STATES = 10_000;
+
+  static final int CHAR = 0;
+  static final int SPLIT = 1;
+  static final int BEGIN = 2;
+  static final int END = 3;
+  static final int MATCH = 4;
+
+  private static final int MAX_REPEAT = 1000;
+  private static final int INFINITE = -1;
+
+  private static final int[] DIGIT = {'0', '9'};
+  private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+  private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+  private static final int[] LINE_TERMINATORS = {'\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028,
+      0x2029};
+
+  private final int[] types;
+  private final int[] outs;
+  private final int[] alternatives;
+  private final boolean[][] accepts;
+  private final int start;
+  private final int match;
+  private final boolean hasEnd;
+  private final int[] boundaries;
+  private final int[] latin1Classes;
+
+  private ThompsonNfa(Builder builder, int start) {
+    int count = builder.types.size();
+    this.types = new int[count];
+    this.outs = new int[count];
+    this.alternatives = new int[count];
+    boolean hasEnd = false;
+    TreeSet<Integer> cuts = new TreeSet<>();
+    cuts.add(0);
+    for (int s = 0; s < count; s++) {
+      this.types[s] = builder.types.get(s);
+      this.outs[s] = builder.outs.get(s);
+      this.alternatives[s] = builder.alternatives.get(s);
+      hasEnd |= this.types[s] == END;
+      int[] set = builder.sets.get(s);
+      if (set != null) {
+        for (int i = 0; i < set.length; i += 2) {
+          cuts.add(set[i]);
+          if (set[i + 1] < Character.MAX_CODE_POINT) {
+            cuts.add(set[i + 1] + 1);
+          }
+        }
+      }
+    }
+    this.start = start;
+    this.match = builder.match;
+    this.hasEnd = hasEnd;
+
+    // Class c holds the code points from boundaries[c] up to the next boundary
+    this.boundaries = cuts.stream().mapToInt(Integer::intValue).toArray();
+    this.accepts = new boolean[count][];
+    for (int s = 0; s < count; s++) {
+      int[] set = builder.sets.get(s);
+      if (set != null) {
+        this.accepts[s] = new boolean[this.boundaries.length];
+        for (int c = 0; c < this.boundaries.length; c++) {
+          this.accepts[s][c] = contains(set, this.boundaries[c]);
+        }
+      }
+    }
+    this.latin1Classes = new int[256];
+    for (int cp = 0; cp < 256; cp++) {
+      this.latin1Classes[cp] = this.lookupClass(cp);
+    }
+  }
+
+  /**
+   * Compiles the specified regex if it is in the supported subset.
+   *
+   * @param regex the regex pattern, assumed to be valid for {@code java.util.regex}.
+   * @return the automaton, or null if the regex uses an unsupported construct or is too large.
+   */
+  public static ThompsonNfa compile(String regex) {
+    Node root;
+    try {
+      Parser parser = new Parser(removeQuoting(regex));
+      root = parser.parseAlternation();
+      if (parser.pos != parser.regex.length()) {
+        return null;
+      }
+    } catch (UnsupportedSyntaxException e) {
+      return null;
+    }
+    Builder builder = new Builder();
+    int start;
+    try {
+      builder.match = builder.add(MATCH, -1, -1, null);
+      start = builder.build(root, builder.match);
+    } catch (IllegalStateException e) {
+      return null;
+    }
+    return new ThompsonNfa(builder, start);
+  }
+
+  /**
+   * Get the number of states.
+   *
+   * @return the state count.
+   */
+  public int getStateCount() {
+    return this.types.length;
+  }
+
+  /**
+   * Get the number of code point classes, the size of the automaton's alphabet.
+   *
+   * @return the class count.
+   */
+  public int getClassCount() {
+    return this.boundaries.length;
+  }
+
+  /**
+   * Check whether the pattern uses the {@code $} anchor.
+   *
+   * @return true if some state only passes at the end of a line.
+   */
+  public boolean hasEnd() {
+    return this.hasEnd;
+  }
+
+  int getStart() {
+    return this.start;
+  }
+
+  int getMatch() {
+    return this.match;
+  }
+
+  int getType(int state) {
+    return this.types[state];
+  }
+
+  int getOut(int state) {
+    return this.outs[state];
+  }
+
+  boolean accepts(int state, int codePointClass) {
+    return this.accepts[state][codePointClass];
+  }
+
+  int classOf(int codePoint) {
+    return codePoint < 256 ? this.latin1Classes[codePoint] : this.lookupClass(codePoint);
+  }
+
+  /**
+   * Adds a state and every state reachable from it without consuming input to a set. The anchors
+   * are passed only where the flags say they hold, and are kept in the set otherwise.
+   *
+   * @param state the state to add.
+   * @param atBegin true at the start of the line.
+   * @param atEnd true where {@code $} holds.
+   * @param set the set to add to.
+   * @param stack a work array of at least {@link #getStateCount()} entries.
+   */
+  void addClosure(int state, boolean atBegin, boolean atEnd, StateSet set, int[] stack) {
+    if (!set.add(state)) {
+      return;
+    }
+    int top = 0;
+    stack[top++] = state;
+    while (top > 0) {
+      int s = stack[--top];
+      int type = this.types[s];
+      if (type == SPLIT) {
+        if (set.add(this.outs[s])) {
+          stack[top++] = this.outs[s];
+        }
+        if (set.add(this.alternatives[s])) {
+          stack[top++] = this.alternatives[s];
+        }
+      } else if ((type == BEGIN && atBegin) || (type == END && atEnd)) {
+        if (set.add(this.outs[s])) {
+          stack[top++] = this.outs[s];
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks if {@code $} holds at a position of a line: at its end, before a final line terminator,
+   * or before a final {@code \r\n}.
+   *
+   * @param line the line.
+   * @param pos the position, at most the line length.
+   * @return true if {@code $} matches at the position.
+   */
+  static boolean endHolds(CharSequence line, int pos) {
+    int n = line.length();
+    if (pos == n) {
+      return true;
+    }
+    if (pos == n - 1) {
+      char c = line.charAt(pos);
+      if (c == '\n') {
+        return pos == 0 || line.charAt(pos - 1) != '\r';
+      }
+      return c == '\r' || c == 0x85 || c == 0x2028 || c == 0x2029;
+    }
+    return pos == n - 2 && line.charAt(pos) == '\r' && line.charAt(pos + 1) == '\n';
+  }
+
+  private int lookupClass(int codePoint) {
+    int i = Arrays.binarySearch(this.boundaries, codePoint);
+    return i >= 0 ? i : -i - 2;
+  }
+
+  // Replaces \Q...\E quoting with escaped chars, like java.util.regex does before parsing
+  private static String removeQuoting(String regex) {
+    StringBuilder out = new StringBuilder(regex.length());
+    int i = 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\' && i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+        int end = regex.indexOf("\\E", i + 2);
+        int stop = end < 0 ? regex.length() : end;
+        for (int k = i + 2; k < stop; k++) {
+          char q = regex.charAt(k);
+          if (!Character.isLetterOrDigit(q)) {
+            out.append('\\');
+          }
+          out.append(q);
+        }
+        i = end < 0 ? regex.length() : end + 2;
+      } else {
+        out.append(c);
+        if (c == '\\' && i + 1 < regex.length()) {
+          out.append(regex.charAt(i + 1));
+          i++;
+        }
+        i++;
+      }
+    }
+    return out.toString();
+  }
+
+  private static boolean contains(int[] set, int codePoint) {
+    for (int i = 0; i < set.length; i += 2) {
+      if (codePoint >= set[i] && codePoint <= set[i + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Sorts and merges ranges given as pairs of inclusive bounds
+  private static int[] normalize(List<int[]> ranges) {
+    ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+    List<int[]> merged = new ArrayList<>();
+    for (int[] range : ranges) {
+      int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+      if (last != null && range[0] <= last[1] + 1) {
+        last[1] = Math.max(last[1], range[1]);
+      } else {
+        merged.add(new int[] {range[0], range[1]});
+      }
+    }
+    int[] set = new int[merged.size() * 2];
+    for (int i = 0; i < merged.size(); i++) {
+      set[2 * i] = merged.get(i)[0];
+      set[2 * i + 1] = merged.get(i)[1];
+    }
+    return set;
+  }
+
+  private static int[] complement(int[] set) {
+    List<int[]> ranges = new ArrayList<>();
+    int next = 0;
+    for (int i = 0; i < set.length; i += 2) {
+      if (set[i] > next) {
+        ranges.add(new int[] {next, set[i] - 1});
+      }
+      next = set[i + 1] + 1;
+    }
+    if (next <= Character.MAX_CODE_POINT) {
+      ranges.add(new int[] {next, Character.MAX_CODE_POINT});
+    }
+    return normalize(ranges);
+  }
+
+  private static void addAll(List<int[]> ranges, int[] set) {
+    for (int i = 0; i < set.length; i += 2) {
+      ranges.add(new int[] {set[i], set[i + 1]});
+    }
+  }
+
+  // Adds a range and, like CASE_INSENSITIVE without UNICODE_CASE, the other case of ASCII letters
+  private static void addFolded(List<int[]> ranges, int low, int high) {
+    ranges.add(new int[] {low, high});
+    for (int c = 'A'; c <= 'Z'; c++) {
+      int lower = c + ('a' - 'A');
+      if ((c >= low && c <= high) || (lower >= low && lower <= high)) {
+        ranges.add(new int[] {c, c});
+        ranges.add(new int[] {lower, lower});
+      }
+    }
+  }
+
+  /**
+   * StateSet is a sparse set of states with constant-time add, membership test and clear.
+   */
+  static final class StateSet {
+
+    private final int[] dense;
+    private final int[] sparse;
+    private int size;
+
+    StateSet(int capacity) {
+      this.dense = new int[capacity];
+      this.sparse = new int[capacity];
+    }
+
+    boolean add(int state) {
+      if (this.contains(state)) {
+        return false;
+      }
+      this.sparse[state] = this.size;
+      this.dense[this.size++] = state;
+      return true;
+    }
+
+    boolean contains(int state) {
+      int i = this.sparse[state];
+      return i < this.size && this.dense[i] == state;
+    }
+
+    int size() {
+      return this.size;
+    }
+
+    int get(int i) {
+      return this.dense[i];
+    }
+
+    void clear() {
+      this.size = 0;
+    }
+  }
+
+  private static final class Node {
+    static final int SET = 0;
+    static final int CONCAT = 1;
+    static final int ALTERNATION = 2;
+    static final int REPEAT = 3;
+    static final int ANCHOR_BEGIN = 4;
+    static final int ANCHOR_END = 5;
+
+    final int kind;
+    int[] set;
+    List<Node> children;
+    int min;
+    int max;
+
+    Node(int kind) {
+      this.kind = kind;
+    }
+  }
+
+  private static final class Parser {
+    final String regex;
+    int pos;
+
+    Parser(String regex) {
+      this.regex = regex;
+    }
+
+    // Returns the char at an offset from the position, failing at the end of the regex
+    char peek(int offset) throws UnsupportedSyntaxException {
+      if (this.pos + offset >= this.regex.length()) {
+        throw new UnsupportedSyntaxException("Unexpected end");
+      }
+      return this.regex.charAt(this.pos + offset);
+    }
+
+    char peek() throws UnsupportedSyntaxException {
+      return this.peek(0);
+    }
+
+    char next() throws UnsupportedSyntaxException {
+      char c = this.peek();
+      this.pos++;
+      return c;
+    }
+
+    Node parseAlternation() throws UnsupportedSyntaxException {
+      Node alternation = new Node(Node.ALTERNATION);
+      alternation.children = new ArrayList<>();
+      alternation.children.add(this.parseConcat());
+      while (this.pos < this.regex.length() && this.regex.charAt(this.pos) == '|') {
+        this.pos++;
+        alternation.children.add(this.parseConcat());
+      }
+      return alternation.children.size() == 1 ? alternation.children.get(0) : alternation;
+    }
+
+    Node parseConcat() throws UnsupportedSyntaxException {
+      Node concat = new Node(Node.CONCAT);
+      concat.children = new ArrayList<>();
+      while (this.pos < this.regex.length()) {
+        char c = this.regex.charAt(this.pos);
+        if (c == '|' || c == ')') {
+          break;
+        }
+        concat.children.add(this.parseRepeat());
+      }
+      return concat;
+    }
+
+    Node parseRepeat() throws UnsupportedSyntaxException {
+      Node atom = this.parseAtom();
+      if (this.pos >= this.regex.length()) {
+        return atom;
+      }
+      char c = this.regex.charAt(this.pos);
+      int min;
+      int max;
+      if (c == '*' || c == '+' || c == '?') {
+        min = c == '+' ? 1 : 0;
+        max = c == '?' ? 1 : INFINITE;
+        this.pos++;
+      } else if (c == '{') {
+        int close = this.regex.indexOf('}', this.pos);
+        String body = close < 0 ? "" : this.regex.substring(this.pos + 1, close);
+        if (!body.matches("\\d{1,4}(,\\d{0,4})?")) {
+          throw new UnsupportedSyntaxException(body);
+        }
+        int comma = body.indexOf(',');
+        min = Integer.parseInt(comma < 0 ? body : body.substring(0, comma));
+        max = comma < 0 ? min
+            : comma == body.length() - 1 ? INFINITE : Integer.parseInt(body.substring(comma + 1));
+        if (min > MAX_REPEAT || max > MAX_REPEAT || (max != INFINITE && max < min)) {
+          throw new UnsupportedSyntaxException(body);
+        }
+        this.pos = close + 1;
+      } else {
+        return atom;
+      }
+      // java.util.regex ends a loop at its first empty iteration, even below the minimum count,
+      // which differs from an automaton only where the body may match empty at some positions
+      if (hasAnchor(atom) && !(min == 0 && max == 1)) {
+        throw new UnsupportedSyntaxException("Repeated anchor");
+      }
+      // Lazy quantifiers find the same lines; possessive ones do not
+      if (this.pos < this.regex.length() && this.regex.charAt(this.pos) == '?') {
+        this.pos++;
+      }
+      if (this.pos < this.regex.length() && "+*?{".indexOf(this.regex.charAt(this.pos)) >= 0) {
+        throw new UnsupportedSyntaxException("Possessive or stacked quantifier");
+      }
+      Node repeat = new Node(Node.REPEAT);
+      repeat.children = List.of(atom);
+      repeat.min = min;
+      repeat.max = max;
+      return repeat;
+    }
+
+    static boolean hasAnchor(Node node) {
+      if (node.kind == Node.ANCHOR_BEGIN || node.kind == Node.ANCHOR_END) {
+        return true;
+      }
+      if (node.children != null) {
+        for (Node child : node.children) {
+          if (hasAnchor(child)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    Node parseAtom() throws UnsupportedSyntaxException {
+      char c = this.next();
+      switch (c) {
+        case '(': {
+          if (this.regex.startsWith("?:", this.pos)) {
+            this.pos += 2;
+          } else if (this.pos < this.regex.length() && this.regex.charAt(this.pos) == '?') {
+            throw new UnsupportedSyntaxException("Special group");
+          }
+          Node group = this.parseAlternation();
+          if (this.pos >= this.regex.length() || this.next() != ')') {
+            throw new UnsupportedSyntaxException("Unclosed group");
+          }
+          return group;
+        }
+        case '[':
+          return set(this.parseClass());
+        case '.':
+          return set(complement(LINE_TERMINATORS));
+        case '^':
+          return new Node(Node.ANCHOR_BEGIN);
+        case '$':
+          return new Node(Node.ANCHOR_END);
+        case '\\': {
+          int[] predefined = this.predefinedClass();
+          if (predefined != null) {
+            return set(predefined);
+          }
+          return this.literal(this.escapedChar());
+        }
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+          throw new UnsupportedSyntaxException("Dangling quantifier");
+        default:
+          return this.literal(c);
+      }
+    }
+
+    int[] parseClass() throws UnsupportedSyntaxException {
+      boolean negated = this.peek() == '^';
+      if (negated) {
+        this.pos++;
+      }
+      List<int[]> ranges = new ArrayList<>();
+      boolean first = true;
+      while (true) {
+        char c = this.peek();
+        if (c == ']' && !first) {
+          this.pos++;
+          break;
+        }
+        first = false;
+        if (c == '[' || this.regex.startsWith("&&", this.pos)) {
+          throw new UnsupportedSyntaxException("Nested or intersected class");
+        }
+        this.pos++;
+        int low;
+        if (c == '\\') {
+          int[] predefined = this.predefinedClass();
+          if (predefined != null) {
+            addAll(ranges, predefined);
+            continue;
+          }
+          low = this.escapedChar();
+        } else {
+          low = checkedChar(c);
+        }
+        int high = low;
+        if (this.peek() == '-' && this.peek(1) != ']') {
+          this.pos++;
+          char h = this.next();
+          if (h == '[') {
+            throw new UnsupportedSyntaxException("Nested class");
+          }
+          high = h == '\\' ? this.escapedChar() : checkedChar(h);
+          if (high < low) {
+            throw new UnsupportedSyntaxException("Illegal range");
+          }
+        }
+        addFolded(ranges, low, high);
+      }
+      int[] set = normalize(ranges);
+      return negated ? complement(set) : set;
+    }
+
+    // Parses \d, \w, \s and their complements after the backslash, or returns null
+    int[] predefinedClass() throws UnsupportedSyntaxException {
+      char e = this.peek();
+      int[] set;
+      switch (Character.toLowerCase(e)) {
+        case 'd':
+          set = DIGIT;
+          break;
+        case 'w':
+          set = WORD;
+          break;
+        case 's':
+          set = SPACE;
+          break;
+        default:
+          return null;
+      }
+      this.pos++;
+      List<int[]> ranges = new ArrayList<>();
+      addAll(ranges, set);
+      int[] normalized = normalize(ranges);
+      return Character.isUpperCase(e) ? complement(normalized) : normalized;
+    }
+
+    // Parses a literal escape after the backslash
+    int escapedChar() throws UnsupportedSyntaxException {
+      char e = this.next();
+      switch (e) {
+        case 't':
+          return '\t';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 'f':
+          return '\f';
+        case 'a':
+          return '\u0007';
+        case 'e':
+          return '\u001B';
+        case 'x':
+          if (this.peek() == '{') {
+            int close = this.regex.indexOf('}', this.pos);
+            return checkedChar(this.hex(this.pos + 1, close, close + 1));
+          }
+          return checkedChar(this.hex(this.pos, this.pos + 2, this.pos + 2));
+        case 'u':
+          return checkedChar(this.hex(this.pos, this.pos + 4, this.pos + 4));
+        default:
+          if (Character.isLetterOrDigit(e)) {
+            throw new UnsupportedSyntaxException("Escape \\" + e);
+          }
+          return checkedChar(e);
+      }
+    }
+
+    int hex(int from, int to, int next) throws UnsupportedSyntaxException {
+      if (from < 0 || to <= from || to - from > 6 || to > this.regex.length()) {
+        throw new UnsupportedSyntaxException("Hex escape");
+      }
+      int value = 0;
+      for (int k = from; k < to; k++) {
+        int digit = Character.digit(this.regex.charAt(k), 16);
+        if (digit < 0) {
+          throw new UnsupportedSyntaxException("Hex escape");
+        }
+        value = value * 16 + digit;
+      }
+      this.pos = next;
+      return value;
+    }
+
+    Node literal(int c) throws UnsupportedSyntaxException {
+      List<int[]> ranges = new ArrayList<>();
+      addFolded(ranges, checkedChar(c), c);
+      return set(normalize(ranges));
+    }
+
+    static int checkedChar(int c) throws UnsupportedSyntaxException {
+      if (c > Character.MAX_VALUE || Character.isSurrogate((char) c)) {
+        throw new UnsupportedSyntaxException("Surrogate or supplementary character");
+      }
+      return c;
+    }
+
+    static Node set(int[] set) {
+      Node node = new Node(Node.SET);
+      node.set = set;
+      return node;
+    }
+  }
+
+  // Signals a regex the parser does not support or cannot read; the regex is left to others
+  private static final class UnsupportedSyntaxException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedSyntaxException(String message) {
+      super(message);
+    }
+  }
+
+  private static final class Builder {
+    final List<Integer> types = new ArrayList<>();
+    final List<Integer> outs = new ArrayList<>();
+    final List<Integer> alternatives = new ArrayList<>();
+    final List<int[]> sets = new ArrayList<>();
+    int match;
+
+    int add(int type, int out, int alternative, int[] set) {
+      if (this.types.size() >= MAX_STATES) {
+        throw new IllegalStateException("Too many states");
+      }
+      this.types.add(type);
+      this.outs.add(out);
+      this.alternatives.add(alternative);
+      this.sets.add(set);
+      return this.types.size() - 1;
+    }
+
+    // Builds the states for a node in front of next and returns the entry state
+    int build(Node node, int next) {
+      switch (node.kind) {
+        case Node.SET:
+          return this.add(CHAR, next, -1, node.set);
+        case Node.ANCHOR_BEGIN:
+          return this.add(BEGIN, next, -1, null);
+        case Node.ANCHOR_END:
+          return this.add(END, next, -1, null);
+        case Node.CONCAT: {
+          int entry = next;
+          for (int i = node.children.size() - 1; i >= 0; i--) {
+            entry = this.build(node.children.get(i), entry);
+          }
+          return entry;
+        }
+        case Node.ALTERNATION: {
+          int entry = this.build(node.children.get(node.children.size() - 1), next);
+          for (int i = node.children.size() - 2; i >= 0; i--) {
+            entry = this.add(SPLIT, this.build(node.children.get(i), next), entry, null);
+          }
+          return entry;
+        }
+        default:
+          return this.buildRepeat(node.children.get(0), node.min, node.max, next);
+      }
+    }
+
+    int buildRepeat(Node child, int min, int max, int next) {
+      int entry = next;
+      if (max == INFINITE) {
+        int loop = this.add(SPLIT, -1, next, null);
+        this.outs.set(loop, this.build(child, loop));
+        entry = loop;
+      } else {
+        for (int i = min; i < max; i++) {
+          entry = this.add(SPLIT, this.build(child, entry), next, null);
+        }
+      }
+      for (int i = 0; i < min; i++) {
+        entry = this.build(child, entry);
+      }
+      return entry;
+    }
+  }
+}
@@ -0,0 +1,235 @@
+package ca.jrvs.apps;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import org.apache.log4j.BasicConfigurator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ThreadPerFileJavaGrepImp is a JavaGrep implementation for high-latency storage such as network
+ * file systems. Every file returned by {@link #listFiles(String)} is opened, read and matched on
+ * its own thread, so slow opens and reads overlap instead of queueing behind a few CPU-sized
+ * workers. A window limits how many files are in flight, and an ordered collector consumes the
+ * per-file results in listFiles order and feeds them to {@link #writeToFile(List)} (or straight to
+ * the output file in streaming mode).
+ *
+ * <p>With {@link #setVirtualThreads(boolean) virtual threads} enabled (the default), each file gets
+ * a virtual thread when the runtime provides them (Java 21+); on older runtimes each file gets a
+ * new platform thread instead. With virtual threads disabled, files are processed on a fixed pool
+ * of platform threads sized to the concurrency limit, for comparison.
+ */
+public class ThreadPerFileJavaGrepImp extends JavaGrepImp {
+
+  final static Logger logger = LoggerFactory.getLogger(ThreadPerFileJavaGrepImp.class);
+
+  // Identity sentinel that marks the end of the submitted files
+  private static final Future<List<String>> END = CompletableFuture.completedFuture(null);
+
+  private boolean virtualThreads = true;
+  private int maxConcurrentFiles = 256;
+
+  /**
+   * Main method to execute the ThreadPerFileJavaGrepImp program.
+   * @param args command line arguments: regex, rootPath, outFile.
+   */
+  public static void main(String[] args) {
+    if (args.length != 3) {
+      throw new IllegalArgumentException("USAGE: ThreadPerFileJavaGrepImp regex rootPath outFile");
+    }
+
+    BasicConfigurator.configure();
+
+    ThreadPerFileJavaGrepImp threadPerFileJavaGrepImp = new ThreadPerFileJavaGrepImp();
+    threadPerFileJavaGrepImp.setRegex(args[0]);
+    threadPerFileJavaGrepImp.setRootPath(args[1]);
+    threadPerFileJavaGrepImp.setOutFile(args[2]);
+
+    try {
+      threadPerFileJavaGrepImp.process();
+    } catch (Exception e) {
+      logger.error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Check whether each file runs on its own virtual thread.
+   * @return true for virtual threads, false for the fixed platform-thread pool.
+   */
+  public boolean isVirtualThreads() {
+    return this.virtualThreads;
+  }
+
+  /**
+   * Choose between a virtual thread per file and a fixed pool of platform threads.
+   * @param virtualThreads true for virtual threads, false for the platform-thread pool.
+   */
+  public void setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  /**
+   * Get the maximum number of files that are read and matched at the same time.
+   * @return the concurrency limit.
+   */
+  public int getMaxConcurrentFiles() {
+    return this.maxConcurrentFiles;
+  }
+
+  /**
+   * Set the maximum number of files that are read and matched at the same time. This also bounds
+   * the number of per-file results waiting for the ordered collector.
+   * @param maxConcurrentFiles the concurrency limit, must be positive.
+   */
+  public void setMaxConcurrentFiles(int maxConcurrentFiles) {
+    if (maxConcurrentFiles < 1) {
+      throw new IllegalArgumentException(
+          "maxConcurrentFiles must be positive: " + maxConcurrentFiles);
+    }
+    this.maxConcurrentFiles = maxConcurrentFiles;
+  }
+
+  @Override
+  public void process() throws IOException {
+    // Logging the rootPath before calling listFiles()
+    logger.info("Root Path: " + this.getRootPath());
+
+    this.startMetrics();
+    List<File> files = this.searchFiles();
+    MappedFileScanner scanner = this.newMappedScanner();
+    Semaphore window = new Semaphore(this.getMaxConcurrentFiles());
+    BlockingQueue<Future<List<String>>> pending = new LinkedBlockingQueue<>();
+    ExecutorService executor = this.newExecutor();
+
+    // Submitting runs on its own thread so the collector can free window permits meanwhile
+    Thread submitter = new Thread(() -> {
+      try {
+        for (File file : files) {
+          window.acquire();
+          pending.add(executor.submit(() -> this.matchFile(file, scanner)));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (RejectedExecutionException e) {
+        // The collector shut the executor down once the run maximum was reached
+      } finally {
+        pending.add(END);
+      }
+    }, "grep-submitter");
+    submitter.setDaemon(true);
+    submitter.start();
+
+    long matchCount = 0;
+    long maxTotal = this.getMaxTotal();
+    List<String> matchedLines = new ArrayList<>();
+    BufferedWriter writer = this.isStreaming()
+        ? new BufferedWriter(new FileWriter(this.getOutFile()), this.getBufferSize())
+        : null;
+    try {
+      Future<List<String>> result;
+      while (matchCount < maxTotal && (result = pending.take()) != END) {
+        List<String> lines = awaitResult(result);
+        window.release();
+        if (lines.size() > maxTotal - matchCount) {
+          // The run maximum is reached; the finally block stops the files still in flight
+          lines = lines.subList(0, (int) (maxTotal - matchCount));
+        }
+        matchCount += lines.size();
+        if (writer != null) {
+          for (String line : lines) {
+            this.writeLine(writer, line);
+          }
+        } else {
+          matchedLines.addAll(lines);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while collecting results");
+    } finally {
+      submitter.interrupt();
+      executor.shutdownNow();
+      if (writer != null) {
+        writer.close();
+      }
+    }
+
+    // Logging the number of matched lines
+    logger.info("Number of matched lines: " + matchCount);
+
+    if (writer == null) {
+      this.writeToFile(matchedLines);
+    }
+    this.logPrefilterStats();
+    this.reportMetrics();
+    // Logging the completion of the process
+    logger.info("ThreadPerFileJavaGrepImp process completed");
+  }
+
+  private ExecutorService newExecutor() {
+    if (!this.isVirtualThreads()) {
+      return Executors.newFixedThreadPool(this.getMaxConcurrentFiles(), daemonThreads());
+    }
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    if (executor != null) {
+      return executor;
+    }
+    logger.warn("Virtual threads are not available on this runtime, "
+        + "using a platform thread per file");
+    return Executors.newCachedThreadPool(daemonThreads());
+  }
+
+  // Executors.newVirtualThreadPerTaskExecutor() exists from Java 21; the build targets Java 11
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  private static ThreadFactory daemonThreads() {
+    return runnable -> {
+      Thread thread = new Thread(runnable, "grep-file");
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static List<String> awaitResult(Future<List<String>> result)
+      throws IOException, InterruptedException {
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -0,0 +1,532 @@
+package ca.jrvs.apps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TrigramIndex is a persistent inverted index from byte trigrams to the files that contain them.
+ * Answering a {@link TrigramQuery} narrows a search to the few files that can possibly match, so
+ * repeated searches over the same tree read a handful of files instead of all of them.
+ *
+ * <p>The index is stored in one compact file that is memory-mapped when opened:
+ * <pre>
+ *   header      int magic, int version, int fileCount, int trigramCount
+ *   file table  fileCount x (int pathLength, UTF-8 path, long size, long lastModified)
+ *   trigrams    trigramCount x (int trigram, int postingsOffset, int postingsCount), sorted
+ *   postings    per trigram, ascending file ids as varint-encoded deltas
+ * </pre>
+ * File ids follow the order of the file list the index was built from, so candidates come back in
+ * that same order. Trigrams are over raw bytes with US-ASCII letters folded to lower case, and
+ * trigrams that span a line break are not indexed because no single line can contain them.
+ */
+public class TrigramIndex {
+
+  final static Logger logger = LoggerFactory.getLogger(TrigramIndex.class);
+
+  private static final int MAGIC = 0x54524731;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int TRIGRAM_ENTRY_SIZE = 12;
+  private static final int FILE_ENTRY_MIN_SIZE = 20;
+
+  private final File[] files;
+  private final long[] sizes;
+  private final long[] lastModified;
+  private final ByteBuffer buffer;
+  private final int trigramCount;
+  private final int trigramTableStart;
+  private final int postingsStart;
+
+  private TrigramIndex(File[] files, long[] sizes, long[] lastModified, ByteBuffer buffer,
+      int trigramCount, int trigramTableStart) {
+    this.files = files;
+    this.sizes = sizes;
+    this.lastModified = lastModified;
+    this.buffer = buffer;
+    this.trigramCount = trigramCount;
+    this.trigramTableStart = trigramTableStart;
+    this.postingsStart = trigramTableStart + trigramCount * TRIGRAM_ENTRY_SIZE;
+  }
+
+  /**
+   * Indexes the specified files, writes the index to indexFile and opens it.
+   *
+   * @param files the files to index, in the order candidates should be returned.
+   * @param indexFile the index file to create or replace.
+   * @return the opened index.
+   * @throws IOException if a file cannot be read or the index cannot be written.
+   */
+  public static TrigramIndex build(List<File> files, Path indexFile) throws IOException {
+    long start = System.nanoTime();
+    Map<Integer, IntList> postings = new HashMap<>();
+    BitSet seen = new BitSet(1 << 24);
+    IntList touched = new IntList();
+    long[] sizes = new long[files.size()];
+    long[] modified = new long[files.size()];
+
+    for (int id = 0; id < files.size(); id++) {
+      // Stamped before reading, so a file changed meanwhile looks out of date on the next run
+      sizes[id] = files.get(id).length();
+      modified[id] = files.get(id).lastModified();
+      collectTrigrams(files.get(id), seen, touched);
+      for (int i = 0; i < touched.size(); i++) {
+        int trigram = touched.get(i);
+        postings.computeIfAbsent(trigram, t -> new IntList()).add(id);
+        seen.clear(trigram);
+      }
+      touched.clear();
+    }
+    write(files, sizes, modified, postings, indexFile);
+
+    logger.info("Indexed " + files.size() + " files, " + postings.size() + " trigrams in "
+        + (System.nanoTime() - start) / 1_000_000 + " ms");
+    return open(indexFile);
+  }
+
+  /**
+   * Brings the index up to date with the specified files and writes it to indexFile. Postings of
+   * files whose {@link FileFingerprint} (path, size and modification time) is unchanged are
+   * carried over from this index under their new ids; only new and changed files are read.
+   *
+   * @param files the files to index, in the order candidates should be returned.
+   * @param indexFile the index file to create or replace.
+   * @return the opened, updated index.
+   * @throws IOException if a file cannot be read or the index cannot be written.
+   */
+  public TrigramIndex update(List<File> files, Path indexFile) throws IOException {
+    long start = System.nanoTime();
+    Map<String, Integer> newIds = new HashMap<>();
+    for (int id = 0; id < files.size(); id++) {
+      newIds.put(files.get(id).getPath(), id);
+    }
+
+    // Map the ids of unchanged files to their position in the new file list
+    int[] remap = new int[this.files.length];
+    boolean[] unchanged = new boolean[files.size()];
+    long[] sizes = new long[files.size()];
+    long[] modified = new long[files.size()];
+    int reused = 0;
+    for (int id = 0; id < this.files.length; id++) {
+      Integer newId = newIds.get(this.files[id].getPath());
+      FileFingerprint fingerprint = new FileFingerprint(this.files[id].getPath(), this.sizes[id],
+          this.lastModified[id], FileFingerprint.NO_HASH);
+      if (newId != null && fingerprint.matches(files.get(newId))) {
+        remap[id] = newId;
+        unchanged[newId] = true;
+        sizes[newId] = this.sizes[id];
+        modified[newId] = this.lastModified[id];
+        reused++;
+      } else {
+        remap[id] = -1;
+      }
+    }
+
+    Map<Integer, IntList> postings = new HashMap<>();
+    for (int entry = 0; entry < this.trigramCount; entry++) {
+      IntList ids = null;
+      for (int id : this.decodePostings(entry)) {
+        if (remap[id] >= 0) {
+          if (ids == null) {
+            ids = new IntList();
+          }
+          ids.add(remap[id]);
+        }
+      }
+      if (ids != null) {
+        postings.put(this.buffer.getInt(this.trigramTableStart + entry * TRIGRAM_ENTRY_SIZE),
+            ids);
+      }
+    }
+
+    BitSet seen = new BitSet(1 << 24);
+    IntList touched = new IntList();
+    for (int id = 0; id < files.size(); id++) {
+      if (unchanged[id]) {
+        continue;
+      }
+      sizes[id] = files.get(id).length();
+      modified[id] = files.get(id).lastModified();
+      collectTrigrams(files.get(id), seen, touched);
+      for (int i = 0; i < touched.size(); i++) {
+        int trigram = touched.get(i);
+        postings.computeIfAbsent(trigram, t -> new IntList()).add(id);
+        seen.clear(trigram);
+      }
+      touched.clear();
+    }
+    for (IntList ids : postings.values()) {
+      ids.sort();
+    }
+    write(files, sizes, modified, postings, indexFile);
+
+    logger.info("Updated index of " + files.size() + " files, reused " + reused + ", read "
+        + (files.size() - reused) + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    return open(indexFile);
+  }
+
+  /**
+   * Opens an existing index file by memory-mapping it.
+   *
+   * @param indexFile the index file.
+   * @return the opened index.
+   * @throws IOException if the file cannot be read or is not a valid index.
+   */
+  public static TrigramIndex open(Path indexFile) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a trigram index: " + indexFile);
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported trigram index version " + buffer.getInt(4));
+    }
+    int fileCount = buffer.getInt(8);
+    int trigramCount = buffer.getInt(12);
+    // Each file entry takes at least its path length, size and modification time
+    if (fileCount < 0 || trigramCount < 0
+        || fileCount > (buffer.capacity() - HEADER_SIZE) / FILE_ENTRY_MIN_SIZE) {
+      throw corrupt(indexFile);
+    }
+
+    File[] files = new File[fileCount];
+    long[] sizes = new long[fileCount];
+    long[] modified = new long[fileCount];
+    ByteBuffer reader = buffer.duplicate();
+    reader.position(HEADER_SIZE);
+    for (int id = 0; id < fileCount; id++) {
+      int pathLength = reader.remaining() < FILE_ENTRY_MIN_SIZE ? -1 : reader.getInt();
+      if (pathLength < 0 || pathLength > reader.remaining() - (FILE_ENTRY_MIN_SIZE - 4)) {
+        throw corrupt(indexFile);
+      }
+      byte[] path = new byte[pathLength];
+      reader.get(path);
+      files[id] = new File(new String(path, StandardCharsets.UTF_8));
+      sizes[id] = reader.getLong();
+      modified[id] = reader.getLong();
+    }
+
+    // Every posting list must lie within the file; a posting takes at least one byte
+    int trigramTableStart = reader.position();
+    if (trigramCount > reader.remaining() / TRIGRAM_ENTRY_SIZE) {
+      throw corrupt(indexFile);
+    }
+    int postingsLength = reader.remaining() - trigramCount * TRIGRAM_ENTRY_SIZE;
+    for (int entry = 0; entry < trigramCount; entry++) {
+      int base = trigramTableStart + entry * TRIGRAM_ENTRY_SIZE;
+      int offset = buffer.getInt(base + 4);
+      int count = buffer.getInt(base + 8);
+      if (offset < 0 || offset > postingsLength || count < 0 || count > fileCount
+          || count > postingsLength - offset) {
+        throw corrupt(indexFile);
+      }
+    }
+    return new TrigramIndex(files, sizes, modified, buffer, trigramCount, trigramTableStart);
+  }
+
+  /**
+   * Get the number of indexed files.
+   *
+   * @return the file count.
+   */
+  public int getFileCount() {
+    return this.files.length;
+  }
+
+  /**
+   * Get the number of distinct trigrams in the index.
+   *
+   * @return the trigram count.
+   */
+  public int getTrigramCount() {
+    return this.trigramCount;
+  }
+
+  /**
+   * Get the indexed files in index order.
+   *
+   * @return an unmodifiable list of files.
+   */
+  public List<File> getFiles() {
+    return Collections.unmodifiableList(Arrays.asList(this.files));
+  }
+
+  /**
+   * Checks if the index still describes exactly the specified files, with the same sizes and
+   * modification times as when they were indexed.
+   *
+   * @param files the current file list.
+   * @return true if the index is up to date.
+   */
+  public boolean isCurrent(List<File> files) {
+    if (files.size() != this.files.length) {
+      return false;
+    }
+    for (int id = 0; id < this.files.length; id++) {
+      File file = files.get(id);
+      if (!file.equals(this.files[id]) || file.length() != this.sizes[id]
+          || file.lastModified() != this.lastModified[id]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the files that contain every trigram of the query.
+   *
+   * @param query the trigram query.
+   * @return the candidate files in index order.
+   */
+  public List<File> candidates(TrigramQuery query) {
+    if (query.matchesAll()) {
+      return this.getFiles();
+    }
+
+    // Intersect the shortest posting lists first
+    int[] trigrams = query.getTrigrams();
+    int[] entries = new int[trigrams.length];
+    for (int i = 0; i < trigrams.length; i++) {
+      entries[i] = this.findTrigram(trigrams[i]);
+      if (entries[i] < 0) {
+        return Collections.emptyList();
+      }
+    }
+    Integer[] order = new Integer[entries.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = entries[i];
+    }
+    Arrays.sort(order, (a, b) -> Integer.compare(this.postingsCount(a), this.postingsCount(b)));
+
+    int[] ids = this.decodePostings(order[0]);
+    int size = ids.length;
+    for (int k = 1; k < order.length && size > 0; k++) {
+      int[] other = this.decodePostings(order[k]);
+      size = intersect(ids, size, other);
+    }
+
+    List<File> candidates = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      candidates.add(this.files[ids[i]]);
+    }
+    return candidates;
+  }
+
+  /**
+   * Get the ids of the files that contain the specified trigram.
+   *
+   * @param trigram the trigram.
+   * @return the ascending file ids, empty if the trigram is not indexed.
+   */
+  int[] postings(int trigram) {
+    int entry = this.findTrigram(trigram);
+    return entry < 0 ? new int[0] : this.decodePostings(entry);
+  }
+
+  // Binary search of the sorted trigram table; returns the entry index or -1
+  private int findTrigram(int trigram) {
+    int low = 0;
+    int high = this.trigramCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int value = this.buffer.getInt(this.trigramTableStart + mid * TRIGRAM_ENTRY_SIZE);
+      if (value < trigram) {
+        low = mid + 1;
+      } else if (value > trigram) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private int postingsCount(int entry) {
+    return this.buffer.getInt(this.trigramTableStart + entry * TRIGRAM_ENTRY_SIZE + 8);
+  }
+
+  private int[] decodePostings(int entry) {
+    int base = this.trigramTableStart + entry * TRIGRAM_ENTRY_SIZE;
+    int position = this.postingsStart + this.buffer.getInt(base + 4);
+    int[] ids = new int[this.buffer.getInt(base + 8)];
+    int previous = 0;
+    for (int i = 0; i < ids.length; i++) {
+      int delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = this.buffer.get(position++);
+        delta |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      previous += delta;
+      ids[i] = previous;
+    }
+    return ids;
+  }
+
+  // Intersects the first size ids in place with other, returning the new size
+  private static int intersect(int[] ids, int size, int[] other) {
+    int out = 0;
+    int j = 0;
+    for (int i = 0; i < size && j < other.length; i++) {
+      while (j < other.length && other[j] < ids[i]) {
+        j++;
+      }
+      if (j < other.length && other[j] == ids[i]) {
+        ids[out++] = ids[i];
+      }
+    }
+    return out;
+  }
+
+  private static IOException corrupt(Path indexFile) {
+    return new IOException("Corrupt trigram index: " + indexFile);
+  }
+
+  // Adds each distinct trigram of the file that does not span a line break to touched
+  private static void collectTrigrams(File file, BitSet seen, IntList touched) throws IOException {
+    try (InputStream in = new BufferedInputStream(GrepIO.openInput(file), 1 << 16)) {
+      int b0 = -1;
+      int b1 = -1;
+      int b;
+      while ((b = in.read()) >= 0) {
+        if (b == '\n' || b == '\r') {
+          b0 = -1;
+          b1 = -1;
+          continue;
+        }
+        if (b0 >= 0) {
+          int trigram = TrigramQuery.trigram((byte) b0, (byte) b1, (byte) b);
+          if (!seen.get(trigram)) {
+            seen.set(trigram);
+            touched.add(trigram);
+          }
+        }
+        b0 = b1;
+        b1 = b;
+      }
+    }
+  }
+
+  private static void write(List<File> files, long[] sizes, long[] modified,
+      Map<Integer, IntList> postings, Path indexFile) throws IOException {
+    int[] trigrams = new int[postings.size()];
+    int n = 0;
+    for (Integer trigram : postings.keySet()) {
+      trigrams[n++] = trigram;
+    }
+    Arrays.sort(trigrams);
+
+    Path parent = indexFile.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+    try {
+      ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+      int[] offsets = new int[trigrams.length];
+      for (int i = 0; i < trigrams.length; i++) {
+        offsets[i] = encoded.size();
+        IntList ids = postings.get(trigrams[i]);
+        int previous = 0;
+        for (int k = 0; k < ids.size(); k++) {
+          writeVarInt(encoded, ids.get(k) - previous);
+          previous = ids.get(k);
+        }
+      }
+
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(files.size());
+        out.writeInt(trigrams.length);
+        for (int id = 0; id < files.size(); id++) {
+          byte[] path = files.get(id).getPath().getBytes(StandardCharsets.UTF_8);
+          out.writeInt(path.length);
+          out.write(path);
+          out.writeLong(sizes[id]);
+          out.writeLong(modified[id]);
+        }
+        for (int i = 0; i < trigrams.length; i++) {
+          out.writeInt(trigrams[i]);
+          out.writeInt(offsets[i]);
+          out.writeInt(postings.get(trigrams[i]).size());
+        }
+        encoded.writeTo(out);
+      }
+
+      try {
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  /**
+   * A minimal growable list of primitive ints.
+   */
+  static final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+      this.values[this.size++] = value;
+    }
+
+    int get(int index) {
+      return this.values[index];
+    }
+
+    int size() {
+      return this.size;
+    }
+
+    void clear() {
+      this.size = 0;
+    }
+
+    void sort() {
+      Arrays.sort(this.values, 0, this.size);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package ca.jrvs.apps;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * TrigramQuery is the set of byte trigrams that any file containing a match of a regex must
+ * contain. It is derived from the regex's {@link RegexLiterals required literals}: a line can only
+ * match if it contains every literal, so the file must contain every trigram of every literal.
+ *
+ * <p>Trigrams are taken over the encoded bytes with US-ASCII letters folded to lower case, the
+ * same way {@link TrigramIndex} indexes files, which keeps the query consistent with
+ * {@code CASE_INSENSITIVE} matching.
+ */
+public class TrigramQuery {
+
+  private final int[] trigrams;
+
+  private TrigramQuery(int[] trigrams) {
+    this.trigrams = trigrams;
+  }
+
+  /**
+   * Builds the trigram query for the specified regex.
+   *
+   * @param regex the regex pattern.
+   * @param charset the charset the searched files are encoded in.
+   * @return the query; {@link #matchesAll()} is true when the regex has no literal of three or
+   *     more bytes, in which case every file is a candidate.
+   */
+  public static TrigramQuery forRegex(String regex, Charset charset) {
+    return forLiterals(RegexLiterals.requiredLiterals(regex), charset);
+  }
+
+  /**
+   * Builds the trigram query requiring all of the specified literals.
+   *
+   * @param literals the literals every match must contain.
+   * @param charset the charset the searched files are encoded in.
+   * @return the query.
+   */
+  public static TrigramQuery forLiterals(List<String> literals, Charset charset) {
+    TreeSet<Integer> set = new TreeSet<>();
+    for (String literal : literals) {
+      byte[] bytes = literal.getBytes(charset);
+      for (int i = 0; i + 2 < bytes.length; i++) {
+        set.add(trigram(bytes[i], bytes[i + 1], bytes[i + 2]));
+      }
+    }
+    int[] trigrams = new int[set.size()];
+    int i = 0;
+    for (Integer trigram : set) {
+      trigrams[i++] = trigram;
+    }
+    return new TrigramQuery(trigrams);
+  }
+
+  /**
+   * Check whether the query places no restriction on candidate files.
+   *
+   * @return true if every file is a candidate.
+   */
+  public boolean matchesAll() {
+    return this.trigrams.length == 0;
+  }
+
+  /**
+   * Get the trigrams a candidate file must contain, in ascending order.
+   *
+   * @return a copy of the trigrams.
+   */
+  public int[] getTrigrams() {
+    return this.trigrams.clone();
+  }
+
+  /**
+   * Packs three bytes into a trigram, folding US-ASCII letters to lower case.
+   *
+   * @param b0 the first byte.
+   * @param b1 the second byte.
+   * @param b2 the third byte.
+   * @return the 24-bit trigram.
+   */
+  static int trigram(byte b0, byte b1, byte b2) {
+    return (fold(b0) << 16) | (fold(b1) << 8) | fold(b2);
+  }
+
+  /**
+   * Folds a US-ASCII upper-case letter byte to lower case.
+   *
+   * @param b the byte.
+   * @return the folded byte as an unsigned value.
+   */
+  static int fold(byte b) {
+    int v = b & 0xFF;
+    return v >= 'A' && v <= 'Z' ? v + ('a' - 'A') : v;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("TrigramQuery[");
+    for (int i = 0; i < this.trigrams.length; i++) {
+      if (i > 0) {
+        builder.append(" AND ");
+      }
+      int t = this.trigrams[i];
+      byte[] bytes = {(byte) (t >> 16), (byte) (t >> 8), (byte) t};
+      builder.append(new String(bytes, StandardCharsets.ISO_8859_1));
+    }
+    return builder.append(']').toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof TrigramQuery && Arrays.equals(this.trigrams, ((TrigramQuery) o).trigrams);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.trigrams);
+  }
+}
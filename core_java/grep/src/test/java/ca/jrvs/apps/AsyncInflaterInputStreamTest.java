@@ -0,0 +1,76 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AsyncInflaterInputStream class.
+ */
+public class AsyncInflaterInputStreamTest {
+
+  /**
+   * Test case for read with more bytes than the queue holds.
+   * Expects every byte of the source, in order.
+   */
+  @Test(timeout = 10000)
+  public void testRead_MoreChunksThanCapacity_AllBytes() throws IOException {
+    // Arrange
+    byte[] data = new byte[10000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+
+    // Act
+    byte[] read;
+    try (InputStream in = new AsyncInflaterInputStream(new ByteArrayInputStream(data), 64, 2)) {
+      read = in.readAllBytes();
+    }
+
+    // Assert
+    assertArrayEquals(data, read);
+  }
+
+  /**
+   * Test case for a source that throws a RuntimeException, as ZipInputStream does for an entry
+   * name that is not valid UTF-8.
+   * Expects the bytes read before the failure, then an IOException instead of a hang.
+   */
+  @Test(timeout = 10000)
+  public void testRead_SourceThrowsRuntimeException_IOException() throws IOException {
+    // Arrange
+    InputStream failing = new InputStream() {
+      private int remaining = 3;
+
+      @Override
+      public int read() {
+        if (this.remaining == 0) {
+          throw new IllegalArgumentException("malformed input");
+        }
+        return 'a' + --this.remaining;
+      }
+    };
+    ByteArrayOutputStream read = new ByteArrayOutputStream();
+    IOException failure = null;
+
+    // Act
+    try (InputStream in = new AsyncInflaterInputStream(failing, 1, 2)) {
+      int b;
+      while ((b = in.read()) >= 0) {
+        read.write(b);
+      }
+    } catch (IOException e) {
+      failure = e;
+    }
+
+    // Assert
+    assertEquals("cba", read.toString());
+    assertTrue(failure != null && failure.getCause() instanceof IllegalArgumentException);
+  }
+}
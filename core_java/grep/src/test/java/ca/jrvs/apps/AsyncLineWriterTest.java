@@ -0,0 +1,132 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AsyncLineWriter class.
+ */
+public class AsyncLineWriterTest {
+
+  /**
+   * Test case for write and close with more lines than the buffer holds.
+   * Expects every line to be written, in order, once close returns.
+   */
+  @Test
+  public void testWrite_MoreLinesThanCapacity_OrderedAndComplete() throws IOException {
+    // Arrange
+    StringWriter out = new StringWriter();
+    StringBuilder expected = new StringBuilder();
+
+    // Act
+    try (AsyncLineWriter writer = new AsyncLineWriter(out, 4, 64, 1000)) {
+      for (int i = 0; i < 1000; i++) {
+        writer.write("line " + i);
+        expected.append("line ").append(i).append(System.lineSeparator());
+      }
+    }
+
+    // Assert
+    assertEquals(expected.toString(), out.toString());
+  }
+
+  /**
+   * Test case for the flush interval.
+   * Expects a line to be flushed without closing the writer.
+   */
+  @Test
+  public void testWrite_FlushInterval_FlushesWithoutClose() throws Exception {
+    // Arrange
+    StringWriter out = new StringWriter();
+    AsyncLineWriter writer = new AsyncLineWriter(out, 16, 1 << 20, 10);
+
+    // Act
+    writer.write("tick");
+    long deadline = System.currentTimeMillis() + 5000;
+    while (out.toString().isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+
+    // Assert
+    assertEquals("tick" + System.lineSeparator(), out.toString());
+    writer.close();
+  }
+
+  /**
+   * Test case for a failing underlying writer.
+   * Expects close to report the failure instead of hanging.
+   */
+  @Test
+  public void testClose_FailingWriter_IOException() {
+    // Arrange
+    Writer failing = new Writer() {
+      @Override
+      public void write(char[] cbuf, int off, int len) throws IOException {
+        throw new IOException("disk full");
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+
+    // Act
+    boolean failed = false;
+    try (AsyncLineWriter writer = new AsyncLineWriter(failing, 2, 1, 1000)) {
+      for (int i = 0; i < 100; i++) {
+        writer.write("line " + i);
+      }
+    } catch (IOException e) {
+      failed = true;
+    }
+
+    // Assert
+    assertTrue(failed);
+  }
+
+  /**
+   * Test case for an underlying writer that throws a runtime exception.
+   * Expects later writes and close to report the failure instead of hanging.
+   */
+  @Test(timeout = 10000)
+  public void testClose_WriterThrowsRuntimeException_IOException() {
+    // Arrange
+    Writer failing = new Writer() {
+      @Override
+      public void write(char[] cbuf, int off, int len) {
+        throw new IllegalStateException("stream closed");
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+
+    // Act
+    IOException failure = null;
+    try (AsyncLineWriter writer = new AsyncLineWriter(failing, 2, 1, 1000)) {
+      for (int i = 0; i < 100; i++) {
+        writer.write("line " + i);
+      }
+    } catch (IOException e) {
+      failure = e;
+    }
+
+    // Assert
+    assertTrue(failure != null);
+    assertTrue(failure.getCause() instanceof IllegalStateException);
+  }
+}
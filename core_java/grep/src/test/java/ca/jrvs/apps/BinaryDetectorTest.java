@@ -0,0 +1,95 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the BinaryDetector class.
+ */
+public class BinaryDetectorTest {
+
+  private BinaryDetector binaryDetector;
+  private final Path testFilePath = Paths.get("testfile.txt");
+  private final Path testGzipPath = Paths.get("testfile.gz");
+
+  /**
+   * Setup method to initialize test resources.
+   */
+  @Before
+  public void setup() {
+    binaryDetector = new BinaryDetector(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Cleanup method to clean up test resources after each test.
+   */
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(testFilePath);
+    Files.deleteIfExists(testGzipPath);
+  }
+
+  /**
+   * Test case for isBinary method with text samples.
+   * Expects ASCII, valid UTF-8 and a sequence cut off by the sample end to be text.
+   */
+  @Test
+  public void testIsBinary_TextSamples_False() {
+    // Arrange
+    byte[] ascii = "plain text\n".getBytes(StandardCharsets.UTF_8);
+    byte[] utf8 = "café 日本 😀\n".getBytes(StandardCharsets.UTF_8);
+    byte[] cutOff = "abc日".getBytes(StandardCharsets.UTF_8);
+
+    // Act & Assert
+    assertFalse(binaryDetector.isBinary(ascii, ascii.length));
+    assertFalse(binaryDetector.isBinary(utf8, utf8.length));
+    assertFalse(binaryDetector.isBinary(cutOff, cutOff.length - 1));
+  }
+
+  /**
+   * Test case for isBinary method with binary samples.
+   * Expects a NUL byte or mostly invalid UTF-8 to be binary.
+   */
+  @Test
+  public void testIsBinary_BinarySamples_True() {
+    // Arrange
+    byte[] nul = {'P', 'K', 3, 4, 0, 'x'};
+    byte[] invalid = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 'J', 'F', 'I', 'F'};
+
+    // Act & Assert
+    assertTrue(binaryDetector.isBinary(nul, nul.length));
+    assertTrue(binaryDetector.isBinary(invalid, invalid.length));
+  }
+
+  /**
+   * Test case for isBinary method with files.
+   * Expects the decision to be cached until the file changes, and gzip files to be sampled
+   * after decompression.
+   */
+  @Test
+  public void testIsBinary_Files_CachedPerFingerprint() throws IOException {
+    // Arrange
+    Files.write(testFilePath, new byte[] {'a', 0, 'b'});
+    try (OutputStream out = new GZIPOutputStream(new FileOutputStream(testGzipPath.toFile()))) {
+      out.write("compressed text\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Act & Assert
+    assertTrue(binaryDetector.isBinary(testFilePath.toFile()));
+    assertFalse(binaryDetector.isBinary(testGzipPath.toFile()));
+    Files.write(testFilePath, "now text, and longer\n".getBytes(StandardCharsets.UTF_8));
+    assertFalse(binaryDetector.isBinary(testFilePath.toFile()));
+  }
+}
@@ -0,0 +1,111 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ByteLineReader class.
+ */
+public class ByteLineReaderTest {
+
+  /**
+   * Test case for readLine with every kind of line terminator split across tiny buffers.
+   * Expects the same lines as BufferedReader.
+   */
+  @Test
+  public void testReadLine_TerminatorsAcrossBuffers_SameAsBufferedReader() throws IOException {
+    // Arrange
+    String text = "one\ntwo\r\nthree\rfour\r\r\n\nlast without terminator";
+
+    for (int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+      // Act
+      List<String> lines = readAll(text.getBytes(StandardCharsets.UTF_8),
+          StandardCharsets.UTF_8, bufferSize);
+
+      // Assert
+      assertEquals(expected(text), lines);
+    }
+  }
+
+  /**
+   * Test case for readLine with random multi-byte and malformed UTF-8 input.
+   * Expects the same lines as an InputStreamReader behind a BufferedReader.
+   */
+  @Test
+  public void testReadLine_RandomUtf8_SameAsInputStreamReader() throws IOException {
+    // Arrange
+    Random random = new Random(7);
+    byte[][] pieces = {"a".getBytes(StandardCharsets.UTF_8), "é".getBytes(StandardCharsets.UTF_8),
+        "日本".getBytes(StandardCharsets.UTF_8), "😀".getBytes(StandardCharsets.UTF_8),
+        {'\n'}, {'\r'}, {(byte) 0xFF}, {(byte) 0xC3}};
+
+    for (int round = 0; round < 200; round++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      int length = random.nextInt(60);
+      for (int i = 0; i < length; i++) {
+        byte[] piece = pieces[random.nextInt(pieces.length)];
+        out.write(piece, 0, piece.length);
+      }
+      byte[] bytes = out.toByteArray();
+
+      // Act
+      List<String> lines = readAll(bytes, StandardCharsets.UTF_8, 1 + random.nextInt(16));
+
+      // Assert
+      BufferedReader reader = new BufferedReader(
+          new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+      assertEquals(reader.lines().collect(Collectors.toList()), lines);
+    }
+  }
+
+  /**
+   * Test case for lines with an ISO-8859-1 input.
+   * Expects every byte decoded as its own char.
+   */
+  @Test
+  public void testLines_Latin1_DecodedPerByte() throws IOException {
+    // Arrange
+    byte[] bytes = {'c', 'a', 'f', (byte) 0xE9, '\n', (byte) 0xFF};
+
+    // Act
+    try (ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes),
+        StandardCharsets.ISO_8859_1)) {
+      List<String> lines = reader.lines().collect(Collectors.toList());
+
+      // Assert
+      assertEquals(List.of("café", "ÿ"), lines);
+      assertNull(reader.readLine());
+    }
+  }
+
+  private static List<String> readAll(byte[] bytes, Charset charset, int bufferSize)
+      throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes), charset,
+        bufferSize)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  private static List<String> expected(String text) {
+    return new BufferedReader(new StringReader(text)).lines().collect(Collectors.toList());
+  }
+}
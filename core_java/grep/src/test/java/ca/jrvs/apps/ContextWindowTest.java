@@ -0,0 +1,101 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ContextWindow class.
+ */
+public class ContextWindowTest {
+
+  /**
+   * Test case for select with adjacent, overlapping and distant matches.
+   * Expects merged groups separated by "--".
+   */
+  @Test
+  public void testSelect_OverlappingWindows_Merged() {
+    // Arrange
+    ContextWindow window = new ContextWindow(line -> line.startsWith("m"), 2, 1, Long.MAX_VALUE);
+    Stream<String> lines = Stream.of("a", "b", "c", "m1", "d", "e", "m2", "m3", "f", "g", "h",
+        "i", "m4");
+
+    // Act
+    List<String> selected = window.select(lines).collect(Collectors.toList());
+
+    // Assert
+    assertEquals(List.of("b", "c", "m1", "d", "e", "m2", "m3", "f", "--", "h", "i", "m4"),
+        selected);
+  }
+
+  /**
+   * Test case for select with a match in the first line of each file.
+   * Expects a separator between the files but not before the first one.
+   */
+  @Test
+  public void testSelect_SeveralFiles_SeparatedAcrossFiles() {
+    // Arrange
+    ContextWindow window = new ContextWindow(line -> line.startsWith("m"), 3, 0, Long.MAX_VALUE);
+    List<String> selected = new ArrayList<>();
+
+    // Act
+    window.select(Stream.of("m1", "a")).forEach(selected::add);
+    window.select(Stream.of("a", "b")).forEach(selected::add);
+    window.select(Stream.of("m2")).forEach(selected::add);
+
+    // Assert
+    assertEquals(List.of("m1", "--", "m2"), selected);
+  }
+
+  /**
+   * Test case for accept with a per-file maximum.
+   * Expects the after-context of the last match and no further line read.
+   */
+  @Test
+  public void testAccept_MaxCount_StopsAfterTrailingContext() {
+    // Arrange
+    ContextWindow window = new ContextWindow(line -> line.startsWith("m"), 0, 1, 1);
+    List<String> selected = new ArrayList<>();
+    window.startFile();
+
+    // Act & Assert
+    assertTrue(window.accept("m1", selected::add));
+    assertFalse(window.accept("m2", selected::add));
+    assertEquals(List.of("m1", "m2"), selected);
+  }
+
+  /**
+   * Test case for select over a long file with a small before-context.
+   * Expects only the last lines before a match, from the ring buffer.
+   */
+  @Test
+  public void testSelect_LongFile_RingBufferKeepsLastLines() {
+    // Arrange
+    ContextWindow window = new ContextWindow("m"::equals, 3, 0, Long.MAX_VALUE);
+    Stream<String> lines = Stream.concat(IntStream.range(0, 100_000).mapToObj(Integer::toString),
+        Stream.of("m"));
+
+    // Act
+    List<String> selected = window.select(lines).collect(Collectors.toList());
+
+    // Assert
+    assertEquals(List.of("99997", "99998", "99999", "m"), selected);
+  }
+
+  /**
+   * Test case for the constructor with a negative context size.
+   * Expects an IllegalArgumentException.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_NegativeContext_ThrowsException() {
+    // Act
+    new ContextWindow(line -> true, -1, 0, 1);
+  }
+}
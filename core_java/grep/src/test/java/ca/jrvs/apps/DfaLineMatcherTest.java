@@ -0,0 +1,159 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.junit.Test;
+
+/**
+ * Unit tests for the DfaLineMatcher class and the DFA provider.
+ */
+public class DfaLineMatcherTest {
+
+  private static final String[] ATOMS = {"a", "b", "A", "c", ".", "[ab]", "[^a]", "[a-c]",
+      "[^\\d\\s]", "\\d", "\\w", "\\W", "\\s", "é", "\\x41", "[-a]", "[\\u0085\\r]", "\\Q.*\\E",
+      "^", "$", "(a|b)", "(?:ab|c)", "(a*)", "(|b)"};
+  private static final String[] QUANTIFIERS = {"", "", "", "*", "+", "?", "{2}", "{0,2}", "{1,}",
+      "*?", "+?"};
+  private static final String[] TEXT = {"a", "b", "A", "B", "c", "1", " ", "é", "É", "\u0085",
+      "\u2028", "\r", "\n", "😀", "*", "."};
+
+  /**
+   * Test case for matches with random patterns and lines.
+   * Expects the same result as java.util.regex find() for every supported pattern.
+   */
+  @Test
+  public void testMatches_RandomPatterns_SameAsJavaRegex() {
+    // Arrange
+    Random random = new Random(42);
+    int compared = 0;
+
+    for (int round = 0; round < Integer.getInteger("dfa.rounds", 2000); round++) {
+      String regex = randomRegex(random);
+      Pattern pattern;
+      try {
+        pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+      } catch (PatternSyntaxException e) {
+        continue;
+      }
+      if (!new DfaMatcherProvider().supports(regex)) {
+        continue;
+      }
+      DfaLineMatcher matcher = new DfaLineMatcher(regex, 2 + random.nextInt(8));
+
+      for (int i = 0; i < 30; i++) {
+        String line = randomText(random);
+
+        // Act & Assert
+        assertEquals(regex + " on " + escape(line), pattern.matcher(line).find(),
+            matcher.matches(line));
+        compared++;
+      }
+    }
+    assertTrue(compared > Integer.getInteger("dfa.rounds", 2000) * 5);
+  }
+
+  /**
+   * Test case for matches with a pattern that backtracks catastrophically in java.util.regex.
+   * Expects the result quickly.
+   */
+  @Test(timeout = 10000)
+  public void testMatches_NestedQuantifiers_LinearTime() {
+    // Arrange
+    DfaLineMatcher matcher = new DfaLineMatcher("(a+)+$");
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      line.append('a');
+    }
+
+    // Act & Assert
+    assertTrue(matcher.matches(line));
+    assertFalse(matcher.matches(line.append('!')));
+  }
+
+  /**
+   * Test case for matches with a state cache smaller than the DFA.
+   * Expects correct results and the cache to be reset.
+   */
+  @Test
+  public void testMatches_SmallCache_ResetAndCorrect() {
+    // Arrange
+    DfaLineMatcher matcher = new DfaLineMatcher("a.{6}b", 4);
+
+    // Act & Assert
+    assertTrue(matcher.matches("xxa123456bxx"));
+    assertFalse(matcher.matches("xxa12345bxxx"));
+    assertTrue(matcher.getCacheResets() > 0);
+  }
+
+  /**
+   * Test case for the provider with regexes outside the supported subset or cut short.
+   * Expects them to be left to java.util.regex.
+   */
+  @Test
+  public void testSupports_UnsupportedConstructs_False() {
+    // Arrange
+    DfaMatcherProvider provider = new DfaMatcherProvider();
+
+    // Act & Assert
+    assertTrue(provider.supports(".*needle[0-9]+.*"));
+    for (String regex : new String[] {"(a)\\1", "a(?=b)", "a*+", "\\bword", "(?i)a", "[a[b]]",
+        "[a-z&&[^m]]", "\\p{L}", "(", "😀", "(^|a){2}", "[a", "[a-", "a\\", "\\x4", "\\u12",
+        "a{2", "(a|b"}) {
+      assertFalse(regex, provider.supports(regex));
+    }
+  }
+
+  /**
+   * Test case for LineMatchers.compile with a regex in the supported subset.
+   * Expects the DFA provider to be selected automatically.
+   */
+  @Test
+  public void testCompile_SupportedRegex_DfaSelected() {
+    // Act
+    LineMatcher matcher = LineMatchers.compile("error.*time(out|d out)");
+
+    // Assert
+    assertNotNull(matcher);
+    assertTrue(((PrefilteredLineMatcher) matcher).getDelegate() instanceof DfaLineMatcher);
+    assertTrue(matcher.matches("ERROR: read timed out"));
+  }
+
+  private static String randomRegex(Random random) {
+    StringBuilder regex = new StringBuilder();
+    int atoms = 1 + random.nextInt(5);
+    for (int i = 0; i < atoms; i++) {
+      if (random.nextInt(8) == 0) {
+        regex.append('|');
+      }
+      String atom = ATOMS[random.nextInt(ATOMS.length)];
+      regex.append(atom);
+      if (!atom.equals("^") && !atom.equals("$")) {
+        regex.append(QUANTIFIERS[random.nextInt(QUANTIFIERS.length)]);
+      }
+    }
+    return regex.toString();
+  }
+
+  private static String randomText(Random random) {
+    StringBuilder text = new StringBuilder();
+    int length = random.nextInt(8);
+    for (int i = 0; i < length; i++) {
+      text.append(TEXT[random.nextInt(TEXT.length)]);
+    }
+    return text.toString();
+  }
+
+  private static String escape(String text) {
+    StringBuilder escaped = new StringBuilder();
+    for (char c : text.toCharArray()) {
+      escaped.append(c < 128 && c >= 32 ? String.valueOf(c) : String.format("\\u%04x", (int) c));
+    }
+    return escaped.toString();
+  }
+}
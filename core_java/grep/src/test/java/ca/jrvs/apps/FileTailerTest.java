@@ -0,0 +1,95 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the FileTailer class.
+ */
+public class FileTailerTest {
+
+  private FileTailer fileTailer;
+  private final Path testFilePath = Paths.get("testfile.txt");
+
+  /**
+   * Setup method to initialize test resources.
+   */
+  @Before
+  public void setup() {
+    fileTailer = new FileTailer(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Cleanup method to clean up test resources after each test.
+   */
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(testFilePath);
+  }
+
+  /**
+   * Test case for readAppended method with a partial last line and a split \r\n.
+   * Expects each line exactly once, only after it is terminated.
+   */
+  @Test
+  public void testReadAppended_PartialLines_DeliveredOnce() throws IOException {
+    // Arrange
+    append("one\r\ntw");
+
+    // Act
+    List<String> first = readAppended();
+    append("o\r");
+    List<String> second = readAppended();
+    append("\nthree\n");
+    List<String> third = readAppended();
+
+    // Assert
+    assertEquals(Arrays.asList("one"), first);
+    assertEquals(Arrays.asList("two"), second);
+    assertEquals(Arrays.asList("three"), third);
+    assertEquals(Files.size(testFilePath), fileTailer.getOffset(testFilePath));
+  }
+
+  /**
+   * Test case for readAppended method after the file is truncated.
+   * Expects the file to be read again from the start.
+   */
+  @Test
+  public void testReadAppended_Truncated_ReadsFromStart() throws IOException {
+    // Arrange
+    append("first line\nsecond line\n");
+    readAppended();
+    Files.write(testFilePath, "new\n".getBytes(StandardCharsets.UTF_8));
+
+    // Act
+    List<String> lines = readAppended();
+
+    // Assert
+    assertEquals(Arrays.asList("new"), lines);
+  }
+
+  // Helper method to append content to the test file
+  private void append(String content) throws IOException {
+    Files.write(testFilePath, content.getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  // Helper method to collect the lines appended since the last call
+  private List<String> readAppended() throws IOException {
+    List<String> lines = new ArrayList<>();
+    fileTailer.readAppended(testFilePath, lines::add);
+    return lines;
+  }
+}
@@ -0,0 +1,332 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit tests for the FileWalker, DirectorySpliterator and PathFilter classes.
+ */
+public class FileWalkerTest {
+
+  private final String testDirectoryPath = "testing";
+
+  private final Logger logger = LoggerFactory.getLogger(FileWalkerTest.class);
+
+  /**
+   * Setup method to create a tree with directories that should be pruned.
+   */
+  @Before
+  public void setup() {
+    writeToFile(testDirectoryPath + "/a.log", "a");
+    writeToFile(testDirectoryPath + "/a/z.log", "az");
+    writeToFile(testDirectoryPath + "/a/lib.jar", "jar");
+    writeToFile(testDirectoryPath + "/b.txt", "b");
+    writeToFile(testDirectoryPath + "/.git/HEAD", "ref");
+    writeToFile(testDirectoryPath + "/web/node_modules/x/index.log", "x");
+    writeToFile(testDirectoryPath + "/web/app.log", "app");
+  }
+
+  /**
+   * Cleanup method to clean up test resources after each test.
+   */
+  @After
+  public void cleanup() {
+    deleteDirectory(testDirectoryPath);
+  }
+
+  /**
+   * Test case for walk method without filters.
+   * Expects the same files in the same order as JavaGrepImp.listFiles used to return.
+   */
+  @Test
+  public void testWalk_NoFilters_ListFilesOrder() throws IOException {
+    // Act
+    List<File> files = new FileWalker(testDirectoryPath, Collections.emptyList(),
+        Collections.emptyList()).walk();
+
+    // Assert
+    assertEquals(Arrays.asList(".git/HEAD", "a/lib.jar", "a/z.log", "a.log", "b.txt",
+        "web/app.log", "web/node_modules/x/index.log"), relativeNames(files));
+  }
+
+  /**
+   * Test case for walk method with include and exclude patterns.
+   * Expects excluded subtrees to be skipped and counted per filter.
+   */
+  @Test
+  public void testWalk_IncludeExclude_PrunesAndCounts() throws IOException {
+    // Arrange
+    FileWalker walker = new FileWalker(testDirectoryPath, Arrays.asList("*.log", "*.txt"),
+        Arrays.asList(".git", "node_modules", "regex:.*\\.jar", "web/app.log"));
+
+    // Act
+    List<File> files = walker.walk();
+
+    // Assert
+    assertEquals(Arrays.asList("a/z.log", "a.log", "b.txt"), relativeNames(files));
+    assertEquals(1, walker.getExcludes().get(0).getDirectories());
+    assertEquals(1, walker.getExcludes().get(1).getDirectories());
+    assertEquals(1, walker.getExcludes().get(2).getFiles());
+    assertEquals(1, walker.getExcludes().get(3).getFiles());
+    assertEquals(2, walker.getIncludes().get(0).getFiles());
+    // The root, a and web; .git and node_modules are skipped, x is never reached
+    assertEquals(5, walker.getDirectoriesVisited());
+    assertEquals(5, walker.getFilesVisited());
+  }
+
+  /**
+   * Test case for process method with exclude patterns, sequential and parallel.
+   * Expects excluded files not to be searched by either implementation.
+   */
+  @Test
+  public void testProcess_Excludes_SameForParallel() throws IOException {
+    // Arrange
+    String outFile = "OutPutTest.txt";
+    List<String> excludes = Arrays.asList("node_modules", "*.jar");
+    JavaGrepImp[] greps = {new JavaGrepImp(), new ParallelJavaGrepImp()};
+
+    for (JavaGrepImp grep : greps) {
+      grep.setRegex("a");
+      grep.setRootPath(testDirectoryPath);
+      grep.setOutFile(outFile);
+      grep.setExcludes(excludes);
+
+      // Act
+      grep.process();
+
+      // Assert
+      List<String> outFileContent = grep.readLines(new File(outFile));
+      assertEquals(Arrays.asList("az", "a", "app"), outFileContent);
+      new File(outFile).delete();
+    }
+  }
+
+  /**
+   * Test case for DirectorySpliterator streams, sequential and parallel, with and without filters.
+   * Expects the same files in the same order as walk, also over a larger tree.
+   */
+  @Test
+  public void testDirectorySpliterator_Streams_SameAsWalk() throws IOException {
+    // Arrange
+    for (int d = 0; d < 20; d++) {
+      for (int f = 0; f < d; f++) {
+        writeToFile(testDirectoryPath + "/many/d" + d + "/f" + f + ".log", "f");
+      }
+    }
+    List<List<String>> filters = Arrays.asList(Collections.emptyList(),
+        Arrays.asList(".git", "node_modules", "d1*"));
+
+    for (List<String> excludes : filters) {
+      List<File> expected = new FileWalker(testDirectoryPath, Collections.emptyList(), excludes)
+          .walk();
+      for (boolean parallel : new boolean[]{false, true}) {
+        // Act
+        FileWalker walker = new FileWalker(testDirectoryPath, Collections.emptyList(), excludes);
+        List<File> files = DirectorySpliterator.stream(walker, parallel)
+            .map(Path::toFile)
+            .collect(Collectors.toList());
+
+        // Assert
+        assertEquals(expected, files);
+        assertEquals(expected.size(), walker.getFilesVisited() - walker.getFilesNotIncluded());
+      }
+    }
+  }
+
+  /**
+   * Test case for DirectorySpliterator trySplit method.
+   * Expects each prefix to come before the rest, with positive estimates, down to single files.
+   */
+  @Test
+  public void testDirectorySpliterator_TrySplit_KeepsOrder() throws IOException {
+    // Arrange
+    List<File> expected = new FileWalker(testDirectoryPath, Collections.emptyList(),
+        Collections.emptyList()).walk();
+    Spliterator<Path> rest = new DirectorySpliterator(new FileWalker(testDirectoryPath,
+        Collections.emptyList(), Collections.emptyList()));
+    List<Path> paths = new ArrayList<>();
+
+    // Act
+    Spliterator<Path> prefix;
+    while ((prefix = rest.trySplit()) != null) {
+      assertTrue(prefix.estimateSize() > 0);
+      assertTrue(rest.estimateSize() > 0);
+      prefix.forEachRemaining(paths::add);
+    }
+    rest.forEachRemaining(paths::add);
+
+    // Assert
+    assertEquals(expected, paths.stream().map(Path::toFile).collect(Collectors.toList()));
+    assertEquals(0, rest.estimateSize());
+    assertNull(rest.trySplit());
+  }
+
+  /**
+   * Test case for DirectorySpliterator with a symbolic link to an ancestor directory.
+   * Expects the cycle to be skipped and every file to be listed once, like walk.
+   */
+  @Test
+  public void testDirectorySpliterator_LinkCycle_Skipped() throws IOException {
+    // Arrange
+    Path link = Paths.get(testDirectoryPath, "a", "loop");
+    try {
+      Files.createSymbolicLink(link, Paths.get(testDirectoryPath).toAbsolutePath());
+    } catch (UnsupportedOperationException | IOException e) {
+      Assume.assumeNoException(e);
+    }
+
+    FileWalker walker = new FileWalker(testDirectoryPath, Collections.emptyList(),
+        Collections.emptyList());
+
+    try {
+      // Act
+      List<File> files = DirectorySpliterator.stream(walker, true)
+          .map(Path::toFile)
+          .collect(Collectors.toList());
+
+      // Assert
+      assertEquals(new FileWalker(testDirectoryPath, Collections.emptyList(),
+          Collections.emptyList()).walk(), files);
+      assertEquals(7, files.size());
+      assertEquals(1, walker.getCyclesSkipped());
+      assertEquals(0, walker.getDuplicatesSkipped());
+    } finally {
+      Files.delete(link);
+    }
+  }
+
+  /**
+   * Test case for walk method with symbolic and hard links, following links or not.
+   * Expects linked data inside the tree to be listed once, links to be skipped when they are not
+   * followed, and a link out of the tree to be walked only when they are.
+   */
+  @Test
+  public void testWalk_Links_EachFileOnce() throws IOException {
+    // Arrange
+    Path outside = Files.createTempDirectory("walker-outside");
+    Files.write(outside.resolve("o.log"), "o".getBytes());
+    List<Path> links = new ArrayList<>();
+    try {
+      links.add(Files.createSymbolicLink(Paths.get(testDirectoryPath, "web", "alias"),
+          Paths.get(testDirectoryPath, "a").toAbsolutePath()));
+      links.add(Files.createSymbolicLink(Paths.get(testDirectoryPath, "c.log"),
+          Paths.get(testDirectoryPath, "a.log").toAbsolutePath()));
+      links.add(Files.createSymbolicLink(Paths.get(testDirectoryPath, "ext"), outside));
+      Files.createLink(Paths.get(testDirectoryPath, "b2.txt"),
+          Paths.get(testDirectoryPath, "b.txt"));
+    } catch (UnsupportedOperationException | IOException e) {
+      Assume.assumeNoException(e);
+    }
+    FileWalker following = new FileWalker(testDirectoryPath, Collections.emptyList(),
+        Collections.emptyList());
+    FileWalker notFollowing = new FileWalker(testDirectoryPath, Collections.emptyList(),
+        Collections.emptyList());
+    notFollowing.setFollowLinks(false);
+
+    try {
+      // Act
+      List<String> followed = relativeNames(following.walk());
+      List<String> notFollowed = relativeNames(notFollowing.walk());
+
+      // Assert
+      assertEquals(Arrays.asList(".git/HEAD", "a/lib.jar", "a/z.log", "a.log", "b.txt",
+          "ext/o.log", "web/app.log", "web/node_modules/x/index.log"), followed);
+      assertEquals(4, following.getDuplicatesSkipped());
+      assertEquals(0, following.getCyclesSkipped());
+      assertEquals(0, following.getLinksSkipped());
+      assertEquals(Arrays.asList(".git/HEAD", "a/lib.jar", "a/z.log", "a.log", "b.txt",
+          "web/app.log", "web/node_modules/x/index.log"), notFollowed);
+      assertEquals(1, notFollowing.getDuplicatesSkipped());
+      assertEquals(3, notFollowing.getLinksSkipped());
+    } finally {
+      for (Path link : links) {
+        Files.delete(link);
+      }
+      Files.delete(outside.resolve("o.log"));
+      Files.delete(outside);
+    }
+  }
+
+  /**
+   * Test case for walk method with a maximum depth.
+   * Expects directories below the maximum depth to be skipped.
+   */
+  @Test
+  public void testWalk_MaxDepth_DeeperDirectoriesSkipped() throws IOException {
+    // Arrange
+    FileWalker walker = new FileWalker(testDirectoryPath, Collections.emptyList(),
+        Collections.singletonList(".git"));
+
+    // Act
+    walker.setMaxDepth(1);
+    List<String> oneLevel = relativeNames(walker.walk());
+    walker.setMaxDepth(0);
+    List<String> rootOnly = relativeNames(walker.walk());
+
+    // Assert
+    assertEquals(Arrays.asList("a/lib.jar", "a/z.log", "a.log", "b.txt", "web/app.log"),
+        oneLevel);
+    assertEquals(Arrays.asList("a.log", "b.txt"), rootOnly);
+  }
+
+  // Helper method to get the paths of files relative to the test directory
+  private List<String> relativeNames(List<File> files) {
+    String[] names = new String[files.size()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = new File(testDirectoryPath).toPath().relativize(files.get(i).toPath())
+          .toString().replace(File.separatorChar, '/');
+    }
+    return Arrays.asList(names);
+  }
+
+  // Helper method to write content to a file, creating parent directories
+  private void writeToFile(String filePath, String content) {
+    File file = new File(filePath);
+    file.getParentFile().mkdirs();
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+      writer.write(content);
+    } catch (IOException e) {
+      logger.error("Failed to write to file: " + file.getAbsolutePath(), e);
+      throw new AssertionError("Failed to write to file: " + file.getAbsolutePath(), e);
+    }
+  }
+
+  // Helper method to delete a directory recursively
+  private void deleteDirectory(String directoryPath) {
+    File directory = new File(directoryPath);
+    if (directory.exists()) {
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          if (file.isDirectory()) {
+            deleteDirectory(file.getAbsolutePath());
+          } else {
+            file.delete();
+          }
+        }
+      }
+      directory.delete();
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit tests for the FlowJavaGrepImp class.
+ */
+public class FlowJavaGrepImpTest {
+
+  private FlowJavaGrepImp flowJavaGrepImp;
+  private final String outFile = "OutPutTest.txt";
+
+  private final String testDirectoryPath = "testing";
+
+  private final Logger logger = LoggerFactory.getLogger(FlowJavaGrepImpTest.class);
+
+  /**
+   * Setup method to create a tree of files with matches in every file and a binary file.
+   * @throws IOException if an error occurs during setup.
+   */
+  @Before
+  public void setup() throws IOException {
+    flowJavaGrepImp = new FlowJavaGrepImp();
+    flowJavaGrepImp.setOutFile(outFile);
+    flowJavaGrepImp.setRegex("pattern");
+    flowJavaGrepImp.setRootPath(testDirectoryPath);
+    for (int i = 0; i < 20; i++) {
+      writeToFile(String.format("%s/dir%d/file%02d.txt", testDirectoryPath, i % 4, i),
+          "pattern " + i + "\nskip\npattern again " + i);
+    }
+    Files.write(Paths.get(testDirectoryPath, "dir0", "image.bin"),
+        new byte[] {'p', 'a', 't', 't', 'e', 'r', 'n', 0, 1, 2});
+  }
+
+  /**
+   * Cleanup method to clean up test resources after each test.
+   */
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(Paths.get(outFile));
+    deleteDirectory(testDirectoryPath);
+  }
+
+  /**
+   * Test case for process method on a nested tree.
+   * Expects the same output as StreamJavaGrepImp, without the binary file.
+   */
+  @Test
+  public void testProcess_NestedTree_SameAsStreamJavaGrepImp() throws IOException {
+    // Arrange
+    flowJavaGrepImp.setRequestSize(3);
+    StreamJavaGrepImp streamJavaGrepImp = new StreamJavaGrepImp();
+    streamJavaGrepImp.setRegex("pattern");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+    streamJavaGrepImp.setOutFile(outFile);
+    streamJavaGrepImp.process();
+    List<String> expected = Files.readAllLines(Paths.get(outFile));
+
+    // Act
+    flowJavaGrepImp.process();
+
+    // Assert
+    assertEquals(40, expected.size());
+    assertEquals(expected, Files.readAllLines(Paths.get(outFile)));
+    assertEquals(20, flowJavaGrepImp.getMetrics().getFilesSearched());
+  }
+
+  /**
+   * Test case for process method with a run maximum.
+   * Expects the sink to stop the search once the maximum is written.
+   */
+  @Test
+  public void testProcess_MaxTotal_StopsSearch() throws IOException {
+    // Arrange
+    flowJavaGrepImp.setMaxTotal(5);
+
+    // Act
+    flowJavaGrepImp.process();
+
+    // Assert
+    List<String> lines = Files.readAllLines(Paths.get(outFile));
+    assertEquals(5, lines.size());
+    assertEquals("pattern 0", lines.get(0));
+    assertEquals(3, flowJavaGrepImp.getMetrics().getFilesSearched());
+  }
+
+  /**
+   * Test case for search method with a subscriber requesting one line, then two.
+   * Expects exactly the requested lines, and no line read ahead of the demand.
+   */
+  @Test
+  public void testSearch_Demand_OnlyRequestedLines() {
+    // Arrange
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    flowJavaGrepImp.search().subscribe(subscriber);
+
+    // Act & Assert
+    assertTrue(subscriber.items.isEmpty());
+    subscriber.subscription.request(1);
+    assertEquals(List.of("pattern 0"), subscriber.items);
+    assertEquals(1, flowJavaGrepImp.getMetrics().getLinesScanned());
+    subscriber.subscription.request(2);
+    assertEquals(List.of("pattern 0", "pattern again 0", "pattern 4"), subscriber.items);
+    assertEquals(4, flowJavaGrepImp.getMetrics().getLinesScanned());
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertEquals(40, subscriber.items.size());
+    assertTrue(subscriber.completed);
+    assertNull(subscriber.error);
+  }
+
+  /**
+   * Test case for search method cancelled while a file is being read.
+   * Expects the file to be closed right away and no further line to be published.
+   */
+  @Test
+  public void testSearch_Cancel_ClosesOpenFile() throws IOException {
+    // Arrange
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    flowJavaGrepImp.search().subscribe(subscriber);
+    subscriber.subscription.request(1);
+    Path file = Paths.get(testDirectoryPath, "dir0", "file00.txt").toRealPath();
+    boolean procFd = new File("/proc/self/fd").isDirectory();
+    if (procFd) {
+      assertTrue(isOpen(file));
+    }
+
+    // Act
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(5);
+
+    // Assert
+    assertEquals(1, subscriber.items.size());
+    assertFalse(subscriber.completed);
+    assertEquals(1, flowJavaGrepImp.getMetrics().getFilesSearched());
+    Assume.assumeTrue(procFd);
+    assertFalse(isOpen(file));
+  }
+
+  /**
+   * Test case for a request of zero lines.
+   * Expects the subscriber to receive an IllegalArgumentException.
+   */
+  @Test
+  public void testSearch_NonPositiveRequest_Error() {
+    // Arrange
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    flowJavaGrepImp.search().subscribe(subscriber);
+
+    // Act
+    subscriber.subscription.request(0);
+
+    // Assert
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    assertTrue(subscriber.items.isEmpty());
+  }
+
+  // Subscriber that records what it receives and leaves requests to the test
+  private static class RecordingSubscriber implements Flow.Subscriber<String> {
+    final List<String> items = new ArrayList<>();
+    Flow.Subscription subscription;
+    boolean completed;
+    Throwable error;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(String item) {
+      this.items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      this.completed = true;
+    }
+  }
+
+  // Helper method checking whether this process has a file descriptor open on the file
+  private static boolean isOpen(Path file) throws IOException {
+    try (Stream<Path> fds = Files.list(Paths.get("/proc/self/fd"))) {
+      return fds.anyMatch(fd -> {
+        try {
+          return Files.readSymbolicLink(fd).equals(file);
+        } catch (IOException e) {
+          return false;
+        }
+      });
+    }
+  }
+
+  // Helper method to write content to a file, creating parent directories
+  private void writeToFile(String filePath, String content) {
+    File file = new File(filePath);
+    file.getParentFile().mkdirs();
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+      writer.write(content);
+    } catch (IOException e) {
+      logger.error("Failed to write to file: " + file.getAbsolutePath(), e);
+      throw new AssertionError("Failed to write to file: " + file.getAbsolutePath(), e);
+    }
+  }
+
+  // Helper method to delete a directory recursively
+  private void deleteDirectory(String directoryPath) {
+    File directory = new File(directoryPath);
+    if (directory.exists()) {
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          if (file.isDirectory()) {
+            deleteDirectory(file.getAbsolutePath());
+          } else {
+            file.delete();
+          }
+        }
+      }
+      directory.delete();
+    }
+  }
+}
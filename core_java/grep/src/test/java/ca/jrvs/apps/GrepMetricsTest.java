@@ -0,0 +1,159 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for the GrepMetrics class and its JFR events.
+ */
+public class GrepMetricsTest {
+
+  private final String outFile = "OutPutTest.txt";
+  private final String testDirectoryPath = "testing";
+
+  /**
+   * Cleanup method to clean up test resources after each test.
+   */
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(new File(outFile).toPath());
+    deleteDirectory(testDirectoryPath);
+  }
+
+  /**
+   * Test case for the metered matcher and the JSON report.
+   * Expects counted lines and matches, and strings escaped in the report.
+   */
+  @Test
+  public void testToJson_CountsAndEscapes() {
+    // Arrange
+    GrepMetrics metrics = new GrepMetrics("JavaGrepImp", "\"a\\\\b\"\t", null);
+    LineMatcher matcher = metrics.meter(line -> line.length() > 3);
+
+    // Act
+    boolean first = matcher.matches("abc");
+    boolean second = matcher.matches("abcd");
+    metrics.finish();
+    String json = metrics.toJson();
+
+    // Assert
+    assertFalse(first);
+    assertTrue(second);
+    assertEquals(2, metrics.getLinesScanned());
+    assertEquals(1, metrics.getLinesMatched());
+    assertTrue(metrics.getRegexNanos() >= 0);
+    assertThat(json, containsString("\"regex\":\"\\\"a\\\\\\\\b\\\"\\t\""));
+    assertThat(json, containsString("\"rootPath\":null"));
+    assertThat(json, containsString("\"linesScanned\":2,\"linesMatched\":1"));
+  }
+
+  /**
+   * Test case for the metered matcher over many lines.
+   * Expects every line counted and the regex time estimated from the sampled lines.
+   */
+  @Test
+  public void testMatches_ManyLines_RegexTimeSampled() {
+    // Arrange
+    GrepMetrics metrics = new GrepMetrics("JavaGrepImp", "a+b", null);
+    LineMatcher matcher = metrics.meter(line -> line.toString().matches("a+b"));
+
+    // Act
+    for (int i = 0; i < 10000; i++) {
+      matcher.matches("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaac");
+    }
+
+    // Assert
+    assertEquals(10000, metrics.getLinesScanned());
+    assertEquals(0, metrics.getLinesMatched());
+    assertTrue(metrics.getRegexNanos() > 0);
+  }
+
+  /**
+   * Test case for the JFR events of a process run.
+   * Expects one run event with the totals and one file event per searched file.
+   */
+  @Test
+  public void testProcess_JfrEventsRecorded() throws IOException {
+    // Arrange
+    writeToFile(new File(testDirectoryPath, "a.txt"), "pattern one\nother\n");
+    writeToFile(new File(testDirectoryPath, "b.txt"), "pattern two\n");
+    JavaGrepImp javaGrepImp = new JavaGrepImp();
+    javaGrepImp.setRegex(".*pattern.*");
+    javaGrepImp.setRootPath(testDirectoryPath);
+    javaGrepImp.setOutFile(outFile);
+    Path dump = Files.createTempFile("grep", ".jfr");
+
+    try (Recording recording = new Recording()) {
+      recording.enable(GrepRunEvent.class);
+      recording.enable(GrepPhaseEvent.class);
+      recording.enable(GrepFileEvent.class);
+
+      // Act
+      recording.start();
+      javaGrepImp.process();
+      recording.stop();
+      recording.dump(dump);
+
+      // Assert
+      List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+      List<RecordedEvent> runs = byName(events, "ca.jrvs.apps.GrepRun");
+      assertEquals(1, runs.size());
+      assertEquals(2, runs.get(0).getLong("filesSearched"));
+      assertEquals(2, runs.get(0).getLong("linesMatched"));
+      assertEquals("JavaGrepImp", runs.get(0).getString("engine"));
+      assertEquals(2, byName(events, "ca.jrvs.apps.GrepFile").size());
+      assertEquals(2, byName(events, "ca.jrvs.apps.GrepPhase").size());
+    } finally {
+      Files.deleteIfExists(dump);
+    }
+  }
+
+  private static List<RecordedEvent> byName(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(name))
+        .collect(Collectors.toList());
+  }
+
+  // Helper method to write content to a file
+  private void writeToFile(File file, String content) throws IOException {
+    file.getParentFile().mkdirs();
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+      writer.write(content);
+    }
+  }
+
+  // Helper method to delete a directory recursively
+  private void deleteDirectory(String directoryPath) {
+    File directory = new File(directoryPath);
+    if (directory.exists()) {
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          if (file.isDirectory()) {
+            deleteDirectory(file.getAbsolutePath());
+          } else {
+            file.delete();
+          }
+        }
+      }
+      directory.delete();
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit tests for the IncrementalJavaGrepImp, FingerprintStore and FileFingerprint classes.
+ */
+public class IncrementalJavaGrepImpTest {
+
+  private IncrementalJavaGrepImp incrementalJavaGrepImp;
+  private final String outFile = "OutPutTest.txt";
+  private final String cacheDirectoryPath = "testing-cache";
+
+  private final String testDirectoryPath = "testing";
+
+  private final Logger logger = LoggerFactory.getLogger(IncrementalJavaGrepImpTest.class);
+
+  /**
+   * Setup method to create a small tree and run the first, full search.
+   * @throws IOException if an error occurs during setup.
+   */
+  @Before
+  public void setup() throws IOException {
+    incrementalJavaGrepImp = new IncrementalJavaGrepImp();
+    incrementalJavaGrepImp.setOutFile(outFile);
+    incrementalJavaGrepImp.setCacheDir(cacheDirectoryPath);
+    incrementalJavaGrepImp.setRootPath(testDirectoryPath);
+    incrementalJavaGrepImp.setRegex(".*error.*");
+    Files.createFile(Paths.get(outFile));
+
+    writeToFile(testDirectoryPath + "/a.log", "error one\ninfo");
+    writeToFile(testDirectoryPath + "/b.log", "info");
+    writeToFile(testDirectoryPath + "/sub/c.log", "error two");
+    incrementalJavaGrepImp.process();
+  }
+
+  /**
+   * Cleanup method to clean up test resources after each test.
+   */
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(Paths.get(outFile));
+    deleteDirectory(cacheDirectoryPath);
+    deleteDirectory(testDirectoryPath);
+  }
+
+  /**
+   * Test case for process method when nothing changed.
+   * Expects cached matches to be reused without reading any file.
+   */
+  @Test
+  public void testProcess_Unchanged_ReusesMatches() throws IOException {
+    // Arrange
+    AtomicInteger linesTested = countingMatcher();
+
+    // Act
+    incrementalJavaGrepImp.process();
+
+    // Assert
+    assertEquals(0, linesTested.get());
+    List<String> outFileContent = incrementalJavaGrepImp.readLines(new File(outFile));
+    assertEquals(2, outFileContent.size());
+    assertEquals("error one", outFileContent.get(0));
+    assertEquals("error two", outFileContent.get(1));
+  }
+
+  /**
+   * Test case for process method after a file changes and another is deleted.
+   * Expects only the changed file to be read and the deleted file's matches to be dropped.
+   */
+  @Test
+  public void testProcess_ChangedAndDeleted_RescansChangedOnly() throws IOException {
+    // Arrange
+    File b = new File(testDirectoryPath + "/b.log");
+    long before = b.lastModified();
+    writeToFile(b.getPath(), "info\nerror three");
+    b.setLastModified(before + 5000);
+    new File(testDirectoryPath + "/sub/c.log").delete();
+    AtomicInteger linesTested = countingMatcher();
+
+    // Act
+    incrementalJavaGrepImp.process();
+
+    // Assert
+    assertEquals(2, linesTested.get());
+    List<String> outFileContent = incrementalJavaGrepImp.readLines(new File(outFile));
+    assertEquals(2, outFileContent.size());
+    assertEquals("error one", outFileContent.get(0));
+    assertEquals("error three", outFileContent.get(1));
+    assertEquals(2, FingerprintStore.load(incrementalJavaGrepImp.getStoreFile(),
+        incrementalJavaGrepImp.getStoreKey()).size());
+  }
+
+  /**
+   * Test case for process method after a file is touched but not modified.
+   * Expects the content hash to prove it unchanged.
+   */
+  @Test
+  public void testProcess_TouchedWithHash_ReusesMatches() throws IOException {
+    // Arrange
+    incrementalJavaGrepImp.setHashContent(true);
+    File a = new File(testDirectoryPath + "/a.log");
+    a.setLastModified(a.lastModified() + 5000);
+    incrementalJavaGrepImp.process();
+    a.setLastModified(a.lastModified() + 5000);
+    AtomicInteger linesTested = countingMatcher();
+
+    // Act
+    incrementalJavaGrepImp.process();
+
+    // Assert
+    assertEquals(0, linesTested.get());
+    assertEquals(2, incrementalJavaGrepImp.readLines(new File(outFile)).size());
+  }
+
+  /**
+   * Test case for process method after the binary mode changes between two runs.
+   * Expects the binary file to be searched again instead of reusing its skipped results.
+   */
+  @Test
+  public void testProcess_BinaryModeChanged_Rescans() throws IOException {
+    // Arrange
+    Files.write(Paths.get(testDirectoryPath, "d.bin"), "error bin\n\0\n".getBytes());
+    incrementalJavaGrepImp.process();
+    assertEquals(2, incrementalJavaGrepImp.readLines(new File(outFile)).size());
+    incrementalJavaGrepImp.setBinaryMode(BinaryMode.TEXT);
+
+    // Act
+    incrementalJavaGrepImp.process();
+
+    // Assert
+    List<String> outFileContent = incrementalJavaGrepImp.readLines(new File(outFile));
+    assertEquals(3, outFileContent.size());
+    assertEquals("error one", outFileContent.get(0));
+    assertEquals("error bin", outFileContent.get(1));
+    assertEquals("error two", outFileContent.get(2));
+  }
+
+  /**
+   * Test case for process method after the charset changes between two runs.
+   * Expects the file to be decoded again instead of reusing lines decoded with the old charset.
+   * The cached lines are checked, since the output file is written in the platform charset.
+   */
+  @Test
+  public void testProcess_CharsetChanged_Rescans() throws IOException {
+    // Arrange
+    Files.write(Paths.get(testDirectoryPath, "d.log"), "error caf\u00e9\n"
+        .getBytes(StandardCharsets.ISO_8859_1));
+    incrementalJavaGrepImp.setCharset(StandardCharsets.UTF_8);
+    incrementalJavaGrepImp.process();
+    incrementalJavaGrepImp.setCharset(StandardCharsets.ISO_8859_1);
+
+    // Act
+    incrementalJavaGrepImp.process();
+
+    // Assert
+    FingerprintStore store = FingerprintStore.load(incrementalJavaGrepImp.getStoreFile(),
+        incrementalJavaGrepImp.getStoreKey());
+    assertEquals(List.of("error caf\u00e9"),
+        store.cachedMatches(new File(testDirectoryPath + "/d.log")));
+  }
+
+  /**
+   * Test case for load method with a store saved for another regex.
+   * Expects an empty store.
+   */
+  @Test
+  public void testLoad_OtherRegex_Empty() {
+    // Act
+    FingerprintStore store = FingerprintStore.load(incrementalJavaGrepImp.getStoreFile(),
+        "another search");
+
+    // Assert
+    assertEquals(0, store.size());
+  }
+
+  // Helper method to count the lines the grep matches from now on
+  private AtomicInteger countingMatcher() {
+    LineMatcher delegate = incrementalJavaGrepImp.getLineMatcher();
+    AtomicInteger linesTested = new AtomicInteger();
+    incrementalJavaGrepImp.setLineMatcher(line -> {
+      linesTested.incrementAndGet();
+      return delegate.matches(line);
+    });
+    return linesTested;
+  }
+
+  // Helper method to write content to a file, creating parent directories
+  private void writeToFile(String filePath, String content) {
+    File file = new File(filePath);
+    file.getParentFile().mkdirs();
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+      writer.write(content);
+    } catch (IOException e) {
+      logger.error("Failed to write to file: " + file.getAbsolutePath(), e);
+      throw new AssertionError("Failed to write to file: " + file.getAbsolutePath(), e);
+    }
+  }
+
+  // Helper method to delete a directory recursively
+  private void deleteDirectory(String directoryPath) {
+    File directory = new File(directoryPath);
+    if (directory.exists()) {
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          if (file.isDirectory()) {
+            deleteDirectory(file.getAbsolutePath());
+          } else {
+            file.delete();
+          }
+        }
+      }
+      directory.delete();
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit tests for the IndexedJavaGrepImp, TrigramIndex and TrigramQuery classes.
+ */
+public class IndexedJavaGrepImpTest {
+
+  private IndexedJavaGrepImp indexedJavaGrepImp;
+  private final String outFile = "OutPutTest.txt";
+  private final String indexFile = "IndexTest.trigrams";
+
+  private final String testDirectoryPath = "testing";
+
+  private final Logger logger = LoggerFactory.getLogger(IndexedJavaGrepImpTest.class);
+
+  /**
+   * Setup method to create a small tree and configure the grep.
+   * @throws IOException if an error occurs during setup.
+   */
+  @Before
+  public void setup() throws IOException {
+    indexedJavaGrepImp = new IndexedJavaGrepImp();
+    indexedJavaGrepImp.setOutFile(outFile);
+    indexedJavaGrepImp.setIndexFile(indexFile);
+    indexedJavaGrepImp.setRootPath(testDirectoryPath);
+    Files.createFile(Paths.get(outFile));
+
+    writeToFile(testDirectoryPath + "/a.log", "ERROR read TIMEOUT\ninfo ok");
+    writeToFile(testDirectoryPath + "/b.log", "error only\ntimeout only");
+    writeToFile(testDirectoryPath + "/sub/c.log", "warn\nerror: socket timeout");
+    writeToFile(testDirectoryPath + "/sub/d.log", "nothing to see");
+  }
+
+  /**
+   * Cleanup method to clean up test resources after each test.
+   */
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(Paths.get(outFile));
+    Files.deleteIfExists(Paths.get(indexFile));
+    deleteDirectory(testDirectoryPath);
+  }
+
+  /**
+   * Test case for process method with a regex that has literals.
+   * Expects the same output as JavaGrepImp.
+   */
+  @Test
+  public void testProcess_LiteralRegex_SameAsFullScan() throws IOException {
+    // Act
+    indexedJavaGrepImp.setRegex("error.*timeout");
+    indexedJavaGrepImp.process();
+
+    // Assert
+    List<String> outFileContent = indexedJavaGrepImp.readLines(new File(outFile));
+    assertEquals(2, outFileContent.size());
+    assertEquals("ERROR read TIMEOUT", outFileContent.get(0));
+    assertEquals("error: socket timeout", outFileContent.get(1));
+  }
+
+  /**
+   * Test case for process method with a pattern list.
+   * Expects the files matching any pattern to be searched, and all files once a pattern has no
+   * trigrams.
+   */
+  @Test
+  public void testProcess_Patterns_UnionOfCandidates() throws IOException {
+    // Arrange
+    indexedJavaGrepImp.setPatterns(List.of("socket", "info"));
+
+    // Act
+    List<File> candidates = indexedJavaGrepImp.searchFiles();
+    indexedJavaGrepImp.process();
+
+    // Assert
+    assertEquals(2, candidates.size());
+    assertEquals("a.log", candidates.get(0).getName());
+    assertEquals("c.log", candidates.get(1).getName());
+    assertEquals(List.of("info ok", "error: socket timeout"),
+        indexedJavaGrepImp.readLines(new File(outFile)));
+
+    indexedJavaGrepImp.setPatterns(List.of("socket", "w.rn"));
+    assertEquals(4, indexedJavaGrepImp.searchFiles().size());
+  }
+
+  /**
+   * Test case for candidates method.
+   * Expects files lacking a required trigram to be excluded, and all files without literals.
+   */
+  @Test
+  public void testCandidates_NarrowsFiles() throws IOException {
+    // Arrange
+    List<File> files = indexedJavaGrepImp.listFiles(testDirectoryPath);
+    TrigramIndex index = indexedJavaGrepImp.loadIndex(files);
+
+    // Act
+    List<File> candidates = index.candidates(
+        TrigramQuery.forRegex("error.*timeout", StandardCharsets.UTF_8));
+    List<File> all = index.candidates(TrigramQuery.forRegex("[a-z]+", StandardCharsets.UTF_8));
+    List<File> none = index.candidates(TrigramQuery.forRegex("missing", StandardCharsets.UTF_8));
+
+    // Assert
+    // b.log has both words but on different lines, the index cannot tell that apart
+    assertEquals(3, candidates.size());
+    assertEquals("a.log", candidates.get(0).getName());
+    assertEquals("c.log", candidates.get(2).getName());
+    assertEquals(files, all);
+    assertEquals(0, none.size());
+  }
+
+  /**
+   * Test case for process method after a file changes.
+   * Expects the index to be rebuilt and the new match to be found.
+   */
+  @Test
+  public void testProcess_ChangedFile_RebuildsIndex() throws IOException {
+    // Arrange
+    indexedJavaGrepImp.setRegex("socket");
+    indexedJavaGrepImp.process();
+    long builtAt = Files.getLastModifiedTime(Paths.get(indexFile)).toMillis();
+    writeToFile(testDirectoryPath + "/sub/d.log", "new socket error, longer than before");
+    new File(testDirectoryPath + "/sub/d.log").setLastModified(builtAt + 5000);
+
+    // Act
+    indexedJavaGrepImp.process();
+
+    // Assert
+    List<String> outFileContent = indexedJavaGrepImp.readLines(new File(outFile));
+    assertEquals(2, outFileContent.size());
+    assertEquals("new socket error, longer than before", outFileContent.get(1));
+    assertNotEquals(0, TrigramIndex.open(Paths.get(indexFile)).getTrigramCount());
+  }
+
+  /**
+   * Test case for update method after files are added, changed and deleted.
+   * Expects the same candidates as an index built from scratch.
+   */
+  @Test
+  public void testUpdate_SameAsBuild() throws IOException {
+    // Arrange
+    TrigramIndex index = indexedJavaGrepImp.loadIndex(
+        indexedJavaGrepImp.listFiles(testDirectoryPath));
+    new File(testDirectoryPath + "/a.log").delete();
+    writeToFile(testDirectoryPath + "/sub/aa.log", "error then timeout");
+    File d = new File(testDirectoryPath + "/sub/d.log");
+    long before = d.lastModified();
+    writeToFile(d.getPath(), "timeout after error, grown");
+    d.setLastModified(before + 5000);
+    List<File> files = indexedJavaGrepImp.listFiles(testDirectoryPath);
+
+    // Act
+    TrigramIndex updated = index.update(files, Paths.get(indexFile));
+
+    // Assert
+    TrigramIndex built = TrigramIndex.build(files, Paths.get(indexFile + ".full"));
+    Files.delete(Paths.get(indexFile + ".full"));
+    assertEquals(built.getTrigramCount(), updated.getTrigramCount());
+    for (String regex : new String[] {"error.*timeout", "socket", "timeout after", "nothing"}) {
+      TrigramQuery query = TrigramQuery.forRegex(regex, StandardCharsets.UTF_8);
+      assertEquals(built.candidates(query), updated.candidates(query));
+    }
+  }
+
+  /**
+   * Test case for loadIndex method with a truncated index file.
+   * Expects the index to be rebuilt instead of the run failing.
+   */
+  @Test
+  public void testLoadIndex_TruncatedIndex_Rebuilds() throws IOException {
+    // Arrange
+    List<File> files = indexedJavaGrepImp.listFiles(testDirectoryPath);
+    int trigramCount = indexedJavaGrepImp.loadIndex(files).getTrigramCount();
+    byte[] index = Files.readAllBytes(Paths.get(indexFile));
+    Files.write(Paths.get(indexFile), Arrays.copyOf(index, index.length / 2));
+
+    // Act
+    TrigramIndex loaded = indexedJavaGrepImp.loadIndex(files);
+
+    // Assert
+    assertEquals(trigramCount, loaded.getTrigramCount());
+    assertEquals(index.length, Files.size(Paths.get(indexFile)));
+    assertEquals(3, loaded.candidates(
+        TrigramQuery.forRegex("error.*timeout", StandardCharsets.UTF_8)).size());
+  }
+
+  // Helper method to write content to a file, creating parent directories
+  private void writeToFile(String filePath, String content) {
+    File file = new File(filePath);
+    file.getParentFile().mkdirs();
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+      writer.write(content);
+    } catch (IOException e) {
+      logger.error("Failed to write to file: " + file.getAbsolutePath(), e);
+      throw new AssertionError("Failed to write to file: " + file.getAbsolutePath(), e);
+    }
+  }
+
+  // Helper method to delete a directory recursively
+  private void deleteDirectory(String directoryPath) {
+    File directory = new File(directoryPath);
+    if (directory.exists()) {
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          if (file.isDirectory()) {
+            deleteDirectory(file.getAbsolutePath());
+          } else {
+            file.delete();
+          }
+        }
+      }
+      directory.delete();
+    }
+  }
+}
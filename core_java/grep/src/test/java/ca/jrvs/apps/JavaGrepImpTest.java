@@ -8,12 +8,18 @@ import static org.mockito.Mockito.verify;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -399,6 +405,296 @@ public class JavaGrepImpTest {
     assertTrue(outFileContent.isEmpty());
   }
 
+  /**
+   * Test case for process method in streaming mode with a match found.
+   * Expects the output file to contain the matched lines in file order.
+   */
+  @Test
+  public void testProcess_Streaming_MatchFound_Success() throws IOException {
+    // Arrange
+    File file1 = createTempFile(testDirectoryPath + "/file1.txt");
+    File file2 = createTempFile(testDirectoryPath + "/sub/file2.txt");
+    writeToFile(file1, "first pattern\nno match\nsecond PATTERN");
+    writeToFile(file2, "third pattern");
+    javaGrepImp.setRegex("pattern");
+    javaGrepImp.setRootPath(testDirectoryPath);
+    javaGrepImp.setStreaming(true);
+    javaGrepImp.setBufferSize(16);
+
+    // Act
+    javaGrepImp.process();
+
+    // Assert
+    List<String> outFileContent = javaGrepImp.readLines(new File(javaGrepImp.getOutFile()));
+    assertEquals(3, outFileContent.size());
+    assertEquals("first pattern", outFileContent.get(0));
+    assertEquals("second PATTERN", outFileContent.get(1));
+    assertEquals("third pattern", outFileContent.get(2));
+  }
+
+  /**
+   * Test case for process method with a result memory limit far below the matched lines.
+   * Expects the lines to spill to run files and come back in file order, and the runs removed.
+   */
+  @Test
+  public void testProcess_ResultsSpilled_SameOrder() throws IOException {
+    // Arrange
+    File file1 = createTempFile(testDirectoryPath + "/file1.txt");
+    File file2 = createTempFile(testDirectoryPath + "/sub/file2.txt");
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      content.append(i % 2 == 0 ? "pattern " : "skip ").append(i).append('\n');
+    }
+    writeToFile(file1, content.toString());
+    writeToFile(file2, "last pattern");
+    File spillDirectory = new File(testDirectoryPath + "/spill");
+    spillDirectory.mkdirs();
+    javaGrepImp.setRegex("pattern");
+    javaGrepImp.setRootPath(testDirectoryPath);
+    javaGrepImp.setIncludes(List.of("*.txt"));
+    javaGrepImp.setResultMemoryLimit(256);
+    javaGrepImp.setSpillDirectory(spillDirectory.getPath());
+
+    // Act
+    javaGrepImp.process();
+
+    // Assert
+    List<String> outFileContent = javaGrepImp.readLines(new File(javaGrepImp.getOutFile()));
+    assertEquals(251, outFileContent.size());
+    assertEquals("pattern 0", outFileContent.get(0));
+    assertEquals("pattern 498", outFileContent.get(249));
+    assertEquals("last pattern", outFileContent.get(250));
+    assertEquals(0, spillDirectory.list().length);
+  }
+
+  /**
+   * Test case for readLines method with a consumer that stops reading.
+   * Expects no lines to be delivered after the consumer returns false.
+   */
+  @Test
+  public void testReadLines_ConsumerStops_Success() throws IOException {
+    // Arrange
+    createTestFile("Line 1\nLine 2\nLine 3");
+    List<String> lines = new ArrayList<>();
+
+    // Act
+    javaGrepImp.readLines(new File(testFilePath), line -> {
+      lines.add(line);
+      return lines.size() < 2;
+    });
+
+    // Assert
+    assertEquals(2, lines.size());
+    assertEquals("Line 2", lines.get(1));
+  }
+
+  /**
+   * Test case for process method with gzip and zip files in the tree, in both scan modes.
+   * Expects the decompressed lines to be searched, with zip entries kept apart.
+   */
+  @Test
+  public void testProcess_CompressedFiles_Decompressed() throws IOException {
+    // Arrange
+    new File(testDirectoryPath).mkdirs();
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      content.append(i % 5000 == 0 ? "pattern " : "line ").append(i).append('\n');
+    }
+    try (OutputStream out = new GZIPOutputStream(
+        new FileOutputStream(testDirectoryPath + "/a.log.gz"))) {
+      out.write(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    try (ZipOutputStream out = new ZipOutputStream(
+        new FileOutputStream(testDirectoryPath + "/b.zip"))) {
+      out.putNextEntry(new ZipEntry("dir/"));
+      out.putNextEntry(new ZipEntry("dir/one.log"));
+      out.write("skip\nends with pattern".getBytes(StandardCharsets.UTF_8));
+      out.putNextEntry(new ZipEntry("two.log"));
+      out.write("pattern two\n".getBytes(StandardCharsets.UTF_8));
+    }
+    javaGrepImp.setRegex("pattern");
+    javaGrepImp.setRootPath(testDirectoryPath);
+
+    for (ScanMode scanMode : ScanMode.values()) {
+      // Act
+      javaGrepImp.setScanMode(scanMode);
+      javaGrepImp.process();
+
+      // Assert
+      List<String> outFileContent = javaGrepImp.readLines(new File(outFile));
+      assertEquals(6, outFileContent.size());
+      assertEquals("pattern 0", outFileContent.get(0));
+      assertEquals("pattern 15000", outFileContent.get(3));
+      assertEquals("ends with pattern", outFileContent.get(4));
+      assertEquals("pattern two", outFileContent.get(5));
+    }
+  }
+
+  /**
+   * Test case for readLines method with a corrupt gzip file.
+   * Expects IOException to be thrown.
+   */
+  @Test(expected = IOException.class)
+  public void testReadLines_CorruptGzip_IOException() throws IOException {
+    // Arrange
+    File file = createTempFile(testDirectoryPath + "/broken.gz");
+    writeToFile(file, "not gzip at all");
+
+    // Act
+    javaGrepImp.readLines(file);
+  }
+
+  /**
+   * Test case for process method with a binary file in each binary mode.
+   * Expects the file to be skipped, reported once, or searched as text.
+   */
+  @Test
+  public void testProcess_BinaryFile_BinaryModes() throws IOException {
+    // Arrange
+    new File(testDirectoryPath).mkdirs();
+    Files.write(Paths.get(testDirectoryPath, "core.bin"),
+        "\0\0pattern one\npattern two\n".getBytes(StandardCharsets.UTF_8));
+    writeToFile(createTempFile(testDirectoryPath + "/text.txt"), "pattern text");
+    javaGrepImp.setRegex("pattern");
+    javaGrepImp.setRootPath(testDirectoryPath);
+    File binary = new File(testDirectoryPath, "core.bin");
+
+    // Act & Assert
+    javaGrepImp.process();
+    assertEquals(1, javaGrepImp.readLines(new File(outFile)).size());
+
+    javaGrepImp.setBinaryMode(BinaryMode.REPORT);
+    javaGrepImp.process();
+    List<String> outFileContent = javaGrepImp.readLines(new File(outFile));
+    assertEquals(2, outFileContent.size());
+    assertEquals("Binary file " + binary.getPath() + " matches", outFileContent.get(0));
+
+    javaGrepImp.setBinaryMode(BinaryMode.TEXT);
+    javaGrepImp.process();
+    assertEquals(3, javaGrepImp.readLines(new File(outFile)).size());
+  }
+
+  /**
+   * Test case for process method with a report file.
+   * Expects the run metrics to count the files and lines and the JSON report to be written.
+   */
+  @Test
+  public void testProcess_ReportFile_MetricsWritten() throws IOException {
+    // Arrange
+    String reportFile = "ReportTest.json";
+    writeToFile(createTempFile(testDirectoryPath + "/a.txt"), "pattern one\nother\n");
+    writeToFile(createTempFile(testDirectoryPath + "/b.txt"), "pattern two\n");
+    javaGrepImp.setRegex(".*pattern.*");
+    javaGrepImp.setRootPath(testDirectoryPath);
+    javaGrepImp.setReportFile(reportFile);
+
+    try {
+      // Act
+      javaGrepImp.process();
+
+      // Assert
+      GrepMetrics metrics = javaGrepImp.getMetrics();
+      assertEquals("JavaGrepImp", metrics.getEngine());
+      assertEquals(2, metrics.getFilesVisited());
+      assertEquals(2, metrics.getFilesSearched());
+      assertEquals(30, metrics.getFileBytes());
+      assertEquals(3, metrics.getLinesScanned());
+      assertEquals(2, metrics.getLinesMatched());
+      assertEquals(2, metrics.getLinesWritten());
+      String report = new String(Files.readAllBytes(Paths.get(reportFile)),
+          StandardCharsets.UTF_8).trim();
+      assertEquals(metrics.toJson(), report);
+      assertThat(report, containsString("\"linesMatched\":2"));
+    } finally {
+      deleteFile(reportFile);
+    }
+  }
+
+  /**
+   * Test case for process method in each result mode and with the maximums.
+   * Expects counts and paths instead of lines, and reading to stop once the results are known.
+   */
+  @Test
+  public void testProcess_ResultModes_ShortCircuit() throws IOException {
+    // Arrange
+    writeToFile(createTempFile(testDirectoryPath + "/a.txt"),
+        "pattern 1\npattern 2\nother\npattern 3\n");
+    writeToFile(createTempFile(testDirectoryPath + "/b.txt"), "nothing\n");
+    writeToFile(createTempFile(testDirectoryPath + "/c.txt"), "pattern 4\n");
+    String a = new File(testDirectoryPath, "a.txt").getPath();
+    String b = new File(testDirectoryPath, "b.txt").getPath();
+    String c = new File(testDirectoryPath, "c.txt").getPath();
+    javaGrepImp.setRegex("pattern");
+    javaGrepImp.setRootPath(testDirectoryPath);
+
+    // Act & Assert
+    javaGrepImp.setResultMode(ResultMode.COUNT);
+    javaGrepImp.process();
+    assertEquals(List.of(a + ":3", b + ":0", c + ":1"),
+        javaGrepImp.readLines(new File(outFile)));
+
+    javaGrepImp.setResultMode(ResultMode.FILES_WITH_MATCHES);
+    javaGrepImp.process();
+    assertEquals(List.of(a, c), javaGrepImp.readLines(new File(outFile)));
+    assertEquals(3, javaGrepImp.getMetrics().getLinesScanned());
+
+    javaGrepImp.setResultMode(ResultMode.FILES_WITHOUT_MATCH);
+    javaGrepImp.process();
+    assertEquals(List.of(b), javaGrepImp.readLines(new File(outFile)));
+
+    javaGrepImp.setResultMode(ResultMode.LINES);
+    javaGrepImp.setMaxCount(2);
+    javaGrepImp.process();
+    assertEquals(List.of("pattern 1", "pattern 2", "pattern 4"),
+        javaGrepImp.readLines(new File(outFile)));
+
+    javaGrepImp.setMaxTotal(1);
+    javaGrepImp.setStreaming(true);
+    javaGrepImp.process();
+    assertEquals(List.of("pattern 1"), javaGrepImp.readLines(new File(outFile)));
+    assertEquals(1, javaGrepImp.getMetrics().getFilesSearched());
+    assertEquals(1, javaGrepImp.getMetrics().getLinesScanned());
+  }
+
+  /**
+   * Test case for process method with a pattern list and pattern reporting.
+   * Expects every line matching any pattern, labelled with the first pattern that matches it,
+   * in every scan mode, with each line matched once.
+   */
+  @Test
+  public void testProcess_Patterns_ReportsMatchingPattern() throws IOException {
+    // Arrange
+    writeToFile(createTempFile(testDirectoryPath + "/a.txt"),
+        "ERROR disk full\nwarning: timeout\nall good\nerror after timeout\n");
+    writeToFile(createTempFile(testDirectoryPath + "/b.txt"), "retry 42 times\n");
+    javaGrepImp.setPatterns(List.of("timeout", "error", "retry [0-9]+"));
+    javaGrepImp.setReportPatterns(true);
+    javaGrepImp.setRootPath(testDirectoryPath);
+
+    for (ScanMode scanMode : ScanMode.values()) {
+      // Act
+      javaGrepImp.setScanMode(scanMode);
+      javaGrepImp.process();
+
+      // Assert
+      assertEquals(scanMode.toString(), List.of("error:ERROR disk full",
+          "timeout:warning: timeout", "timeout:error after timeout",
+          "retry [0-9]+:retry 42 times"), javaGrepImp.readLines(new File(outFile)));
+      assertEquals(5, javaGrepImp.getMetrics().getLinesScanned());
+      assertEquals(4, javaGrepImp.getMetrics().getLinesMatched());
+    }
+  }
+
+  /**
+   * Test case for setMaxCount method with zero.
+   * Expects an IllegalArgumentException.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaxCount_Zero_IllegalArgument() {
+    // Act
+    javaGrepImp.setMaxCount(0);
+  }
+
   // Helper method to create a temporary directory
   private String createTempDirectory() {
     try {
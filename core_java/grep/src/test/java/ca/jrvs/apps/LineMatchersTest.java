@@ -0,0 +1,87 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Unit tests for the LineMatchers registry and the default regex provider.
+ */
+public class LineMatchersTest {
+
+  /**
+   * Test case for compile method with a case-insensitive match.
+   * Expects the compiled matcher to ignore case like the original containsPattern.
+   */
+  @Test
+  public void testCompile_CaseInsensitive_MatchFound() {
+    // Arrange
+    LineMatcher matcher = LineMatchers.compile("error.*timeout");
+
+    // Act & Assert
+    assertTrue(matcher.matches("ERROR: read Timeout"));
+    assertFalse(matcher.matches("timeout before error"));
+  }
+
+  /**
+   * Test case for compile method reusing one matcher for many lines.
+   * Expects every line to be matched independently of the previous one.
+   */
+  @Test
+  public void testCompile_ReusedMatcher_IndependentResults() {
+    // Arrange
+    LineMatcher matcher = LineMatchers.compile("^a+$");
+
+    // Act & Assert
+    assertTrue(matcher.matches("aaa"));
+    assertFalse(matcher.matches("aab"));
+    assertTrue(matcher.matches("A"));
+  }
+
+  /**
+   * Test case for compile method with an explicit provider name.
+   * Expects the regex provider to be selected.
+   */
+  @Test
+  public void testCompile_NamedProvider_Success() {
+    // Act
+    LineMatcher matcher = LineMatchers.compile("[a-z]+", RegexMatcherProvider.NAME);
+
+    // Assert
+    assertTrue(matcher instanceof RegexLineMatcher);
+  }
+
+  /**
+   * Test case for compile method with an unknown provider name.
+   * Expects IllegalArgumentException to be thrown.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testCompile_UnknownProvider_IllegalArgument() {
+    LineMatchers.compile("pattern", "no-such-engine");
+  }
+
+  /**
+   * Test case for compile method with a null regex.
+   * Expects NullPointerException to be thrown.
+   */
+  @Test(expected = NullPointerException.class)
+  public void testCompile_NullRegex() {
+    LineMatchers.compile(null);
+  }
+
+  /**
+   * Test case for providers method.
+   * Expects the regex provider to be the last fallback.
+   */
+  @Test
+  public void testProviders_RegexIsFallback() {
+    // Act
+    List<LineMatcherProvider> providers = LineMatchers.providers();
+
+    // Assert
+    assertEquals(RegexMatcherProvider.NAME, providers.get(providers.size() - 1).getName());
+  }
+}
@@ -0,0 +1,115 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the MappedFileScanner class.
+ */
+public class MappedFileScannerTest {
+
+  private static final String CONTENT = "first ERROR timeout\r\nplain line\rerror: time\n\n"
+      + "ünïcödé error timeout\nlast error timeout without newline";
+
+  private File testFile;
+
+  /**
+   * Setup method to create the scanned file.
+   * @throws IOException if an error occurs during setup.
+   */
+  @Before
+  public void setup() throws IOException {
+    testFile = File.createTempFile("mapped", ".txt");
+    Files.write(testFile.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Cleanup method to delete the scanned file.
+   */
+  @After
+  public void cleanup() {
+    testFile.delete();
+  }
+
+  /**
+   * Test case for scanMatches with a regex that has a required literal.
+   * Expects the same lines as BufferedReader plus java.util.regex, for every region size.
+   */
+  @Test
+  public void testScanMatches_LiteralRegex_SameAsLineReader() throws IOException {
+    assertSameAsLineReader("error.*timeout");
+  }
+
+  /**
+   * Test case for scanMatches with a regex without literals.
+   * Expects the same lines as BufferedReader plus java.util.regex, for every region size.
+   */
+  @Test
+  public void testScanMatches_NoLiteralRegex_SameAsLineReader() throws IOException {
+    assertSameAsLineReader("^[a-zü]+ ");
+    assertSameAsLineReader("^$");
+  }
+
+  /**
+   * Test case for scanMatches with a consumer that stops the scan.
+   * Expects only the first match to be delivered.
+   */
+  @Test
+  public void testScanMatches_ConsumerStops() throws IOException {
+    List<String> lines = new ArrayList<>();
+    MappedFileScanner scanner =
+        new MappedFileScanner(LineMatchers.compile("timeout"), StandardCharsets.UTF_8);
+
+    boolean completed = scanner.scanMatches(testFile, line -> {
+      lines.add(line);
+      return false;
+    });
+
+    assertFalse(completed);
+    assertEquals(1, lines.size());
+    assertEquals("first ERROR timeout", lines.get(0));
+  }
+
+  /**
+   * Test case for the constructor with a charset that cannot be byte-scanned.
+   * Expects IllegalArgumentException to be thrown.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_Utf16_IllegalArgument() {
+    new MappedFileScanner(LineMatchers.compile("error"), StandardCharsets.UTF_16);
+  }
+
+  // Helper method comparing the scanner against the line-based path for several region sizes
+  private void assertSameAsLineReader(String regex) throws IOException {
+    Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+    List<String> expected = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new StringReader(CONTENT))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (pattern.matcher(line).find()) {
+          expected.add(line);
+        }
+      }
+    }
+
+    for (int regionSize : new int[] {3, 7, 20, MappedFileScanner.DEFAULT_REGION_SIZE}) {
+      List<String> actual = new ArrayList<>();
+      new MappedFileScanner(LineMatchers.compile(regex), StandardCharsets.UTF_8, regionSize)
+          .scanMatches(testFile, actual::add);
+      assertEquals("regionSize " + regionSize, expected, actual);
+    }
+  }
+}
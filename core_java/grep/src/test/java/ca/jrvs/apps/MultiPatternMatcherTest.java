@@ -0,0 +1,165 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/**
+ * Unit tests for AhoCorasick and MultiPatternMatcher.
+ */
+public class MultiPatternMatcherTest {
+
+  /**
+   * Test case for AhoCorasick with overlapping literals and ASCII case folding.
+   * Expects literals found inside and across each other, and the lowest index reported.
+   */
+  @Test
+  public void testAhoCorasick_OverlappingLiterals_Found() {
+    // Arrange
+    AhoCorasick automaton = new AhoCorasick(Arrays.asList("hers", "he", "she", "his", "été"));
+
+    // Act & Assert
+    assertTrue(automaton.containedIn("USHERS"));
+    assertEquals(0, automaton.lowestMatch("ushers"));
+    assertEquals(1, automaton.lowestMatch("ahishe"));
+    assertEquals(3, automaton.lowestMatch("ahis"));
+    assertEquals(4, automaton.lowestMatch("un été"));
+    assertEquals(-1, automaton.lowestMatch("un ÉTÉ"));
+    assertFalse(automaton.containedIn("hi ho"));
+    assertFalse(automaton.containedIn(""));
+  }
+
+  /**
+   * Test case for AhoCorasick with random literals and texts.
+   * Expects the same lowest match as searching for each literal on its own.
+   */
+  @Test
+  public void testAhoCorasick_RandomLiterals_SameAsLiteralSearcher() {
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      // Arrange
+      List<String> literals = new ArrayList<>();
+      int count = 1 + random.nextInt(20);
+      for (int i = 0; i < count; i++) {
+        literals.add(randomText(random, 1 + random.nextInt(4)));
+      }
+      AhoCorasick automaton = new AhoCorasick(literals);
+      String text = randomText(random, random.nextInt(40));
+
+      // Act
+      int lowest = automaton.lowestMatch(text);
+
+      // Assert
+      int expected = -1;
+      for (int i = 0; i < literals.size() && expected < 0; i++) {
+        if (new LiteralSearcher(literals.get(i)).containedIn(text)) {
+          expected = i;
+        }
+      }
+      assertEquals(literals + " in " + text, expected, lowest);
+      assertEquals(expected >= 0, automaton.containedIn(text));
+    }
+  }
+
+  /**
+   * Test case for AhoCorasick with an empty literal.
+   * Expects an IllegalArgumentException.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAhoCorasick_EmptyLiteral_IllegalArgument() {
+    // Act
+    new AhoCorasick(Arrays.asList("a", ""));
+  }
+
+  /**
+   * Test case for MultiPatternMatcher with literals and regexes.
+   * Expects literals to share one automaton and the first matching pattern to be reported.
+   */
+  @Test
+  public void testMatchingPattern_LiteralsAndRegexes_FirstInListOrder() {
+    // Arrange
+    MultiPatternMatcher matcher = new MultiPatternMatcher(
+        Arrays.asList("disk full", "^warn", "timeout", "retry [0-9]+", "error"));
+
+    // Act & Assert
+    assertEquals(3, matcher.getLiterals().getLiterals().size());
+    assertEquals(2, matcher.getRegexCount());
+    assertEquals(1, matcher.matchingPattern("WARNING: disk nearly full"));
+    assertEquals(0, matcher.matchingPattern("warn: Disk Full"));
+    assertEquals(2, matcher.matchingPattern("error: retry 3 after timeout"));
+    assertEquals(3, matcher.matchingPattern("error: retry 3"));
+    assertEquals(4, matcher.matchingPattern("error: retry later"));
+    assertEquals(-1, matcher.matchingPattern("all good"));
+    assertTrue(matcher.matches("ERROR"));
+    assertFalse(matcher.matches("a warning"));
+  }
+
+  /**
+   * Test case for MultiPatternMatcher with random patterns and lines.
+   * Expects the same matches and matching pattern as testing each pattern with java.util.regex.
+   */
+  @Test
+  public void testMatchingPattern_RandomPatterns_SameAsPattern() {
+    Random random = new Random(7);
+    String[] regexes = {"a.c", "^ab", "b+c", "c$", "[xy]z"};
+    for (int round = 0; round < 200; round++) {
+      // Arrange
+      List<String> patterns = new ArrayList<>();
+      int count = 1 + random.nextInt(8);
+      for (int i = 0; i < count; i++) {
+        patterns.add(random.nextInt(3) == 0
+            ? regexes[random.nextInt(regexes.length)]
+            : randomText(random, 1 + random.nextInt(3)));
+      }
+      MultiPatternMatcher matcher = new MultiPatternMatcher(patterns);
+      String line = randomText(random, random.nextInt(20));
+
+      // Act
+      int index = matcher.matchingPattern(line);
+
+      // Assert
+      int expected = -1;
+      for (int i = 0; i < patterns.size() && expected < 0; i++) {
+        if (Pattern.compile(patterns.get(i), Pattern.CASE_INSENSITIVE).matcher(line).find()) {
+          expected = i;
+        }
+      }
+      assertEquals(patterns + " in " + line, expected, index);
+      assertEquals(expected >= 0, matcher.matches(line));
+    }
+  }
+
+  /**
+   * Test case for MultiPatternMatcher without patterns.
+   * Expects no line to match.
+   */
+  @Test
+  public void testMatches_NoPatterns_NoMatch() {
+    // Arrange
+    MultiPatternMatcher matcher = new MultiPatternMatcher(Collections.emptyList());
+
+    // Act & Assert
+    assertNull(matcher.getLiterals());
+    assertFalse(matcher.matches("anything"));
+    assertEquals(-1, matcher.matchingPattern("anything"));
+  }
+
+  // Helper method to build text over a small alphabet so that literals often overlap
+  private static String randomText(Random random, int length) {
+    String alphabet = "abcABxyz é";
+    StringBuilder text = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,308 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit tests for the ParallelJavaGrepImp class.
+ */
+public class ParallelJavaGrepImpTest {
+
+  private ParallelJavaGrepImp parallelJavaGrepImp;
+  private final String outFile = "OutPutTest.txt";
+
+  private final String testDirectoryPath = "testing";
+
+  private final Logger logger = LoggerFactory.getLogger(ParallelJavaGrepImpTest.class);
+
+  /**
+   * Setup method to initialize test resources.
+   * @throws IOException if an error occurs during setup.
+   */
+  @Before
+  public void setup() throws IOException {
+    parallelJavaGrepImp = new ParallelJavaGrepImp();
+    parallelJavaGrepImp.setOutFile(outFile);
+    Files.createFile(Paths.get(outFile));
+  }
+
+  /**
+   * Cleanup method to clean up test resources after each test.
+   */
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(Paths.get(outFile));
+    deleteDirectory(testDirectoryPath);
+  }
+
+  /**
+   * Test case for process method with a symbolic link cycle and a hard link in the tree.
+   * Expects the walk to end and each file to be searched once, like the sequential walk.
+   */
+  @Test
+  public void testProcess_LinkCycleAndHardLink_SearchedOnce() throws IOException {
+    // Arrange
+    writeToFile(testDirectoryPath + "/a/z.txt", "pattern az");
+    writeToFile(testDirectoryPath + "/b.txt", "pattern b");
+    Path link = Paths.get(testDirectoryPath, "a", "loop");
+    try {
+      Files.createSymbolicLink(link, Paths.get(testDirectoryPath).toAbsolutePath());
+      Files.createLink(Paths.get(testDirectoryPath, "c.txt"),
+          Paths.get(testDirectoryPath, "b.txt"));
+    } catch (UnsupportedOperationException | IOException e) {
+      Assume.assumeNoException(e);
+    }
+    parallelJavaGrepImp.setRegex("pattern");
+    parallelJavaGrepImp.setRootPath(testDirectoryPath);
+    parallelJavaGrepImp.setParallelism(4);
+
+    try {
+      // Act
+      parallelJavaGrepImp.process();
+
+      // Assert
+      List<String> outFileContent = parallelJavaGrepImp.readLines(new File(outFile));
+      assertEquals(List.of("pattern az", "pattern b"), outFileContent);
+      assertEquals(2, parallelJavaGrepImp.getMetrics().getFilesSearched());
+    } finally {
+      Files.delete(link);
+    }
+  }
+
+  /**
+   * Test case for process method with many directories hard-linking one shared file.
+   * Expects the shared lines once, at the first link in listFiles order, like JavaGrepImp,
+   * however the tasks are scheduled, also when the run maximum cuts the output short.
+   */
+  @Test
+  public void testProcess_LinkedDuplicates_SameAsJavaGrepImp() throws IOException {
+    // Arrange
+    writeToFile(testDirectoryPath + "/z/shared.txt", "pattern shared");
+    try {
+      for (int d = 0; d < 16; d++) {
+        String dir = String.format("%s/d%02d", testDirectoryPath, d);
+        writeToFile(dir + "/a.txt", "pattern " + d + "\npattern again " + d);
+        Files.createLink(Paths.get(dir, "b.txt"), Paths.get(testDirectoryPath, "z", "shared.txt"));
+      }
+    } catch (UnsupportedOperationException | IOException e) {
+      Assume.assumeNoException(e);
+    }
+    JavaGrepImp javaGrepImp = new JavaGrepImp();
+    javaGrepImp.setRegex("pattern");
+    javaGrepImp.setRootPath(testDirectoryPath);
+    javaGrepImp.setOutFile(outFile);
+    parallelJavaGrepImp.setRegex("pattern");
+    parallelJavaGrepImp.setRootPath(testDirectoryPath);
+    parallelJavaGrepImp.setParallelism(8);
+
+    for (long maxTotal : new long[]{Long.MAX_VALUE, 20}) {
+      javaGrepImp.setMaxTotal(maxTotal);
+      javaGrepImp.process();
+      List<String> expected = javaGrepImp.readLines(new File(outFile));
+      parallelJavaGrepImp.setMaxTotal(maxTotal);
+      for (int run = 0; run < 20; run++) {
+        // Act
+        parallelJavaGrepImp.process();
+
+        // Assert
+        List<String> outFileContent = parallelJavaGrepImp.readLines(new File(outFile));
+        assertEquals("pattern shared", expected.get(2));
+        assertEquals(maxTotal + " run " + run, expected, outFileContent);
+      }
+    }
+  }
+
+  /**
+   * Test case for process method over nested directories.
+   * Expects the matched lines in the same order as the sequential implementation.
+   */
+  @Test
+  public void testProcess_NestedDirectories_SortedOrder() throws IOException {
+    // Arrange
+    writeToFile(testDirectoryPath + "/b.txt", "pattern b1\nskip\npattern b2");
+    writeToFile(testDirectoryPath + "/a/z.txt", "pattern az");
+    writeToFile(testDirectoryPath + "/a/c/y.txt", "skip\npattern acy");
+    writeToFile(testDirectoryPath + "/c.txt", "PATTERN c");
+    parallelJavaGrepImp.setRegex("pattern");
+    parallelJavaGrepImp.setRootPath(testDirectoryPath);
+    parallelJavaGrepImp.setParallelism(4);
+    parallelJavaGrepImp.setMaxOpenFiles(1);
+
+    // Act
+    parallelJavaGrepImp.process();
+
+    // Assert
+    List<String> outFileContent = parallelJavaGrepImp.readLines(new File(outFile));
+    assertEquals(5, outFileContent.size());
+    assertEquals("pattern acy", outFileContent.get(0));
+    assertEquals("pattern az", outFileContent.get(1));
+    assertEquals("pattern b1", outFileContent.get(2));
+    assertEquals("pattern b2", outFileContent.get(3));
+    assertEquals("PATTERN c", outFileContent.get(4));
+  }
+
+  /**
+   * Test case for process method with a nonexistent rootPath.
+   * Expects no output to be generated.
+   */
+  @Test
+  public void testProcess_NonexistentRootPath_Success() throws IOException {
+    // Arrange
+    parallelJavaGrepImp.setRegex("pattern");
+    parallelJavaGrepImp.setRootPath("nonexistent-path");
+
+    // Act
+    parallelJavaGrepImp.process();
+
+    // Assert
+    List<String> outFileContent = parallelJavaGrepImp.readLines(new File(outFile));
+    assertTrue(outFileContent.isEmpty());
+  }
+
+  /**
+   * Test case for setMaxOpenFiles with an invalid limit.
+   * Expects IllegalArgumentException to be thrown.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaxOpenFiles_Zero_IllegalArgument() {
+    parallelJavaGrepImp.setMaxOpenFiles(0);
+  }
+
+  /**
+   * Test case for process method with a file above the chunk threshold.
+   * Expects the same lines, in the same order, as reading the file whole, in both scan modes,
+   * and the chunks' lines to be labelled when the matching pattern is reported.
+   */
+  @Test
+  public void testProcess_ChunkedFile_SameAsWholeFile() throws IOException {
+    // Arrange
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      content.append(i % 3 == 0 ? "pattern " : "other ").append(i)
+          .append(i % 4 == 0 ? "\r\n" : i % 5 == 0 ? "\r" : "\n");
+    }
+    content.append("pattern last");
+    writeToFile(testDirectoryPath + "/big.log", content.toString());
+    parallelJavaGrepImp.setRegex("pattern \\d+");
+    parallelJavaGrepImp.setRootPath(testDirectoryPath);
+    parallelJavaGrepImp.setChunkThreshold(100);
+    parallelJavaGrepImp.setChunkSize(37);
+    List<String> expected = new ArrayList<>();
+    for (String line : parallelJavaGrepImp.readLines(new File(testDirectoryPath + "/big.log"))) {
+      if (parallelJavaGrepImp.containsPattern(line)) {
+        expected.add(line);
+      }
+    }
+
+    for (ScanMode scanMode : ScanMode.values()) {
+      // Act
+      parallelJavaGrepImp.setScanMode(scanMode);
+      parallelJavaGrepImp.process();
+
+      // Assert
+      assertEquals(expected, parallelJavaGrepImp.readLines(new File(outFile)));
+
+      // Act
+      parallelJavaGrepImp.setReportPatterns(true);
+      parallelJavaGrepImp.process();
+      parallelJavaGrepImp.setReportPatterns(false);
+
+      // Assert
+      List<String> outFileContent = parallelJavaGrepImp.readLines(new File(outFile));
+      assertEquals(expected.size(), outFileContent.size());
+      assertEquals("pattern \\d+:" + expected.get(0), outFileContent.get(0));
+    }
+  }
+
+  /**
+   * Test case for split method with a line longer than the chunk size.
+   * Expects line-aligned chunks that cover the whole file.
+   */
+  @Test
+  public void testSplit_LongLine_AlignedChunks() throws IOException {
+    // Arrange
+    writeToFile(testDirectoryPath + "/long.log", "a\r\nbbbbbbbbbb\ncc\rd");
+    File file = new File(testDirectoryPath + "/long.log");
+
+    // Act
+    List<ChunkedFileReader.Chunk> chunks = ChunkedFileReader.split(file, 2);
+
+    // Assert
+    assertEquals(4, chunks.size());
+    assertEquals(3, chunks.get(0).getEnd());
+    assertEquals(14, chunks.get(1).getEnd());
+    assertEquals(17, chunks.get(2).getEnd());
+    assertEquals(file.length(), chunks.get(3).getEnd());
+  }
+
+  /**
+   * Test case for process method with a result mode and a run maximum.
+   * Expects the files with matches in sorted order, cut at the run maximum.
+   */
+  @Test
+  public void testProcess_FilesWithMatchesMaxTotal_SortedPrefix() throws IOException {
+    // Arrange
+    writeToFile(testDirectoryPath + "/b.txt", "skip\npattern b");
+    writeToFile(testDirectoryPath + "/a/z.txt", "pattern az");
+    writeToFile(testDirectoryPath + "/a/y.txt", "nothing");
+    writeToFile(testDirectoryPath + "/c.txt", "pattern c");
+    parallelJavaGrepImp.setRegex("pattern");
+    parallelJavaGrepImp.setRootPath(testDirectoryPath);
+    parallelJavaGrepImp.setResultMode(ResultMode.FILES_WITH_MATCHES);
+    parallelJavaGrepImp.setMaxTotal(2);
+
+    // Act
+    parallelJavaGrepImp.process();
+
+    // Assert
+    assertEquals(List.of(new File(testDirectoryPath, "a/z.txt").getPath(),
+        new File(testDirectoryPath, "b.txt").getPath()),
+        parallelJavaGrepImp.readLines(new File(outFile)));
+  }
+
+  // Helper method to write content to a file, creating parent directories
+  private void writeToFile(String filePath, String content) {
+    File file = new File(filePath);
+    file.getParentFile().mkdirs();
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+      writer.write(content);
+    } catch (IOException e) {
+      logger.error("Failed to write to file: " + file.getAbsolutePath(), e);
+      throw new AssertionError("Failed to write to file: " + file.getAbsolutePath(), e);
+    }
+  }
+
+  // Helper method to delete a directory recursively
+  private void deleteDirectory(String directoryPath) {
+    File directory = new File(directoryPath);
+    if (directory.exists()) {
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          if (file.isDirectory()) {
+            deleteDirectory(file.getAbsolutePath());
+          } else {
+            file.delete();
+          }
+        }
+      }
+      directory.delete();
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/**
+ * Unit tests for RegexLiterals, LiteralSearcher and PrefilteredLineMatcher.
+ */
+public class PrefilteredLineMatcherTest {
+
+  /**
+   * Test case for requiredLiterals method with a concatenation of literals and wildcards.
+   * Expects every literal run to be extracted, longest first.
+   */
+  @Test
+  public void testRequiredLiterals_Concatenation_Success() {
+    assertEquals(Arrays.asList("timeout", "ERROR"), RegexLiterals.requiredLiterals("ERROR.*timeout"));
+    assertEquals(Arrays.asList("ab", "bc"), RegexLiterals.requiredLiterals("ab+c"));
+    assertEquals(Arrays.asList("a.b", "x"), RegexLiterals.requiredLiterals("a\\.b[0-9]?x"));
+    assertEquals(Collections.singletonList("foo(bar)"),
+        RegexLiterals.requiredLiterals("\\Qfoo(bar)\\E"));
+  }
+
+  /**
+   * Test case for requiredLiterals method with constructs that make literals optional.
+   * Expects no literal to be extracted.
+   */
+  @Test
+  public void testRequiredLiterals_Unprovable_Empty() {
+    assertTrue(RegexLiterals.requiredLiterals("error|warn").isEmpty());
+    assertTrue(RegexLiterals.requiredLiterals("(?x) e r r o r").isEmpty());
+    assertTrue(RegexLiterals.requiredLiterals("\\x41").isEmpty());
+    assertTrue(RegexLiterals.requiredLiterals("(error)?[a-z]*").isEmpty());
+    assertEquals(Collections.singletonList("b"), RegexLiterals.requiredLiterals("a?b"));
+  }
+
+  /**
+   * Test case for asLiteral method.
+   * Expects only plain literals to be recognised.
+   */
+  @Test
+  public void testAsLiteral() {
+    assertEquals("pattern", RegexLiterals.asLiteral("pattern"));
+    assertEquals("a.b", RegexLiterals.asLiteral("a\\.b"));
+    assertNull(RegexLiterals.asLiteral("a.b"));
+    assertNull(RegexLiterals.asLiteral("^pattern"));
+  }
+
+  /**
+   * Test case for LiteralSearcher with ASCII case folding.
+   * Expects ASCII letters to be folded and other chars to be compared exactly.
+   */
+  @Test
+  public void testLiteralSearcher_CaseFolding() {
+    LiteralSearcher searcher = new LiteralSearcher("TimeOut");
+    assertEquals(11, searcher.indexOf("read hit a timeout"));
+    assertEquals(0, searcher.indexOf("TIMEOUT"));
+    assertEquals(-1, searcher.indexOf("time out"));
+    assertEquals(-1, new LiteralSearcher("été").indexOf("ÉTÉ"));
+    assertEquals(1, new LiteralSearcher("été").indexOf("xéTé"));
+  }
+
+  /**
+   * Test case for PrefilteredLineMatcher agreeing with java.util.regex.
+   * Expects identical results and rejected lines to be counted.
+   */
+  @Test
+  public void testMatches_AgreesWithRegex_CountsRejections() {
+    String regex = "ERROR.*time(out)?";
+    Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+    LineMatcher matcher = PrefilteredLineMatcher.wrap(regex, new RegexLineMatcher(regex));
+    String[] lines = {"error: timeout", "ERROR time", "info: all good", "time ERROR", ""};
+
+    for (String line : lines) {
+      assertEquals(line, pattern.matcher(line).find(), matcher.matches(line));
+    }
+
+    PrefilteredLineMatcher prefilter = (PrefilteredLineMatcher) matcher;
+    assertEquals(5, prefilter.getLinesTested());
+    assertEquals(2, prefilter.getLinesRejected());
+  }
+
+  /**
+   * Test case for quantifiers after a surrogate pair or an empty quote.
+   * Expects the whole code point, or the char before the quote, to be optional, as in the regex.
+   */
+  @Test
+  public void testMatches_QuantifiedCodePointAndEmptyQuote_AgreesWithRegex() {
+    assertEquals(Collections.singletonList("c"), RegexLiterals.requiredLiterals("c\uD83D\uDE00?"));
+    assertTrue(RegexLiterals.requiredLiterals("b\\Q\\E{0,2}").isEmpty());
+    assertTrue(RegexLiterals.requiredLiterals("x\\Q\\E*").isEmpty());
+
+    String[] regexes = {"c\uD83D\uDE00?", "c\uD83D\uDE00+d", "b\\Q\\E{0,2}", "x\\Q\\E*"};
+    String[] lines = {"c", "c\uD83D\uDE00\uD83D\uDE00d", "c\uD83Dd", "b", "x", ""};
+    for (String regex : regexes) {
+      Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+      LineMatcher matcher = PrefilteredLineMatcher.wrap(regex, new RegexLineMatcher(regex));
+      for (String line : lines) {
+        assertEquals(regex + " on " + line, pattern.matcher(line).find(), matcher.matches(line));
+      }
+    }
+  }
+
+  /**
+   * Test case for wrap method with a plain literal regex.
+   * Expects the delegate to never be called.
+   */
+  @Test
+  public void testWrap_PlainLiteral_SkipsDelegate() {
+    LineMatcher matcher = PrefilteredLineMatcher.wrap("pattern", line -> {
+      throw new AssertionError("delegate should not run");
+    });
+
+    assertTrue(matcher.matches("a PATTERN here"));
+    assertFalse(matcher.matches("nothing"));
+  }
+}
@@ -0,0 +1,151 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ResultBuffer class.
+ */
+public class ResultBufferTest {
+
+  private Path spillDirectory;
+
+  /**
+   * Setup method to create an empty spill directory.
+   * @throws IOException if the directory cannot be created.
+   */
+  @Before
+  public void setup() throws IOException {
+    spillDirectory = Files.createTempDirectory("result-buffer-test");
+  }
+
+  /**
+   * Cleanup method to remove the spill directory.
+   * @throws IOException if the directory cannot be removed.
+   */
+  @After
+  public void cleanup() throws IOException {
+    try (Stream<Path> files = Files.list(spillDirectory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(spillDirectory);
+  }
+
+  /**
+   * Test case for a buffer that stays within its memory limit.
+   * Expects no run files and the lines back in the order they were added.
+   */
+  @Test
+  public void testWriteTo_InMemory_InsertionOrder() throws IOException {
+    // Arrange
+    List<String> lines = List.of("b", "", "a", "ümlaut", "b");
+    try (ResultBuffer buffer = new ResultBuffer(1 << 20, spillDirectory, null)) {
+      for (String line : lines) {
+        buffer.add(line);
+      }
+
+      // Act
+      List<String> written = writeAll(buffer);
+
+      // Assert
+      assertEquals(0, buffer.getRunCount());
+      assertEquals(5, buffer.size());
+      assertEquals(lines, written);
+    }
+  }
+
+  /**
+   * Test case for a buffer that spills many runs, without and with an order.
+   * Expects the same lines as an in-memory list, sorted stably when there is an order, and the
+   * run files deleted on close.
+   */
+  @Test
+  public void testWriteTo_SpilledRuns_MergedInOrder() throws IOException {
+    // Arrange
+    Random random = new Random(3);
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      lines.add(random.nextInt(50) + (i % 7 == 0 ? " é" : "") + " #" + i);
+    }
+    Comparator<String> byKey = Comparator.comparing(line -> line.substring(0, line.indexOf(' ')));
+    List<String> sorted = new ArrayList<>(lines);
+    sorted.sort(byKey);
+
+    try (ResultBuffer unordered = new ResultBuffer(300, spillDirectory, null);
+        ResultBuffer ordered = new ResultBuffer(300, spillDirectory, byKey)) {
+      for (String line : lines) {
+        unordered.add(line);
+        ordered.add(line);
+      }
+
+      // Act
+      List<String> inAddedOrder = writeAll(unordered);
+      List<String> inKeyOrder = writeAll(ordered);
+
+      // Assert
+      assertTrue(unordered.getRunCount() > 10);
+      assertTrue(ordered.bufferedBytes() <= 300);
+      assertEquals(lines, inAddedOrder);
+      assertEquals(sorted, inKeyOrder);
+      assertEquals(lines, writeAll(unordered));
+    }
+    try (Stream<Path> files = Files.list(spillDirectory)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  /**
+   * Test case for a consumer that stops the stream.
+   * Expects no lines after the consumer returns false.
+   */
+  @Test
+  public void testWriteTo_ConsumerStops_NoMoreLines() throws IOException {
+    // Arrange
+    try (ResultBuffer buffer = new ResultBuffer(10, spillDirectory, null)) {
+      for (int i = 0; i < 20; i++) {
+        buffer.add("line " + i);
+      }
+      List<String> written = new ArrayList<>();
+
+      // Act
+      buffer.writeTo(line -> {
+        written.add(line);
+        return written.size() < 3;
+      });
+
+      // Assert
+      assertEquals(List.of("line 0", "line 1", "line 2"), written);
+    }
+  }
+
+  /**
+   * Test case for a non-positive memory limit.
+   * Expects an IllegalArgumentException.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_ZeroMemoryLimit_IllegalArgument() {
+    // Act
+    new ResultBuffer(0);
+  }
+
+  // Helper method collecting every line of the buffer
+  private static List<String> writeAll(ResultBuffer buffer) throws IOException {
+    List<String> lines = new ArrayList<>();
+    buffer.writeTo(lines::add);
+    return lines;
+  }
+}
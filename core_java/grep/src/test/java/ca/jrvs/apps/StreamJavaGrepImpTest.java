@@ -2,6 +2,7 @@ package ca.jrvs.apps;
 
 import org.apache.log4j.BasicConfigurator;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -9,11 +10,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.*;
 
@@ -395,6 +398,363 @@ public class StreamJavaGrepImpTest {
     assertTrue(outFileContent.isEmpty());
   }
 
+  /**
+   * Test case for watch method with files that grow and new files in a new subdirectory.
+   * Expects existing matches first, then only the new matches, each written once.
+   */
+  @Test
+  public void testWatch_AppendedAndCreatedFiles_StreamsNewMatches() throws Exception {
+    // Arrange
+    streamJavaGrepImp.setRegex(".*error.*");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+    File log = createTempFile(testDirectoryPath + "/app.log");
+    writeToFile(log, "error one\ninfo\n");
+    Thread watcher = new Thread(() -> {
+      try {
+        streamJavaGrepImp.watch();
+      } catch (IOException e) {
+        logger.error("Watch failed", e);
+      }
+    });
+    watcher.start();
+
+    try {
+      waitForLines(1);
+
+      // Act
+      try (FileWriter writer = new FileWriter(log, true)) {
+        writer.write("error two\nerror partial");
+      }
+      waitForLines(2);
+      try (FileWriter writer = new FileWriter(log, true)) {
+        writer.write(" done\n");
+      }
+      File newLog = new File(testDirectoryPath + "/sub/new.log");
+      newLog.getParentFile().mkdirs();
+      writeToFile(newLog, "info\nerror three\n");
+      waitForLines(4);
+    } finally {
+      streamJavaGrepImp.stopWatching();
+      watcher.join(5000);
+    }
+
+    // Assert
+    List<String> outFileContent = readLinesFromFile(outFile);
+    assertFalse(watcher.isAlive());
+    assertEquals(4, outFileContent.size());
+    assertEquals("error one", outFileContent.get(0));
+    assertEquals("error two", outFileContent.get(1));
+    assertTrue(outFileContent.contains("error partial done"));
+    assertTrue(outFileContent.contains("error three"));
+  }
+
+  /**
+   * Test case for watch method with a symbolic link to a directory outside the root.
+   * Expects the linked directory to be watched like the walk reads it, so a file created in it
+   * is streamed.
+   */
+  @Test
+  public void testWatch_LinkedDirectory_Watched() throws Exception {
+    // Arrange
+    streamJavaGrepImp.setRegex(".*error.*");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+    writeToFile(createTempFile(testDirectoryPath + "/app.log"), "error one\n");
+    Path outside = Files.createTempDirectory("watch-outside");
+    Path link = Paths.get(testDirectoryPath, "ext");
+    try {
+      Files.createSymbolicLink(link, outside);
+    } catch (UnsupportedOperationException | IOException e) {
+      Files.delete(outside);
+      Assume.assumeNoException(e);
+    }
+    Thread watcher = new Thread(() -> {
+      try {
+        streamJavaGrepImp.watch();
+      } catch (IOException e) {
+        logger.error("Watch failed", e);
+      }
+    });
+    watcher.start();
+
+    try {
+      waitForLines(1);
+
+      // Act
+      writeToFile(outside.resolve("new.log").toFile(), "info\nerror two\n");
+      waitForLines(2);
+    } finally {
+      streamJavaGrepImp.stopWatching();
+      watcher.join(5000);
+      Files.delete(link);
+      Files.deleteIfExists(outside.resolve("new.log"));
+      Files.delete(outside);
+    }
+
+    // Assert
+    assertFalse(watcher.isAlive());
+    assertEquals(List.of("error one", "error two"), readLinesFromFile(outFile));
+  }
+
+  /**
+   * Test case for process method with a gzip file, in both scan modes.
+   * Expects the decompressed lines to be searched.
+   */
+  @Test
+  public void testProcess_GzipFile_Decompressed() throws IOException {
+    // Arrange
+    new File(testDirectoryPath).mkdirs();
+    try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(
+        new FileOutputStream(testDirectoryPath + "/app.log.gz")))) {
+      writer.write("info\npattern inside gzip\ninfo\n");
+    }
+    streamJavaGrepImp.setRegex("pattern");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+
+    for (ScanMode scanMode : ScanMode.values()) {
+      // Act
+      streamJavaGrepImp.setScanMode(scanMode);
+      streamJavaGrepImp.process();
+
+      // Assert
+      List<String> outFileContent = readLinesFromFile(outFile);
+      assertEquals(1, outFileContent.size());
+      assertEquals("pattern inside gzip", outFileContent.get(0));
+    }
+  }
+
+  /**
+   * Test case for process method with a binary file, skipped and reported, in both scan modes.
+   * Expects no lines from the binary file, or a single report line.
+   */
+  @Test
+  public void testProcess_BinaryFile_SkippedOrReported() throws IOException {
+    // Arrange
+    new File(testDirectoryPath).mkdirs();
+    Files.write(Paths.get(testDirectoryPath, "core.bin"), "\0pattern\n".getBytes());
+    streamJavaGrepImp.setRegex("pattern");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+
+    for (ScanMode scanMode : ScanMode.values()) {
+      // Act & Assert
+      streamJavaGrepImp.setScanMode(scanMode);
+      streamJavaGrepImp.setBinaryMode(BinaryMode.SKIP);
+      streamJavaGrepImp.process();
+      assertTrue(readLinesFromFile(outFile).isEmpty());
+
+      streamJavaGrepImp.setBinaryMode(BinaryMode.REPORT);
+      streamJavaGrepImp.process();
+      assertEquals("Binary file " + new File(testDirectoryPath, "core.bin").getPath() + " matches",
+          readLinesFromFile(outFile).get(0));
+    }
+  }
+
+  /**
+   * Test case for process method with a report file, in each scan mode.
+   * Expects the run metrics to count the files and lines and the JSON report to be written.
+   */
+  @Test
+  public void testProcess_ReportFile_MetricsWritten() throws IOException {
+    // Arrange
+    String reportFile = "ReportTest.json";
+    writeToFile(createTempFile(testDirectoryPath + "/a.txt"), "pattern one\nother\n");
+    writeToFile(createTempFile(testDirectoryPath + "/b.txt"), "pattern two\n");
+    streamJavaGrepImp.setRegex(".*pattern.*");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+    streamJavaGrepImp.setReportFile(reportFile);
+
+    try {
+      for (ScanMode scanMode : ScanMode.values()) {
+        // Act
+        streamJavaGrepImp.setScanMode(scanMode);
+        streamJavaGrepImp.process();
+
+        // Assert
+        GrepMetrics metrics = streamJavaGrepImp.getMetrics();
+        assertEquals(2, metrics.getFilesVisited());
+        assertEquals(2, metrics.getFilesSearched());
+        assertEquals(30, metrics.getFileBytes());
+        if (scanMode == ScanMode.LINES) {
+          assertEquals(3, metrics.getLinesScanned());
+        }
+        assertEquals(2, metrics.getLinesMatched());
+        assertEquals(2, metrics.getLinesWritten());
+        String report = new String(Files.readAllBytes(Paths.get(reportFile))).trim();
+        assertEquals(metrics.toJson(), report);
+      }
+    } finally {
+      deleteFile(reportFile);
+    }
+  }
+
+  /**
+   * Test case for process method in each result mode and with the maximums, in each scan mode.
+   * Expects counts and paths instead of lines, and no file to be read after the run maximum.
+   */
+  @Test
+  public void testProcess_ResultModes_ShortCircuit() throws IOException {
+    // Arrange
+    writeToFile(createTempFile(testDirectoryPath + "/a.txt"),
+        "pattern 1\npattern 2\nother\npattern 3\n");
+    writeToFile(createTempFile(testDirectoryPath + "/b.txt"), "nothing\n");
+    writeToFile(createTempFile(testDirectoryPath + "/c.txt"), "pattern 4\n");
+    String a = new File(testDirectoryPath, "a.txt").getPath();
+    String b = new File(testDirectoryPath, "b.txt").getPath();
+    String c = new File(testDirectoryPath, "c.txt").getPath();
+    streamJavaGrepImp.setRegex("pattern");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+
+    for (ScanMode scanMode : ScanMode.values()) {
+      // Act & Assert
+      streamJavaGrepImp.setScanMode(scanMode);
+      streamJavaGrepImp.setMaxCount(Long.MAX_VALUE);
+      streamJavaGrepImp.setMaxTotal(Long.MAX_VALUE);
+
+      streamJavaGrepImp.setResultMode(ResultMode.COUNT);
+      streamJavaGrepImp.process();
+      assertEquals(List.of(a + ":3", b + ":0", c + ":1"), readLinesFromFile(outFile));
+
+      streamJavaGrepImp.setResultMode(ResultMode.FILES_WITH_MATCHES);
+      streamJavaGrepImp.process();
+      assertEquals(List.of(a, c), readLinesFromFile(outFile));
+
+      streamJavaGrepImp.setResultMode(ResultMode.FILES_WITHOUT_MATCH);
+      streamJavaGrepImp.process();
+      assertEquals(List.of(b), readLinesFromFile(outFile));
+
+      streamJavaGrepImp.setResultMode(ResultMode.LINES);
+      streamJavaGrepImp.setMaxCount(2);
+      streamJavaGrepImp.process();
+      assertEquals(List.of("pattern 1", "pattern 2", "pattern 4"), readLinesFromFile(outFile));
+
+      streamJavaGrepImp.setMaxTotal(1);
+      streamJavaGrepImp.process();
+      assertEquals(List.of("pattern 1"), readLinesFromFile(outFile));
+      assertEquals(1, streamJavaGrepImp.getMetrics().getFilesSearched());
+    }
+  }
+
+  /**
+   * Test case for process method with before and after context, in each scan mode.
+   * Expects overlapping context merged and separators between groups, also across files.
+   */
+  @Test
+  public void testProcess_Context_MergedWithSeparators() throws IOException {
+    // Arrange
+    writeToFile(createTempFile(testDirectoryPath + "/a.txt"),
+        "1\n2\npattern 3\n4\n5\npattern 6\n7\n8\n9\n10\npattern 11\n12\n");
+    writeToFile(createTempFile(testDirectoryPath + "/b.txt"), "pattern 1\n2\n3\n");
+    streamJavaGrepImp.setRegex("pattern");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+    streamJavaGrepImp.setBeforeContext(1);
+    streamJavaGrepImp.setAfterContext(2);
+
+    for (ScanMode scanMode : ScanMode.values()) {
+      // Act
+      streamJavaGrepImp.setScanMode(scanMode);
+      streamJavaGrepImp.process();
+
+      // Assert
+      assertEquals(List.of("2", "pattern 3", "4", "5", "pattern 6", "7", "8", "--", "10",
+          "pattern 11", "12", "--", "pattern 1", "2", "3"), readLinesFromFile(outFile));
+    }
+  }
+
+  /**
+   * Test case for process method in parallel, in each scan mode and result mode.
+   * Expects the same output as a sequential run, also when the run maximum cuts it short.
+   */
+  @Test
+  public void testProcess_Parallel_SameAsSequential() throws IOException {
+    // Arrange
+    for (int d = 0; d < 8; d++) {
+      for (int f = 0; f < 8; f++) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+          content.append((d + f + i) % 3 == 0 ? "pattern " : "other ").append(i).append('\n');
+        }
+        writeToFile(createTempFile(testDirectoryPath + "/d" + d + "/f" + f + ".txt"),
+            content.toString());
+      }
+    }
+    streamJavaGrepImp.setRegex("pattern");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+
+    for (ScanMode scanMode : ScanMode.values()) {
+      for (ResultMode resultMode : ResultMode.values()) {
+        for (long maxTotal : new long[]{Long.MAX_VALUE, 50}) {
+          streamJavaGrepImp.setScanMode(scanMode);
+          streamJavaGrepImp.setResultMode(resultMode);
+          streamJavaGrepImp.setMaxTotal(maxTotal);
+          streamJavaGrepImp.setParallel(false);
+          streamJavaGrepImp.process();
+          List<String> expected = readLinesFromFile(outFile);
+
+          // Act
+          streamJavaGrepImp.setParallel(true);
+          streamJavaGrepImp.process();
+
+          // Assert
+          assertEquals(scanMode + " " + resultMode + " " + maxTotal, expected,
+              readLinesFromFile(outFile));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test case for process method in parallel with many directories hard-linking one shared file.
+   * Expects the shared lines once, at the first link in listFiles order, like JavaGrepImp,
+   * however the splits are scheduled, also when the run maximum cuts the output short.
+   */
+  @Test
+  public void testProcess_ParallelLinkedDuplicates_SameAsJavaGrepImp() throws IOException {
+    // Arrange
+    File shared = createTempFile(testDirectoryPath + "/z/shared.txt");
+    writeToFile(shared, "pattern shared\n");
+    try {
+      for (int d = 0; d < 16; d++) {
+        String dir = String.format("%s/d%02d", testDirectoryPath, d);
+        writeToFile(createTempFile(dir + "/a.txt"),
+            "pattern " + d + "\npattern again " + d + "\n");
+        Files.createLink(Paths.get(dir, "b.txt"), shared.toPath());
+      }
+    } catch (UnsupportedOperationException | IOException e) {
+      Assume.assumeNoException(e);
+    }
+    JavaGrepImp javaGrepImp = new JavaGrepImp();
+    javaGrepImp.setRegex("pattern");
+    javaGrepImp.setRootPath(testDirectoryPath);
+    javaGrepImp.setOutFile(outFile);
+    streamJavaGrepImp.setRegex("pattern");
+    streamJavaGrepImp.setRootPath(testDirectoryPath);
+    streamJavaGrepImp.setParallel(true);
+
+    for (long maxTotal : new long[]{Long.MAX_VALUE, 20}) {
+      javaGrepImp.setMaxTotal(maxTotal);
+      javaGrepImp.process();
+      List<String> expected = readLinesFromFile(outFile);
+      streamJavaGrepImp.setMaxTotal(maxTotal);
+      for (int run = 0; run < 20; run++) {
+        // Act
+        streamJavaGrepImp.process();
+
+        // Assert
+        assertEquals("pattern shared", expected.get(2));
+        assertEquals(maxTotal + " run " + run, expected, readLinesFromFile(outFile));
+      }
+    }
+  }
+
+  /**
+   * Test case for setContext method with a negative size.
+   * Expects an IllegalArgumentException.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetContext_Negative_ThrowsException() {
+    // Act
+    streamJavaGrepImp.setContext(-1);
+  }
+
   // Helper method to create a temporary directory
   private String createTempDirectory() {
     try {
@@ -466,6 +826,17 @@ public class StreamJavaGrepImpTest {
     }
   }
 
+  // Helper method to wait until the outFile has at least the given number of lines
+  private void waitForLines(int count) throws IOException, InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (readLinesFromFile(outFile).size() < count) {
+      if (System.currentTimeMillis() > deadline) {
+        throw new AssertionError("Timed out waiting for " + count + " lines in " + outFile);
+      }
+      Thread.sleep(20);
+    }
+  }
+
   // Helper method to read lines from a file
   private List<String> readLinesFromFile(String filePath) throws IOException {
     return Files.readAllLines(Paths.get(filePath));
@@ -0,0 +1,130 @@
+package ca.jrvs.apps;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit tests for the ThreadPerFileJavaGrepImp class.
+ */
+public class ThreadPerFileJavaGrepImpTest {
+
+  private ThreadPerFileJavaGrepImp threadPerFileJavaGrepImp;
+  private final String outFile = "OutPutTest.txt";
+
+  private final String testDirectoryPath = "testing";
+
+  private final Logger logger = LoggerFactory.getLogger(ThreadPerFileJavaGrepImpTest.class);
+
+  /**
+   * Setup method to create a tree of files with matches in every file.
+   * @throws IOException if an error occurs during setup.
+   */
+  @Before
+  public void setup() throws IOException {
+    threadPerFileJavaGrepImp = new ThreadPerFileJavaGrepImp();
+    threadPerFileJavaGrepImp.setOutFile(outFile);
+    threadPerFileJavaGrepImp.setRegex("pattern");
+    threadPerFileJavaGrepImp.setRootPath(testDirectoryPath);
+    threadPerFileJavaGrepImp.setMaxConcurrentFiles(3);
+    Files.createFile(Paths.get(outFile));
+    for (int i = 0; i < 20; i++) {
+      writeToFile(String.format("%s/dir%d/file%02d.txt", testDirectoryPath, i % 4, i),
+          "pattern " + i + "\nskip\npattern again " + i);
+    }
+  }
+
+  /**
+   * Cleanup method to clean up test resources after each test.
+   */
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(Paths.get(outFile));
+    deleteDirectory(testDirectoryPath);
+  }
+
+  /**
+   * Test case for process method with virtual threads.
+   * Expects the output in listFiles order.
+   */
+  @Test
+  public void testProcess_VirtualThreads_OrderedOutput() throws IOException {
+    // Act
+    threadPerFileJavaGrepImp.setVirtualThreads(true);
+    threadPerFileJavaGrepImp.process();
+
+    // Assert
+    assertEquals(expectedLines(), threadPerFileJavaGrepImp.readLines(new File(outFile)));
+  }
+
+  /**
+   * Test case for process method with the platform-thread pool in streaming mode.
+   * Expects the output in listFiles order.
+   */
+  @Test
+  public void testProcess_PlatformPoolStreaming_OrderedOutput() throws IOException {
+    // Act
+    threadPerFileJavaGrepImp.setVirtualThreads(false);
+    threadPerFileJavaGrepImp.setStreaming(true);
+    threadPerFileJavaGrepImp.process();
+
+    // Assert
+    assertEquals(expectedLines(), threadPerFileJavaGrepImp.readLines(new File(outFile)));
+  }
+
+  // Helper method computing the expected output with the sequential implementation
+  private List<String> expectedLines() throws IOException {
+    List<String> expected = new ArrayList<>();
+    for (File file : threadPerFileJavaGrepImp.listFiles(testDirectoryPath)) {
+      for (String line : threadPerFileJavaGrepImp.readLines(file)) {
+        if (line.startsWith("pattern")) {
+          expected.add(line);
+        }
+      }
+    }
+    assertEquals(40, expected.size());
+    return expected;
+  }
+
+  // Helper method to write content to a file, creating parent directories
+  private void writeToFile(String filePath, String content) {
+    File file = new File(filePath);
+    file.getParentFile().mkdirs();
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+      writer.write(content);
+    } catch (IOException e) {
+      logger.error("Failed to write to file: " + file.getAbsolutePath(), e);
+      throw new AssertionError("Failed to write to file: " + file.getAbsolutePath(), e);
+    }
+  }
+
+  // Helper method to delete a directory recursively
+  private void deleteDirectory(String directoryPath) {
+    File directory = new File(directoryPath);
+    if (directory.exists()) {
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          if (file.isDirectory()) {
+            deleteDirectory(file.getAbsolutePath());
+          } else {
+            file.delete();
+          }
+        }
+      }
+      directory.delete();
+    }
+  }
+}